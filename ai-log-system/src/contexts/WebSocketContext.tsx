@@ -8,7 +8,7 @@ export type WSStatus = 'CONNECTING' | 'OPEN' | 'CLOSED' | 'RECONNECTING' | 'ERRO
 
 export interface WSEvent {
   id: string;
-  type: 'LOG' | 'ALERT' | 'STATS' | 'PROCESS' | 'NOTIFICATION';
+  type: 'LOG' | 'ALERT' | 'STATS' | 'PROCESS' | 'NOTIFICATION' | 'BATCH' | 'DASHBOARD_DELTA';
   ts: number;
   data: any;
 }
@@ -56,7 +56,36 @@ const MAX_LOGS = 200;
 const MAX_ALERTS = 100;
 const ALERT_DEDUP_MS = 5000;
 
-export const WebSocketProvider: React.FC<{ children: React.ReactNode }> = ({ children }) => {
+// 服务端把同一窗口内的多个事件合并为一个 BATCH 帧
+const unpackBatch = (body: string): WSEvent[] => {
+  const event: WSEvent = JSON.parse(body);
+  return event.type === 'BATCH' && Array.isArray(event.data?.events) ? event.data.events : [event];
+};
+
+// JSON Merge Patch（RFC 7386）：null 表示删除字段，对象递归合并
+const applyMergePatch = (target: any, patch: any): any => {
+  if (patch === null || typeof patch !== 'object' || Array.isArray(patch)) return patch;
+  const result = target && typeof target === 'object' && !Array.isArray(target) ? { ...target } : {};
+  Object.entries(patch).forEach(([key, value]) => {
+    if (value === null) delete result[key];
+    else result[key] = applyMergePatch(result[key], value);
+  });
+  return result;
+};
+
+// 仪表板状态沿用 STATS 的字段名，供现有组件直接使用
+const toStatistics = (state: any) => ({
+  ...state,
+  totalLogs: state.totalEvents,
+  todayLogs: state.todayEvents,
+  levelCounts: state.severityCounts,
+});
+
+/**
+ * filter 为服务端订阅过滤表达式，例如 "severity>=HIGH; sourceSystem=WINDOWS; host=web-01"，
+ * 设置后服务端只推送匹配的事件
+ */
+export const WebSocketProvider: React.FC<{ children: React.ReactNode; filter?: string }> = ({ children, filter }) => {
   const [status, setStatus] = useState<WSStatus>('CLOSED');
   const [events, setEvents] = useState<WSEvent[]>([]);
   const [logs, setLogs] = useState<any[]>([]);
@@ -71,6 +100,8 @@ export const WebSocketProvider: React.FC<{ children: React.ReactNode }> = ({ chi
   const handlersRef = useRef<Set<MessageHandler>>(new Set());
   const eventIdsRef = useRef<Set<string>>(new Set());
   const alertNotifRef = useRef<Map<string, number>>(new Map());
+  const dashboardRef = useRef<{ seq: number; state: any } | null>(null);
+  const snapshotPendingRef = useRef(false);
 
   const showAlertNotification = useCallback((alertType: string, text: string) => {
     const now = Date.now();
@@ -148,6 +179,38 @@ export const WebSocketProvider: React.FC<{ children: React.ReactNode }> = ({ chi
     });
   }, [showAlertNotification]);
 
+  // 取仪表板完整状态，之后按版本号应用差量
+  const requestDashboardSnapshot = useCallback((client: Client) => {
+    if (snapshotPendingRef.current || !client.connected) return;
+    snapshotPendingRef.current = true;
+    const sub = client.subscribe('/app/dashboard/snapshot', (msg: IMessage) => {
+      snapshotPendingRef.current = false;
+      sub.unsubscribe();
+      try {
+        const snapshot = JSON.parse(msg.body);
+        dashboardRef.current = { seq: snapshot.seq, state: snapshot.state || {} };
+        if (mountedRef.current) setStatistics(toStatistics(dashboardRef.current.state));
+      } catch (e) { console.warn('[WS] dashboard snapshot error:', e); }
+    });
+  }, []);
+
+  const applyDashboardDelta = useCallback((client: Client, event: WSEvent) => {
+    const { seq, prev, patch } = event.data || {};
+    const current = dashboardRef.current;
+    if (!current) {
+      requestDashboardSnapshot(client);
+      return;
+    }
+    if (seq <= current.seq) return;
+    if (prev !== current.seq) {
+      // 中间有差量丢失（落后被丢弃或重连），重新取完整状态
+      requestDashboardSnapshot(client);
+      return;
+    }
+    dashboardRef.current = { seq, state: applyMergePatch(current.state, patch) };
+    if (mountedRef.current) setStatistics(toStatistics(dashboardRef.current.state));
+  }, [requestDashboardSnapshot]);
+
   const doConnect = useCallback(() => {
     if (clientRef.current?.connected) return;
 
@@ -171,15 +234,29 @@ export const WebSocketProvider: React.FC<{ children: React.ReactNode }> = ({ chi
         setStatus('OPEN');
         retryCountRef.current = 0;
 
+        const subscribeHeaders: Record<string, string> = filter ? { filter } : {};
         client.subscribe('/topic/events', (msg: IMessage) => {
           if (!mountedRef.current) return;
           try {
-            const event: WSEvent = JSON.parse(msg.body);
-            if (event.id && event.type && event.ts) {
-              processEvent(event);
-            }
+            unpackBatch(msg.body).forEach(e => {
+              if (e.id && e.type && e.ts) {
+                processEvent(e);
+              }
+            });
           } catch (e) { console.warn('[WS] parse error:', e); }
+        }, subscribeHeaders);
+
+        dashboardRef.current = null;
+        snapshotPendingRef.current = false;
+        client.subscribe('/topic/dashboard', (msg: IMessage) => {
+          if (!mountedRef.current) return;
+          try {
+            unpackBatch(msg.body)
+              .filter(e => e.type === 'DASHBOARD_DELTA')
+              .forEach(e => applyDashboardDelta(client, e));
+          } catch (e) { console.warn('[WS] dashboard parse error:', e); }
         });
+        requestDashboardSnapshot(client);
       },
       onDisconnect: () => {
         if (!mountedRef.current) return;
@@ -216,7 +293,7 @@ export const WebSocketProvider: React.FC<{ children: React.ReactNode }> = ({ chi
 
     clientRef.current = client;
     client.activate();
-  }, [processEvent]);
+  }, [processEvent, filter, applyDashboardDelta, requestDashboardSnapshot]);
 
   const connect = useCallback(() => {
     retryCountRef.current = 0;
@@ -0,0 +1,24 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 统计接口并发子查询配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "aggregate-query")
+public class AggregateQueryProperties {
+
+    /**
+     * 单次请求同时执行的子查询数上限，避免一次统计请求占满数据库连接池
+     */
+    private int maxConcurrency = 4;
+
+    /**
+     * 单次请求全部子查询的总时限（毫秒），超时的子查询取消并在结果中标记
+     */
+    private long timeoutMs = 3000;
+}
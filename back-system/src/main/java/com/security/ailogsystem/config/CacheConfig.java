@@ -1,24 +1,31 @@
 package com.security.ailogsystem.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.security.ailogsystem.service.cache.RangeResultCache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
-
+/**
+ * 注解缓存配置
+ * 各缓存按 cache.specs 使用独立的 Caffeine 规格并开启命中统计，由 Actuator 暴露为 cache.gets 等指标；
+ * 时间范围查询的缓存见 {@link RangeResultCache}
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheSpecProperties properties) {
         CaffeineCacheManager manager = new CaffeineCacheManager();
-        manager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.SECONDS)
-                .maximumSize(200));
+        manager.setCaffeine(Caffeine.from(properties.getDefaultSpec()).recordStats());
+        properties.getSpecs().forEach((name, spec) -> {
+            if (!RangeResultCache.CACHE_NAMES.contains(name)) {
+                manager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+            }
+        });
         return manager;
     }
 }
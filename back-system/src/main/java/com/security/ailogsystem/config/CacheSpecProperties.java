@@ -0,0 +1,49 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存配置：按缓存名称配置 Caffeine 规格，未配置的缓存使用默认规格
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheSpecProperties {
+
+    /**
+     * 注解缓存（@Cacheable）的默认规格
+     */
+    private String defaultSpec = "maximumSize=200,expireAfterWrite=30s";
+
+    /**
+     * 各缓存的规格，键为缓存名称；范围缓存须使用 maximumWeight（按缓存的统计条目数计权重）
+     */
+    private Map<String, String> specs = new HashMap<>();
+
+    private Range range = new Range();
+
+    @Data
+    public static class Range {
+
+        /**
+         * 时间桶结束后等待迟到数据的时间，超过后才视为已关闭并缓存
+         */
+        private long closeDelayMinutes = 15;
+
+        /**
+         * 时间桶失效后的这段时间内重新加载的结果不写入缓存，避免从尚未追上主库的只读副本读到旧数据后长期缓存；
+         * 启用只读副本时应不小于 datasource.replica.max-lag-seconds
+         */
+        private long invalidationGraceSeconds = 0;
+
+        /**
+         * 范围缓存的默认规格：已关闭时间桶的结果不会变化，只按权重淘汰，不设置过期时间
+         */
+        private String defaultSpec = "maximumWeight=200000";
+    }
+}
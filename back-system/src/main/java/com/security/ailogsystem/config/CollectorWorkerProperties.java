@@ -0,0 +1,39 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 常驻 Python 系统信息采集进程池配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "system.info.workers")
+public class CollectorWorkerProperties {
+
+    /**
+     * 是否使用常驻采集进程；关闭时每次采集单独启动 Python 进程
+     */
+    private boolean enabled = true;
+
+    /**
+     * 常驻采集进程数，即同时进行的采集数上限
+     */
+    private int poolSize = 2;
+
+    /**
+     * 单次采集超时（毫秒），超时的进程会被结束并重启
+     */
+    private long requestTimeoutMs = 15000;
+
+    /**
+     * 进程启动到输出就绪行的超时（毫秒）
+     */
+    private long startTimeoutMs = 10000;
+
+    /**
+     * 健康检查间隔（秒）：探测空闲进程并补足进程数
+     */
+    private long healthCheckSeconds = 30;
+}
@@ -34,8 +34,8 @@ public class DatabaseHealthIndicator {
                     result.put("healthy", true);
                     
                     // 添加连接池信息
-                    if (dataSource instanceof HikariDataSource) {
-                        HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+                    HikariDataSource hikariDataSource = ReplicaDataSourceConfig.hikariPool(dataSource);
+                    if (hikariDataSource != null) {
                         var poolBean = hikariDataSource.getHikariPoolMXBean();
                         
                         result.put("poolName", hikariDataSource.getPoolName());
@@ -0,0 +1,130 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据导出配置：导出按游标逐行读取并直接写入响应流，内存占用与导出行数无关
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+
+    /**
+     * 单个数据集最多导出的行数；Excel 单个工作表另受 1048575 行的格式上限约束
+     */
+    private int maxRows = 1_000_000;
+
+    /**
+     * 游标每次从数据库取回的行数（MySQL 需 useCursorFetch=true）
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * 每写出多少行清空一次持久化上下文，使已写出的实体可被回收
+     */
+    private int detachInterval = 1000;
+
+    /**
+     * Excel 导出时内存中保留的行数，超出的行写入临时文件
+     */
+    private int excelRowWindow = 100;
+
+    /**
+     * 流式下载的异步请求超时时间（毫秒）
+     */
+    private long streamTimeoutMs = 1_800_000;
+
+    /**
+     * 批量 ZIP 导出
+     */
+    private Zip zip = new Zip();
+
+    /**
+     * Parquet 导出
+     */
+    private Parquet parquet = new Parquet();
+
+    /**
+     * 异步导出任务
+     */
+    private Jobs jobs = new Jobs();
+
+    @Data
+    public static class Zip {
+
+        /**
+         * DEFLATE 压缩级别，0（不压缩）到 9（最高压缩率），越高越耗 CPU
+         */
+        private int compressionLevel = 6;
+
+        /**
+         * 全局同时在后台生成的数据集数，每个数据集占用一个只读连接
+         */
+        private int parallelism = 4;
+    }
+
+    @Data
+    public static class Parquet {
+
+        /**
+         * 页压缩方式：gzip 或 none
+         */
+        private String compression = "gzip";
+
+        /**
+         * 行组大小（压缩后字节数），一个行组在写出前暂存在内存中
+         */
+        private long rowGroupSize = 32L * 1024 * 1024;
+
+        /**
+         * 数据页大小（编码后、压缩前字节数）
+         */
+        private int pageSize = 1024 * 1024;
+
+        /**
+         * 使用字典编码的字段（实体字段名），适用于取值较少的字符串字段；单个行组内字典过大时自动改为普通编码
+         */
+        private List<String> dictionaryFields = new ArrayList<>(List.of(
+                "eventType", "severity", "sourceSystem", "category", "threatLevel", "status", "hostname"));
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * 导出文件暂存目录
+         */
+        private String stagingDir = System.getProperty("java.io.tmpdir") + "/ai-log-system/export-jobs";
+
+        /**
+         * 同时执行的导出任务数，其余任务排队
+         */
+        private int concurrency = 2;
+
+        /**
+         * 每个用户排队和执行中的任务数上限
+         */
+        private int maxActivePerUser = 2;
+
+        /**
+         * 每个用户保留的任务数上限（含已完成未过期的任务）
+         */
+        private int maxRetainedPerUser = 10;
+
+        /**
+         * 任务结束后文件保留时间（分钟），过期后删除
+         */
+        private long retentionMinutes = 1440;
+
+        /**
+         * 过期清理间隔（毫秒）
+         */
+        private long cleanupIntervalMs = 300_000;
+    }
+}
@@ -0,0 +1,77 @@
+package com.security.ailogsystem.config;
+
+import com.security.ailogsystem.util.PayloadCompression;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大文本字段压缩配置
+ * 加载写入字典与历史字典，并安装为 JPA 压缩转换器使用的全局编解码器
+ */
+@Slf4j
+@Configuration
+public class PayloadCompressionConfig {
+
+    @Value("${storage.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.compression.min-length:512}")
+    private int minLength;
+
+    @Value("${storage.compression.level:6}")
+    private int level;
+
+    @Value("${storage.compression.dictionary:classpath:compression/windows-events.dict}")
+    private String dictionaryLocation;
+
+    @Value("${storage.compression.legacy-dictionaries:}")
+    private List<String> legacyDictionaryLocations;
+
+    @Bean
+    public PayloadCompression payloadCompression(ResourceLoader resourceLoader) {
+        byte[] dictionary = StringUtils.hasText(dictionaryLocation)
+                ? loadDictionary(resourceLoader, dictionaryLocation) : null;
+
+        // 更换字典后旧字典需保留在历史列表中，否则无法解压用旧字典压缩的行
+        Map<String, byte[]> legacy = new HashMap<>();
+        for (String location : legacyDictionaryLocations) {
+            if (StringUtils.hasText(location)) {
+                byte[] bytes = loadDictionary(resourceLoader, location.trim());
+                if (bytes != null) {
+                    legacy.put(PayloadCompression.dictionaryId(bytes), bytes);
+                }
+            }
+        }
+
+        PayloadCompression compression = new PayloadCompression(enabled, minLength, level, dictionary, legacy);
+        PayloadCompression.install(compression);
+        log.info("大文本字段压缩已{}: 阈值={}字符, 级别={}, 字典={}, 历史字典={}",
+                enabled ? "启用" : "禁用", minLength, level, compression.getDictionaryId(), legacy.keySet());
+        return compression;
+    }
+
+    private byte[] loadDictionary(ResourceLoader resourceLoader, String location) {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.warn("压缩字典不存在: {}", location);
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            log.warn("加载压缩字典失败: {}, {}", location, e.getMessage());
+            return null;
+        }
+    }
+}
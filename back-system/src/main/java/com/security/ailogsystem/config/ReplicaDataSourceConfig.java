@@ -0,0 +1,88 @@
+package com.security.ailogsystem.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * 读写分离数据源配置（datasource.replica.enabled=true 时生效）
+ * 主库连接池沿用 spring.datasource 配置，副本使用独立大小的连接池，对外只暴露经
+ * LazyConnectionDataSourceProxy 包装的路由数据源；未启用时使用 Spring Boot 自动配置的单一连接池
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource replicaDataSource(ReplicaDataSourceProperties properties,
+                                              HikariDataSource primaryDataSource) {
+        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+            throw new IllegalStateException("已启用只读副本但未配置 datasource.replica.url");
+        }
+        HikariConfig config = new HikariConfig();
+        // 驱动参数与主库一致，连接池大小单独配置
+        config.setDataSourceProperties(primaryDataSource.getDataSourceProperties());
+        config.setJdbcUrl(properties.getUrl());
+        config.setUsername(properties.getUsername() != null ? properties.getUsername() : primaryDataSource.getUsername());
+        config.setPassword(properties.getPassword() != null ? properties.getPassword() : primaryDataSource.getPassword());
+        if (properties.getDriverClassName() != null) {
+            config.setDriverClassName(properties.getDriverClassName());
+        }
+        config.setPoolName(properties.getPoolName());
+        config.setMaximumPoolSize(properties.getMaximumPoolSize());
+        config.setMinimumIdle(properties.getMinimumIdle());
+        config.setConnectionTimeout(properties.getConnectionTimeout());
+        // 与主库一致关闭自动提交（Hibernate 配置了 provider_disables_autocommit）
+        config.setAutoCommit(primaryDataSource.isAutoCommit());
+        config.setReadOnly(true);
+        // 启动时副本不可用不影响应用启动，由延迟检测回退主库
+        config.setInitializationFailTimeout(-1);
+        config.setRegisterMbeans(false);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                               ReplicaDataSourceProperties properties) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, properties);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             HikariDataSource replicaDataSource,
+                                                             ReplicaLagMonitor replicaLagMonitor) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * 取数据源背后的 Hikari 连接池，用于连接池监控；启用读写分离时在只读事务外返回主库连接池
+     */
+    public static HikariDataSource hikariPool(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 只读副本数据源配置：启用后只读事务路由到独立连接池的副本，副本延迟超限或不可用时回退主库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * 延迟检测方式
+     */
+    public enum LagCheck {
+        /**
+         * 读取 MySQL SHOW REPLICA STATUS 的 Seconds_Behind_Source，非复制实例视为无延迟
+         */
+        STATUS,
+        /**
+         * 定时向主库心跳表写入时间戳，按副本读到的时间戳计算延迟，适用于任意数据库
+         */
+        HEARTBEAT,
+        /**
+         * 不检测延迟，副本可连接即使用
+         */
+        NONE
+    }
+
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private String poolName = "AiLogSystem-Replica-Pool";
+
+    private int maximumPoolSize = 10;
+
+    private int minimumIdle = 2;
+
+    /**
+     * 获取副本连接的超时时间，超时后本次改用主库
+     */
+    private long connectionTimeout = 2000;
+
+    private LagCheck lagCheck = LagCheck.STATUS;
+
+    /**
+     * 允许的最大复制延迟（秒），超过后只读事务回退主库
+     */
+    private long maxLagSeconds = 5;
+
+    /**
+     * 延迟检测间隔（毫秒）
+     */
+    private long checkIntervalMs = 5000;
+}
@@ -0,0 +1,176 @@
+package com.security.ailogsystem.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 只读副本延迟检测
+ * 定时测量副本的复制延迟，延迟在允许范围内时 {@link ReplicaRoutingDataSource} 才把只读事务路由到副本；
+ * 启动后首次检测完成前、检测失败或复制中断时均视为不可用
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final String HEARTBEAT_TABLE = "replica_heartbeat";
+
+    private final DataSource primary;
+    private final JdbcTemplate replica;
+    private final ReplicaDataSourceProperties properties;
+
+    private volatile boolean healthy;
+    private volatile Long lagSeconds;
+    private volatile String lastError = "尚未检测";
+    private volatile LocalDateTime lastCheckedAt;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, ReplicaDataSourceProperties properties) {
+        this.primary = primary;
+        this.replica = new JdbcTemplate(replica);
+        this.properties = properties;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean wasHealthy = healthy;
+        try {
+            Long lag = measureLag();
+            lagSeconds = lag;
+            healthy = lag != null && lag <= properties.getMaxLagSeconds();
+            lastError = lag == null ? "复制未运行" : null;
+        } catch (DataAccessException | SQLException e) {
+            healthy = false;
+            lagSeconds = null;
+            lastError = e.getMessage();
+        }
+        lastCheckedAt = LocalDateTime.now();
+        if (wasHealthy && !healthy) {
+            log.warn("只读副本不可用，只读事务回退主库: 延迟={}s, 原因={}", lagSeconds, lastError);
+        } else if (!wasHealthy && healthy) {
+            log.info("只读副本可用，只读事务路由到副本: 延迟={}s", lagSeconds);
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("healthy", healthy);
+        status.put("lagSeconds", lagSeconds);
+        status.put("maxLagSeconds", properties.getMaxLagSeconds());
+        status.put("lagCheck", properties.getLagCheck());
+        status.put("lastError", lastError);
+        status.put("lastCheckedAt", lastCheckedAt);
+        return status;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.replica.lag", this, monitor -> monitor.lagSeconds != null ? monitor.lagSeconds : -1)
+                .baseUnit("seconds")
+                .description("只读副本复制延迟，-1 表示无法测量")
+                .register(registry);
+        Gauge.builder("db.replica.healthy", this, monitor -> monitor.healthy ? 1 : 0)
+                .description("只读副本是否参与路由")
+                .register(registry);
+    }
+
+    /**
+     * @return 延迟秒数，复制中断时返回 null
+     */
+    private Long measureLag() throws SQLException {
+        switch (properties.getLagCheck()) {
+            case HEARTBEAT:
+                return heartbeatLag();
+            case NONE:
+                replica.queryForObject("SELECT 1", Integer.class);
+                return 0L;
+            default:
+                return replicaStatusLag();
+        }
+    }
+
+    private Long replicaStatusLag() {
+        List<Map<String, Object>> rows;
+        String column;
+        try {
+            rows = replica.queryForList("SHOW REPLICA STATUS");
+            column = "Seconds_Behind_Source";
+        } catch (BadSqlGrammarException e) {
+            // MySQL 8.0.22 之前的版本
+            rows = replica.queryForList("SHOW SLAVE STATUS");
+            column = "Seconds_Behind_Master";
+        }
+        if (rows.isEmpty()) {
+            // 未配置复制
+            return null;
+        }
+        Object lag = rows.get(0).get(column);
+        return lag instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * 先读主库当前心跳和副本已应用的心跳，再写入新心跳（主库连接池关闭了自动提交，直接用 JDBC 写入并提交）。
+     * 副本已应用主库当前心跳时延迟为 0，否则该心跳写入至今的时间即为延迟下限；
+     * 不能写入后立即读副本比较，那样测得的是两次检测的间隔。主库尚无心跳时无从比较，返回 null
+     */
+    private Long heartbeatLag() throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE
+                        + " (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+            }
+            Long primaryBeat = null;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT beat_millis FROM " + HEARTBEAT_TABLE + " WHERE id = 1")) {
+                if (resultSet.next()) {
+                    primaryBeat = resultSet.getLong(1);
+                }
+            }
+            Long lag = null;
+            if (primaryBeat != null) {
+                List<Long> replicaBeat = replica.queryForList(
+                        "SELECT beat_millis FROM " + HEARTBEAT_TABLE + " WHERE id = 1", Long.class);
+                // 多个实例共用心跳表时副本可能已应用更新的心跳
+                lag = !replicaBeat.isEmpty() && replicaBeat.get(0) >= primaryBeat ? 0L
+                        : Math.max(0, System.currentTimeMillis() - primaryBeat) / 1000;
+            }
+            long now = System.currentTimeMillis();
+            int updated;
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE " + HEARTBEAT_TABLE + " SET beat_millis = ? WHERE id = 1")) {
+                update.setLong(1, now);
+                updated = update.executeUpdate();
+            }
+            if (updated == 0) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO " + HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)")) {
+                    insert.setLong(1, now);
+                    insert.executeUpdate();
+                }
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            return lag;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * SSE 实时事件流配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sse")
+public class SseStreamProperties {
+
+    /**
+     * 内存中保留的最近事件数，断线重连时按 Last-Event-ID 从中补发
+     */
+    private int replaySize = 1000;
+
+    /**
+     * 心跳间隔（秒），用于保持代理连接并及时发现已断开的客户端
+     */
+    private long heartbeatSeconds = 15;
+
+    /**
+     * 单个连接的最长保持时间（分钟），到期后由客户端带 Last-Event-ID 自动重连
+     */
+    private long timeoutMinutes = 30;
+
+    /**
+     * 建议客户端的重连间隔（毫秒）
+     */
+    private long retryMs = 3000;
+
+    /**
+     * 最大并发连接数
+     */
+    private int maxClients = 5000;
+}
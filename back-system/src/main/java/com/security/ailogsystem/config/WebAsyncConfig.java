@@ -0,0 +1,37 @@
+package com.security.ailogsystem.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC 异步请求配置
+ * StreamingResponseBody（流式导出下载）在独立线程池中写出响应，每个写出线程在导出期间占用一个数据库连接，
+ * 因此线程数需小于连接池大小；超时按慢速客户端下载大文件的时间设置
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final ExportProperties exportProperties;
+
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8); // 核心线程数，即同时进行的流式导出上限
+        executor.setMaxPoolSize(8); // 最大线程数
+        executor.setQueueCapacity(20); // 队列容量，超出后拒绝新的导出请求
+        executor.setThreadNamePrefix("MvcAsync-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(exportProperties.getStreamTimeoutMs());
+    }
+}
@@ -1,15 +1,48 @@
 package com.security.ailogsystem.config;
 
+import com.security.ailogsystem.websocket.BinaryEncodingNegotiator;
+import com.security.ailogsystem.websocket.CborMessageConverter;
+import com.security.ailogsystem.websocket.FilteredSubscriptionRegistry;
+import com.security.ailogsystem.websocket.SessionSendBuffer;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final SessionSendBuffer sessionSendBuffer;
+    private final FilteredSubscriptionRegistry filteredSubscriptionRegistry;
+    private final BinaryEncodingNegotiator binaryEncodingNegotiator;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // 带 filter 头的订阅由服务端按条件路由，不交给消息代理；CONNECT 帧协商负载编码
+        registration.interceptors(filteredSubscriptionRegistry, binaryEncodingNegotiator);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // 每个会话有界发送缓冲，慢消费会话丢弃最旧的消息；出队后再按会话转写为 CBOR
+        registration.interceptors(sessionSendBuffer, binaryEncodingNegotiator);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // content-type 为 application/cbor 的消息使用 CBOR，其余仍为 JSON
+        messageConverters.add(new CborMessageConverter());
+        return true;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // 启用简单消息代理
@@ -40,10 +73,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
         // 单独注册原生 WebSocket 端点（不经过 SockJS）
         registry.addEndpoint("/ws-native")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(binaryEncodingNegotiator);
                 
         // 注册原生 /api/ws-native 端点
         registry.addEndpoint("/api/ws-native")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(binaryEncodingNegotiator);
     }
 }
\ No newline at end of file
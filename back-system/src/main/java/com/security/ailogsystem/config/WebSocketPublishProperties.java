@@ -0,0 +1,62 @@
+package com.security.ailogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WebSocket 推送配置：按目的地合并、限速，以及慢消费会话的发送缓冲
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "websocket.publish")
+public class WebSocketPublishProperties {
+
+    /**
+     * 合并窗口（毫秒），窗口内发往同一目的地的事件合并为一帧
+     */
+    private long windowMs = 100;
+
+    /**
+     * 每个目的地每秒最多发出的事件数，超出的事件顺延到后续窗口
+     */
+    private int maxEventsPerSecond = 200;
+
+    /**
+     * 每个目的地待发送事件上限，超出时丢弃最旧的事件
+     */
+    private int maxPending = 2000;
+
+    /**
+     * 只发给过滤订阅的逐条事件每个目的地每秒最多发出的数量，与广播事件分开限速
+     */
+    private int filteredMaxEventsPerSecond = 200;
+
+    /**
+     * 只发给过滤订阅的逐条事件每个目的地待发送上限，超出时丢弃其中最旧的，不影响广播事件
+     */
+    private int filteredMaxPending = 2000;
+
+    /**
+     * 只保留最新值的快照类事件
+     */
+    private List<String> conflatedTypes = new ArrayList<>(List.of("STATS", "PROCESS"));
+
+    /**
+     * 快照类事件的最小发送间隔（毫秒）
+     */
+    private long conflateIntervalMs = 1000;
+
+    /**
+     * 每个会话待发送的消息上限，超出时丢弃最旧的消息
+     */
+    private int sessionBufferSize = 256;
+
+    /**
+     * 是否允许原生 WebSocket 端点的会话在 CONNECT 时协商 CBOR 二进制负载
+     */
+    private boolean binaryEncoding = true;
+}
@@ -3,7 +3,6 @@ package com.security.ailogsystem.controller;
 import com.security.ailogsystem.dto.request.AlertRequest;
 import com.security.ailogsystem.dto.response.AlertResponse;
 import com.security.ailogsystem.model.Alert;
-import com.security.ailogsystem.repository.AlertRepository;
 import com.security.ailogsystem.service.AlertService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,10 +13,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -27,7 +24,6 @@ import java.util.stream.Collectors;
 public class AlertController {
 
     private final AlertService alertService;
-    private final AlertRepository alertRepository;
 
     @PostMapping
     public ResponseEntity<AlertResponse> createAlert(@RequestBody AlertRequest request) {
@@ -52,16 +48,29 @@ public class AlertController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<AlertResponse>> getAllAlerts(
+    public ResponseEntity<?> getAllAlerts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdTime") String sort,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
 
         try {
             Sort.Direction sortDirection = direction.equalsIgnoreCase("asc")
                     ? Sort.Direction.ASC : Sort.Direction.DESC;
+            boolean sparse = fields != null && !fields.isBlank();
+            // 携带 cursor（空串为第一页）时按游标翻页，不执行 COUNT；携带 fields 时只查询指定字段
+            if (cursor != null) {
+                return ResponseEntity.ok(sparse
+                        ? alertService.getAlertFieldsByCursor(sort, sortDirection, size, cursor, fields)
+                        : alertService.searchAlertsByCursor(
+                                null, null, null, null, null, sort, sortDirection, size, cursor));
+            }
             Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
+            if (sparse) {
+                return ResponseEntity.ok(alertService.getAlertFields(pageable, fields));
+            }
 
             Page<AlertResponse> alerts = alertService.getAllAlerts(pageable);
             return ResponseEntity.ok(alerts);
@@ -87,16 +96,21 @@ public class AlertController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<AlertResponse>> searchAlerts(
+    public ResponseEntity<?> searchAlerts(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String alertLevel,
             @RequestParam(required = false) String alertType,
             @RequestParam(required = false) Boolean handled,
             @RequestParam(required = false) Alert.AlertStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
 
         try {
+            if (cursor != null) {
+                return ResponseEntity.ok(alertService.searchAlertsByCursor(
+                        keyword, alertLevel, alertType, handled, status, "createdTime", Sort.Direction.DESC, size, cursor));
+            }
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdTime"));
             Page<AlertResponse> alerts = alertService.searchAlerts(keyword, alertLevel, alertType, handled, status, pageable);
             return ResponseEntity.ok(alerts);
@@ -232,45 +246,7 @@ public class AlertController {
     @GetMapping("/statistics/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboardStatistics() {
         try {
-            Map<String, Object> statistics = new HashMap<>();
-
-            // 1. 威胁等级分布
-            Map<String, Long> threatLevels = new HashMap<>();
-            threatLevels.put("LOW", alertRepository.countByAlertLevel("LOW"));
-            threatLevels.put("MEDIUM", alertRepository.countByAlertLevel("MEDIUM"));
-            threatLevels.put("HIGH", alertRepository.countByAlertLevel("HIGH"));
-            threatLevels.put("CRITICAL", alertRepository.countByAlertLevel("CRITICAL"));
-            statistics.put("threatLevels", threatLevels);
-
-            // 2. 总告警数
-            long totalAlerts = alertRepository.count();
-            statistics.put("totalLogs", totalAlerts);
-            statistics.put("securityEvents", totalAlerts);
-
-            // 3. 未处理告警
-            long unhandledAlerts = alertRepository.countByHandled(false);
-            statistics.put("unhandledAlerts", unhandledAlerts);
-
-            // 4. 高/严重风险数量
-            long highRiskCount = threatLevels.getOrDefault("HIGH", 0L) +
-                    threatLevels.getOrDefault("CRITICAL", 0L);
-            statistics.put("highRiskCount", highRiskCount);
-
-            // 5. 每日统计（最近7天）
-            List<Object[]> dailyStats = alertRepository.countByDateForLast7Days();
-            List<Object[]> dailyCounts = dailyStats.stream()
-                    .map(arr -> new Object[]{arr[0], arr[1]})
-                    .collect(Collectors.toList());
-            statistics.put("dailyCounts", dailyCounts);
-
-            // 6. 暴力破解尝试
-            List<Object[]> bruteForceAttempts = alertRepository.findBruteForceAttempts();
-            statistics.put("bruteForceAttempts", bruteForceAttempts);
-
-            // 7. 事件类型统计
-            List<Object[]> eventCounts = alertRepository.countByEventType();
-            statistics.put("eventCounts", eventCounts);
-
+            Map<String, Object> statistics = alertService.getDashboardStatistics();
             return ResponseEntity.ok(statistics);
 
         } catch (Exception e) {
@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -189,14 +190,27 @@ public class BatchLogController {
      * 高效分页查询
      */
     @GetMapping("/query/efficient")
-    @Operation(summary = "高效分页查询", description = "使用优化的查询方法进行分页查询")
-    public ResponseEntity<Page<LogEntryDTO>> efficientPageQuery(Pageable pageable) {
+    @Operation(summary = "高效分页查询", description = "使用优化的查询方法进行分页查询；携带 cursor（空串为第一页）时按游标翻页，不返回总数")
+    public ResponseEntity<?> efficientPageQuery(
+            Pageable pageable,
+            @Parameter(description = "上一页返回的 nextCursor") @RequestParam(required = false) String cursor) {
         log.debug("接收到高效分页查询请求，页码: {}, 大小: {}", pageable.getPageNumber(), pageable.getPageSize());
         
         try {
+            if (cursor != null) {
+                Sort.Order order = pageable.getSort().stream().findFirst()
+                        .orElse(Sort.Order.desc("timestamp"));
+                return ResponseEntity.ok(batchLogService.efficientCursorQuery(
+                        order.getProperty(), order.getDirection(), pageable.getPageSize(), cursor));
+            }
             Page<LogEntryDTO> result = batchLogService.efficientPageQuery(pageable);
             return ResponseEntity.ok(result);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             log.error("高效分页查询失败", e);
             return ResponseEntity.status(500).build();
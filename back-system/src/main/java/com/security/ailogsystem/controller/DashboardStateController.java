@@ -0,0 +1,39 @@
+package com.security.ailogsystem.controller;
+
+import com.security.ailogsystem.websocket.DashboardStateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * 仪表板完整状态：客户端连接、重连或发现差量版本不连续时获取，之后按 /topic/dashboard 的差量更新
+ */
+@Controller
+@RequiredArgsConstructor
+@Tag(name = "仪表板状态", description = "仪表板完整状态快照")
+public class DashboardStateController {
+
+    private final DashboardStateService dashboardStateService;
+
+    /**
+     * STOMP 订阅 /app/dashboard/snapshot，快照直接回复给该订阅
+     */
+    @SubscribeMapping("/dashboard/snapshot")
+    public Map<String, Object> subscribeSnapshot() {
+        return dashboardStateService.snapshot();
+    }
+
+    @GetMapping("/websocket/dashboard/snapshot")
+    @ResponseBody
+    @Operation(summary = "获取仪表板完整状态", description = "返回 {seq, state}，seq 与 DASHBOARD_DELTA 差量的版本号对应")
+    public ResponseEntity<Map<String, Object>> getSnapshot() {
+        return ResponseEntity.ok(dashboardStateService.snapshot());
+    }
+}
@@ -1,19 +1,32 @@
 package com.security.ailogsystem.controller;
 
+import com.security.ailogsystem.dto.ExportRequest;
 import com.security.ailogsystem.service.DataExportService;
+import com.security.ailogsystem.service.export.ExportFormat;
+import com.security.ailogsystem.service.export.ExportJob;
+import com.security.ailogsystem.service.export.ExportJobService;
+import com.security.ailogsystem.service.export.ExportQuotaExceededException;
+import com.security.ailogsystem.util.RangeFileSender;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.file.Files;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -23,6 +36,8 @@ import java.util.Map;
 /**
  * 数据导出控制器
  * 支持导出日志、告警、事件等数据为CSV、Excel、JSON格式
+ * 响应体以 StreamingResponseBody 在异步线程中边查询边写出，不在内存中组装完整文件；
+ * 大数据量导出可提交为异步任务（/export/jobs），完成后下载暂存文件
  */
 @Slf4j
 @RestController
@@ -33,10 +48,11 @@ import java.util.Map;
 public class DataExportController {
 
     private final DataExportService dataExportService;
+    private final ExportJobService exportJobService;
 
     @GetMapping("/logs")
     @Operation(summary = "导出日志数据", description = "根据条件导出日志数据")
-    public ResponseEntity<Resource> exportLogs(
+    public ResponseEntity<StreamingResponseBody> exportLogs(
             @Parameter(description = "导出格式: csv, excel, json") @RequestParam(defaultValue = "csv") String format,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
@@ -46,14 +62,13 @@ public class DataExportController {
         log.info("导出日志数据: format={}, startTime={}, endTime={}, level={}, keyword={}", 
                 format, startTime, endTime, level, keyword);
         
-        Resource resource = dataExportService.exportLogs(format, startTime, endTime, level, keyword);
-        
-        return buildResponse(resource, format, "logs");
+        return buildResponse(out -> dataExportService.exportLogs(format, startTime, endTime, level, keyword, out),
+                format, "logs");
     }
 
     @GetMapping("/alerts")
     @Operation(summary = "导出告警数据", description = "根据条件导出告警数据")
-    public ResponseEntity<Resource> exportAlerts(
+    public ResponseEntity<StreamingResponseBody> exportAlerts(
             @Parameter(description = "导出格式: csv, excel, json") @RequestParam(defaultValue = "csv") String format,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
@@ -64,15 +79,14 @@ public class DataExportController {
         log.info("导出告警数据: format={}, startTime={}, endTime={}, alertLevel={}, alertType={}, status={}", 
                 format, startTime, endTime, alertLevel, alertType, status);
         
-        Resource resource = dataExportService.exportAlerts(format, startTime, endTime, alertLevel, alertType, status);
-        
-        return buildResponse(resource, format, "alerts");
+        return buildResponse(out -> dataExportService.exportAlerts(format, startTime, endTime, alertLevel, alertType,
+                status, out), format, "alerts");
     }
 
     @GetMapping("/events")
     @Operation(summary = "导出安全事件数据", description = "根据条件导出安全事件数据")
-    public ResponseEntity<Resource> exportEvents(
-            @Parameter(description = "导出格式: csv, excel, json") @RequestParam(defaultValue = "csv") String format,
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @Parameter(description = "导出格式: csv, excel, json, parquet") @RequestParam(defaultValue = "csv") String format,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
             @Parameter(description = "事件类型") @RequestParam(required = false) String eventType,
@@ -81,14 +95,13 @@ public class DataExportController {
         log.info("导出安全事件数据: format={}, startTime={}, endTime={}, eventType={}, severity={}", 
                 format, startTime, endTime, eventType, severity);
         
-        Resource resource = dataExportService.exportEvents(format, startTime, endTime, eventType, severity);
-        
-        return buildResponse(resource, format, "events");
+        return buildResponse(out -> dataExportService.exportEvents(format, startTime, endTime, eventType, severity, out),
+                format, "events");
     }
 
     @GetMapping("/security-logs")
     @Operation(summary = "导出Windows安全日志", description = "根据条件导出Windows安全日志")
-    public ResponseEntity<Resource> exportSecurityLogs(
+    public ResponseEntity<StreamingResponseBody> exportSecurityLogs(
             @Parameter(description = "导出格式: csv, excel, json") @RequestParam(defaultValue = "csv") String format,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
@@ -98,15 +111,14 @@ public class DataExportController {
         log.info("导出Windows安全日志: format={}, startTime={}, endTime={}, eventId={}, username={}", 
                 format, startTime, endTime, eventId, username);
         
-        Resource resource = dataExportService.exportSecurityLogs(format, startTime, endTime, eventId, username);
-        
-        return buildResponse(resource, format, "security-logs");
+        return buildResponse(out -> dataExportService.exportSecurityLogs(format, startTime, endTime, eventId, username,
+                out), format, "security-logs");
     }
 
     @GetMapping("/system-metrics")
     @Operation(summary = "导出系统性能指标", description = "根据条件导出系统性能指标数据")
-    public ResponseEntity<Resource> exportSystemMetrics(
-            @Parameter(description = "导出格式: csv, excel, json") @RequestParam(defaultValue = "csv") String format,
+    public ResponseEntity<StreamingResponseBody> exportSystemMetrics(
+            @Parameter(description = "导出格式: csv, excel, json, parquet") @RequestParam(defaultValue = "csv") String format,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
             @Parameter(description = "指标类型") @RequestParam(required = false) String metricType
@@ -114,14 +126,13 @@ public class DataExportController {
         log.info("导出系统性能指标: format={}, startTime={}, endTime={}, metricType={}", 
                 format, startTime, endTime, metricType);
         
-        Resource resource = dataExportService.exportSystemMetrics(format, startTime, endTime, metricType);
-        
-        return buildResponse(resource, format, "system-metrics");
+        return buildResponse(out -> dataExportService.exportSystemMetrics(format, startTime, endTime, metricType, out),
+                format, "system-metrics");
     }
 
     @PostMapping("/batch")
     @Operation(summary = "批量导出多种数据", description = "一次性导出多种类型的数据")
-    public ResponseEntity<Resource> batchExport(
+    public ResponseEntity<StreamingResponseBody> batchExport(
             @Parameter(description = "导出格式: excel, zip") @RequestParam(defaultValue = "excel") String format,
             @Parameter(description = "数据类型列表") @RequestBody List<String> dataTypes,
             @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
@@ -130,9 +141,63 @@ public class DataExportController {
         log.info("批量导出数据: format={}, dataTypes={}, startTime={}, endTime={}", 
                 format, dataTypes, startTime, endTime);
         
-        Resource resource = dataExportService.batchExport(format, dataTypes, startTime, endTime);
-        
-        return buildResponse(resource, format, "batch-export");
+        return buildResponse(out -> dataExportService.batchExport(format, dataTypes, startTime, endTime, out),
+                format, "batch");
+    }
+
+    @PostMapping("/jobs")
+    @Operation(summary = "提交异步导出任务", description = "后台导出到暂存文件，完成后通过下载接口获取；请求参数与各导出接口一致")
+    public ResponseEntity<?> submitJob(@Valid @RequestBody ExportRequest request, Authentication authentication) {
+        try {
+            ExportJob job = exportJobService.submit(authentication.getName(), request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ExportQuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs")
+    @Operation(summary = "查询当前用户的导出任务")
+    public ResponseEntity<List<ExportJob>> listJobs(Authentication authentication) {
+        return ResponseEntity.ok(exportJobService.list(authentication.getName()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "查询导出任务状态和进度")
+    public ResponseEntity<ExportJob> getJob(@PathVariable String jobId, Authentication authentication) {
+        return exportJobService.get(authentication.getName(), jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    @Operation(summary = "下载导出任务文件", description = "支持 Range 断点续传")
+    public ResponseEntity<?> downloadJob(@PathVariable String jobId, Authentication authentication,
+                                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportJob job = exportJobService.get(authentication.getName(), jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED || !Files.exists(job.getFile())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "导出任务未完成", "status", job.getStatus()));
+        }
+        ExportFormat format = job.getFormat();
+        response.setContentType(format.mediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                contentDisposition(job.getRequest().getType(), format.extension(), job.getCreatedAt()));
+        RangeFileSender.send(request, response, job.getFile());
+        return null;
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    @Operation(summary = "取消或删除导出任务", description = "进行中的任务被取消，已结束的任务连同文件删除")
+    public ResponseEntity<Void> deleteJob(@PathVariable String jobId, Authentication authentication) {
+        return exportJobService.cancel(authentication.getName(), jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
@@ -144,7 +209,8 @@ public class DataExportController {
             "events",         "安全事件",
             "security-logs",  "Windows安全日志",
             "system-metrics", "系统性能指标",
-            "batch-export",   "批量导出"
+            "batch-export",   "批量导出",
+            "batch",          "批量导出"
     );
 
     private static final DateTimeFormatter FILE_DT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
@@ -152,46 +218,38 @@ public class DataExportController {
     /**
      * 构建响应，文件名使用中文并做 RFC 5987 编码
      */
-    private ResponseEntity<Resource> buildResponse(Resource resource, String format, String typeKey) {
+    private ResponseEntity<StreamingResponseBody> buildResponse(StreamingResponseBody body, String format, String typeKey) {
+        return ResponseEntity.ok()
+                .contentType(getMediaType(typeKey, format))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        contentDisposition(typeKey, getFileExtension(typeKey, format), LocalDateTime.now()))
+                .body(body);
+    }
+
+    private String contentDisposition(String typeKey, String ext, LocalDateTime time) {
         String chineseName = TYPE_NAMES.getOrDefault(typeKey, typeKey);
-        String timestamp   = LocalDateTime.now().format(FILE_DT);
-        String ext         = getFileExtension(format);
+        String timestamp   = time.format(FILE_DT);
         String filename    = chineseName + "_" + timestamp + "." + ext;
 
         // RFC 5987：filename* 使用 UTF-8 百分号编码，兼容所有现代浏览器
         String encodedName = URLEncoder.encode(filename, StandardCharsets.UTF_8)
                 .replace("+", "%20");
 
-        String disposition = "attachment; filename=\"" + filename + "\"; "
-                           + "filename*=UTF-8''" + encodedName;
-
-        return ResponseEntity.ok()
-                .contentType(getMediaType(format))
-                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
-                .body(resource);
+        return "attachment; filename=\"" + filename + "\"; "
+             + "filename*=UTF-8''" + encodedName;
     }
 
     /**
      * 获取文件扩展名
      */
-    private String getFileExtension(String format) {
-        return switch (format.toLowerCase()) {
-            case "excel" -> "xlsx";
-            case "json" -> "json";
-            case "zip" -> "zip";
-            default -> "csv";
-        };
+    private String getFileExtension(String typeKey, String format) {
+        return ExportFormat.of(typeKey, format).extension();
     }
 
     /**
      * 获取媒体类型
      */
-    private MediaType getMediaType(String format) {
-        return switch (format.toLowerCase()) {
-            case "excel" -> MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-            case "json" -> MediaType.APPLICATION_JSON;
-            case "zip" -> MediaType.parseMediaType("application/zip");
-            default -> MediaType.parseMediaType("text/csv");
-        };
+    private MediaType getMediaType(String typeKey, String format) {
+        return MediaType.parseMediaType(ExportFormat.of(typeKey, format).mediaType());
     }
 }
@@ -1,6 +1,11 @@
 package com.security.ailogsystem.controller;
 
+import com.security.ailogsystem.config.ReplicaRoutingDataSource;
 import com.security.ailogsystem.service.DatabaseMonitoringService;
+import com.security.ailogsystem.service.EventPayloadMigrationService;
+import com.security.ailogsystem.service.PayloadRecompressionService;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import com.security.ailogsystem.service.rollup.EventRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +31,19 @@ public class DatabaseController {
     private DatabaseMonitoringService databaseMonitoringService;
     @Autowired
     private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PayloadRecompressionService payloadRecompressionService;
+    @Autowired
+    private EventPayloadMigrationService eventPayloadMigrationService;
+    @Autowired
+    private EventRollupService eventRollupService;
+
+    @Autowired
+    private RangeResultCache rangeResultCache;
+
+    // 仅启用读写分离时存在
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
 
     /**
      * 获取数据库状态概览
@@ -204,6 +222,111 @@ public class DatabaseController {
         }
     }
 
+    /**
+     * 获取大文本字段压缩统计
+     */
+    @GetMapping("/compression/status")
+    @Operation(summary = "获取压缩统计", description = "获取大文本字段压缩配置和后台重压缩进度")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCompressionStatus() {
+        try {
+            return ResponseEntity.ok(payloadRecompressionService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to get compression status: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 手动触发后台重压缩
+     */
+    @PostMapping("/compression/recompress")
+    @Operation(summary = "触发重压缩", description = "按当前压缩配置重新压缩历史明文行和旧字典压缩的行")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> recompress() {
+        try {
+            return ResponseEntity.ok(payloadRecompressionService.recompress());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to recompress: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取安全事件大字段拆表迁移状态
+     */
+    @GetMapping("/payload-split/status")
+    @Operation(summary = "获取大字段拆表迁移状态", description = "获取历史事件大字段搬迁到冷数据表的进度")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPayloadSplitStatus() {
+        try {
+            return ResponseEntity.ok(eventPayloadMigrationService.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to get payload split status: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取安全事件统计预聚合状态
+     */
+    @GetMapping("/rollup/status")
+    @Operation(summary = "获取统计预聚合状态", description = "获取事件统计预聚合的回填、校准进度和增量失败情况")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRollupStatus() {
+        try {
+            return ResponseEntity.ok(eventRollupService.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to get rollup status: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取时间范围查询结果缓存状态
+     */
+    @GetMapping("/range-cache/status")
+    @Operation(summary = "获取范围查询缓存状态", description = "获取统计查询已关闭时间桶缓存的条目数、权重和命中率")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRangeCacheStatus() {
+        try {
+            return ResponseEntity.ok(rangeResultCache.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to get range cache status: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取只读副本路由状态
+     */
+    @GetMapping("/replica/status")
+    @Operation(summary = "获取只读副本状态", description = "获取副本复制延迟、是否参与路由以及主库/副本连接获取次数")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReplicaStatus() {
+        if (replicaRoutingDataSource == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        Map<String, Object> status = new HashMap<>(replicaRoutingDataSource.getStatus());
+        status.put("enabled", true);
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * 按明细表重算最近若干天的统计预聚合
+     */
+    @PostMapping("/rollup/rebuild")
+    @Operation(summary = "重算统计预聚合", description = "按明细表重算最近若干天的事件统计预聚合，用于手工导入数据后校准")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildRollup(@RequestParam(defaultValue = "1") int days) {
+        try {
+            return ResponseEntity.ok(eventRollupService.rebuildRecent(days));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to rebuild rollup: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/query")
     @Operation(summary = "执行SQL查询", description = "执行数据库查询（仅管理用途）")
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
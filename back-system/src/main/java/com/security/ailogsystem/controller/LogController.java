@@ -7,8 +7,12 @@ import com.security.ailogsystem.service.WindowsLogService;
 import com.security.ailogsystem.service.DataExportService;
 import com.security.ailogsystem.repository.SecurityLogRepository;
 import com.security.ailogsystem.repository.SecurityAlertRepository;
+import com.security.ailogsystem.repository.SparseFieldQuery;
 import com.security.ailogsystem.repository.AlertRepository;
 import com.security.ailogsystem.repository.UnifiedEventRepository;
+import com.security.ailogsystem.service.rollup.EventRollupService;
+import com.security.ailogsystem.service.rollup.EventRollupSummary;
+import com.security.ailogsystem.service.rollup.RollupGranularity;
 import org.springframework.core.io.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -41,22 +45,37 @@ public class LogController {
     @Autowired
     private UnifiedEventRepository eventRepository;
 
+    @Autowired
+    private EventRollupService eventRollupService;
+
     @Autowired
     private WindowsLogService logService;
 
     @Autowired
     private DataExportService dataExportService;
 
+    @Autowired
+    private SparseFieldQuery sparseFieldQuery;
+
     /**
-     * 获取最近的日志
+     * 获取最近的日志，携带 fields（逗号分隔的字段名）时只查询并返回这些字段
      */
     @GetMapping("/recent")
-    public ResponseEntity<List<SecurityLog>> getRecentLogs(
-            @RequestParam(defaultValue = "100") int limit) {
+    public ResponseEntity<?> getRecentLogs(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String fields) {
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "eventTime");
+        if (fields != null && !fields.isBlank()) {
+            try {
+                return ResponseEntity.ok(sparseFieldQuery.findAll(SecurityLog.class,
+                        sparseFieldQuery.parse(SecurityLog.class, fields), null, sort, 0, limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
 
-        List<SecurityLog> logs = logRepository.findAll(
-                PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "eventTime"))
-        ).getContent();
+        List<SecurityLog> logs = logRepository.findAll(PageRequest.of(0, limit, sort)).getContent();
 
         return ResponseEntity.ok(logs);
     }
@@ -206,9 +225,12 @@ public class LogController {
         LocalDateTime last24Hours = now.minusHours(24);
         LocalDateTime todayStart = now.with(java.time.LocalTime.MIN);
 
-        long totalEvents = eventRepository.count();
-        long todayLogs = eventRepository.countByTimestampAfter(todayStart);
-        long anomalyCount = eventRepository.countByIsAnomalyTrue();
+        // 计数和分布均由统计预聚合表提供，避免扫描明细表
+        EventRollupSummary allTime = eventRollupService.summarizeAll();
+        EventRollupSummary last24HoursSummary = eventRollupService.summarize(last24Hours, now);
+        long totalEvents = allTime.getTotalEvents();
+        long todayLogs = eventRollupService.summarize(todayStart, now).getTotalEvents();
+        long anomalyCount = allTime.getAnomalyEvents();
 
         // 1. 威胁等级分布（24小时）— 从 UnifiedSecurityEvent.threatLevel
         Map<String, Long> threatLevels = new HashMap<>();
@@ -216,29 +238,25 @@ public class LogController {
         threatLevels.put("MEDIUM", 0L);
         threatLevels.put("HIGH", 0L);
         threatLevels.put("CRITICAL", 0L);
-        try {
-            List<Object[]> threatLevelRows = eventRepository.countByThreatLevelGroup(last24Hours, now);
-            for (Object[] row : threatLevelRows) {
-                if (row[0] != null) threatLevels.put((String) row[0], ((Number) row[1]).longValue());
-            }
-        } catch (Exception ignored) {}
+        threatLevels.putAll(last24HoursSummary.getThreatLevels());
 
         // 2. 严重级别分布（全量）— 从 UnifiedSecurityEvent.severity
-        Map<String, Long> severityCounts = new HashMap<>();
-        try {
-            List<Object[]> severityRows = eventRepository.countBySeverityGroupAll();
-            for (Object[] row : severityRows) {
-                if (row[0] != null) severityCounts.put((String) row[0], ((Number) row[1]).longValue());
-            }
-        } catch (Exception ignored) {}
+        Map<String, Long> severityCounts = allTime.getSeverities();
 
         // 3. 事件类型分布（24小时）
-        List<Object[]> eventCounts = List.of();
-        try { eventCounts = eventRepository.countByEventTypeGroup(last24Hours, now); } catch (Exception ignored) {}
+        List<Object[]> eventCounts = last24HoursSummary.getEventTypes().entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .collect(java.util.stream.Collectors.toList());
 
-        // 4. 日统计（7天）
+        // 4. 日统计（7天，按日期倒序）
         List<Object[]> dailyCounts = List.of();
-        try { dailyCounts = eventRepository.getDailyStatistics(now.minusDays(7)); } catch (Exception ignored) {}
+        try {
+            List<EventRollupService.Point> days = eventRollupService.series(now.minusDays(7), now, RollupGranularity.DAY);
+            dailyCounts = new java.util.ArrayList<>(days.size());
+            for (int i = days.size() - 1; i >= 0; i--) {
+                dailyCounts.add(new Object[]{days.get(i).bucket().toLocalDate(), days.get(i).eventCount()});
+            }
+        } catch (Exception ignored) {}
 
         // 5. 暴力破解（24小时，>=5次失败的同IP）
         List<Object[]> bruteForceAttempts = List.of();
@@ -250,11 +268,7 @@ public class LogController {
         threatDist.put("HIGH", 0L);
         threatDist.put("MEDIUM", 0L);
         threatDist.put("LOW", 0L);
-        try {
-            for (Object[] row : eventRepository.countByThreatLevelGroupAll()) {
-                threatDist.put((String) row[0], ((Number) row[1]).longValue());
-            }
-        } catch (Exception ignored) {}
+        threatDist.putAll(allTime.getThreatLevels());
 
         // 组装 logsStatistics（前端用）
         Map<String, Object> logsStats = new HashMap<>();
@@ -279,7 +293,7 @@ public class LogController {
         Map<String, Object> realTimeStats = new HashMap<>();
         realTimeStats.put("totalEvents", totalEvents);
         realTimeStats.put("activeAlerts", alertStatsRepository.countByHandled(false));
-        realTimeStats.put("eventsLastHour", eventRepository.countByTimestampAfter(now.minusHours(1)));
+        realTimeStats.put("eventsLastHour", eventRollupService.summarize(now.minusHours(1), now).getTotalEvents());
         realTimeStats.put("threatDistribution", threatDist);
         result.put("realTimeStats", realTimeStats);
 
@@ -4,6 +4,10 @@ import com.security.ailogsystem.dto.SystemInfoIngestRequest;
 import com.security.ailogsystem.model.SimpleWmiData;
 import com.security.ailogsystem.service.MetricsService;
 import com.security.ailogsystem.service.RealTimeSystemService;
+import com.security.ailogsystem.service.downsample.LttbDownsampler;
+import com.security.ailogsystem.service.downsample.TimeBucket;
+import com.security.ailogsystem.websocket.EventFilter;
+import com.security.ailogsystem.websocket.SseEventStream;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -42,6 +46,9 @@ public class RealTimeSystemController {
     @Autowired
     private MetricsService metricsService;
 
+    @Autowired
+    private SseEventStream sseEventStream;
+
     // 存储连接和查询的运行时数据（生产环境建议使用数据库）
     private final Map<String, Map<String, Object>> connections = new HashMap<>();
     private final Map<String, Map<String, Object>> queries = new HashMap<>();
@@ -552,6 +559,36 @@ public class RealTimeSystemController {
         }
     }
 
+    @GetMapping("/metrics/history")
+    @Operation(summary = "获取历史性能指标曲线", description = "按主机和指标返回降采样后的历史曲线，点格式为 [毫秒时间戳, 数值]")
+    public ResponseEntity<Map<String, Object>> getMetricsHistory(
+            @Parameter(description = "开始时间，默认结束时间前 24 小时") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @Parameter(description = "结束时间，默认当前时间") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @Parameter(description = "主机名（可选）") @RequestParam(required = false) String hostname,
+            @Parameter(description = "指标名，逗号分隔") @RequestParam(defaultValue = "cpuUsage,memoryUsage,diskUsage") List<String> metrics,
+            @Parameter(description = "分桶粒度：raw/minute/hour/day/week") @RequestParam(defaultValue = "raw") String granularity,
+            @Parameter(description = "每条曲线的最大点数") @RequestParam(defaultValue = "200") int maxPoints) {
+
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime start = startTime != null ? startTime : end.minusHours(24);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest()
+                    .body(createErrorResponse(HttpStatus.BAD_REQUEST, "开始时间不能晚于结束时间"));
+        }
+        try {
+            Map<String, Object> history = metricsService.getDownsampledHistory(start, end, hostname, metrics,
+                    TimeBucket.of(granularity, null), LttbDownsampler.clamp(maxPoints));
+            return ResponseEntity.ok(createSuccessResponse(history));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(createErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage()));
+        } catch (Exception e) {
+            log.error("获取历史性能指标失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("获取历史性能指标失败"));
+        }
+    }
+
     // ==================== 信息类型管理接口 ====================
 
     @GetMapping("/info-types")
@@ -1094,65 +1131,59 @@ public class RealTimeSystemController {
     // ==================== SSE流接口 ====================
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    @Operation(summary = "建立SSE实时数据流", description = "建立服务器发送事件连接")
-    public SseEmitter createSseStream() {
-        String clientId = UUID.randomUUID().toString();
-        log.info("创建SSE流连接: {}", clientId);
-
-        SseEmitter emitter = new SseEmitter(0L);
+    @Operation(summary = "建立SSE实时数据流",
+            description = "推送 /topic/events 的实时事件，事件名为消息类型、ID 为“启动纪元-序号”；断线重连时按 Last-Event-ID 补发，服务重启后先发送 reset")
+    public ResponseEntity<SseEmitter> createSseStream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "首次连接时的补发起点，与 Last-Event-ID 相同") @RequestParam(required = false) String since) {
+        return openSseStream(null, lastEventId != null ? lastEventId : since);
+    }
 
-        // 发送初始化数据
+    @GetMapping(value = "/stream/custom", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "建立自定义SSE流", description = "只推送与过滤条件匹配的事件，例如 severity>=HIGH; host=web-01")
+    public ResponseEntity<SseEmitter> createCustomSseStream(
+            @Parameter(description = "消息类型，多个以逗号分隔，如 LOG,ALERT") @RequestParam(required = false) String dataType,
+            @Parameter(description = "过滤表达式") @RequestParam(required = false) String filter,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "首次连接时的补发起点，与 Last-Event-ID 相同") @RequestParam(required = false) String since) {
+        String expression = filter == null ? "" : filter;
+        if (dataType != null && !dataType.isBlank()) {
+            expression = "type=" + dataType + ";" + expression;
+        }
+        EventFilter eventFilter;
         try {
-            Map<String, Object> initData = new HashMap<>();
-            initData.put("type", "init");
-            initData.put("clientId", clientId);
-            initData.put("message", "SSE连接已建立");
-            initData.put("timestamp", System.currentTimeMillis());
-
-            emitter.send(SseEmitter.event()
-                    .name("connect")
-                    .data(initData));
-
-            log.info("SSE连接已建立: {}", clientId);
-        } catch (Exception e) {
-            log.error("SSE连接初始化失败: {}", e.getMessage(), e);
-            emitter.completeWithError(e);
+            eventFilter = EventFilter.parse(expression);
+        } catch (IllegalArgumentException e) {
+            return sseError(HttpStatus.BAD_REQUEST, e.getMessage());
         }
-
-        return emitter;
+        return openSseStream(eventFilter, lastEventId != null ? lastEventId : since);
     }
 
-    @GetMapping(value = "/stream/custom", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    @Operation(summary = "建立自定义SSE流", description = "根据参数建立特定数据的实时流")
-    public SseEmitter createCustomSseStream(
-            @Parameter(description = "数据类型") @RequestParam(defaultValue = "performance") String dataType,
-            @Parameter(description = "间隔时间(毫秒)") @RequestParam(defaultValue = "2000") Long interval) {
-
-        String clientId = UUID.randomUUID().toString() + "-" + dataType;
-        log.info("创建自定义SSE流: {} - {}", clientId, dataType);
-
-        SseEmitter emitter = new SseEmitter(0L);
+    private ResponseEntity<SseEmitter> openSseStream(EventFilter filter, String lastEventId) {
+        try {
+            SseEmitter emitter = sseEventStream.subscribe(filter, lastEventId);
+            log.debug("建立SSE连接 filter={}, lastEventId={}, 当前连接数 {}", filter, lastEventId,
+                    sseEventStream.getClientCount());
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalStateException e) {
+            log.warn("拒绝SSE连接: {}", e.getMessage());
+            return sseError(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
 
+    /**
+     * 以 error 事件返回错误，请求声明的媒体类型为 text/event-stream，不能返回 JSON
+     */
+    private ResponseEntity<SseEmitter> sseError(HttpStatus status, String message) {
+        SseEmitter emitter = new SseEmitter();
         try {
-            Map<String, Object> initData = new HashMap<>();
-            initData.put("type", "init");
-            initData.put("clientId", clientId);
-            initData.put("dataType", dataType);
-            initData.put("interval", interval);
-            initData.put("message", "自定义SSE连接已建立");
-            initData.put("timestamp", System.currentTimeMillis());
-
-            emitter.send(SseEmitter.event()
-                    .name("connect")
-                    .data(initData));
-
-            log.info("自定义SSE连接已建立: {} - {}", clientId, dataType);
+            emitter.send(SseEmitter.event().name("error").data(createErrorResponse(status, message),
+                    MediaType.APPLICATION_JSON));
+            emitter.complete();
         } catch (Exception e) {
-            log.error("自定义SSE连接初始化失败: {}", e.getMessage(), e);
             emitter.completeWithError(e);
         }
-
-        return emitter;
+        return ResponseEntity.status(status).body(emitter);
     }
 
     // ==================== 实时状态接口 ====================
@@ -5,6 +5,14 @@ import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
 import com.security.ailogsystem.repository.UnifiedEventRepository;
 import com.security.ailogsystem.service.UnifiedEventService;
 import com.security.ailogsystem.service.UnifiedLogCollector;
+import com.security.ailogsystem.service.downsample.LttbDownsampler;
+import com.security.ailogsystem.service.downsample.TimeBucket;
+import com.security.ailogsystem.service.ingest.EventIngestService;
+import com.security.ailogsystem.service.rollup.EventRollupService;
+import com.security.ailogsystem.service.rollup.EventRollupSummary;
+import com.security.ailogsystem.service.rollup.LiveEventCounters;
+import com.security.ailogsystem.service.timeline.EventTimelineService;
+import com.security.ailogsystem.service.timeline.TimelineDimension;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -16,7 +24,6 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,8 +35,12 @@ import java.util.stream.Collectors;
 public class UnifiedEventController {
 
     private final UnifiedEventService eventService;
+    private final EventIngestService eventIngestService;
     private final UnifiedLogCollector logCollector;
     private final UnifiedEventRepository eventRepository;
+    private final EventRollupService eventRollupService;
+    private final LiveEventCounters liveEventCounters;
+    private final EventTimelineService eventTimelineService;
 
 
 
@@ -41,8 +52,10 @@ public class UnifiedEventController {
         log.info("创建安全事件: {}", eventDTO.getEventType());
 
         try {
-            UnifiedSecurityEventDTO createdEvent = eventService.createEvent(eventDTO);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdEvent);
+            EventIngestService.IngestResult result = eventIngestService.ingestEvent(eventDTO);
+            // 数据库暂不可用时事件已写入本地写前日志，返回 202 表示稍后入库
+            return ResponseEntity.status(result.deferred() ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                    .body(result.events().get(0));
         } catch (Exception e) {
             log.error("创建安全事件失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -57,8 +70,9 @@ public class UnifiedEventController {
         log.info("批量创建 {} 个安全事件", eventDTOs.size());
 
         try {
-            List<UnifiedSecurityEventDTO> createdEvents = eventService.createEvents(eventDTOs);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdEvents);
+            EventIngestService.IngestResult result = eventIngestService.ingestEvents(eventDTOs);
+            return ResponseEntity.status(result.deferred() ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                    .body(result.events());
         } catch (Exception e) {
             log.error("批量创建安全事件失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -81,7 +95,7 @@ public class UnifiedEventController {
      * 高级查询事件
      */
     @PostMapping("/search")
-    public ResponseEntity<Page<UnifiedSecurityEventDTO>> searchEvents(@RequestBody UnifiedEventQueryDTO queryDTO) {
+    public ResponseEntity<?> searchEvents(@RequestBody UnifiedEventQueryDTO queryDTO) {
         log.debug("高级查询事件");
 
         if (!queryDTO.isValid()) {
@@ -89,8 +103,19 @@ public class UnifiedEventController {
         }
 
         try {
+            // 携带 cursor 时按游标翻页，深分页不受 OFFSET 影响；携带 fields 时只查询指定字段
+            if (queryDTO.getCursor() != null) {
+                return ResponseEntity.ok(queryDTO.hasFields()
+                        ? eventService.searchEventFieldsByCursor(queryDTO)
+                        : eventService.searchEventsByCursor(queryDTO));
+            }
+            if (queryDTO.hasFields()) {
+                return ResponseEntity.ok(eventService.searchEventFields(queryDTO));
+            }
             Page<UnifiedSecurityEventDTO> events = eventService.searchEvents(queryDTO);
             return ResponseEntity.ok(events);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("查询事件失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -101,13 +126,19 @@ public class UnifiedEventController {
      * 获取最近事件
      */
     @GetMapping("/recent")
-    public ResponseEntity<List<UnifiedSecurityEventDTO>> getRecentEvents(
-            @RequestParam(defaultValue = "20") int limit) {
+    public ResponseEntity<?> getRecentEvents(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
         log.debug("获取最近 {} 个事件", limit);
 
         try {
+            if (fields != null && !fields.isBlank()) {
+                return ResponseEntity.ok(eventService.getRecentEventFields(limit, fields));
+            }
             List<UnifiedSecurityEventDTO> events = eventService.getRecentEvents(limit);
             return ResponseEntity.ok(events);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("获取最近事件失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -263,81 +294,58 @@ public class UnifiedEventController {
         }
     }
     /**
-     * 获取仪表板统计信息（无需时间参数）
+     * 获取仪表板统计信息（无需时间参数，只读取内存实时计数器）
      */
     @GetMapping("/dashboard-stats")
-    @org.springframework.cache.annotation.Cacheable(value = "events:dashboard-stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         log.debug("获取仪表板统计信息");
 
         try {
             Map<String, Object> stats = new HashMap<>();
-            LocalDateTime now = LocalDateTime.now();
+            LiveEventCounters.Snapshot snapshot = liveEventCounters.snapshot();
 
             // 1. 总事件数
-            long totalEvents = eventRepository.count();
+            long totalEvents = snapshot.totalEvents();
             stats.put("totalLogs", totalEvents);
             stats.put("totalEvents", totalEvents);
 
             // 2. 今日事件数（从当天00:00:00开始）
-            LocalDateTime todayStart = now.with(LocalTime.MIN);
-            long todayEvents = eventRepository.countByTimestampAfter(todayStart);
+            long todayEvents = snapshot.todayEvents();
             stats.put("todayLogs", todayEvents);
             stats.put("todayEvents", todayEvents);
 
-            // 3. 最近7天每日统计
-            LocalDateTime weekAgo = now.minusDays(7);
-            List<Object[]> dailyStats = getDailyStatisticsNative(weekAgo);
-
-            // 转换格式
-            List<Object[]> dailyCounts = dailyStats.stream()
-                    .map(row -> new Object[]{
-                            row[0].toString(),  // 日期
-                            row[1]              // 数量
-                    })
-                    .collect(Collectors.toList());
-
+            // 3. 最近7天每日统计（按日期倒序，不含无事件的日期）
+            List<Object[]> dailyCounts = new ArrayList<>();
+            snapshot.dailyCounts().forEach((day, count) -> {
+                if (count > 0) {
+                    dailyCounts.add(0, new Object[]{day.toString(), count});
+                }
+            });
             stats.put("dailyCounts", dailyCounts);
 
             // 4. 异常事件数量
-            long anomalyCount = eventRepository.countByIsAnomalyTrue();
+            long anomalyCount = snapshot.anomalyEvents();
             stats.put("anomalyCount", anomalyCount);
 
             // 5. 按严重程度统计所有事件
-            List<Object[]> severityStats = getSeverityStatisticsNative();
-            Map<String, Long> severityCounts = new HashMap<>();
-            for (Object[] row : severityStats) {
-                if (row[0] != null && row[1] != null) {
-                    severityCounts.put(row[0].toString(), ((Number) row[1]).longValue());
-                }
-            }
-            stats.put("severityCounts", severityCounts);
-            stats.put("levelCounts", severityCounts);
+            stats.put("severityCounts", snapshot.severities());
+            stats.put("levelCounts", snapshot.severities());
 
             // 6. 按威胁等级统计
-            List<Object[]> threatLevelStats = eventRepository.countByThreatLevelGroupAll();
-            Map<String, Long> threatLevelCounts = new HashMap<>();
-            if (threatLevelStats != null) {
-                for (Object[] row : threatLevelStats) {
-                    if (row[0] != null && row[1] != null) {
-                        threatLevelCounts.put(row[0].toString(), ((Number) row[1]).longValue());
-                    }
-                }
-            }
-            stats.put("threatLevelCounts", threatLevelCounts);
+            stats.put("threatLevelCounts", snapshot.threatLevels());
 
             // 6. 最后更新时间
-            stats.put("lastUpdate", now.toString());
+            stats.put("lastUpdate", LocalDateTime.now().toString());
+            stats.put("lastReconcile", String.valueOf(snapshot.lastReconcileAt()));
 
             // 7. 计算平均每日事件数
-            double avgDailyEvents = dailyStats.isEmpty() ? 0 :
-                    dailyStats.stream()
-                            .mapToLong(row -> ((Number) row[1]).longValue())
-                            .average()
-                            .orElse(0.0);
+            double avgDailyEvents = dailyCounts.stream()
+                    .mapToLong(row -> ((Number) row[1]).longValue())
+                    .average()
+                    .orElse(0.0);
             stats.put("avgDailyEvents", avgDailyEvents);
 
-            log.info("仪表板统计 - 总事件数: {}, 今日事件数: {}, 异常事件数: {}",
+            log.debug("仪表板统计 - 总事件数: {}, 今日事件数: {}, 异常事件数: {}",
                     totalEvents, todayEvents, anomalyCount);
 
             return ResponseEntity.ok(stats);
@@ -371,16 +379,18 @@ public class UnifiedEventController {
     public ResponseEntity<List<Map<String, Object>>> getTrends(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
-            @RequestParam(defaultValue = "hour") String granularity) {
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(defaultValue = "500") int maxPoints) {
         try {
             LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
             LocalDateTime start = startTime != null ? startTime : end.minusDays(1);
-            List<Object[]> rows = eventRepository.getHourlyStatisticsCompatible(start, end);
-            List<Map<String, Object>> result = rows.stream().map(row -> {
+            TimeBucket bucketSize = TimeBucket.of(granularity, TimeBucket.HOUR);
+            List<Map<String, Object>> result = eventRollupService.chartSeries(start, end, bucketSize,
+                    LttbDownsampler.clamp(maxPoints)).stream().map(point -> {
                 Map<String, Object> item = new HashMap<>();
-                item.put("time", row[0]);
-                long eventCount = row[1] != null ? ((Number) row[1]).longValue() : 0L;
-                long anomalyCount = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+                item.put("time", bucketSize.label(point.bucket()));
+                long eventCount = point.eventCount();
+                long anomalyCount = point.anomalyCount();
                 item.put("eventCount", eventCount);
                 item.put("anomalyCount", anomalyCount);
                 item.put("anomalyRate", eventCount > 0 ? (double) anomalyCount / eventCount : 0.0);
@@ -394,6 +404,32 @@ public class UnifiedEventController {
         }
     }
 
+    /**
+     * 实体调查时间线：dimension 为 user、source-ip 或 host，返回时间倒序的事件（游标分页）；
+     * 首页（不带 cursor）同时返回按 granularity 分桶的事件数和异常数，默认最近7天
+     */
+    @GetMapping("/timeline/{dimension}/{value}")
+    public ResponseEntity<?> getEntityTimeline(
+            @PathVariable String dimension,
+            @PathVariable String value,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+            LocalDateTime start = startTime != null ? startTime : end.minusDays(7);
+            return ResponseEntity.ok(eventTimelineService.timeline(TimelineDimension.of(dimension), value, start, end,
+                    TimeBucket.of(granularity, TimeBucket.HOUR), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("获取实体时间线失败: {}={}", dimension, value, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/statistics/sources")
     public ResponseEntity<Map<String, Long>> getSourceStatistics(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
@@ -401,11 +437,7 @@ public class UnifiedEventController {
         try {
             LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
             LocalDateTime start = startTime != null ? startTime : end.minusDays(7);
-            Map<String, Long> result = new HashMap<>();
-            for (Object[] row : eventRepository.countBySourceSystemGroup(start, end)) {
-                result.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
-            }
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(eventRollupService.summarize(start, end).getSourceSystems());
         } catch (Exception e) {
             log.error("获取来源统计失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -419,11 +451,7 @@ public class UnifiedEventController {
         try {
             LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
             LocalDateTime start = startTime != null ? startTime : end.minusDays(7);
-            Map<String, Long> result = new HashMap<>();
-            for (Object[] row : eventRepository.countByThreatLevelGroup(start, end)) {
-                result.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
-            }
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(eventRollupService.summarize(start, end).getThreatLevels());
         } catch (Exception e) {
             log.error("获取级别统计失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -437,8 +465,9 @@ public class UnifiedEventController {
         try {
             LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
             LocalDateTime start = startTime != null ? startTime : end.minusDays(7);
-            long anomaly = eventRepository.countAnomalyEvents(start, end);
-            long total = eventRepository.countByTimestampBetween(start, end);
+            EventRollupSummary summary = eventRollupService.summarize(start, end);
+            long anomaly = summary.getAnomalyEvents();
+            long total = summary.getTotalEvents();
             Map<String, Object> result = new HashMap<>();
             result.put("anomalyCount", anomaly);
             result.put("totalCount", total);
@@ -502,60 +531,11 @@ public class UnifiedEventController {
         try {
             LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
             LocalDateTime start = startTime != null ? startTime : end.minusDays(7);
-            Map<String, Long> result = new HashMap<>();
-            List<Object[]> rows;
-            switch (dimension.toLowerCase()) {
-                case "source":
-                case "sources":
-                    rows = eventRepository.countBySourceSystemGroup(start, end);
-                    break;
-                case "level":
-                case "levels":
-                    rows = eventRepository.countByThreatLevelGroup(start, end);
-                    break;
-                case "severity":
-                    rows = eventRepository.countBySeverityGroup(start, end);
-                    break;
-                case "category":
-                    rows = eventRepository.countByCategoryGroup(start, end);
-                    break;
-                default:
-                    rows = eventRepository.countByEventTypeGroup(start, end);
-            }
-            for (Object[] row : rows) {
-                result.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
-            }
+            Map<String, Long> result = eventRollupService.summarize(start, end).getDistribution(dimension);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             log.error("获取分布统计失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-
-    /**
-     * 获取每日统计（使用原生SQL）
-     */
-    private List<Object[]> getDailyStatisticsNative(LocalDateTime startDate) {
-        try {
-            return new ArrayList<>();
-        } catch (Exception e) {
-            log.error("获取每日统计失败", e);
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * 获取严重程度统计（使用原生SQL）
-     */
-    private List<Object[]> getSeverityStatisticsNative() {
-        try {
-            // 查询所有时间的严重程度统计
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime longTimeAgo = now.minusYears(10); // 很久以前
-            return eventRepository.countBySeverityGroup(longTimeAgo, now);
-        } catch (Exception e) {
-            log.error("获取严重程度统计失败", e);
-            return new ArrayList<>();
-        }
-    }
-}
\ No newline at end of file
+}
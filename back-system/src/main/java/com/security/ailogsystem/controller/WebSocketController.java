@@ -116,6 +116,7 @@ public class WebSocketController {
         return ResponseEntity.ok(Map.of(
                 "messageTypes", java.util.List.of("LOG", "ALERT", "STATS", "PROCESS", "NOTIFICATION"),
                 "topic", "/topic/events",
+                "filterHeader", "filter: severity>=HIGH; sourceSystem=WINDOWS; host=web-01; eventType=4625",
                 "timestamp", LocalDateTime.now()));
     }
 
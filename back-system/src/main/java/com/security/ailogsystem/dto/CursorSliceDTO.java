@@ -0,0 +1,39 @@
+package com.security.ailogsystem.dto;
+
+import com.security.ailogsystem.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果：不返回总数和总页数，nextCursor 为 null 表示已是最后一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorSliceDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private int numberOfElements;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static <T> CursorSliceDTO<T> of(Slice<T> slice, String nextCursor) {
+        return new CursorSliceDTO<>(slice.getContent(), slice.getSize(), slice.getNumberOfElements(),
+                slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * 游标取自实体，内容返回转换后的 DTO
+     */
+    public static <E, T> CursorSliceDTO<T> of(Slice<E> slice, String sortBy, Sort.Direction direction,
+                                              Function<E, T> mapper) {
+        return of(slice.map(mapper), KeysetCursor.next(slice, sortBy, direction));
+    }
+}
@@ -0,0 +1,61 @@
+package com.security.ailogsystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 导出请求：数据类型、格式、时间范围及各类型的过滤条件（与 /export 各接口的参数一致）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportRequest {
+
+    /**
+     * 数据类型：logs、alerts、events、security-logs、system-metrics、batch
+     */
+    @NotBlank(message = "导出类型不能为空")
+    private String type;
+
+    /**
+     * 导出格式：csv、excel、json，events 和 system-metrics 另支持 parquet；batch 为 excel 或 zip
+     */
+    @Builder.Default
+    private String format = "csv";
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    // 日志
+    private String level;
+    private String keyword;
+
+    // 告警
+    private String alertLevel;
+    private String alertType;
+    private String status;
+
+    // 安全事件
+    private String eventType;
+    private String severity;
+
+    // Windows 安全日志
+    private Integer eventId;
+    private String username;
+
+    // 系统性能指标
+    private String metricType;
+
+    /**
+     * batch 导出的数据类型列表
+     */
+    private List<String> dataTypes;
+}
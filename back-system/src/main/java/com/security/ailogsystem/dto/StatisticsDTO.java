@@ -26,4 +26,6 @@ public class StatisticsDTO {
     private Integer throughput;
     private Long totalAlerts;
     private Long unhandledAlerts;
+    private Boolean partial; // 部分子查询超时或失败时为 true
+    private List<String> missing; // 超时或失败的子查询
 }
\ No newline at end of file
@@ -57,6 +57,12 @@ public class UnifiedEventQueryDTO {
     @Builder.Default
     private Integer size = 20;
 
+    // 游标分页：非 null 时按游标翻页（空串表示第一页），忽略 page 且不返回总数
+    private String cursor;
+
+    // 稀疏字段：逗号分隔的主表字段名，非空时只查询并返回这些字段（id 总是返回）
+    private String fields;
+
     // 排序参数
     @Builder.Default
     private String sortBy = "timestamp";
@@ -80,6 +86,10 @@ public class UnifiedEventQueryDTO {
         return true;
     }
 
+    public boolean hasFields() {
+        return fields != null && !fields.isBlank();
+    }
+
     /**
      * 获取安全的排序字段
      */
@@ -96,9 +96,26 @@ public class UnifiedSecurityEventDTO {
     @Builder.Default
     private Double combinedScore = 0.0;      // 综合分数 (0-1)
     /**
-     * 从实体类转换为DTO
+     * 从实体类转换为DTO（含原始消息、事件详情等冷数据字段，用于详情和导出）
      */
     public static UnifiedSecurityEventDTO fromEntity(UnifiedSecurityEvent entity) {
+        return summaryBuilder(entity)
+                .rawMessage(entity.getRawMessage())
+                .eventData(entity.getEventData())
+                .anomalyReason(entity.getAnomalyReason())
+                .features(entity.getFeatures())
+                .rawData(entity.getRawData())
+                .build();
+    }
+
+    /**
+     * 从实体类转换为列表摘要DTO，不访问冷数据字段，避免逐行加载大字段表
+     */
+    public static UnifiedSecurityEventDTO fromEntitySummary(UnifiedSecurityEvent entity) {
+        return summaryBuilder(entity).build();
+    }
+
+    private static UnifiedSecurityEventDTOBuilder summaryBuilder(UnifiedSecurityEvent entity) {
         return UnifiedSecurityEventDTO.builder()
                 .id(entity.getId())
                 .timestamp(entity.getTimestamp())
@@ -106,7 +123,6 @@ public class UnifiedSecurityEventDTO {
                 .eventType(entity.getEventType())
                 .category(entity.getCategory())
                 .severity(entity.getSeverity())
-                .rawMessage(entity.getRawMessage())
                 .normalizedMessage(entity.getNormalizedMessage())
                 .hostIp(entity.getHostIp())
                 .hostName(entity.getHostName())
@@ -123,10 +139,8 @@ public class UnifiedSecurityEventDTO {
                 .protocol(entity.getProtocol())
                 .eventCode(entity.getEventCode())
                 .eventSubType(entity.getEventSubType())
-                .eventData(entity.getEventData())
                 .isAnomaly(entity.getIsAnomaly())
                 .anomalyScore(entity.getAnomalyScore())
-                .anomalyReason(entity.getAnomalyReason())
                 .detectionAlgorithm(entity.getDetectionAlgorithm())
                 .threatLevel(entity.getThreatLevel())
                 .status(entity.getStatus())
@@ -135,14 +149,10 @@ public class UnifiedSecurityEventDTO {
                 .resolvedAt(entity.getResolvedAt())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
-                .features(entity.getFeatures())
-                .rawData(entity.getRawData())
-                .threatLevel(entity.getThreatLevel())
                 // 新增 AI 字段映射
                 .aiAnomalyScore(entity.getAiAnomalyScore())
                 .aiIsAnomaly(entity.getAiIsAnomaly())
-                .combinedScore(entity.getCombinedScore())
-                .build();
+                .combinedScore(entity.getCombinedScore());
     }
 
     /**
@@ -1,6 +1,7 @@
 // entity/SystemMetrics.java
 package com.security.ailogsystem.entity;
 
+import com.security.ailogsystem.util.CompressedJsonConverter;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -89,6 +90,7 @@ public class SystemMetrics {
     
     // Raw data for flexibility
     @Column(name = "raw_data", columnDefinition = "JSON")
+    @Convert(converter = CompressedJsonConverter.class)
     private String rawData;
     
     @Column(name = "created_at", nullable = false)
@@ -0,0 +1,52 @@
+package com.security.ailogsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 安全事件统计预聚合的公共列
+ * 按 (时间桶, 来源系统, 事件类型, 分类, 严重级别, 威胁等级, 处理状态, 是否异常) 计数，
+ * 由 EventRollupService 在入库时增量更新并定时从明细表校准；空维度值存为空串以便唯一键生效
+ */
+@MappedSuperclass
+@Data
+@NoArgsConstructor
+public abstract class EventRollup {
+
+    /** 维度列长度，保证联合唯一键不超过 InnoDB 索引长度限制 */
+    public static final int DIMENSION_LENGTH = 64;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "source_system", nullable = false, length = DIMENSION_LENGTH)
+    private String sourceSystem;
+
+    @Column(name = "event_type", nullable = false, length = DIMENSION_LENGTH)
+    private String eventType;
+
+    @Column(nullable = false, length = DIMENSION_LENGTH)
+    private String category;
+
+    @Column(nullable = false, length = DIMENSION_LENGTH)
+    private String severity;
+
+    @Column(name = "threat_level", nullable = false, length = DIMENSION_LENGTH)
+    private String threatLevel;
+
+    @Column(nullable = false, length = DIMENSION_LENGTH)
+    private String status;
+
+    @Column(name = "is_anomaly", nullable = false)
+    private Boolean isAnomaly;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+}
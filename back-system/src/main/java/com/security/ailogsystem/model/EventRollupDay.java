@@ -0,0 +1,21 @@
+package com.security.ailogsystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 安全事件按天预聚合，长时间范围和全量统计使用
+ */
+@Entity
+@Table(name = "event_rollup_day", uniqueConstraints = @UniqueConstraint(name = "uk_erd_bucket_dimensions",
+        columnNames = {"bucket_start", "source_system", "event_type", "category", "severity",
+                "threat_level", "status", "is_anomaly"}))
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@NoArgsConstructor
+public class EventRollupDay extends EventRollup {
+}
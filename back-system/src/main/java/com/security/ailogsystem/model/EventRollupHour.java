@@ -0,0 +1,21 @@
+package com.security.ailogsystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 安全事件按小时预聚合，趋势图和跨天统计的主要数据源
+ */
+@Entity
+@Table(name = "event_rollup_hour", uniqueConstraints = @UniqueConstraint(name = "uk_erh_bucket_dimensions",
+        columnNames = {"bucket_start", "source_system", "event_type", "category", "severity",
+                "threat_level", "status", "is_anomaly"}))
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@NoArgsConstructor
+public class EventRollupHour extends EventRollup {
+}
@@ -0,0 +1,21 @@
+package com.security.ailogsystem.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 安全事件按分钟预聚合，保留最近数天，用于小时边界内的精确统计
+ */
+@Entity
+@Table(name = "event_rollup_minute", uniqueConstraints = @UniqueConstraint(name = "uk_erm_bucket_dimensions",
+        columnNames = {"bucket_start", "source_system", "event_type", "category", "severity",
+                "threat_level", "status", "is_anomaly"}))
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@NoArgsConstructor
+public class EventRollupMinute extends EventRollup {
+}
@@ -1,18 +1,20 @@
 package com.security.ailogsystem.model;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.security.ailogsystem.util.SearchableTextConverter;
+import com.security.ailogsystem.util.JsonMaps;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import jakarta.persistence.*;
-import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 @Entity
@@ -24,7 +26,9 @@ import java.util.Map;
     @Index(name = "idx_use_severity", columnList = "severity"),
     @Index(name = "idx_use_threat_level", columnList = "threat_level"),
     @Index(name = "idx_use_status", columnList = "status"),
-    @Index(name = "idx_use_source_ip", columnList = "source_ip"),
+    @Index(name = "idx_use_source_ip_timestamp", columnList = "source_ip, timestamp, is_anomaly"),
+    @Index(name = "idx_use_user_timestamp", columnList = "user_id, timestamp, is_anomaly"),
+    @Index(name = "idx_use_host_timestamp", columnList = "host_ip, timestamp, is_anomaly"),
     @Index(name = "idx_use_level", columnList = "level"),
     @Index(name = "idx_use_anomaly_timestamp", columnList = "is_anomaly, timestamp"),
     @Index(name = "idx_use_source_event_timestamp", columnList = "source_system, event_type, timestamp")
@@ -59,12 +63,9 @@ public class UnifiedSecurityEvent {
     @Column(nullable = false)
     private String severity; // LOW, MEDIUM, HIGH, CRITICAL
 
-    // 原始消息
-    @Column(columnDefinition = "TEXT")
-    private String rawMessage;
-
-    // 标准化消息
+    // 标准化消息（关键词检索按 LIKE 匹配，不压缩）
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = SearchableTextConverter.class)
     private String normalizedMessage;
 
     // 主机信息
@@ -92,19 +93,12 @@ public class UnifiedSecurityEvent {
     private Integer eventCode;
     private String eventSubType;
 
-    // 修复：将 Map 转换为 JSON 字符串存储
-    @Column(columnDefinition = "TEXT")
-    private String eventDataJson;
-
     // 异常检测相关
     @Builder.Default
     private Boolean isAnomaly = false;
 
     private Double anomalyScore;
 
-    @Column(columnDefinition = "TEXT")
-    private String anomalyReason;
-
     private String detectionAlgorithm; // KEYWORD, FREQUENCY, STATISTICAL, ML
 
     // 威胁等级
@@ -129,14 +123,6 @@ public class UnifiedSecurityEvent {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    // 特征向量（用于机器学习）- 存储为 JSON 字符串
-    @Column(columnDefinition = "TEXT")
-    private String featuresJson;
-
-    // 原始数据备份
-    @Column(columnDefinition = "TEXT")
-    private String rawData;
-
     @Column(name = "level")
     private String level;
     @Column(name = "ai_anomaly_score")
@@ -147,61 +133,140 @@ public class UnifiedSecurityEvent {
 
     @Column(name = "combined_score")
     private Double combinedScore;
-    // 辅助方法：获取 eventData Map
-    @Transient
-    public Map<String, Object> getEventData() {
-        if (eventDataJson == null || eventDataJson.trim().isEmpty()) {
-            return new HashMap<>();
+
+    // 大字段拆分到一对一的冷数据表，仅在详情和导出时按需加载
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "payload_id")
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private UnifiedSecurityEventPayload payload;
+
+    // ==================== 冷数据字段访问 ====================
+
+    public String getRawMessage() {
+        return payload != null ? payload.getRawMessage() : null;
+    }
+
+    public void setRawMessage(String rawMessage) {
+        if (rawMessage != null || payload != null) {
+            payload().setRawMessage(rawMessage);
+        }
+    }
+
+    public String getRawData() {
+        return payload != null ? payload.getRawData() : null;
+    }
+
+    public void setRawData(String rawData) {
+        if (rawData != null || payload != null) {
+            payload().setRawData(rawData);
+        }
+    }
+
+    public String getEventDataJson() {
+        return payload != null ? payload.getEventDataJson() : null;
+    }
+
+    public void setEventDataJson(String eventDataJson) {
+        if (eventDataJson != null || payload != null) {
+            payload().setEventDataJson(eventDataJson);
+        }
+    }
+
+    public String getFeaturesJson() {
+        return payload != null ? payload.getFeaturesJson() : null;
+    }
+
+    public void setFeaturesJson(String featuresJson) {
+        if (featuresJson != null || payload != null) {
+            payload().setFeaturesJson(featuresJson);
         }
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(eventDataJson, new TypeReference<Map<String, Object>>() {});
-        } catch (IOException e) {
-            return new HashMap<>();
+    }
+
+    public String getAnomalyReason() {
+        return payload != null ? payload.getAnomalyReason() : null;
+    }
+
+    public void setAnomalyReason(String anomalyReason) {
+        if (anomalyReason != null || payload != null) {
+            payload().setAnomalyReason(anomalyReason);
+        }
+    }
+
+    private UnifiedSecurityEventPayload payload() {
+        if (payload == null) {
+            payload = new UnifiedSecurityEventPayload();
+        }
+        return payload;
+    }
+
+    /**
+     * 构建器保留冷数据字段的写法，值写入一对一的冷数据实体
+     */
+    public static class UnifiedSecurityEventBuilder {
+
+        public UnifiedSecurityEventBuilder rawMessage(String rawMessage) {
+            builderPayload().setRawMessage(rawMessage);
+            return this;
+        }
+
+        public UnifiedSecurityEventBuilder rawData(String rawData) {
+            builderPayload().setRawData(rawData);
+            return this;
+        }
+
+        public UnifiedSecurityEventBuilder anomalyReason(String anomalyReason) {
+            builderPayload().setAnomalyReason(anomalyReason);
+            return this;
+        }
+
+        private UnifiedSecurityEventPayload builderPayload() {
+            if (this.payload == null) {
+                this.payload = new UnifiedSecurityEventPayload();
+            }
+            return this.payload;
         }
     }
+    // 辅助方法：获取 eventData Map（只读，解析结果缓存在冷数据实体上，写入后失效）
+    @Transient
+    public Map<String, Object> getEventData() {
+        return payload != null ? payload.eventDataView() : Collections.emptyMap();
+    }
 
     // 辅助方法：设置 eventData Map
     @Transient
     public void setEventData(Map<String, Object> eventData) {
-        if (eventData == null) {
-            this.eventDataJson = null;
-            return;
-        }
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            this.eventDataJson = mapper.writeValueAsString(eventData);
-        } catch (IOException e) {
-            this.eventDataJson = "{}";
-        }
+        setEventDataJson(eventData != null ? JsonMaps.write(eventData, "{}") : null);
+    }
+
+    /**
+     * 读取 eventData 中的单个字段并转为字符串，不存在时返回 null
+     */
+    @Transient
+    public String getEventDataString(String key) {
+        Object value = getEventData().get(key);
+        return value != null ? value.toString() : null;
     }
 
-    // 辅助方法：获取 features Map
+    // 辅助方法：获取 features Map（只读，解析结果缓存在冷数据实体上，写入后失效）
     @Transient
     public Map<String, Double> getFeatures() {
-        if (featuresJson == null || featuresJson.trim().isEmpty()) {
-            return new HashMap<>();
-        }
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(featuresJson, new TypeReference<Map<String, Double>>() {});
-        } catch (IOException e) {
-            return new HashMap<>();
-        }
+        return payload != null ? payload.featuresView() : Collections.emptyMap();
     }
 
     // 辅助方法：设置 features Map
     @Transient
     public void setFeatures(Map<String, Double> features) {
-        if (features == null) {
-            this.featuresJson = null;
-            return;
-        }
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            this.featuresJson = mapper.writeValueAsString(features);
-        } catch (IOException e) {
-            this.featuresJson = "{}";
-        }
+        setFeaturesJson(features != null ? JsonMaps.write(features, "{}") : null);
+    }
+
+    /**
+     * 读取单个特征值，不存在时返回 defaultValue
+     */
+    @Transient
+    public double getFeature(String name, double defaultValue) {
+        Double value = getFeatures().get(name);
+        return value != null ? value : defaultValue;
     }
-}
\ No newline at end of file
+}
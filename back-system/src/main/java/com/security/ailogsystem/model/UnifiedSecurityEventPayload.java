@@ -0,0 +1,110 @@
+package com.security.ailogsystem.model;
+
+import com.security.ailogsystem.util.CompressedTextConverter;
+import com.security.ailogsystem.util.SearchableTextConverter;
+import com.security.ailogsystem.util.JsonMaps;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.Map;
+
+/**
+ * 安全事件大字段（冷数据）
+ * 与 unified_security_events 一对一，列表、检索和统计只扫描主表的窄列，
+ * 原始消息、原始数据、事件详情、特征向量和异常原因仅在详情和导出时按需加载
+ */
+@Entity
+@Table(name = "unified_security_event_payloads")
+@BatchSize(size = 50)
+@Data
+@NoArgsConstructor
+public class UnifiedSecurityEventPayload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 原始消息（关键词检索按 LIKE 匹配，不压缩）
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = SearchableTextConverter.class)
+    private String rawMessage;
+
+    // 原始数据备份
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    private String rawData;
+
+    // 事件详情 JSON
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    private String eventDataJson;
+
+    // 特征向量 JSON
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    private String featuresJson;
+
+    // 异常原因
+    @Column(columnDefinition = "TEXT")
+    private String anomalyReason;
+
+    // 解析结果缓存：记录解析时的源字符串引用，JSON 字段被重新赋值（包括 Hibernate 直接写字段）后自动失效
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String parsedEventDataSource;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, Object> parsedEventData;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String parsedFeaturesSource;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, Double> parsedFeatures;
+
+    /**
+     * 事件详情的只读解析视图，同一 JSON 只解析一次
+     */
+    Map<String, Object> eventDataView() {
+        String json = eventDataJson;
+        if (parsedEventData == null || json != parsedEventDataSource) {
+            parsedEventData = JsonMaps.readObjectMap(json);
+            parsedEventDataSource = json;
+        }
+        return parsedEventData;
+    }
+
+    /**
+     * 特征向量的只读解析视图，同一 JSON 只解析一次
+     */
+    Map<String, Double> featuresView() {
+        String json = featuresJson;
+        if (parsedFeatures == null || json != parsedFeaturesSource) {
+            parsedFeatures = JsonMaps.readDoubleMap(json);
+            parsedFeaturesSource = json;
+        }
+        return parsedFeatures;
+    }
+}
@@ -57,6 +57,12 @@ public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecific
     @Query("SELECT a FROM Alert a WHERE a.id < :lastId AND a.handled = false ORDER BY a.id DESC")
     List<Alert> findUnhandledByCursor(@Param("lastId") Long lastId, Pageable pageable);
 
+    // 全文索引增量读取：按 id 顺序取已创建超过等待时间的告警
+    @Query("SELECT a FROM Alert a WHERE a.id > :lastId AND a.createdTime < :settledBefore ORDER BY a.id ASC")
+    List<Alert> findForFullTextIndex(@Param("lastId") Long lastId,
+                                     @Param("settledBefore") LocalDateTime settledBefore,
+                                     Pageable pageable);
+
     // 统计未处理告警数量
     long countByHandledFalse();
 
@@ -69,6 +75,32 @@ public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecific
 
     long countByHandled(boolean b);
 
+    // ========== 按时间段 [start, end) 分组统计（供范围缓存按时间桶查询）==========
+
+    @Query("SELECT MIN(a.createdTime) FROM Alert a")
+    LocalDateTime findEarliestCreatedTime();
+
+    @Query("SELECT a.alertLevel, COUNT(a) FROM Alert a " +
+            "WHERE a.createdTime >= :start AND a.createdTime < :end GROUP BY a.alertLevel")
+    List<Object[]> countByAlertLevelInRange(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    @Query("SELECT a.alertType, COUNT(a) FROM Alert a " +
+            "WHERE a.createdTime >= :start AND a.createdTime < :end GROUP BY a.alertType")
+    List<Object[]> countByAlertTypeInRange(@Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
+
+    @Query("SELECT a.source, COUNT(a) FROM Alert a " +
+            "WHERE a.alertType = 'LOGIN_FAILURE' AND a.createdTime >= :start AND a.createdTime < :end " +
+            "GROUP BY a.source")
+    List<Object[]> countLoginFailuresBySourceInRange(@Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end);
+
+    @Query("SELECT FUNCTION('DATE', a.createdTime), COUNT(a) FROM Alert a " +
+            "WHERE a.createdTime >= :start AND a.createdTime < :end GROUP BY FUNCTION('DATE', a.createdTime)")
+    List<Object[]> countDailyInRange(@Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
     // ========== 新增方法 ==========
 
     // 最近7天每日统计
@@ -118,7 +150,7 @@ public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecific
     List<Object[]> getTopSourceIPs();
 
     // 获取今日告警统计
-    @Query("SELECT COUNT(a) FROM Alert a WHERE DATE(a.createdTime) = CURRENT_DATE")
+    @Query("SELECT COUNT(a) FROM Alert a WHERE CAST(a.createdTime AS date) = CURRENT_DATE")
     long countTodayAlerts();
 
     // 获取最近24小时告警统计（按小时）
@@ -44,6 +44,29 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long>, JpaSp
     
     long countByIsAnomalyFalse();
     
+    /**
+     * 日志统计的条件聚合，一次扫描返回一行：INFO/WARN/ERROR/DEBUG 级别数、web-server/database/api-gateway 来源数、异常数、正常数
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN l.level = 'INFO' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.level = 'WARN' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.level = 'ERROR' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.level = 'DEBUG' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.source = 'web-server' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.source = 'database' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.source = 'api-gateway' THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.isAnomaly = true THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.isAnomaly = false THEN 1 ELSE 0 END), 0) FROM LogEntry l")
+    List<Object[]> summarizeLevelSourceAndAnomalyCounts();
+    
+    /**
+     * 批量操作统计的条件聚合，一次扫描返回一行：总数、异常数、正常数、时间范围内的日志数
+     */
+    @Query("SELECT COUNT(l), "
+            + "COALESCE(SUM(CASE WHEN l.isAnomaly = true THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.isAnomaly = false THEN 1 ELSE 0 END), 0), "
+            + "COALESCE(SUM(CASE WHEN l.timestamp BETWEEN :start AND :end THEN 1 ELSE 0 END), 0) FROM LogEntry l")
+    List<Object[]> summarizeAnomalyAndRecentCounts(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
     void deleteByTimestampBefore(LocalDateTime date);
     
     // 新增的统计查询方法
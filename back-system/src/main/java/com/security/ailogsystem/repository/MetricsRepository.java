@@ -6,12 +6,15 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MetricsRepository extends JpaRepository<SystemMetrics, Long>, JpaSpecificationExecutor<SystemMetrics> {
@@ -63,4 +66,23 @@ public interface MetricsRepository extends JpaRepository<SystemMetrics, Long>, J
      * @return Count of metrics in the range
      */
     long countByTimestampBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Stream the chart columns of metrics within time range, ordered by timestamp ascending.
+     * Only numeric columns are selected so raw_data is never loaded; the fetch size lets the
+     * MySQL driver read rows with a server-side cursor (useCursorFetch=true) instead of buffering them all.
+     * Must be consumed inside a transaction and closed after use.
+     * @param start Start of time range (inclusive)
+     * @param end End of time range (inclusive)
+     * @param hostname Host to filter by, null for all hosts
+     * @return Rows of [timestamp, hostname, cpuUsage, memoryUsage, diskUsage, networkSentRate, networkReceivedRate, systemLoad]
+     */
+    @Query("SELECT m.timestamp, m.hostname, m.cpuUsage, m.memoryUsage, m.diskUsage, " +
+           "m.networkSentRate, m.networkReceivedRate, m.systemLoad FROM SystemMetrics m " +
+           "WHERE m.timestamp BETWEEN :start AND :end AND (:hostname IS NULL OR m.hostname = :hostname) " +
+           "ORDER BY m.timestamp ASC")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<Object[]> streamChartColumns(@Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end,
+                                        @Param("hostname") String hostname);
 }
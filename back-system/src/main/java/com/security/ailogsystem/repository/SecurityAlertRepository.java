@@ -29,6 +29,12 @@ public interface SecurityAlertRepository extends JpaRepository<SecurityAlert, Lo
 
     Long countByHandledFalse();
 
+    /**
+     * 告警总数和未处理数的条件聚合，返回一行
+     */
+    @Query("SELECT COUNT(a), COALESCE(SUM(CASE WHEN a.handled = false THEN 1 ELSE 0 END), 0) FROM SecurityAlert a")
+    List<Object[]> countTotalAndUnhandled();
+
     Long countByHandledFalseAndCreatedTimeBetween(LocalDateTime start, LocalDateTime end);
 
     Long countByAlertLevelAndCreatedTimeBetween(SecurityAlert.AlertLevel level, LocalDateTime start, LocalDateTime end);
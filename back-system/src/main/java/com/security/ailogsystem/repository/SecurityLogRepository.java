@@ -94,6 +94,34 @@ public interface SecurityLogRepository extends JpaRepository<SecurityLog, Long>,
     @Query("SELECT l.threatLevel, COUNT(l) FROM SecurityLog l GROUP BY l.threatLevel")
     List<Object[]> countByThreatLevelGroupAll();
 
+    // ========== 按时间段 [start, end) 分组统计（供范围缓存按时间桶查询）==========
+
+    @Query("SELECT l.threatLevel, COUNT(l) FROM SecurityLog l " +
+            "WHERE l.eventTime >= :start AND l.eventTime < :end GROUP BY l.threatLevel")
+    List<Object[]> countByThreatLevelGroupInRange(@Param("start") LocalDateTime start,
+                                                  @Param("end") LocalDateTime end);
+
+    @Query("SELECT l.eventId, COUNT(l) FROM SecurityLog l " +
+            "WHERE l.eventTime >= :start AND l.eventTime < :end GROUP BY l.eventId")
+    List<Object[]> countEventsByTypeInRange(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    @Query("SELECT FUNCTION('DATE', l.eventTime), COUNT(l) FROM SecurityLog l " +
+            "WHERE l.eventTime >= :start AND l.eventTime < :end GROUP BY FUNCTION('DATE', l.eventTime)")
+    List<Object[]> countDailyInRange(@Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
+    @Query("SELECT l.ipAddress, COUNT(l) FROM SecurityLog l " +
+            "WHERE l.eventTime >= :start AND l.eventTime < :end AND l.ipAddress IS NOT NULL GROUP BY l.ipAddress")
+    List<Object[]> countByIpAddressInRange(@Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
+
+    // 登录失败（4625）按来源 IP 统计
+    @Query("SELECT l.ipAddress, COUNT(l) FROM SecurityLog l " +
+            "WHERE l.eventId = 4625 AND l.eventTime >= :start AND l.eventTime < :end GROUP BY l.ipAddress")
+    List<Object[]> countFailedLoginsByIpInRange(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
+
     // 按威胁等级和时间范围统计
     @Query("SELECT COUNT(l) FROM SecurityLog l WHERE l.threatLevel = :threatLevel AND l.eventTime BETWEEN :start AND :end")
     Long countByThreatLevelAndEventTimeBetween(@Param("threatLevel") String threatLevel,
@@ -139,7 +167,7 @@ public interface SecurityLogRepository extends JpaRepository<SecurityLog, Long>,
     Long countHighRiskLogs();
 
     // 9. 获取今日日志统计
-    @Query("SELECT COUNT(l) FROM SecurityLog l WHERE DATE(l.eventTime) = CURRENT_DATE")
+    @Query("SELECT COUNT(l) FROM SecurityLog l WHERE CAST(l.eventTime AS date) = CURRENT_DATE")
     Long countTodayLogs();
 
     // 10. 获取最近7天每日统计（用于Dashboard图表）
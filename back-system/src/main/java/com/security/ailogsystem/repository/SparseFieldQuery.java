@@ -0,0 +1,126 @@
+package com.security.ailogsystem.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 稀疏字段查询
+ * 列表接口通过 fields 参数指定字段时，用 Criteria 元组查询只 SELECT 这些列，查询条件复用已有的 Specification；
+ * 每行结果为字段名到值的有序 Map，不创建实体，也不进入持久化上下文。
+ * 只允许选择实体主表上的基本字段（关联和冷数据表字段需查看详情），id 总是返回
+ */
+@Repository
+public class SparseFieldQuery {
+
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Class<?>, Set<String>> basicAttributes = new ConcurrentHashMap<>();
+
+    /**
+     * 解析逗号分隔的 fields 参数
+     *
+     * @param required 结果中必须包含的字段，如游标分页的排序字段
+     * @return 参数为空时返回 null，表示返回完整 DTO；否则返回以 id 开头、去重后的字段列表
+     * @throws IllegalArgumentException 字段不存在或不是主表基本字段
+     */
+    public List<String> parse(Class<?> entityType, String fields, String... required) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> allowed = basicAttributes.computeIfAbsent(entityType, this::loadBasicAttributes);
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("不支持的字段: " + name);
+            }
+            selected.add(name);
+        }
+        selected.addAll(Arrays.asList(required));
+        return new ArrayList<>(selected);
+    }
+
+    /**
+     * 按条件和排序查询指定字段
+     */
+    public <T> List<Map<String, Object>> findAll(Class<T> entityType, List<String> fields, Specification<T> spec,
+                                                 Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityType);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 分页查询指定字段；最后一页不足一页时不执行计数查询
+     */
+    public <T> Page<Map<String, Object>> findAll(Class<T> entityType, List<String> fields, Specification<T> spec,
+                                                 Pageable pageable, LongSupplier total) {
+        List<Map<String, Object>> content = findAll(entityType, fields, spec, pageable.getSort(),
+                pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, total);
+    }
+
+    private Set<String> loadBasicAttributes(Class<?> entityType) {
+        Set<String> names = new HashSet<>();
+        for (SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(entityType).getSingularAttributes()) {
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                names.add(attribute.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,73 @@
+package com.security.ailogsystem.repository;
+
+import com.security.ailogsystem.config.ExportProperties;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 游标式逐行查询
+ * 按 Specification 以只进游标读取实体，每行交给调用方处理后即可丢弃；
+ * 每处理 detachInterval 行清空一次持久化上下文，已处理的实体不会在会话中累积。
+ * 须在事务内调用，处理回调中的实体在下一次清空前仍是托管状态，可访问延迟加载的关联
+ */
+@Repository
+public class StreamingQuery {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ExportProperties properties;
+
+    public StreamingQuery(ExportProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param maxRows 最多处理的行数
+     * @return 处理的行数
+     */
+    public <T> long forEach(Class<T> entityType, Specification<T> spec, Sort sort, int maxRows, Consumer<T> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entityType);
+        Root<T> root = query.from(entityType);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        long rows = 0;
+        int detachInterval = Math.max(1, properties.getDetachInterval());
+        try (Stream<T> stream = entityManager.createQuery(query)
+                .setMaxResults(maxRows)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, properties.getFetchSize())
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++rows % detachInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.clear();
+        return rows;
+    }
+}
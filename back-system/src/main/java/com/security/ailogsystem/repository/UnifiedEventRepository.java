@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -63,24 +64,6 @@ public interface UnifiedEventRepository extends JpaRepository<UnifiedSecurityEve
     long countByUserIdAndTimestampBetween(String userId, LocalDateTime start, LocalDateTime end);
 
     // 高级统计查询
-    @Query("SELECT e.sourceSystem, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.sourceSystem")
-    List<Object[]> countBySourceSystemGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT e.eventType, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.eventType")
-    List<Object[]> countByEventTypeGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT e.category, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.category")
-    List<Object[]> countByCategoryGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT e.severity, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.severity")
-    List<Object[]> countBySeverityGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT e.threatLevel, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.threatLevel")
-    List<Object[]> countByThreatLevelGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT e.status, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.status")
-    List<Object[]> countByStatusGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
     @Query("SELECT e.detectionAlgorithm, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end GROUP BY e.detectionAlgorithm")
     List<Object[]> countByDetectionAlgorithmGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
@@ -97,19 +80,6 @@ public interface UnifiedEventRepository extends JpaRepository<UnifiedSecurityEve
     @Query("SELECT e.userId, COUNT(e) FROM UnifiedSecurityEvent e WHERE e.userId IS NOT NULL AND e.timestamp BETWEEN :start AND :end GROUP BY e.userId ORDER BY COUNT(e) DESC")
     List<Object[]> countByUserGroup(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end, Pageable pageable);
 
-    // 异常事件统计
-    @Query("SELECT COUNT(e) FROM UnifiedSecurityEvent e WHERE e.isAnomaly = true AND e.timestamp BETWEEN :start AND :end")
-    long countAnomalyEvents(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    // 时间序列统计：按小时返回总事件数和异常事件数
-    @Query(value = "SELECT DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00') as hour, " +
-            "COUNT(*) as totalCount, " +
-            "SUM(CASE WHEN is_anomaly = 1 THEN 1 ELSE 0 END) as anomalyCount " +
-            "FROM unified_security_events WHERE timestamp BETWEEN :start AND :end " +
-            "GROUP BY DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00') ORDER BY hour",
-            nativeQuery = true)
-    List<Object[]> getHourlyStatistics(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
     // 获取最近事件
     List<UnifiedSecurityEvent> findTop100ByOrderByTimestampDesc();
 
@@ -120,6 +90,17 @@ public interface UnifiedEventRepository extends JpaRepository<UnifiedSecurityEve
     @Query("SELECT e FROM UnifiedSecurityEvent e WHERE e.id < :lastId AND e.isAnomaly = true ORDER BY e.id DESC")
     List<UnifiedSecurityEvent> findAnomalyByCursor(@Param("lastId") Long lastId, Pageable pageable);
 
+    // 全文索引增量读取：按 id 顺序取已入库超过等待时间的事件，连同大字段一次加载
+    @Query("SELECT e FROM UnifiedSecurityEvent e LEFT JOIN FETCH e.payload " +
+            "WHERE e.id > :lastId AND e.createdAt < :settledBefore ORDER BY e.id ASC")
+    List<UnifiedSecurityEvent> findForFullTextIndex(@Param("lastId") Long lastId,
+                                                    @Param("settledBefore") LocalDateTime settledBefore,
+                                                    Pageable pageable);
+
+    // 全文索引补读：按 id 读取索引位置之前提交较晚的事件，连同大字段一次加载
+    @Query("SELECT e FROM UnifiedSecurityEvent e LEFT JOIN FETCH e.payload WHERE e.id IN :ids")
+    List<UnifiedSecurityEvent> findForFullTextIndexByIds(@Param("ids") Collection<Long> ids);
+
     // 按事件类型查找最近的事件ID（用于关联告警）
     @Query(value = "SELECT e.id FROM unified_security_events e WHERE e.event_type = :eventType AND e.timestamp >= :since ORDER BY e.timestamp DESC LIMIT 1", nativeQuery = true)
     List<Long> findRecentIdByEventType(@Param("eventType") String eventType, @Param("since") LocalDateTime since);
@@ -127,39 +108,12 @@ public interface UnifiedEventRepository extends JpaRepository<UnifiedSecurityEve
     // 删除旧数据
     void deleteByTimestampBefore(LocalDateTime date);
 
-    @Query(value = "SELECT FUNCTION('DATE_FORMAT', timestamp, '%Y-%m-%d %H:00:00') as hour, " +
-            "COUNT(*) as totalCount, " +
-            "SUM(CASE WHEN e.isAnomaly = true THEN 1 ELSE 0 END) as anomalyCount " +
-            "FROM UnifiedSecurityEvent e WHERE e.timestamp BETWEEN :start AND :end " +
-            "GROUP BY FUNCTION('DATE_FORMAT', e.timestamp, '%Y-%m-%d %H:00:00') ORDER BY hour")
-    List<Object[]> getHourlyStatisticsCompatible(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    // 1. 添加：统计某个时间点之后的事件数量（今日事件数）
-    long countByTimestampAfter(LocalDateTime timestamp);
-
-    // 2. 添加：获取最近N天的每日统计
-    @Query(value = "SELECT DATE(timestamp) as date, COUNT(*) as count " +
-            "FROM unified_security_events " +
-            "WHERE timestamp >= :startDate " +
-            "GROUP BY DATE(timestamp) " +
-            "ORDER BY date DESC",
-            nativeQuery = true)
-    List<Object[]> getDailyStatistics(@Param("startDate") LocalDateTime startDate);
-
     // 3. 添加：按事件级别（level）分组统计
     @Query("SELECT e.level, COUNT(e) FROM UnifiedSecurityEvent e GROUP BY e.level")
     List<Object[]> countByLevelGroup();
 
     // 4. 添加：统计异常事件数量
     long countByIsAnomalyTrue();
-
-    // 5. 添加：按严重程度（severity）分组统计所有事件
-    @Query("SELECT e.severity, COUNT(e) FROM UnifiedSecurityEvent e GROUP BY e.severity")
-    List<Object[]> countBySeverityGroupAll();
-
-    // 6. 添加：统计威胁级别（threatLevel）分组
-    @Query("SELECT e.threatLevel, COUNT(e) FROM UnifiedSecurityEvent e GROUP BY e.threatLevel")
-    List<Object[]> countByThreatLevelGroupAll();
     
     // 7. 新增：关联分析查询方法
     long countBySourceIpAndIsAnomalyTrueAndTimestampBetween(
@@ -1,10 +1,12 @@
 package com.security.ailogsystem.service;
 
+import com.security.ailogsystem.dto.CursorSliceDTO;
 import com.security.ailogsystem.dto.request.AlertRequest;
 import com.security.ailogsystem.dto.response.AlertResponse;
 import com.security.ailogsystem.model.Alert;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.Map;
 
@@ -19,6 +21,13 @@ public interface AlertService {
     // 获取所有告警（分页）
     Page<AlertResponse> getAllAlerts(Pageable pageable);
 
+    // 获取所有告警（分页），只查询 fields 指定的字段
+    Page<Map<String, Object>> getAlertFields(Pageable pageable, String fields);
+
+    // 获取所有告警（游标分页），只查询 fields 指定的字段和排序字段
+    CursorSliceDTO<Map<String, Object>> getAlertFieldsByCursor(String sortBy, Sort.Direction direction,
+                                                               int size, String cursor, String fields);
+
     // 获取未处理告警
     Page<AlertResponse> getUnhandledAlerts(Pageable pageable);
 
@@ -30,6 +39,12 @@ public interface AlertService {
                                      Boolean handled, Alert.AlertStatus status,
                                      Pageable pageable);
 
+    // 搜索告警（游标分页，不执行 COUNT）
+    CursorSliceDTO<AlertResponse> searchAlertsByCursor(String keyword, String alertLevel, String alertType,
+                                                       Boolean handled, Alert.AlertStatus status,
+                                                       String sortBy, Sort.Direction direction,
+                                                       int size, String cursor);
+
     // 标记告警为已处理
     boolean markAlertAsHandled(Long id, String handledBy, String resolution);
 
@@ -43,6 +58,9 @@ public interface AlertService {
     // 获取告警统计
     Map<String, Object> getAlertStatistics();
 
+    // 获取仪表盘告警统计
+    Map<String, Object> getDashboardStatistics();
+
     // 获取最近告警
     Page<AlertResponse> getRecentAlerts(int count);
 
@@ -1,8 +1,10 @@
 package com.security.ailogsystem.service;
 
+import com.security.ailogsystem.dto.CursorSliceDTO;
 import com.security.ailogsystem.dto.LogEntryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -58,6 +60,16 @@ public interface BatchLogService {
      */
     Page<LogEntryDTO> efficientPageQuery(Pageable pageable);
     
+    /**
+     * 游标分页查询，按 (排序字段, id) 翻页，不执行 COUNT
+     * @param sortBy 排序字段（timestamp、createdAt 或 id）
+     * @param direction 排序方向
+     * @param size 每页大小
+     * @param cursor 上一页返回的游标，空串或 null 表示第一页
+     * @return 游标分页结果
+     */
+    CursorSliceDTO<LogEntryDTO> efficientCursorQuery(String sortBy, Sort.Direction direction, int size, String cursor);
+    
     /**
      * 批量查询指定ID的日志
      * @param ids 日志ID列表
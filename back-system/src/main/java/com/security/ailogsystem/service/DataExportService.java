@@ -1,48 +1,59 @@
 package com.security.ailogsystem.service;
 
-import org.springframework.core.io.Resource;
+import com.security.ailogsystem.dto.ExportRequest;
+import com.security.ailogsystem.service.export.ExportProgress;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * 数据导出服务接口
+ * 导出内容逐行写入调用方提供的输出流（方法返回时已刷新，但不关闭该流）
  */
 public interface DataExportService {
 
     /**
      * 导出日志数据
      */
-    Resource exportLogs(String format, LocalDateTime startTime, LocalDateTime endTime, 
-                       String level, String keyword);
+    void exportLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
+                    String level, String keyword, OutputStream out) throws IOException;
 
     /**
      * 导出告警数据
      */
-    Resource exportAlerts(String format, LocalDateTime startTime, LocalDateTime endTime, 
-                         String alertLevel, String alertType, String status);
+    void exportAlerts(String format, LocalDateTime startTime, LocalDateTime endTime,
+                      String alertLevel, String alertType, String status, OutputStream out) throws IOException;
 
     /**
      * 导出安全事件数据
      */
-    Resource exportEvents(String format, LocalDateTime startTime, LocalDateTime endTime, 
-                         String eventType, String severity);
+    void exportEvents(String format, LocalDateTime startTime, LocalDateTime endTime,
+                      String eventType, String severity, OutputStream out) throws IOException;
 
     /**
      * 导出Windows安全日志
      */
-    Resource exportSecurityLogs(String format, LocalDateTime startTime, LocalDateTime endTime, 
-                               Integer eventId, String username);
+    void exportSecurityLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
+                            Integer eventId, String username, OutputStream out) throws IOException;
 
     /**
      * 导出系统性能指标
      */
-    Resource exportSystemMetrics(String format, LocalDateTime startTime, LocalDateTime endTime, 
-                                String metricType);
+    void exportSystemMetrics(String format, LocalDateTime startTime, LocalDateTime endTime,
+                             String metricType, OutputStream out) throws IOException;
 
     /**
-     * 批量导出多种数据
+     * 批量导出多种数据（excel 为多工作表，其他为每种数据一个 CSV 的 ZIP）
      */
-    Resource batchExport(String format, List<String> dataTypes, 
-                        LocalDateTime startTime, LocalDateTime endTime);
+    void batchExport(String format, List<String> dataTypes,
+                     LocalDateTime startTime, LocalDateTime endTime, OutputStream out) throws IOException;
+
+    /**
+     * 按导出请求导出（异步导出任务使用），每写出一行回调一次 progress
+     *
+     * @throws IllegalArgumentException 不支持的导出类型
+     */
+    void export(ExportRequest request, OutputStream out, ExportProgress progress) throws IOException;
 }
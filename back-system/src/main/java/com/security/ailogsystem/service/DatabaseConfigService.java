@@ -1,5 +1,6 @@
 package com.security.ailogsystem.service;
 
+import com.security.ailogsystem.config.ReplicaDataSourceConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -37,8 +38,8 @@ public class DatabaseConfigService {
     public Map<String, Object> getCurrentConfig() {
         Map<String, Object> config = new HashMap<>();
         
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        HikariDataSource hikariDataSource = ReplicaDataSourceConfig.hikariPool(dataSource);
+        if (hikariDataSource != null) {
             
             // 基本连接配置
             config.put("url", dataSourceUrl);
@@ -211,8 +212,8 @@ public class DatabaseConfigService {
     public Map<String, Object> getConfigRecommendations() {
         Map<String, Object> recommendations = new HashMap<>();
         
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        HikariDataSource hikariDataSource = ReplicaDataSourceConfig.hikariPool(dataSource);
+        if (hikariDataSource != null) {
             
             // 分析当前配置并提供建议
             if (hikariDataSource.getMaximumPoolSize() > 50) {
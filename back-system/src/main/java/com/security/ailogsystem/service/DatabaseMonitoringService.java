@@ -1,6 +1,7 @@
 package com.security.ailogsystem.service;
 
 import com.security.ailogsystem.config.DatabaseHealthIndicator;
+import com.security.ailogsystem.config.ReplicaDataSourceConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,8 +35,8 @@ public class DatabaseMonitoringService {
     public Map<String, Object> getPoolStatus() {
         Map<String, Object> status = new HashMap<>();
         
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        HikariDataSource hikariDataSource = ReplicaDataSourceConfig.hikariPool(dataSource);
+        if (hikariDataSource != null) {
             HikariPoolMXBean poolBean = hikariDataSource.getHikariPoolMXBean();
             
             status.put("activeConnections", poolBean.getActiveConnections());
@@ -221,8 +222,8 @@ public class DatabaseMonitoringService {
     public Map<String, Object> getPoolConfig() {
         Map<String, Object> config = new HashMap<>();
         
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        HikariDataSource hikariDataSource = ReplicaDataSourceConfig.hikariPool(dataSource);
+        if (hikariDataSource != null) {
             
             config.put("maximumPoolSize", hikariDataSource.getMaximumPoolSize());
             config.put("minimumIdle", hikariDataSource.getMinimumIdle());
@@ -0,0 +1,152 @@
+package com.security.ailogsystem.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 安全事件大字段拆表迁移
+ * 拆表前的行把原始消息等大字段存放在 unified_security_events 自身的列中，
+ * 启动后在后台按主键分批搬到 unified_security_event_payloads 并清空主表旧列，
+ * 全部搬完后可按配置删除旧列
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventPayloadMigrationService {
+
+    private static final String LEGACY_COLUMNS = "raw_message, raw_data, event_data_json, features_json, anomaly_reason";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransactionTemplate;
+
+    @Value("${storage.payload-split.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${storage.payload-split.batch-size:500}")
+    private int batchSize;
+
+    @Value("${storage.payload-split.drop-legacy-columns:false}")
+    private boolean dropLegacyColumns;
+
+    private final AtomicLong migratedRows = new AtomicLong();
+    private volatile String state = "NOT_STARTED";
+
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * 迁移所有尚未拆分的历史行
+     *
+     * @return 本次迁移的行数
+     */
+    public synchronized long migrate() {
+        if (!hasLegacyColumns()) {
+            state = "NO_LEGACY_COLUMNS";
+            return 0;
+        }
+        state = "RUNNING";
+        long migrated = 0;
+        long cursor = 0;
+        String select = "SELECT id, " + LEGACY_COLUMNS + " FROM unified_security_events"
+                + " WHERE payload_id IS NULL AND id > ?"
+                + " AND (raw_message IS NOT NULL OR raw_data IS NOT NULL OR event_data_json IS NOT NULL"
+                + " OR features_json IS NOT NULL OR anomaly_reason IS NOT NULL)"
+                + " ORDER BY id LIMIT ?";
+        try {
+            while (true) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(select, cursor, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                Integer moved = batchTransactionTemplate.execute(status -> {
+                    int count = 0;
+                    for (Map<String, Object> row : rows) {
+                        count += moveRow(row);
+                    }
+                    return count;
+                });
+                migrated += moved != null ? moved : 0;
+                migratedRows.addAndGet(moved != null ? moved : 0);
+                cursor = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+                log.info("安全事件大字段迁移进度: 已迁移 {} 行，当前ID {}", migrated, cursor);
+            }
+            if (dropLegacyColumns) {
+                jdbcTemplate.execute("ALTER TABLE unified_security_events DROP COLUMN raw_message, DROP COLUMN raw_data,"
+                        + " DROP COLUMN event_data_json, DROP COLUMN features_json, DROP COLUMN anomaly_reason");
+                log.info("已删除 unified_security_events 中的旧大字段列");
+            } else if (migrated > 0) {
+                log.info("安全事件大字段迁移完成，共 {} 行；确认无误后可开启 storage.payload-split.drop-legacy-columns 删除旧列", migrated);
+            }
+            state = "COMPLETED";
+        } catch (DataAccessException e) {
+            state = "FAILED: " + e.getMessage();
+            log.error("安全事件大字段迁移失败，已迁移 {} 行，下次启动继续", migrated, e);
+        }
+        return migrated;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("state", state);
+        status.put("migratedRows", migratedRows.get());
+        status.put("dropLegacyColumns", dropLegacyColumns);
+        return status;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int moveRow(Map<String, Object> row) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        // 旧列中的值可能已是压缩编码，原样搬运，由实体转换器统一解码
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO unified_security_event_payloads (" + LEGACY_COLUMNS + ") VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setObject(1, row.get("raw_message"));
+            ps.setObject(2, row.get("raw_data"));
+            ps.setObject(3, row.get("event_data_json"));
+            ps.setObject(4, row.get("features_json"));
+            ps.setObject(5, row.get("anomaly_reason"));
+            return ps;
+        }, keyHolder);
+        Number payloadId = keyHolder.getKey();
+        if (payloadId == null) {
+            throw new IllegalStateException("未获取到大字段表主键");
+        }
+        return jdbcTemplate.update("UPDATE unified_security_events SET payload_id = ?, raw_message = NULL, raw_data = NULL,"
+                        + " event_data_json = NULL, features_json = NULL, anomaly_reason = NULL"
+                        + " WHERE id = ? AND payload_id IS NULL",
+                payloadId.longValue(), ((Number) row.get("id")).longValue());
+    }
+
+    private boolean hasLegacyColumns() {
+        try {
+            jdbcTemplate.queryForList("SELECT " + LEGACY_COLUMNS + " FROM unified_security_events WHERE 1 = 0");
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -2,9 +2,10 @@ package com.security.ailogsystem.service;
 
 import com.security.ailogsystem.repository.SecurityAlertRepository;
 import com.security.ailogsystem.repository.SecurityLogRepository;
-import com.security.ailogsystem.repository.UnifiedEventRepository;
 import com.security.ailogsystem.repository.AlertRepository;
 import com.security.ailogsystem.service.LogCollectorConfigService;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import com.security.ailogsystem.service.search.FullTextSearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,9 +29,11 @@ public class MetricsRetentionScheduler {
     private final MetricsService metricsService;
     private final SecurityAlertRepository securityAlertRepository;
     private final SecurityLogRepository securityLogRepository;
-    private final UnifiedEventRepository unifiedEventRepository;
+    private final UnifiedEventService unifiedEventService;
     private final LogCollectorConfigService logCollectorConfigService;
     private final AlertRepository alertRepository;
+    private final RangeResultCache rangeResultCache;
+    private final FullTextSearchService fullTextSearchService;
 
     @Value("${log-collector.metrics.retention-days:30}")
     private int defaultRetentionDays;
@@ -73,15 +76,16 @@ public class MetricsRetentionScheduler {
                     securityLogRepository.findByEventTimeBefore(cutoff);
             if (!oldLogs.isEmpty()) {
                 securityLogRepository.deleteAll(oldLogs);
+                rangeResultCache.invalidateBefore(RangeResultCache.SECURITY_LOGS, cutoff);
                 log.info("Cleaned up {} old security log records", oldLogs.size());
             }
         } catch (Exception e) {
             log.error("Failed to cleanup security logs", e);
         }
 
-        // 4. 清理统一安全事件 (unified_security_events 表)
+        // 4. 清理统一安全事件 (unified_security_events 表及统计预聚合)
         try {
-            unifiedEventRepository.deleteByTimestampBefore(cutoff);
+            unifiedEventService.purgeEventsBefore(cutoff);
             log.info("Cleaned up unified security events older than {}", cutoff);
         } catch (Exception e) {
             log.error("Failed to cleanup unified security events", e);
@@ -93,6 +97,8 @@ public class MetricsRetentionScheduler {
                     alertRepository.findByCreatedTimeBefore(cutoff);
             if (!oldAlerts.isEmpty()) {
                 alertRepository.deleteAll(oldAlerts);
+                rangeResultCache.invalidateBefore(RangeResultCache.ALERTS, cutoff);
+                fullTextSearchService.alertsPurgedBefore(cutoff);
                 log.info("Cleaned up {} old alerts records", oldAlerts.size());
             }
         } catch (Exception e) {
@@ -1,6 +1,7 @@
 package com.security.ailogsystem.service;
 
 import com.security.ailogsystem.entity.SystemMetrics;
+import com.security.ailogsystem.service.downsample.TimeBucket;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,6 +13,13 @@ import java.util.Optional;
  * Handles storage, retrieval, and transformation of metrics data.
  */
 public interface MetricsService {
+
+    /**
+     * Metric names supported by chart history, in the column order of
+     * {@link com.security.ailogsystem.repository.MetricsRepository#streamChartColumns}.
+     */
+    List<String> CHART_METRICS = List.of("cpuUsage", "memoryUsage", "diskUsage",
+            "networkSentRate", "networkReceivedRate", "systemLoad");
     
     /**
      * Store metrics from Python collector data.
@@ -65,6 +73,24 @@ public interface MetricsService {
      */
     List<Map<String, Object>> transformToHistoricalResponse(List<SystemMetrics> metricsList);
     
+    /**
+     * Get downsampled historical metrics for charts.
+     * Rows are streamed from the database and reduced per host and metric, optionally averaged
+     * into time buckets first and then limited with LTTB, so the response size depends on
+     * maxPoints rather than on the width of the time range.
+     * 
+     * @param start Start of time range (inclusive)
+     * @param end End of time range (inclusive)
+     * @param hostname Host to filter by, null for all hosts
+     * @param metrics Metric names to include, see {@link #CHART_METRICS}
+     * @param bucket Bucket to average into before LTTB, null to downsample raw samples
+     * @param maxPoints Maximum number of points per series
+     * @return Map containing series of [epochMillis, value] points and downsampling details
+     * @throws IllegalArgumentException if a metric name is not supported
+     */
+    Map<String, Object> getDownsampledHistory(LocalDateTime start, LocalDateTime end, String hostname,
+                                              List<String> metrics, TimeBucket bucket, int maxPoints);
+    
     /**
      * Clean up old metrics based on retention policy.
      * Deletes metrics older than the specified number of days.
@@ -0,0 +1,230 @@
+package com.security.ailogsystem.service;
+
+import com.security.ailogsystem.util.CompressedJsonConverter;
+import com.security.ailogsystem.util.CompressedTextConverter;
+import com.security.ailogsystem.util.PayloadCompression;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大文本字段后台重压缩
+ * 按主键分批扫描历史明文行和使用旧字典压缩的行，按当前配置重新压缩写回；
+ * 新写入的行已由 JPA 转换器压缩，本任务主要处理启用压缩之前的数据和字典更换。
+ * 参与关键词检索的列（标准化消息、原始消息）须保持明文，已被压缩写入的值在此还原
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayloadRecompressionService {
+
+    private static final String EVENT_TABLE = "unified_security_events";
+    private static final List<String> EVENT_TEXT_COLUMNS = List.of("normalized_message");
+    private static final String PAYLOAD_TABLE = "unified_security_event_payloads";
+    private static final List<String> PAYLOAD_TEXT_COLUMNS =
+            List.of("raw_message", "raw_data", "event_data_json", "features_json");
+    // 关键词检索按 LIKE 匹配的列，只解压不压缩
+    private static final Set<String> SEARCHABLE_TEXT_COLUMNS = Set.of("normalized_message", "raw_message");
+    private static final String METRICS_TABLE = "system_metrics";
+    private static final List<String> METRICS_JSON_COLUMNS = List.of("raw_data");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCompression payloadCompression;
+    private final TransactionTemplate transactionTemplate;
+
+    private final CompressedTextConverter textConverter = new CompressedTextConverter();
+    private final CompressedJsonConverter jsonConverter = new CompressedJsonConverter();
+
+    @Value("${storage.compression.recompress.enabled:true}")
+    private boolean recompressEnabled;
+
+    @Value("${storage.compression.recompress.batch-size:500}")
+    private int batchSize;
+
+    @Value("${storage.compression.recompress.max-rows-per-run:100000}")
+    private int maxRowsPerRun;
+
+    @Value("${storage.compression.recompress.pause-ms:50}")
+    private long pauseMillis;
+
+    // 每张表的扫描游标（仅内存保存，重启后从头扫描以覆盖字典更换）
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 统计
+    private final AtomicLong scannedRows = new AtomicLong();
+    private final AtomicLong rewrittenRows = new AtomicLong();
+    private final AtomicLong charsBefore = new AtomicLong();
+    private final AtomicLong charsAfter = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile String lastError;
+
+    /**
+     * 定时重压缩（默认每天凌晨低峰执行）
+     */
+    @Scheduled(cron = "${storage.compression.recompress.cron:0 30 3 * * ?}")
+    public void scheduledRecompress() {
+        if (recompressEnabled && payloadCompression.isEnabled()) {
+            recompress();
+        }
+    }
+
+    /**
+     * 执行一轮重压缩，已在运行时直接返回当前统计
+     */
+    public Map<String, Object> recompress() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("重压缩任务正在运行，跳过本次触发");
+            return getStats();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int budget = maxRowsPerRun;
+            budget -= recompressTable(EVENT_TABLE, EVENT_TEXT_COLUMNS, false, budget);
+            budget -= recompressTable(PAYLOAD_TABLE, PAYLOAD_TEXT_COLUMNS, false, budget);
+            recompressTable(METRICS_TABLE, METRICS_JSON_COLUMNS, true, budget);
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("大文本字段重压缩失败", e);
+        } finally {
+            lastRunAt = LocalDateTime.now();
+            running.set(false);
+        }
+        log.info("大文本字段重压缩完成，耗时 {}ms，累计改写 {} 行", System.currentTimeMillis() - start, rewrittenRows.get());
+        return getStats();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long before = charsBefore.get();
+        long after = charsAfter.get();
+        stats.put("running", running.get());
+        stats.put("enabled", payloadCompression.isEnabled());
+        stats.put("minLength", payloadCompression.getMinLength());
+        stats.put("dictionaryId", payloadCompression.getDictionaryId());
+        stats.put("scannedRows", scannedRows.get());
+        stats.put("rewrittenRows", rewrittenRows.get());
+        stats.put("charsBefore", before);
+        stats.put("charsAfter", after);
+        stats.put("compressionRatio", after > 0 ? Math.round(before * 100.0 / after) / 100.0 : 0.0);
+        stats.put("cursors", new HashMap<>(cursors));
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * @return 本次扫描的行数
+     */
+    private int recompressTable(String table, List<String> columns, boolean json, int budget) throws InterruptedException {
+        String select = "SELECT id, " + String.join(", ", columns) + " FROM " + table
+                + " WHERE id > ? ORDER BY id LIMIT ?";
+        int scanned = 0;
+        long cursor = cursors.getOrDefault(table, 0L);
+        while (scanned < budget) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(select, cursor, Math.min(batchSize, budget - scanned));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // 连接池关闭了自动提交，改写需在事务内执行才会生效
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map<String, Object> row : rows) {
+                    rewriteRow(table, columns, json, ((Number) row.get("id")).longValue(), row);
+                }
+            });
+            cursor = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+            scanned += rows.size();
+            scannedRows.addAndGet(rows.size());
+            cursors.put(table, cursor);
+            if (rows.size() < batchSize) {
+                break;
+            }
+            // 批次之间短暂停顿，降低对在线业务的 IO 压力
+            Thread.sleep(pauseMillis);
+        }
+        return scanned;
+    }
+
+    private void rewriteRow(String table, List<String> columns, boolean json, long id, Map<String, Object> row) {
+        List<String> assignments = new ArrayList<>();
+        List<String> guards = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        List<Object> guardValues = new ArrayList<>();
+        for (String column : columns) {
+            Object value = row.get(column);
+            if (value == null) {
+                continue;
+            }
+            String stored = value.toString();
+            String rewritten = json ? rewriteJson(stored)
+                    : SEARCHABLE_TEXT_COLUMNS.contains(column) ? textConverter.convertToEntityAttribute(stored)
+                    : rewriteText(stored);
+            if (rewritten != null && !Objects.equals(rewritten, stored)) {
+                assignments.add(column + " = ?");
+                values.add(rewritten);
+                charsBefore.addAndGet(stored.length());
+                charsAfter.addAndGet(rewritten.length());
+                if (!json) {
+                    // 仅当列值未被并发修改时才改写
+                    guards.add(column + " = ?");
+                    guardValues.add(stored);
+                }
+            }
+        }
+        if (assignments.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ")
+                .append(String.join(", ", assignments)).append(" WHERE id = ?");
+        values.add(id);
+        for (String guard : guards) {
+            sql.append(" AND ").append(guard);
+        }
+        values.addAll(guardValues);
+        if (jdbcTemplate.update(sql.toString(), values.toArray()) > 0) {
+            rewrittenRows.incrementAndGet();
+        }
+    }
+
+    /**
+     * 明文或旧字典压缩的文本按当前配置重新编码，无需改写时返回 null
+     */
+    private String rewriteText(String stored) {
+        if (PayloadCompression.isCompressedText(stored)) {
+            if (payloadCompression.usesCurrentDictionary(stored)) {
+                return null;
+            }
+            return textConverter.convertToDatabaseColumn(textConverter.convertToEntityAttribute(stored));
+        }
+        return textConverter.convertToDatabaseColumn(stored);
+    }
+
+    private String rewriteJson(String stored) {
+        String encoded = CompressedJsonConverter.unwrap(stored);
+        if (encoded != null) {
+            if (payloadCompression.usesCurrentDictionary(encoded)) {
+                return null;
+            }
+            return jsonConverter.convertToDatabaseColumn(jsonConverter.convertToEntityAttribute(stored));
+        }
+        return jsonConverter.convertToDatabaseColumn(stored);
+    }
+}
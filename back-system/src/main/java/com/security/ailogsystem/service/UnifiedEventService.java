@@ -1,22 +1,35 @@
 package com.security.ailogsystem.service;
 
+import com.security.ailogsystem.dto.CursorSliceDTO;
 import com.security.ailogsystem.dto.RuleMatchResult;
 import com.security.ailogsystem.dto.ThreatLevel;
 import com.security.ailogsystem.dto.UnifiedEventQueryDTO;
 import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
 import com.security.ailogsystem.dto.request.AlertRequest;
 import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.model.UnifiedSecurityEventPayload;
+import com.security.ailogsystem.repository.SparseFieldQuery;
 import com.security.ailogsystem.repository.UnifiedEventRepository;
+import com.security.ailogsystem.service.ingest.EventDeduplicator;
+import com.security.ailogsystem.service.rollup.EventRollupService;
+import com.security.ailogsystem.service.rollup.EventRollupSummary;
+import com.security.ailogsystem.service.rollup.LiveEventCounters;
+import com.security.ailogsystem.service.rollup.RollupGranularity;
+import com.security.ailogsystem.service.search.FullTextSearchService;
+import com.security.ailogsystem.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -33,6 +46,11 @@ public class UnifiedEventService {
     private final AdvancedAnomalyDetector anomalyDetector;
     private final RuleEngineService ruleEngineService;
     private final AlertService alertService;
+    private final EventDeduplicator eventDeduplicator;
+    private final EventRollupService eventRollupService;
+    private final LiveEventCounters liveEventCounters;
+    private final FullTextSearchService fullTextSearchService;
+    private final SparseFieldQuery sparseFieldQuery;
 
     /**
      * 创建安全事件
@@ -43,6 +61,12 @@ public class UnifiedEventService {
 
         UnifiedSecurityEvent event = eventDTO.toEntity();
 
+        // 重复采集的事件直接原样返回（无ID），不做检测和入库
+        if (eventDeduplicator.isDuplicate(event)) {
+            log.debug("跳过重复事件: {} {}", event.getSourceSystem(), event.getEventType());
+            return eventDTO;
+        }
+
         // 异常检测
         try {
             anomalyDetector.detectAnomalies(event);
@@ -55,6 +79,10 @@ public class UnifiedEventService {
         // 规则引擎匹配
         runRuleEngine(savedEvent);
 
+        // 规则引擎可能调整威胁等级，之后再计入统计预聚合
+        eventRollupService.record(List.of(savedEvent));
+        liveEventCounters.recorded(List.of(savedEvent));
+
         return UnifiedSecurityEventDTO.fromEntity(savedEvent);
     }
 
@@ -65,9 +93,39 @@ public class UnifiedEventService {
     public List<UnifiedSecurityEventDTO> createEvents(List<UnifiedSecurityEventDTO> eventDTOs) {
         log.debug("批量创建 {} 个安全事件", eventDTOs.size());
 
-        List<UnifiedSecurityEvent> events = eventDTOs.stream()
-                .map(UnifiedSecurityEventDTO::toEntity)
-                .collect(Collectors.toList());
+        // 先去重：采集端会重复上报重叠时间窗口内的事件
+        List<UnifiedSecurityEvent> events = new ArrayList<>(eventDTOs.size());
+        int[] positions = new int[eventDTOs.size()];
+        for (int i = 0; i < eventDTOs.size(); i++) {
+            UnifiedSecurityEvent event = eventDTOs.get(i).toEntity();
+            if (!eventDeduplicator.isDuplicate(event)) {
+                positions[events.size()] = i;
+                events.add(event);
+            }
+        }
+        if (events.size() < eventDTOs.size()) {
+            log.debug("批量事件中丢弃 {} 个重复事件", eventDTOs.size() - events.size());
+        }
+
+        List<UnifiedSecurityEvent> savedEvents = persistEvents(events);
+
+        // 返回结果与请求按位置一一对应，重复事件原样返回（无ID），采集端据此回填数据库ID
+        List<UnifiedSecurityEventDTO> result = new ArrayList<>(eventDTOs);
+        for (int i = 0; i < savedEvents.size(); i++) {
+            result.set(positions[i], UnifiedSecurityEventDTO.fromEntity(savedEvents.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * 持久化已去重的事件：异常检测、入库并执行规则引擎
+     * 供采集写前日志的同步写入和重放使用，不再做去重
+     */
+    @Transactional
+    public List<UnifiedSecurityEvent> persistEvents(List<UnifiedSecurityEvent> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
 
         // 异常检测
         events.forEach(event -> {
@@ -83,14 +141,12 @@ public class UnifiedEventService {
         // 规则引擎匹配（每个事件独立匹配）
         savedEvents.forEach(this::runRuleEngine);
 
-        return savedEvents.stream()
-                .map(UnifiedSecurityEventDTO::fromEntity)
-                .collect(Collectors.toList());
+        // 规则引擎可能调整威胁等级，之后再计入统计预聚合
+        eventRollupService.record(savedEvents);
+        liveEventCounters.recorded(savedEvents);
+        return savedEvents;
     }
 
-    /**
-     * 对单个事件执行规则引擎匹配，命中时自动创建告警
-     */
     /**
      * 对单个事件执行规则引擎匹配，命中时自动创建告警
      * 只处理真正的安全事件，过滤掉性能/系统事件
@@ -189,7 +245,73 @@ public class UnifiedEventService {
 
         Page<UnifiedSecurityEvent> events = eventRepository.findAll(spec, pageable);
 
-        return events.map(UnifiedSecurityEventDTO::fromEntity);
+        // 列表只返回主表字段，大字段在查看详情时加载
+        return events.map(UnifiedSecurityEventDTO::fromEntitySummary);
+    }
+
+    /**
+     * 高级查询事件（游标分页，不执行 COUNT）
+     */
+    public CursorSliceDTO<UnifiedSecurityEventDTO> searchEventsByCursor(UnifiedEventQueryDTO queryDTO) {
+        log.debug("游标查询事件: {}", queryDTO);
+
+        queryDTO.validatePagination();
+
+        String sortBy = queryDTO.getSafeSortBy();
+        Sort.Direction direction = Sort.Direction.fromString(queryDTO.getSafeSortDirection());
+        KeysetCursor cursor = KeysetCursor.decode(queryDTO.getCursor(), sortBy, direction);
+
+        Specification<UnifiedSecurityEvent> spec = buildSpecification(queryDTO);
+        if (cursor != null) {
+            spec = spec.and(cursor.toSpecification());
+        }
+        int size = queryDTO.getSize();
+        List<UnifiedSecurityEvent> rows = eventRepository.findBy(spec, query -> query
+                .sortBy(KeysetCursor.sort(sortBy, direction))
+                .limit(KeysetCursor.fetchSize(size))
+                .all());
+
+        Slice<UnifiedSecurityEvent> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+        return CursorSliceDTO.of(slice, sortBy, direction, UnifiedSecurityEventDTO::fromEntitySummary);
+    }
+
+    /**
+     * 高级查询事件，只查询 fields 指定的主表字段
+     */
+    public Page<Map<String, Object>> searchEventFields(UnifiedEventQueryDTO queryDTO) {
+        log.debug("稀疏字段查询事件: {}", queryDTO);
+
+        queryDTO.validatePagination();
+
+        List<String> fields = sparseFieldQuery.parse(UnifiedSecurityEvent.class, queryDTO.getFields());
+        Specification<UnifiedSecurityEvent> spec = buildSpecification(queryDTO);
+        return sparseFieldQuery.findAll(UnifiedSecurityEvent.class, fields, spec, buildPageable(queryDTO),
+                () -> eventRepository.count(spec));
+    }
+
+    /**
+     * 高级查询事件（游标分页），只查询 fields 指定的主表字段；游标需要排序字段，结果中总是包含该字段
+     */
+    public CursorSliceDTO<Map<String, Object>> searchEventFieldsByCursor(UnifiedEventQueryDTO queryDTO) {
+        log.debug("稀疏字段游标查询事件: {}", queryDTO);
+
+        queryDTO.validatePagination();
+
+        String sortBy = queryDTO.getSafeSortBy();
+        Sort.Direction direction = Sort.Direction.fromString(queryDTO.getSafeSortDirection());
+        KeysetCursor cursor = KeysetCursor.decode(queryDTO.getCursor(), sortBy, direction);
+        List<String> fields = sparseFieldQuery.parse(UnifiedSecurityEvent.class, queryDTO.getFields(), sortBy);
+
+        Specification<UnifiedSecurityEvent> spec = buildSpecification(queryDTO);
+        if (cursor != null) {
+            spec = spec.and(cursor.toSpecification());
+        }
+        int size = queryDTO.getSize();
+        List<Map<String, Object>> rows = sparseFieldQuery.findAll(UnifiedSecurityEvent.class, fields, spec,
+                KeysetCursor.sort(sortBy, direction), 0, KeysetCursor.fetchSize(size));
+
+        Slice<Map<String, Object>> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+        return CursorSliceDTO.of(slice, KeysetCursor.next(slice, sortBy, direction));
     }
 
     /**
@@ -202,10 +324,21 @@ public class UnifiedEventService {
         Page<UnifiedSecurityEvent> events = eventRepository.findAll(pageable);
 
         return events.getContent().stream()
-                .map(UnifiedSecurityEventDTO::fromEntity)
+                .map(UnifiedSecurityEventDTO::fromEntitySummary)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 获取最近事件，只查询 fields 指定的主表字段
+     */
+    public List<Map<String, Object>> getRecentEventFields(int limit, String fields) {
+        log.debug("获取最近 {} 个事件，字段: {}", limit, fields);
+
+        return sparseFieldQuery.findAll(UnifiedSecurityEvent.class,
+                sparseFieldQuery.parse(UnifiedSecurityEvent.class, fields), null,
+                Sort.by(Sort.Direction.DESC, "timestamp"), 0, limit);
+    }
+
     /**
      * 获取异常事件
      */
@@ -214,7 +347,7 @@ public class UnifiedEventService {
 
         Page<UnifiedSecurityEvent> events = eventRepository.findByIsAnomalyTrue(pageable);
 
-        return events.map(UnifiedSecurityEventDTO::fromEntity);
+        return events.map(UnifiedSecurityEventDTO::fromEntitySummary);
     }
 
     /**
@@ -230,6 +363,7 @@ public class UnifiedEventService {
         }
 
         UnifiedSecurityEvent event = eventOpt.get();
+        String previousStatus = event.getStatus();
         event.setStatus(status);
 
         if (resolutionNotes != null) {
@@ -245,6 +379,7 @@ public class UnifiedEventService {
         }
 
         UnifiedSecurityEvent savedEvent = eventRepository.save(event);
+        eventRollupService.statusChanged(savedEvent, previousStatus);
 
         return Optional.of(UnifiedSecurityEventDTO.fromEntity(savedEvent));
     }
@@ -256,16 +391,19 @@ public class UnifiedEventService {
     public boolean deleteEvent(Long id) {
         log.debug("删除事件: {}", id);
 
-        if (!eventRepository.existsById(id)) {
+        Optional<UnifiedSecurityEvent> event = eventRepository.findById(id);
+        if (event.isEmpty()) {
             return false;
         }
 
-        eventRepository.deleteById(id);
+        eventRepository.delete(event.get());
+        eventRollupService.removed(event.get());
+        liveEventCounters.removed(event.get());
         return true;
     }
 
     /**
-     * 获取统计信息
+     * 获取统计信息（由统计预聚合表提供）
      */
     public Map<String, Object> getStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取统计信息: {} - {}", startTime, endTime);
@@ -273,17 +411,18 @@ public class UnifiedEventService {
         Map<String, Object> stats = new HashMap<>();
 
         try {
+            EventRollupSummary summary = eventRollupService.summarize(startTime, endTime);
+
             // 基本统计
-            stats.put("totalEvents", eventRepository.countByTimestampBetween(startTime, endTime));
-            stats.put("anomalyEvents", eventRepository.countByIsAnomalyTrueAndTimestampBetween(startTime, endTime));
+            stats.put("totalEvents", summary.getTotalEvents());
+            stats.put("anomalyEvents", summary.getAnomalyEvents());
 
-            // 使用安全转换方法处理null键
-            stats.put("sourceStats", safeConvertToMap(eventRepository.countBySourceSystemGroup(startTime, endTime)));
-            stats.put("typeStats", safeConvertToMap(eventRepository.countByEventTypeGroup(startTime, endTime)));
-            stats.put("categoryStats", safeConvertToMap(eventRepository.countByCategoryGroup(startTime, endTime)));
-            stats.put("severityStats", safeConvertToMap(eventRepository.countBySeverityGroup(startTime, endTime)));
-            stats.put("threatLevelStats", safeConvertToMap(eventRepository.countByThreatLevelGroup(startTime, endTime)));
-            stats.put("statusStats", safeConvertToMap(eventRepository.countByStatusGroup(startTime, endTime)));
+            stats.put("sourceStats", summary.getSourceSystems());
+            stats.put("typeStats", summary.getEventTypes());
+            stats.put("categoryStats", summary.getCategories());
+            stats.put("severityStats", summary.getSeverities());
+            stats.put("threatLevelStats", summary.getThreatLevels());
+            stats.put("statusStats", summary.getStatuses());
 
             log.debug("统计信息获取成功");
 
@@ -295,48 +434,18 @@ public class UnifiedEventService {
         return stats;
     }
 
-    /**
-     * 安全转换方法，处理null键和异常
-     */
-    private Map<String, Long> safeConvertToMap(List<Object[]> data) {
-        if (data == null || data.isEmpty()) {
-            return new HashMap<>();
-        }
-
-        try {
-            return data.stream()
-                    .filter(item -> item != null && item.length >= 2 && item[0] != null) // 过滤null键
-                    .collect(Collectors.toMap(
-                            item -> item[0].toString(),
-                            item -> {
-                                try {
-                                    return item[1] != null ? ((Number) item[1]).longValue() : 0L;
-                                } catch (Exception e) {
-                                    log.warn("转换统计值失败: {}", e.getMessage());
-                                    return 0L;
-                                }
-                            }
-                    ));
-        } catch (Exception e) {
-            log.warn("转换统计Map失败: {}", e.getMessage());
-            return new HashMap<>();
-        }
-    }
-
     /**
      * 获取时间序列统计
      */
     public List<Map<String, Object>> getTimeSeriesStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取时间序列统计: {} - {}", startTime, endTime);
 
-        List<Object[]> hourlyStats = eventRepository.getHourlyStatistics(startTime, endTime);
-
-        return hourlyStats.stream()
-                .map(row -> {
+        return eventRollupService.series(startTime, endTime, RollupGranularity.HOUR).stream()
+                .map(point -> {
                     Map<String, Object> result = new HashMap<>();
-                    result.put("timestamp", row[0] != null ? row[0] : "未知时间");
-                    long eventCount = row[1] != null ? ((Number) row[1]).longValue() : 0L;
-                    long anomalyCount = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+                    result.put("timestamp", RollupGranularity.HOUR.label(point.bucket()));
+                    long eventCount = point.eventCount();
+                    long anomalyCount = point.anomalyCount();
                     result.put("eventCount", eventCount);
                     result.put("anomalyCount", anomalyCount);
                     result.put("anomalyRate", eventCount > 0 ? (double) anomalyCount / eventCount : 0.0);
@@ -353,7 +462,19 @@ public class UnifiedEventService {
         log.info("清理 {} 天前的旧数据", daysToKeep);
 
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysToKeep);
-        eventRepository.deleteByTimestampBefore(cutoffDate);
+        purgeEventsBefore(cutoffDate);
+    }
+
+    /**
+     * 按截止时间清理事件明细，同时清理统计预聚合，提交后按清理后的预聚合校准实时计数器、删除过期的全文索引分段；
+     * 手动清理和定时保留期清理共用
+     */
+    @Transactional
+    public void purgeEventsBefore(LocalDateTime cutoff) {
+        eventRepository.deleteByTimestampBefore(cutoff);
+        eventRollupService.purgeBefore(cutoff);
+        liveEventCounters.purged();
+        fullTextSearchService.eventsPurgedBefore(cutoff);
     }
 
     /**
@@ -362,8 +483,7 @@ public class UnifiedEventService {
     public Map<String, Long> getThreatLevelStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取威胁等级统计: {} - {}", startTime, endTime);
 
-        List<Object[]> results = eventRepository.countByThreatLevelGroup(startTime, endTime);
-        return safeConvertToMap(results);
+        return eventRollupService.summarize(startTime, endTime).getThreatLevels();
     }
 
     /**
@@ -372,8 +492,7 @@ public class UnifiedEventService {
     public Map<String, Long> getEventTypeStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取事件类型统计: {} - {}", startTime, endTime);
 
-        List<Object[]> results = eventRepository.countByEventTypeGroup(startTime, endTime);
-        return safeConvertToMap(results);
+        return eventRollupService.summarize(startTime, endTime).getEventTypes();
     }
 
     /**
@@ -382,7 +501,7 @@ public class UnifiedEventService {
     public Long getAnomalyEventCount(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取异常事件数量: {} - {}", startTime, endTime);
 
-        return eventRepository.countAnomalyEvents(startTime, endTime);
+        return eventRollupService.summarize(startTime, endTime).getAnomalyEvents();
     }
 
     /**
@@ -391,8 +510,7 @@ public class UnifiedEventService {
     public Map<String, Long> getEventStatusStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取事件状态统计: {} - {}", startTime, endTime);
 
-        List<Object[]> results = eventRepository.countByStatusGroup(startTime, endTime);
-        return safeConvertToMap(results);
+        return eventRollupService.summarize(startTime, endTime).getStatuses();
     }
 
     /**
@@ -401,14 +519,13 @@ public class UnifiedEventService {
     public List<Map<String, Object>> getTopEventSources(LocalDateTime startTime, LocalDateTime endTime, int limit) {
         log.debug("获取前 {} 个高频事件源: {} - {}", limit, startTime, endTime);
 
-        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, limit);
-        List<Object[]> results = eventRepository.countBySourceSystemGroup(startTime, endTime);
-
-        return results.stream()
-                .map(row -> {
+        return eventRollupService.summarize(startTime, endTime).getSourceSystems().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> {
                     Map<String, Object> map = new HashMap<>();
-                    map.put("source", row[0] != null ? row[0].toString() : "Unknown");
-                    map.put("count", row[1] != null ? ((Number) row[1]).longValue() : 0L);
+                    map.put("source", entry.getKey());
+                    map.put("count", entry.getValue());
                     return map;
                 })
                 .collect(Collectors.toList());
@@ -435,6 +552,10 @@ public class UnifiedEventService {
 
     // 私有辅助方法
     private Specification<UnifiedSecurityEvent> buildSpecification(UnifiedEventQueryDTO queryDTO) {
+        // 全文索引只检索一次，分页查询和计数查询共用结果
+        FullTextSearchService.KeywordMatch keywordMatch = queryDTO.getKeyword() != null && !queryDTO.getKeyword().isEmpty()
+                ? fullTextSearchService.matchEvents(queryDTO.getKeyword(), queryDTO.getStartTime(), queryDTO.getEndTime())
+                : null;
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -493,11 +614,15 @@ public class UnifiedEventService {
             // 关键词搜索
             if (queryDTO.getKeyword() != null && !queryDTO.getKeyword().isEmpty()) {
                 String likePattern = "%" + queryDTO.getKeyword() + "%";
-                predicates.add(cb.or(
-                        cb.like(root.get("rawMessage"), likePattern),
+                // 原始消息和异常原因在冷数据表中，仅关键词搜索时关联
+                Join<UnifiedSecurityEvent, UnifiedSecurityEventPayload> payload = root.join("payload", JoinType.LEFT);
+                Predicate like = cb.or(
+                        cb.like(payload.get("rawMessage"), likePattern),
                         cb.like(root.get("normalizedMessage"), likePattern),
-                        cb.like(root.get("anomalyReason"), likePattern)
-                ));
+                        cb.like(payload.get("anomalyReason"), likePattern)
+                );
+                // 全文索引只缩小候选范围，结果仍由 LIKE 判定，与事件是否已索引无关
+                predicates.add(keywordMatch != null ? keywordMatch.toPredicate(cb, root.get("id"), like) : like);
             }
 
             if (predicates.isEmpty()) {
@@ -515,13 +640,4 @@ public class UnifiedEventService {
         return PageRequest.of(queryDTO.getPage(), queryDTO.getSize(), sort);
     }
 
-    // 保留原有的convertToMap方法，但其他方法都使用safeConvertToMap
-    private Map<String, Long> convertToMap(List<Object[]> data) {
-        return data.stream()
-                .collect(Collectors.toMap(
-                        item -> (String) item[0],
-                        item -> (Long) item[1]
-                ));
-    }
-
 }
\ No newline at end of file
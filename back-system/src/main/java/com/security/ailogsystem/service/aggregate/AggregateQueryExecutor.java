@@ -0,0 +1,136 @@
+package com.security.ailogsystem.service.aggregate;
+
+import com.security.ailogsystem.config.AggregateQueryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 统计子查询并发执行器
+ * 一次统计请求中互不依赖的子查询在虚拟线程上并发执行，每个请求的并发数有上限，全部子查询共享一个总时限；
+ * 超时或失败的子查询不影响其他结果，由 {@link AggregateResult} 标记为部分结果。
+ * 子查询在各自的只读事务中执行（启用只读副本时路由到副本），事务超时取总时限的剩余时间
+ */
+@Slf4j
+@Component
+public class AggregateQueryExecutor implements DisposableBean {
+
+    private final AggregateQueryProperties properties;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("aggregate-query-", 0).factory());
+
+    public AggregateQueryExecutor(AggregateQueryProperties properties, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * 开始一批子查询，总时限从此刻开始计算
+     */
+    public Batch batch() {
+        return new Batch(Math.max(1, properties.getMaxConcurrency()), properties.getTimeoutMs());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public final class Batch {
+
+        private final Semaphore permits;
+        private final long deadlineNanos;
+        private final Map<String, Future<Object>> tasks = new LinkedHashMap<>();
+
+        private Batch(int maxConcurrency, long timeoutMs) {
+            this.permits = new Semaphore(maxConcurrency);
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        }
+
+        /**
+         * 提交一个子查询，name 在本批次内唯一，用于取结果和标记超时/失败
+         */
+        public Batch submit(String name, Supplier<?> query) {
+            if (tasks.containsKey(name)) {
+                throw new IllegalArgumentException("重复的子查询: " + name);
+            }
+            tasks.put(name, executor.submit(() -> run(query)));
+            return this;
+        }
+
+        /**
+         * 等待全部子查询完成或总时限到达，未完成的子查询被取消
+         */
+        public AggregateResult await() {
+            AggregateResult result = new AggregateResult();
+            boolean interrupted = false;
+            for (Map.Entry<String, Future<Object>> task : tasks.entrySet()) {
+                String name = task.getKey();
+                Future<Object> future = task.getValue();
+                try {
+                    if (interrupted) {
+                        throw new TimeoutException();
+                    }
+                    result.put(name, future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    result.timedOut(name);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    future.cancel(true);
+                    result.timedOut(name);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof TimeoutException) {
+                        result.timedOut(name);
+                    } else {
+                        log.warn("统计子查询 {} 失败: {}", name, cause.getMessage());
+                        result.failed(name, cause.getMessage());
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (!result.isComplete()) {
+                log.warn("统计查询返回部分结果: 超时={}, 失败={}", result.getTimedOut(), result.getFailed().keySet());
+            }
+            return result;
+        }
+
+        private Object run(Supplier<?> query) throws InterruptedException, TimeoutException {
+            if (!permits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException();
+            }
+            try {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw new TimeoutException();
+                }
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setReadOnly(true);
+                transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                // 事务超时以秒为单位，向上取整
+                transaction.setTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L)));
+                return transaction.execute(status -> query.get());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.security.ailogsystem.service.aggregate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一批统计子查询的结果；超时或失败的子查询没有值，取值时使用调用方给出的默认值
+ */
+public class AggregateResult {
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final List<String> timedOut = new ArrayList<>();
+    private final Map<String, String> failed = new LinkedHashMap<>();
+
+    void put(String name, Object value) {
+        values.put(name, value);
+    }
+
+    void timedOut(String name) {
+        timedOut.add(name);
+    }
+
+    void failed(String name, String message) {
+        failed.put(name, message);
+    }
+
+    /**
+     * 子查询的结果，超时、失败或结果为 null 时返回 fallback
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, T fallback) {
+        Object value = values.get(name);
+        return value != null ? (T) value : fallback;
+    }
+
+    public boolean isComplete() {
+        return timedOut.isEmpty() && failed.isEmpty();
+    }
+
+    public List<String> getTimedOut() {
+        return timedOut;
+    }
+
+    public Map<String, String> getFailed() {
+        return failed;
+    }
+
+    /**
+     * 缺失的子查询名称（超时和失败）
+     */
+    public List<String> getMissing() {
+        List<String> missing = new ArrayList<>(timedOut);
+        missing.addAll(failed.keySet());
+        return missing;
+    }
+
+    /**
+     * 部分结果标记：partial，以及不完整时的 timedOut / failed 子查询名称
+     */
+    public Map<String, Object> flags() {
+        Map<String, Object> flags = new LinkedHashMap<>();
+        flags.put("partial", !isComplete());
+        if (!timedOut.isEmpty()) {
+            flags.put("timedOut", timedOut);
+        }
+        if (!failed.isEmpty()) {
+            flags.put("failed", List.copyOf(failed.keySet()));
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,120 @@
+package com.security.ailogsystem.service.cache;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将时间范围拆分为可缓存的已关闭时间桶和需要实时计算的边缘片段
+ * 已关闭时间桶为截止时间之前完整的月/天/小时，结果不再变化；首部不足一小时的部分和
+ * 截止时间之后的尾部（仍在写入的时间段）每次实时计算
+ */
+public final class RangeBuckets {
+
+    /**
+     * 时间片段；closed 为 true 时是完整的已关闭时间桶，结束时间不含
+     */
+    public record Piece(LocalDateTime from, LocalDateTime to, boolean inclusiveEnd, boolean closed) {
+    }
+
+    private enum Level {
+        MONTH, DAY, HOUR;
+
+        LocalDateTime truncate(LocalDateTime time) {
+            switch (this) {
+                case MONTH:
+                    return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+                case DAY:
+                    return time.toLocalDate().atStartOfDay();
+                default:
+                    return time.truncatedTo(ChronoUnit.HOURS);
+            }
+        }
+
+        LocalDateTime next(LocalDateTime bucket) {
+            switch (this) {
+                case MONTH:
+                    return bucket.plusMonths(1);
+                case DAY:
+                    return bucket.plusDays(1);
+                default:
+                    return bucket.plusHours(1);
+            }
+        }
+
+        LocalDateTime ceil(LocalDateTime time) {
+            LocalDateTime bucket = truncate(time);
+            return bucket.equals(time) ? bucket : next(bucket);
+        }
+
+        Level finer() {
+            return this == MONTH ? DAY : HOUR;
+        }
+    }
+
+    private RangeBuckets() {
+    }
+
+    /**
+     * 最近一个已关闭的小时边界：该时间之前的小时桶均已超过等待迟到数据的时间
+     */
+    public static LocalDateTime closedBefore(LocalDateTime now, long closeDelayMinutes) {
+        return Level.HOUR.truncate(now.minusMinutes(closeDelayMinutes));
+    }
+
+    /**
+     * @param start        起始时间（含）
+     * @param end          结束时间
+     * @param inclusiveEnd 结束时间是否包含在内
+     * @param closedBefore 已关闭时间边界（按小时对齐），之后的部分实时计算
+     * @return 按时间升序排列、首尾相接的片段
+     */
+    public static List<Piece> split(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                                    LocalDateTime closedBefore) {
+        List<Piece> pieces = new ArrayList<>();
+        if (end.isBefore(start) || (!inclusiveEnd && !end.isAfter(start))) {
+            return pieces;
+        }
+        LocalDateTime first = Level.HOUR.ceil(start);
+        LocalDateTime last = Level.HOUR.truncate(end);
+        if (last.isAfter(closedBefore)) {
+            last = closedBefore;
+        }
+        if (!first.isBefore(last)) {
+            pieces.add(new Piece(start, end, inclusiveEnd, false));
+            return pieces;
+        }
+        if (start.isBefore(first)) {
+            pieces.add(new Piece(start, first, false, false));
+        }
+        decompose(first, last, Level.MONTH, pieces);
+        if (last.isBefore(end) || inclusiveEnd) {
+            pieces.add(new Piece(last, end, inclusiveEnd, false));
+        }
+        return pieces;
+    }
+
+    private static void decompose(LocalDateTime from, LocalDateTime to, Level level, List<Piece> pieces) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == Level.HOUR) {
+            for (LocalDateTime bucket = from; bucket.isBefore(to); bucket = bucket.plusHours(1)) {
+                pieces.add(new Piece(bucket, bucket.plusHours(1), false, true));
+            }
+            return;
+        }
+        LocalDateTime alignedFrom = level.ceil(from);
+        LocalDateTime alignedTo = level.truncate(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            decompose(from, to, level.finer(), pieces);
+            return;
+        }
+        decompose(from, alignedFrom, level.finer(), pieces);
+        for (LocalDateTime bucket = alignedFrom; bucket.isBefore(alignedTo); bucket = level.next(bucket)) {
+            pieces.add(new Piece(bucket, level.next(bucket), false, true));
+        }
+        decompose(alignedTo, to, level.finer(), pieces);
+    }
+}
@@ -0,0 +1,278 @@
+package com.security.ailogsystem.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.security.ailogsystem.config.CacheSpecProperties;
+import com.security.ailogsystem.service.rollup.EventRollupSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 时间范围查询结果缓存
+ * 查询范围按 {@link RangeBuckets} 拆分为已关闭的整月/整天/整小时时间桶和实时边缘：已关闭时间桶的结果
+ * 长期缓存（只按权重淘汰），首部零散部分和仍在写入的尾部每次实时计算，各片段结果由调用方合并。
+ * 迟到数据、状态变更和删除会改变已关闭时间桶，写入方需按记录时间调用 invalidate 使对应时间桶失效，
+ * 在事务内调用时提交后会再失效一次，避免提交前重新加载到旧数据
+ */
+@Component
+public class RangeResultCache implements MeterBinder {
+
+    public static final String EVENTS = "range:events";
+    public static final String SECURITY_LOGS = "range:security-logs";
+    public static final String ALERTS = "range:alerts";
+    public static final Set<String> CACHE_NAMES = Set.of(EVENTS, SECURITY_LOGS, ALERTS);
+
+    /**
+     * 统计"某时刻至今"时使用的结束时间，尾部片段覆盖当前及之后的全部记录
+     */
+    public static final LocalDateTime OPEN_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    /**
+     * 按片段加载结果；已关闭时间桶的结束时间不含，最后一个片段沿用调用方的区间语义
+     */
+    @FunctionalInterface
+    public interface RangeLoader<V> {
+        V load(LocalDateTime from, LocalDateTime to, boolean inclusiveEnd);
+    }
+
+    private record Key(Object query, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private static final class Region {
+        private final Cache<Key, Object> cache;
+        // 每次失效递增，加载期间发生失效时不写入缓存
+        private final AtomicLong generation = new AtomicLong();
+        // 最近一次失效的时间，初始为足够久之前
+        private volatile long lastEvictionNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+        private final AtomicLong liveLoads = new AtomicLong();
+
+        Region(Cache<Key, Object> cache) {
+            this.cache = cache;
+        }
+    }
+
+    private final Map<String, Region> regions = new HashMap<>();
+    private final long closeDelayMinutes;
+    private final long invalidationGraceNanos;
+
+    public RangeResultCache(CacheSpecProperties properties) {
+        this.closeDelayMinutes = properties.getRange().getCloseDelayMinutes();
+        this.invalidationGraceNanos = TimeUnit.SECONDS.toNanos(properties.getRange().getInvalidationGraceSeconds());
+        for (String name : CACHE_NAMES) {
+            String spec = properties.getSpecs().getOrDefault(name, properties.getRange().getDefaultSpec());
+            Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+            Cache<Key, Object> cache;
+            if (spec.contains("maximumWeight")) {
+                cache = builder.weigher((Key key, Object value) -> weigh(value)).build();
+            } else {
+                cache = builder.build();
+            }
+            regions.put(name, new Region(cache));
+        }
+    }
+
+    /**
+     * 查询时间范围内的结果
+     *
+     * @param query        查询标识，连同时间桶组成缓存键，需包含影响结果的全部参数
+     * @param inclusiveEnd 结束时间是否包含在内
+     * @param combiner     按时间顺序合并各片段结果，不得修改片段结果（已缓存的对象会被复用）
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String cacheName, Object query, LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                     RangeLoader<V> loader, Function<List<V>, V> combiner) {
+        Region region = region(cacheName);
+        List<RangeBuckets.Piece> pieces = RangeBuckets.split(start, end, inclusiveEnd, closedBefore());
+        List<V> parts = new ArrayList<>(pieces.size());
+        for (RangeBuckets.Piece piece : pieces) {
+            if (!piece.closed()) {
+                region.liveLoads.incrementAndGet();
+                parts.add(loader.load(piece.from(), piece.to(), piece.inclusiveEnd()));
+                continue;
+            }
+            Key key = new Key(query, piece.from(), piece.to());
+            V value = (V) region.cache.getIfPresent(key);
+            if (value == null) {
+                // 不在 Caffeine 的计算函数内查库，避免长时间持有哈希桶锁
+                long generation = region.generation.get();
+                value = loader.load(piece.from(), piece.to(), false);
+                if (value != null && generation == region.generation.get()
+                        && System.nanoTime() - region.lastEvictionNanos >= invalidationGraceNanos) {
+                    region.cache.put(key, value);
+                }
+            }
+            parts.add(value);
+        }
+        return combiner.apply(parts);
+    }
+
+    /**
+     * 使包含指定记录时间的已关闭时间桶失效；尚未关闭的时间不会有缓存，直接忽略
+     */
+    public void invalidate(String cacheName, Collection<LocalDateTime> times) {
+        LocalDateTime closedBefore = closedBefore();
+        NavigableSet<LocalDateTime> affected = new TreeSet<>();
+        for (LocalDateTime time : times) {
+            if (time != null && time.isBefore(closedBefore)) {
+                affected.add(time);
+            }
+        }
+        if (!affected.isEmpty()) {
+            evict(cacheName, key -> {
+                LocalDateTime time = affected.ceiling(key.from());
+                return time != null && time.isBefore(key.to());
+            });
+        }
+    }
+
+    public void invalidate(String cacheName, LocalDateTime time) {
+        invalidate(cacheName, Collections.singletonList(time));
+    }
+
+    /**
+     * 按保留期清理记录后使早于截止时间的时间桶失效
+     */
+    public void invalidateBefore(String cacheName, LocalDateTime cutoff) {
+        evict(cacheName, key -> key.from().isBefore(cutoff));
+    }
+
+    /**
+     * 数据被批量重算或导入后清空整个缓存
+     */
+    public void invalidateAll(String cacheName) {
+        evict(cacheName, key -> true);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("closeDelayMinutes", closeDelayMinutes);
+        status.put("invalidationGraceSeconds", TimeUnit.NANOSECONDS.toSeconds(invalidationGraceNanos));
+        status.put("closedBefore", closedBefore());
+        Map<String, Object> caches = new TreeMap<>();
+        regions.forEach((name, region) -> {
+            CacheStats stats = region.cache.stats();
+            Map<String, Object> item = new HashMap<>();
+            item.put("entries", region.cache.estimatedSize());
+            region.cache.policy().eviction().ifPresent(eviction -> eviction.weightedSize()
+                    .ifPresent(weight -> item.put("weight", weight)));
+            item.put("hitCount", stats.hitCount());
+            item.put("missCount", stats.missCount());
+            item.put("hitRate", stats.hitRate());
+            item.put("evictionCount", stats.evictionCount());
+            item.put("liveLoads", region.liveLoads.get());
+            caches.put(name, item);
+        });
+        status.put("caches", caches);
+        return status;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        regions.forEach((name, region) -> CaffeineCacheMetrics.monitor(registry, region.cache, name));
+    }
+
+    // ==================== 合并工具 ====================
+
+    /**
+     * 将 GROUP BY 查询结果（键, 计数）转换为计数表
+     */
+    public static <K> Map<K, Long> toCounts(List<Object[]> rows) {
+        Map<K, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            @SuppressWarnings("unchecked")
+            K key = (K) row[0];
+            counts.merge(key, row[1] != null ? ((Number) row[1]).longValue() : 0L, Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * 按键累加各片段的计数表，返回新的计数表
+     */
+    public static <K> Map<K, Long> sumCounts(List<Map<K, Long>> parts) {
+        Map<K, Long> total = new HashMap<>();
+        for (Map<K, Long> part : parts) {
+            part.forEach((key, count) -> total.merge(key, count, Long::sum));
+        }
+        return total;
+    }
+
+    /**
+     * 将计数表还原为（键, 计数）行，按计数降序
+     */
+    public static List<Object[]> toRowsByCount(Map<?, Long> counts) {
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rows.add(new Object[]{key, count}));
+        rows.sort((a, b) -> Long.compare((Long) b[1], (Long) a[1]));
+        return rows;
+    }
+
+    /**
+     * 将计数表还原为（键, 计数）行，按键升序，用于按日期统计
+     */
+    public static List<Object[]> toRowsByKey(Map<?, Long> counts) {
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        new TreeMap<Object, Long>(counts).forEach((key, count) -> rows.add(new Object[]{key, count}));
+        return rows;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private LocalDateTime closedBefore() {
+        return RangeBuckets.closedBefore(LocalDateTime.now(), closeDelayMinutes);
+    }
+
+    private Region region(String cacheName) {
+        Region region = regions.get(cacheName);
+        if (region == null) {
+            throw new IllegalArgumentException("未知的范围缓存: " + cacheName);
+        }
+        return region;
+    }
+
+    private void evict(String cacheName, Predicate<Key> predicate) {
+        Region region = region(cacheName);
+        Runnable eviction = () -> {
+            region.generation.incrementAndGet();
+            region.lastEvictionNanos = System.nanoTime();
+            region.cache.asMap().keySet().removeIf(predicate);
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 权重按结果中的统计条目数估算
+     */
+    private static int weigh(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return 1 + map.size();
+        }
+        if (value instanceof Collection<?> collection) {
+            return 1 + collection.size();
+        }
+        if (value instanceof EventRollupSummary summary) {
+            return 1 + summary.size();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,191 @@
+package com.security.ailogsystem.service.collector;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 单个常驻采集进程
+ * 请求和响应各占一行 JSON，同一时间只处理一个请求（由进程池保证）。stdout 由读取线程逐行放入队列，
+ * 请求按超时等待对应 id 的响应；stderr 单独读取写入调试日志，避免管道写满后子进程阻塞
+ */
+@Slf4j
+final class CollectorWorker {
+
+    static final String PING = "ping";
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+    // 读取线程在 stdout 关闭时放入的结束标记，按引用比较
+    private static final String EOF = new String("EOF");
+
+    private final Process process;
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter stdin;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private long nextId;
+
+    private CollectorWorker(Process process, ObjectMapper objectMapper) {
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        Thread.ofVirtual().name("collector-stdout-" + process.pid()).start(() -> readStdout(process.getInputStream()));
+        Thread.ofVirtual().name("collector-stderr-" + process.pid()).start(() -> readStderr(process.getErrorStream()));
+    }
+
+    /**
+     * 启动进程并等待就绪行
+     */
+    static CollectorWorker start(ProcessBuilder builder, ObjectMapper objectMapper, long timeoutMs)
+            throws IOException, TimeoutException {
+        CollectorWorker worker = new CollectorWorker(builder.start(), objectMapper);
+        try {
+            Map<String, Object> ready = worker.read(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+            if (!Boolean.TRUE.equals(ready.get("ready"))) {
+                throw new IOException("采集进程未输出就绪行: " + ready);
+            }
+            return worker;
+        } catch (IOException | TimeoutException e) {
+            worker.kill();
+            throw e;
+        }
+    }
+
+    /**
+     * 发送一个请求并等待响应的 data
+     *
+     * @throws TimeoutException 超时未响应，进程状态未知，调用方应结束该进程
+     * @throws IOException      进程已退出或响应不符合协议
+     */
+    Map<String, Object> request(String type, long timeoutMs) throws IOException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long id = ++nextId;
+        stdin.write(objectMapper.writeValueAsString(Map.of("id", id, "type", type)));
+        stdin.write('\n');
+        stdin.flush();
+        while (true) {
+            Map<String, Object> response = read(deadline);
+            if (!(response.get("id") instanceof Number responseId) || responseId.longValue() != id) {
+                log.debug("[采集进程] pid={} 忽略不匹配的响应: {}", pid(), response);
+                continue;
+            }
+            if (response.get("error") != null) {
+                throw new IOException("采集进程无法处理请求: " + response.get("error"));
+            }
+            if (!(response.get("data") instanceof Map<?, ?>)) {
+                throw new IOException("采集进程响应缺少 data");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = (Map<String, Object>) response.get("data");
+            return data;
+        }
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * 关闭 stdin 让进程自行退出，未及时退出时强制结束
+     */
+    void close() {
+        try {
+            stdin.close();
+            if (process.waitFor(1, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (IOException e) {
+            log.debug("[采集进程] pid={} 关闭 stdin 失败: {}", pid(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        kill();
+    }
+
+    /**
+     * 强制结束进程（超时或协议异常时进程状态未知）
+     */
+    void kill() {
+        process.destroyForcibly();
+    }
+
+    /**
+     * 读取下一行 JSON；stdout 上不是 JSON 对象的行记录后跳过
+     */
+    private Map<String, Object> read(long deadline) throws IOException, TimeoutException {
+        while (true) {
+            String line;
+            try {
+                line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待采集进程响应被中断");
+            }
+            if (line == null) {
+                throw new TimeoutException("采集进程 pid=" + pid() + " 响应超时");
+            }
+            if (line == EOF) {
+                lines.add(EOF);
+                throw new IOException("采集进程 pid=" + pid() + " 已退出" + exitCode());
+            }
+            try {
+                return objectMapper.readValue(line, MAP);
+            } catch (IOException e) {
+                log.debug("[采集进程] pid={} stdout 非协议输出: {}", pid(), line);
+            }
+        }
+    }
+
+    private String exitCode() {
+        try {
+            return process.waitFor(100, TimeUnit.MILLISECONDS) ? "，退出码 " + process.exitValue() : "";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    private void readStdout(InputStream stream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("[采集进程] pid={} 读取 stdout 结束: {}", pid(), e.getMessage());
+        } finally {
+            lines.add(EOF);
+        }
+    }
+
+    private void readStderr(InputStream stream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("[采集进程] pid={} stderr: {}", pid(), line);
+            }
+        } catch (IOException e) {
+            log.debug("[采集进程] pid={} 读取 stderr 结束: {}", pid(), e.getMessage());
+        }
+    }
+}
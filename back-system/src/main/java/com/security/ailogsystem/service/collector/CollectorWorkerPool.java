@@ -0,0 +1,261 @@
+package com.security.ailogsystem.service.collector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.ailogsystem.config.CollectorWorkerProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 常驻 Python 采集进程池
+ * 每次采集向空闲进程发送一行 JSON 请求，省去每次启动解释器和导入 psutil 的开销；同时进行的采集数不超过进程数。
+ * 超时、崩溃或响应不符合协议的进程直接结束，下次使用或健康检查时重新启动；
+ * 健康检查定期探测空闲进程并补足进程数，启动后立即执行一次用于预热
+ */
+@Slf4j
+@Component
+public class CollectorWorkerPool implements MeterBinder, DisposableBean {
+
+    private final CollectorWorkerProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore permits;
+    private final Deque<CollectorWorker> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicInteger launchFailures = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("collector-health").daemon(true).factory());
+
+    private volatile Supplier<ProcessBuilder> launcherSupplier;
+    private volatile boolean closed;
+    private ProcessBuilder launcher;
+    private long launcherFailedAt;
+    private String launcherError;
+
+    public CollectorWorkerPool(CollectorWorkerProperties properties) {
+        this.properties = properties;
+        this.permits = new Semaphore(Math.max(1, properties.getPoolSize()));
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 设置进程启动方式并开始健康检查；启动方式在首次启动进程时才解析，解析失败的间隔一个健康检查周期后重试
+     */
+    public void start(Supplier<ProcessBuilder> launcher) {
+        this.launcherSupplier = launcher;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long interval = Math.max(1, properties.getHealthCheckSeconds());
+        scheduler.scheduleWithFixedDelay(this::checkHealth, 0, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 采集指定类型的信息
+     *
+     * @throws TimeoutException 等待空闲进程或等待响应超时
+     * @throws IOException      进程无法启动、已退出或响应不符合协议
+     */
+    public Map<String, Object> collect(String type) throws IOException, TimeoutException {
+        acquire();
+        CollectorWorker worker = null;
+        try {
+            worker = idle.pollFirst();
+            if (worker != null && !worker.isAlive()) {
+                log.warn("[采集进程] pid={} 已退出，重新启动", worker.pid());
+                discard(worker);
+                worker = null;
+            }
+            if (worker == null) {
+                worker = launch();
+            }
+            Map<String, Object> result = worker.request(type, properties.getRequestTimeoutMs());
+            release(worker);
+            worker = null;
+            return result;
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            throw e;
+        } finally {
+            if (worker != null) {
+                discard(worker);
+            }
+            permits.release();
+        }
+    }
+
+    public int getLiveWorkers() {
+        return live.get();
+    }
+
+    /**
+     * 因崩溃、超时或健康检查失败被结束的进程数
+     */
+    public long getRestarts() {
+        return restarts.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * 探测空闲进程，结束无响应的进程，再补足进程数
+     */
+    void checkHealth() {
+        if (closed) {
+            return;
+        }
+        List<CollectorWorker> checking = new ArrayList<>();
+        for (int i = idle.size(); i > 0 && permits.tryAcquire(); i--) {
+            CollectorWorker worker = idle.pollLast();
+            if (worker == null) {
+                permits.release();
+                break;
+            }
+            checking.add(worker);
+        }
+        for (CollectorWorker worker : checking) {
+            try {
+                worker.request(CollectorWorker.PING, properties.getStartTimeoutMs());
+                release(worker);
+            } catch (IOException | TimeoutException e) {
+                log.warn("[采集进程] pid={} 健康检查失败，重新启动: {}", worker.pid(), e.getMessage());
+                discard(worker);
+            } finally {
+                permits.release();
+            }
+        }
+        int poolSize = Math.max(1, properties.getPoolSize());
+        while (!closed && live.get() < poolSize && permits.tryAcquire()) {
+            try {
+                release(launch());
+            } catch (IOException | TimeoutException e) {
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void acquire() throws IOException, TimeoutException {
+        try {
+            if (!permits.tryAcquire(properties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new TimeoutException("等待空闲采集进程超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待空闲采集进程被中断");
+        }
+    }
+
+    private CollectorWorker launch() throws IOException, TimeoutException {
+        try {
+            CollectorWorker worker = CollectorWorker.start(launcher(), objectMapper, properties.getStartTimeoutMs());
+            live.incrementAndGet();
+            launchFailures.set(0);
+            log.info("[采集进程] 已启动 pid={}，当前 {} 个", worker.pid(), live.get());
+            return worker;
+        } catch (IOException | TimeoutException e) {
+            if (launchFailures.getAndIncrement() == 0) {
+                log.warn("[采集进程] 启动失败: {}", e.getMessage());
+            } else {
+                log.debug("[采集进程] 启动失败: {}", e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private synchronized ProcessBuilder launcher() throws IOException {
+        if (launcher != null) {
+            return launcher;
+        }
+        Supplier<ProcessBuilder> supplier = launcherSupplier;
+        if (supplier == null) {
+            throw new IOException("采集进程池尚未设置启动方式");
+        }
+        long now = System.currentTimeMillis();
+        long retryMs = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getHealthCheckSeconds()));
+        if (launcherError != null && now - launcherFailedAt < retryMs) {
+            throw new IOException(launcherError);
+        }
+        try {
+            ProcessBuilder builder = supplier.get();
+            builder.redirectErrorStream(false);
+            builder.environment().put("PYTHONUNBUFFERED", "1");
+            builder.environment().put("PYTHONIOENCODING", "utf-8");
+            launcher = builder;
+            return builder;
+        } catch (RuntimeException e) {
+            launcherFailedAt = now;
+            launcherError = "采集进程启动方式不可用: " + e.getMessage();
+            throw new IOException(launcherError, e);
+        }
+    }
+
+    private void release(CollectorWorker worker) {
+        if (closed) {
+            live.decrementAndGet();
+            worker.close();
+        } else {
+            idle.addFirst(worker);
+        }
+    }
+
+    private void discard(CollectorWorker worker) {
+        live.decrementAndGet();
+        if (!closed) {
+            restarts.incrementAndGet();
+        }
+        worker.kill();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("collector.workers.live", live, AtomicInteger::get)
+                .description("常驻 Python 采集进程数")
+                .register(registry);
+        FunctionCounter.builder("collector.workers.restarts", restarts, AtomicLong::get)
+                .description("因崩溃、超时或健康检查失败被结束的采集进程数")
+                .register(registry);
+        FunctionCounter.builder("collector.requests.timeouts", timeouts, AtomicLong::get)
+                .description("等待空闲进程或采集响应超时的次数")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        scheduler.shutdownNow();
+        CollectorWorker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            live.decrementAndGet();
+            worker.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.security.ailogsystem.service.downsample;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 图表数据点，序列化为 [毫秒时间戳, 数值] 以压缩响应体积
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public record ChartPoint(long time, double value) {
+
+    public static ChartPoint of(LocalDateTime time, double value) {
+        return new ChartPoint(epochMilli(time), value);
+    }
+
+    public static long epochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
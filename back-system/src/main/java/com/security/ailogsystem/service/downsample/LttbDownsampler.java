@@ -0,0 +1,168 @@
+package com.security.ailogsystem.service.downsample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 流式 LTTB（Largest-Triangle-Three-Buckets）降采样
+ * 按 x 升序逐点输入，首尾两点原样保留，中间按 x 轴将 [startX, endX] 等分为 maxPoints - 2 个桶，
+ * 每个非空桶保留与上一个选中点、下一个桶均值点构成三角形面积最大的点，输出点数不超过 maxPoints。
+ * 同一时刻只缓存当前桶和下一个桶的点，内存占用与总点数无关；输入不超过 maxPoints 时原样输出
+ *
+ * @param <T> 点类型，由 x/y 提取函数取坐标，选中的点原样交给 sink
+ */
+public class LttbDownsampler<T> {
+
+    /**
+     * 单个序列允许请求的最大点数
+     */
+    public static final int MAX_POINTS_LIMIT = 2000;
+
+    private final long startX;
+    private final double bucketWidth;
+    private final int maxPoints;
+    private final ToLongFunction<T> xOf;
+    private final ToDoubleFunction<T> yOf;
+    private final Consumer<T> sink;
+
+    // 尚未超过 maxPoints 时的原样缓存，超过后置为 null 转入分桶
+    private List<T> head = new ArrayList<>();
+    private T anchor;
+    private List<T> current = new ArrayList<>();
+    private long currentBucket;
+    private List<T> next = new ArrayList<>();
+    private long nextBucket;
+    private long inputCount;
+
+    public LttbDownsampler(long startX, long endX, int maxPoints,
+                           ToLongFunction<T> xOf, ToDoubleFunction<T> yOf, Consumer<T> sink) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints 不能小于 3: " + maxPoints);
+        }
+        this.startX = startX;
+        this.bucketWidth = Math.max(1.0, (double) (endX - startX + 1) / (maxPoints - 2));
+        this.maxPoints = maxPoints;
+        this.xOf = xOf;
+        this.yOf = yOf;
+        this.sink = sink;
+    }
+
+    /**
+     * 将请求的点数限制在 [3, MAX_POINTS_LIMIT]
+     */
+    public static int clamp(int maxPoints) {
+        return Math.max(3, Math.min(maxPoints, MAX_POINTS_LIMIT));
+    }
+
+    public void add(T point) {
+        inputCount++;
+        if (head == null) {
+            place(point);
+            return;
+        }
+        head.add(point);
+        if (head.size() > maxPoints) {
+            List<T> buffered = head;
+            head = null;
+            anchor = buffered.get(0);
+            sink.accept(anchor);
+            for (int i = 1; i < buffered.size(); i++) {
+                place(buffered.get(i));
+            }
+        }
+    }
+
+    /**
+     * 输入结束，输出剩余桶的选中点和最后一个点
+     */
+    public void finish() {
+        if (head != null) {
+            head.forEach(sink);
+            head = null;
+            return;
+        }
+        List<T> tail = next.isEmpty() ? current : next;
+        T last = tail.remove(tail.size() - 1);
+        if (!next.isEmpty()) {
+            select(current, meanX(next), meanY(next));
+            select(next, x(last), yOf.applyAsDouble(last));
+        } else if (!current.isEmpty()) {
+            select(current, x(last), yOf.applyAsDouble(last));
+        }
+        sink.accept(last);
+    }
+
+    public long getInputCount() {
+        return inputCount;
+    }
+
+    private void place(T point) {
+        long bucket = bucketOf(point);
+        if (current.isEmpty()) {
+            currentBucket = bucket;
+            current.add(point);
+        } else if (bucket <= currentBucket) {
+            current.add(point);
+        } else if (next.isEmpty()) {
+            nextBucket = bucket;
+            next.add(point);
+        } else if (bucket <= nextBucket) {
+            next.add(point);
+        } else {
+            // 下一个桶已完整，确定当前桶的选中点后整体前移
+            select(current, meanX(next), meanY(next));
+            List<T> drained = current;
+            current = next;
+            currentBucket = nextBucket;
+            next = drained;
+            next.clear();
+            next.add(point);
+            nextBucket = bucket;
+        }
+    }
+
+    private void select(List<T> candidates, double cx, double cy) {
+        double ax = x(anchor);
+        double ay = yOf.applyAsDouble(anchor);
+        T best = null;
+        double bestArea = -1;
+        for (T point : candidates) {
+            double area = Math.abs((ax - cx) * (yOf.applyAsDouble(point) - ay) - (ax - x(point)) * (cy - ay));
+            if (area > bestArea) {
+                bestArea = area;
+                best = point;
+            }
+        }
+        sink.accept(best);
+        anchor = best;
+    }
+
+    private long bucketOf(T point) {
+        long bucket = (long) ((xOf.applyAsLong(point) - startX) / bucketWidth);
+        return Math.max(0, Math.min(bucket, maxPoints - 3));
+    }
+
+    // 以 startX 为原点，避免毫秒时间戳相乘损失精度
+    private double x(T point) {
+        return xOf.applyAsLong(point) - startX;
+    }
+
+    private double meanX(List<T> points) {
+        double sum = 0;
+        for (T point : points) {
+            sum += x(point);
+        }
+        return sum / points.size();
+    }
+
+    private double meanY(List<T> points) {
+        double sum = 0;
+        for (T point : points) {
+            sum += yOf.applyAsDouble(point);
+        }
+        return sum / points.size();
+    }
+}
@@ -0,0 +1,65 @@
+package com.security.ailogsystem.service.downsample;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个数值序列的流式降采样：可选先按 {@link TimeBucket} 求桶内均值，再用 LTTB 限制点数
+ * 输入须按时间升序，数值保留两位小数
+ */
+public class SeriesDownsampler {
+
+    private final TimeBucket bucket;
+    private final LttbDownsampler<ChartPoint> lttb;
+    private final List<ChartPoint> points = new ArrayList<>();
+
+    private LocalDateTime currentBucket;
+    private double sum;
+    private long count;
+
+    /**
+     * @param bucket 分桶粒度，为 null 时直接对原始点做 LTTB
+     */
+    public SeriesDownsampler(LocalDateTime start, LocalDateTime end, TimeBucket bucket, int maxPoints) {
+        this.bucket = bucket;
+        this.lttb = new LttbDownsampler<>(ChartPoint.epochMilli(start), ChartPoint.epochMilli(end), maxPoints,
+                ChartPoint::time, ChartPoint::value,
+                point -> points.add(new ChartPoint(point.time(), Math.round(point.value() * 100) / 100.0)));
+    }
+
+    /**
+     * 空值忽略
+     */
+    public void add(LocalDateTime time, Double value) {
+        if (time == null || value == null || value.isNaN()) {
+            return;
+        }
+        if (bucket == null) {
+            lttb.add(ChartPoint.of(time, value));
+            return;
+        }
+        LocalDateTime bucketStart = bucket.truncate(time);
+        if (currentBucket != null && !bucketStart.equals(currentBucket)) {
+            flushBucket();
+        }
+        currentBucket = bucketStart;
+        sum += value;
+        count++;
+    }
+
+    public List<ChartPoint> finish() {
+        if (currentBucket != null) {
+            flushBucket();
+            currentBucket = null;
+        }
+        lttb.finish();
+        return points;
+    }
+
+    private void flushBucket() {
+        lttb.add(ChartPoint.of(currentBucket, sum / count));
+        sum = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.security.ailogsystem.service.downsample;
+
+import com.security.ailogsystem.service.rollup.RollupGranularity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 图表分桶粒度
+ * 分钟/小时/天直接对应预聚合表的粒度，周由天级数据按周一零点合并
+ */
+public enum TimeBucket {
+
+    MINUTE(RollupGranularity.MINUTE),
+    HOUR(RollupGranularity.HOUR),
+    DAY(RollupGranularity.DAY),
+    WEEK(RollupGranularity.DAY);
+
+    private static final DateTimeFormatter WEEK_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final RollupGranularity rollup;
+
+    TimeBucket(RollupGranularity rollup) {
+        this.rollup = rollup;
+    }
+
+    /**
+     * 读取预聚合数据时使用的粒度，WEEK 为 DAY
+     */
+    public RollupGranularity rollup() {
+        return rollup;
+    }
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        if (this == WEEK) {
+            return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        }
+        return rollup.truncate(time);
+    }
+
+    public String label(LocalDateTime bucket) {
+        return this == WEEK ? WEEK_LABEL.format(bucket) : rollup.label(bucket);
+    }
+
+    /**
+     * 解析前端传入的粒度参数，无法识别（包括 raw）时返回 defaultValue
+     */
+    public static TimeBucket of(String value, TimeBucket defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "week":
+            case "weekly":
+                return WEEK;
+            default:
+                RollupGranularity granularity = RollupGranularity.of(value, null);
+                return granularity != null ? valueOf(granularity.name()) : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 已压缩的 ZIP 条目数据暂存文件
+ * 数据集在后台线程中边生成边压缩写入临时文件，完成后由 {@link ZipStreamWriter#addDeflated} 原样拷入 ZIP，
+ * 不需要再次压缩；关闭时删除临时文件
+ */
+public class CompressedSpool implements Closeable {
+
+    private final Path file;
+    private final int level;
+    private volatile boolean complete;
+    private long crc;
+    private long size;
+    private long compressedSize;
+
+    private CompressedSpool(Path file, int level) {
+        this.file = file;
+        this.level = level;
+    }
+
+    public static CompressedSpool create(int level) throws IOException {
+        return new CompressedSpool(Files.createTempFile("export-zip-", ".deflate"), level);
+    }
+
+    /**
+     * 打开写入流，写入的原始数据被压缩到临时文件；关闭写入流后条目数据完整
+     */
+    public OutputStream open() throws IOException {
+        OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+        DeflatingOutputStream deflating = new DeflatingOutputStream(fileOut, level);
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                deflating.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                deflating.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (fileOut) {
+                    deflating.close();
+                }
+                crc = deflating.crc();
+                size = deflating.size();
+                compressedSize = deflating.compressedSize();
+                complete = true;
+            }
+        };
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    long crc() {
+        return crc;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long compressedSize() {
+        return compressedSize;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,121 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * CSV 写出器
+ * 带 UTF-8 BOM（Excel 直接打开不乱码）；字段按 RFC 4180 仅在包含逗号、引号或换行时加引号，
+ * 小数固定保留两位，直接写入缓冲区而不经过 String.format
+ */
+public class CsvExportWriter implements ExportWriter {
+
+    private static final char BOM = '\uFEFF';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private boolean started;
+
+    public CsvExportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void begin(String name, List<String> headers) throws IOException {
+        if (started) {
+            throw new IllegalStateException("CSV 只能包含一个数据集");
+        }
+        started = true;
+        out.write(BOM);
+        record(headers.toArray());
+    }
+
+    @Override
+    public void row(Object item, Object[] values) throws IOException {
+        record(values);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private void record(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            value(values[i]);
+        }
+        out.write('\n');
+    }
+
+    private void value(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            decimal(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            out.write(value.toString());
+        } else if (value instanceof LocalDateTime time) {
+            DATE_FORMATTER.formatTo(time, out);
+        } else {
+            text(value.toString());
+        }
+    }
+
+    private void text(String s) throws IOException {
+        if (!needsQuote(s)) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        int from = 0;
+        for (int i = s.indexOf('"'); i >= 0; i = s.indexOf('"', from)) {
+            out.write(s, from, i + 1 - from);
+            out.write('"');
+            from = i + 1;
+        }
+        out.write(s, from, s.length() - from);
+        out.write('"');
+    }
+
+    private static boolean needsQuote(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 保留两位小数（四舍五入）
+     */
+    private void decimal(double v) throws IOException {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= 1e15) {
+            out.write(Double.toString(v));
+            return;
+        }
+        long scaled = Math.round(v * 100);
+        if (scaled < 0) {
+            out.write('-');
+            scaled = -scaled;
+        }
+        out.write(Long.toString(scaled / 100));
+        out.write('.');
+        long fraction = scaled % 100;
+        if (fraction < 10) {
+            out.write('0');
+        }
+        out.write(Long.toString(fraction));
+    }
+}
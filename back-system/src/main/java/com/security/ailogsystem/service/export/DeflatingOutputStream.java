@@ -0,0 +1,85 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 以原始 DEFLATE（无 zlib 头）压缩写入目标流，同时计算 ZIP 条目所需的 CRC32、原始大小和压缩后大小；
+ * 关闭时只结束压缩，不关闭目标流
+ */
+class DeflatingOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream target;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long size;
+    private long compressedSize;
+    private boolean closed;
+
+    DeflatingOutputStream(OutputStream target, int level) {
+        this.target = target;
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("压缩流已关闭");
+        }
+        if (len == 0) {
+            return;
+        }
+        crc.update(b, off, len);
+        size += len;
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void drain() throws IOException {
+        int n = deflater.deflate(buffer, 0, buffer.length);
+        if (n > 0) {
+            target.write(buffer, 0, n);
+            compressedSize += n;
+        }
+    }
+
+    long crc() {
+        return crc.getValue();
+    }
+
+    long size() {
+        return size;
+    }
+
+    long compressedSize() {
+        return compressedSize;
+    }
+}
@@ -0,0 +1,105 @@
+package com.security.ailogsystem.service.export;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Excel 写出器
+ * 基于 SXSSFWorkbook：内存中只保留 rowWindow 行，更早的行写入压缩临时文件；
+ * 列宽按写出过程中跟踪的内容自动调整，结束时统一打包写入目标流并删除临时文件
+ */
+public class ExcelExportWriter implements ExportWriter {
+
+    /**
+     * 单个工作表除表头外可容纳的行数
+     */
+    public static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    private final SXSSFWorkbook workbook;
+    private final OutputStream out;
+    private final CellStyle headerStyle;
+    private SXSSFSheet sheet;
+    private int columns;
+    private int rowIndex;
+
+    public ExcelExportWriter(OutputStream out, int rowWindow) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(Math.max(1, rowWindow));
+        this.workbook.setCompressTempFiles(true);
+        this.headerStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        headerStyle.setFont(font);
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    }
+
+    @Override
+    public void begin(String name, List<String> headers) {
+        autoSize();
+        sheet = workbook.createSheet(name);
+        sheet.trackAllColumnsForAutoSizing();
+        columns = headers.size();
+        rowIndex = 0;
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < columns; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    @Override
+    public void row(Object item, Object[] values) {
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            Cell cell = row.createCell(i);
+            if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime time) {
+                cell.setCellValue(time.format(DATE_FORMATTER));
+            } else {
+                cell.setCellValue(value != null ? value.toString() : "");
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        autoSize();
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    @Override
+    public int maxRows() {
+        return MAX_SHEET_ROWS;
+    }
+
+    private void autoSize() {
+        if (sheet != null) {
+            for (int i = 0; i < columns; i++) {
+                sheet.autoSizeColumn(i);
+            }
+        }
+    }
+}
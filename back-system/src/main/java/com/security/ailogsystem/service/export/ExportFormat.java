@@ -0,0 +1,63 @@
+package com.security.ailogsystem.service.export;
+
+/**
+ * 导出文件格式：扩展名与媒体类型
+ */
+public enum ExportFormat {
+
+    CSV("csv", "text/csv"),
+    EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    JSON("json", "application/json"),
+    PARQUET("parquet", "application/vnd.apache.parquet"),
+    ZIP("zip", "application/zip");
+
+    private final String extension;
+    private final String mediaType;
+
+    ExportFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * 解析请求中的格式参数，未知格式按 CSV 处理
+     */
+    public static ExportFormat of(String format) {
+        switch (format == null ? "" : format.toLowerCase()) {
+            case "excel":
+            case "xlsx":
+                return EXCEL;
+            case "json":
+                return JSON;
+            case "parquet":
+                return PARQUET;
+            case "zip":
+                return ZIP;
+            default:
+                return CSV;
+        }
+    }
+
+    /**
+     * 按数据类型确定输出格式：批量导出只有 Excel 多工作表和 ZIP 两种；
+     * Parquet 只用于安全事件和系统指标，其他类型按 CSV 处理
+     */
+    public static ExportFormat of(String type, String format) {
+        if ("batch".equalsIgnoreCase(type)) {
+            return of(format) == EXCEL ? EXCEL : ZIP;
+        }
+        ExportFormat resolved = of(format);
+        if (resolved == PARQUET && !"events".equalsIgnoreCase(type) && !"system-metrics".equalsIgnoreCase(type)) {
+            return CSV;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,105 @@
+package com.security.ailogsystem.service.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.security.ailogsystem.dto.ExportRequest;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步导出任务：状态、进度（已写出行数和字节数）与暂存文件
+ */
+@Getter
+public class ExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isActive() {
+            return this == QUEUED || this == RUNNING;
+        }
+    }
+
+    private final String id;
+    @JsonIgnore
+    private final String owner;
+    private final ExportRequest request;
+    private final ExportFormat format;
+    @JsonIgnore
+    private final Path file;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile LocalDateTime expiresAt;
+    private volatile String error;
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    ExportJob(String id, String owner, ExportRequest request, Path file) {
+        this.id = id;
+        this.owner = owner;
+        this.request = request;
+        this.format = ExportFormat.of(request.getType(), request.getFormat());
+        this.file = file;
+    }
+
+    /**
+     * @return 任务仍在排队（未被取消），可以开始执行
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    /**
+     * 结束任务；已取消的任务保持取消状态
+     *
+     * @return 任务的最终状态
+     */
+    synchronized Status finished(Status result, String message, long retentionMinutes) {
+        if (status != Status.CANCELLED) {
+            status = result;
+            error = message;
+        }
+        finishedAt = LocalDateTime.now();
+        expiresAt = finishedAt.plusMinutes(retentionMinutes);
+        return status;
+    }
+
+    /**
+     * 取消任务：排队中的任务不再执行；执行中的任务在写出下一行时中止（不中断线程，避免打断 JDBC 读取）
+     *
+     * @return 任务原本处于排队或执行中
+     */
+    synchronized boolean cancel(long retentionMinutes) {
+        if (!status.isActive()) {
+            return false;
+        }
+        if (status == Status.QUEUED) {
+            // 排队中的任务不会再执行，在此结束
+            finishedAt = LocalDateTime.now();
+            expiresAt = finishedAt.plusMinutes(retentionMinutes);
+        }
+        status = Status.CANCELLED;
+        Future<?> running = future;
+        if (running != null) {
+            running.cancel(false);
+        }
+        return true;
+    }
+
+    void future(Future<?> future) {
+        this.future = future;
+    }
+}
@@ -0,0 +1,234 @@
+package com.security.ailogsystem.service.export;
+
+import com.security.ailogsystem.config.ExportProperties;
+import com.security.ailogsystem.dto.ExportRequest;
+import com.security.ailogsystem.service.DataExportService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 异步导出任务
+ * 任务在固定大小的线程池中排队执行，导出内容先写入暂存目录的 .part 文件，完成后改名供下载；
+ * 结束的任务按保留时间过期删除。任务只保存在内存中，启动时清理暂存目录中上次运行遗留的文件
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportJobService implements DisposableBean {
+
+    /** 支持的导出类型，与 /export 下各接口一致 */
+    public static final List<String> TYPES =
+            List.of("logs", "alerts", "events", "security-logs", "system-metrics", "batch");
+
+    private static final String FILE_PREFIX = "export-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataExportService dataExportService;
+    private final ExportProperties exportProperties;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private Path stagingDir;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        ExportProperties.Jobs config = exportProperties.getJobs();
+        stagingDir = Paths.get(config.getStagingDir()).toAbsolutePath().normalize();
+        Files.createDirectories(stagingDir);
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            files.filter(file -> file.getFileName().toString().startsWith(FILE_PREFIX)).forEach(this::deleteQuietly);
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, config.getConcurrency()),
+                Thread.ofPlatform().name("export-job-", 0).daemon(true).factory());
+        log.info("导出任务暂存目录: {}，并发数 {}", stagingDir, config.getConcurrency());
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @throws IllegalArgumentException     导出类型不支持或批量导出未指定数据类型
+     * @throws ExportQuotaExceededException 用户的任务数超过配额
+     */
+    public synchronized ExportJob submit(String owner, ExportRequest request) {
+        String type = request.getType() != null ? request.getType().toLowerCase() : "";
+        if (!TYPES.contains(type)) {
+            throw new IllegalArgumentException("不支持的导出类型: " + request.getType());
+        }
+        if ("batch".equals(type) && (request.getDataTypes() == null || request.getDataTypes().isEmpty())) {
+            throw new IllegalArgumentException("批量导出需要指定数据类型");
+        }
+        ExportProperties.Jobs config = exportProperties.getJobs();
+        List<ExportJob> owned = jobs.values().stream().filter(job -> job.getOwner().equals(owner)).toList();
+        if (owned.stream().filter(job -> job.getStatus().isActive()).count() >= config.getMaxActivePerUser()) {
+            throw new ExportQuotaExceededException("进行中的导出任务已达上限 " + config.getMaxActivePerUser()
+                    + "，请等待完成或取消后再提交");
+        }
+        if (owned.size() >= config.getMaxRetainedPerUser()) {
+            throw new ExportQuotaExceededException("保留的导出任务已达上限 " + config.getMaxRetainedPerUser()
+                    + "，请删除不再需要的任务");
+        }
+
+        request.setType(type);
+        String id = UUID.randomUUID().toString().replace("-", "");
+        ExportFormat format = ExportFormat.of(type, request.getFormat());
+        ExportJob job = new ExportJob(id, owner, request, stagingDir.resolve(FILE_PREFIX + id + "." + format.extension()));
+        jobs.put(id, job);
+        job.future(executor.submit(() -> run(job)));
+        log.info("提交导出任务 {}: owner={}, type={}, format={}", id, owner, type, format);
+        return job;
+    }
+
+    /**
+     * 用户的任务，按提交时间倒序
+     */
+    public List<ExportJob> list(String owner) {
+        return jobs.values().stream()
+                .filter(job -> job.getOwner().equals(owner))
+                .sorted(Comparator.comparing(ExportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public Optional<ExportJob> get(String owner, String id) {
+        return Optional.ofNullable(jobs.get(id)).filter(job -> job.getOwner().equals(owner));
+    }
+
+    /**
+     * 取消进行中的任务；已结束的任务删除任务及其文件
+     *
+     * @return 任务存在
+     */
+    public boolean cancel(String owner, String id) {
+        Optional<ExportJob> found = get(owner, id);
+        if (found.isEmpty()) {
+            return false;
+        }
+        ExportJob job = found.get();
+        if (!job.cancel(exportProperties.getJobs().getRetentionMinutes())) {
+            jobs.remove(id);
+            deleteQuietly(job.getFile());
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:300000}")
+    public void cleanupExpired() {
+        int removed = cleanup(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("清理过期导出任务 {} 个", removed);
+        }
+    }
+
+    int cleanup(LocalDateTime now) {
+        int removed = 0;
+        for (ExportJob job : jobs.values()) {
+            LocalDateTime expiresAt = job.getExpiresAt();
+            if (!job.getStatus().isActive() && expiresAt != null && !expiresAt.isAfter(now)) {
+                jobs.remove(job.getId());
+                deleteQuietly(job.getFile());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void run(ExportJob job) {
+        if (!job.start()) {
+            return;
+        }
+        Path part = job.getFile().resolveSibling(job.getFile().getFileName() + ".part");
+        ExportJob.Status result = ExportJob.Status.FAILED;
+        String error = null;
+        try {
+            try (OutputStream out = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE), job.getBytes())) {
+                dataExportService.export(job.getRequest(), out, () -> {
+                    if (job.getStatus() == ExportJob.Status.CANCELLED) {
+                        throw new CancellationException("导出任务已取消");
+                    }
+                    job.getRows().incrementAndGet();
+                });
+            }
+            Files.move(part, job.getFile(), StandardCopyOption.REPLACE_EXISTING);
+            result = ExportJob.Status.COMPLETED;
+        } catch (CancellationException e) {
+            result = ExportJob.Status.CANCELLED;
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("导出任务 {} 失败", job.getId(), e);
+        } finally {
+            deleteQuietly(part);
+        }
+        // 取消可能发生在文件改名之后，以任务最终状态为准
+        if (job.finished(result, error, exportProperties.getJobs().getRetentionMinutes()) != ExportJob.Status.COMPLETED) {
+            deleteQuietly(job.getFile());
+            log.info("导出任务 {} 结束: {}", job.getId(), job.getStatus());
+        } else {
+            log.info("导出任务 {} 完成: {} 行, {} 字节", job.getId(), job.getRows().get(), job.getBytes().get());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}", file, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 统计写出的字节数
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private final AtomicLong bytes;
+
+        CountingOutputStream(OutputStream out, AtomicLong bytes) {
+            super(out);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes.addAndGet(len);
+        }
+    }
+}
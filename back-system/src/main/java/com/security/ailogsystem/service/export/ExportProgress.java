@@ -0,0 +1,58 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 导出进度回调，每写出一行调用一次；回调中抛出异常会中止导出（如任务已取消）。
+ * 批量 ZIP 导出时各数据集并行生成，回调可能被多个线程同时调用
+ */
+@FunctionalInterface
+public interface ExportProgress {
+
+    ExportProgress NONE = () -> {
+    };
+
+    void rowWritten();
+
+    /**
+     * 包装写出器，每写出一行回调一次
+     */
+    static ExportWriter track(ExportWriter writer, ExportProgress progress) {
+        if (progress == NONE) {
+            return writer;
+        }
+        return new ExportWriter() {
+            @Override
+            public void begin(String name, List<String> headers) throws IOException {
+                writer.begin(name, headers);
+            }
+
+            @Override
+            public void begin(String name, List<String> headers, Class<?> type) throws IOException {
+                writer.begin(name, headers, type);
+            }
+
+            @Override
+            public void row(Object item, Object[] values) throws IOException {
+                writer.row(item, values);
+                progress.rowWritten();
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.finish();
+            }
+
+            @Override
+            public int maxRows() {
+                return writer.maxRows();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+}
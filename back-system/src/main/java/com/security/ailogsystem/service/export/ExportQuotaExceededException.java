@@ -0,0 +1,11 @@
+package com.security.ailogsystem.service.export;
+
+/**
+ * 用户的导出任务数超过配额
+ */
+public class ExportQuotaExceededException extends RuntimeException {
+
+    public ExportQuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 导出格式写出器
+ * 逐行写入目标输出流，不在内存中保留已写出的行；finish 只刷新并结束文档，close 只释放写出器自身的资源，
+ * 二者都不关闭目标流，以便同一个流（如 ZIP 条目）继续写入其他内容
+ */
+public interface ExportWriter extends Closeable {
+
+    DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 开始一个数据集（Excel 为新工作表，CSV 为表头行，JSON 为数组开始）
+     */
+    void begin(String name, List<String> headers) throws IOException;
+
+    /**
+     * 开始一个数据集，并提供实体类型（Parquet 由实体字段推导列）
+     */
+    default void begin(String name, List<String> headers, Class<?> type) throws IOException {
+        begin(name, headers);
+    }
+
+    /**
+     * 写入一行
+     *
+     * @param item   原始实体（JSON 直接序列化实体）
+     * @param values 与表头对应的列值（CSV/Excel 使用）
+     */
+    void row(Object item, Object[] values) throws IOException;
+
+    /**
+     * 结束文档并刷新到目标流
+     */
+    void finish() throws IOException;
+
+    /**
+     * 单个数据集最多可写入的行数
+     */
+    default int maxRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
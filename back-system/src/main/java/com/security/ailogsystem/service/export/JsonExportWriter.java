@@ -0,0 +1,51 @@
+package com.security.ailogsystem.service.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * JSON 写出器：以 Jackson 生成器逐个序列化实体，输出为单个 JSON 数组
+ */
+public class JsonExportWriter implements ExportWriter {
+
+    private final JsonGenerator generator;
+    private boolean started;
+
+    public JsonExportWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void begin(String name, List<String> headers) throws IOException {
+        if (started) {
+            throw new IllegalStateException("JSON 只能包含一个数据集");
+        }
+        started = true;
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void row(Object item, Object[] values) throws IOException {
+        generator.writeObject(item);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!started) {
+            generator.writeStartArray();
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.security.ailogsystem.service.export;
+
+import com.security.ailogsystem.service.export.parquet.ParquetCodec;
+import com.security.ailogsystem.service.export.parquet.ParquetFileWriter;
+import com.security.ailogsystem.service.export.parquet.ParquetSchema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Parquet 写出器：列由实体字段推导（不使用中文表头），只支持单个数据集
+ */
+public class ParquetExportWriter implements ExportWriter {
+
+    private final OutputStream out;
+    private final Collection<String> dictionaryFields;
+    private final ParquetCodec codec;
+    private final long rowGroupSize;
+    private final int pageSize;
+    private ParquetFileWriter writer;
+
+    public ParquetExportWriter(OutputStream out, Collection<String> dictionaryFields, ParquetCodec codec,
+                               long rowGroupSize, int pageSize) {
+        this.out = out;
+        this.dictionaryFields = dictionaryFields;
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void begin(String name, List<String> headers) {
+        throw new IllegalStateException("Parquet 导出需要实体类型");
+    }
+
+    @Override
+    public void begin(String name, List<String> headers, Class<?> type) throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Parquet 导出只支持单个数据集");
+        }
+        writer = new ParquetFileWriter(out, ParquetSchema.of(type, dictionaryFields), codec, rowGroupSize, pageSize);
+    }
+
+    @Override
+    public void row(Object item, Object[] values) throws IOException {
+        writer.write(item);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (writer != null) {
+            writer.finish();
+        }
+        out.flush();
+    }
+}
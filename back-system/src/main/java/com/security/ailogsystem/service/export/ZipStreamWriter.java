@@ -0,0 +1,216 @@
+package com.security.ailogsystem.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 ZIP 写出器
+ * 与 ZipOutputStream 不同，除了边写边压缩的条目（{@link #openEntry}）外，还可以把后台已压缩好的数据
+ * （{@link CompressedSpool}）原样拷入条目，从而让多个条目并行压缩、按顺序写出。
+ * 条目名使用 UTF-8；不支持 ZIP64，单个条目和整个文件需小于 4GB
+ */
+public class ZipStreamWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int METHOD_DEFLATED = 8;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+    private final int level;
+    private final List<Entry> entries = new ArrayList<>();
+    private long position;
+    private boolean entryOpen;
+
+    /**
+     * @param level 边写边压缩条目的压缩级别（0-9）
+     */
+    public ZipStreamWriter(OutputStream out, int level) {
+        this.out = out;
+        this.level = level;
+    }
+
+    /**
+     * 开始一个边写边压缩的条目；CRC 和大小在数据之后以数据描述符写出。关闭返回的流即结束条目
+     */
+    public OutputStream openEntry(String name) throws IOException {
+        if (entryOpen) {
+            throw new IllegalStateException("上一个条目尚未关闭");
+        }
+        Entry entry = new Entry(name, FLAG_DATA_DESCRIPTOR | FLAG_UTF8, position);
+        writeLocalHeader(entry);
+        entryOpen = true;
+        DeflatingOutputStream deflating = new DeflatingOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                ZipStreamWriter.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ZipStreamWriter.this.write(b, off, len);
+            }
+        }, level);
+        return new OutputStream() {
+            private boolean closed;
+
+            @Override
+            public void write(int b) throws IOException {
+                deflating.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                deflating.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                deflating.close();
+                entry.crc = deflating.crc();
+                entry.size = checkSize(deflating.size());
+                entry.compressedSize = checkSize(deflating.compressedSize());
+                writeInt(DATA_DESCRIPTOR);
+                writeInt(entry.crc);
+                writeInt(entry.compressedSize);
+                writeInt(entry.size);
+                entries.add(entry);
+                entryOpen = false;
+            }
+        };
+    }
+
+    /**
+     * 写入一个已在暂存文件中压缩完成的条目
+     */
+    public void addDeflated(String name, CompressedSpool spool) throws IOException {
+        if (entryOpen) {
+            throw new IllegalStateException("上一个条目尚未关闭");
+        }
+        if (!spool.isComplete()) {
+            throw new IllegalStateException("条目数据尚未写完: " + name);
+        }
+        Entry entry = new Entry(name, FLAG_UTF8, position);
+        entry.crc = spool.crc();
+        entry.size = checkSize(spool.size());
+        entry.compressedSize = checkSize(spool.compressedSize());
+        writeLocalHeader(entry);
+        position += Files.copy(spool.file(), out);
+        entries.add(entry);
+    }
+
+    /**
+     * 写出中央目录并刷新，不关闭目标流
+     */
+    public void finish() throws IOException {
+        if (entryOpen) {
+            throw new IllegalStateException("上一个条目尚未关闭");
+        }
+        long centralStart = position;
+        for (Entry entry : entries) {
+            writeInt(CENTRAL_HEADER);
+            writeShort(VERSION);
+            writeShort(VERSION);
+            writeShort(entry.flags);
+            writeShort(METHOD_DEFLATED);
+            writeShort(entry.dosTime);
+            writeShort(entry.dosDate);
+            writeInt(entry.crc);
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+            writeShort(entry.name.length);
+            writeShort(0); // extra
+            writeShort(0); // comment
+            writeShort(0); // disk number
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt(entry.offset);
+            write(entry.name, 0, entry.name.length);
+        }
+        long centralSize = checkSize(position - centralStart);
+        if (entries.size() > 0xFFFF) {
+            throw new IOException("ZIP 条目数超过 65535，需要 ZIP64");
+        }
+        writeInt(END_OF_CENTRAL_DIRECTORY);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt(centralSize);
+        writeInt(checkSize(centralStart));
+        writeShort(0);
+        out.flush();
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        checkSize(entry.offset);
+        boolean descriptor = (entry.flags & FLAG_DATA_DESCRIPTOR) != 0;
+        writeInt(LOCAL_HEADER);
+        writeShort(VERSION);
+        writeShort(entry.flags);
+        writeShort(METHOD_DEFLATED);
+        writeShort(entry.dosTime);
+        writeShort(entry.dosDate);
+        writeInt(descriptor ? 0 : entry.crc);
+        writeInt(descriptor ? 0 : entry.compressedSize);
+        writeInt(descriptor ? 0 : entry.size);
+        writeShort(entry.name.length);
+        writeShort(0);
+        write(entry.name, 0, entry.name.length);
+    }
+
+    private static long checkSize(long value) throws IOException {
+        if (value >= MAX_SIZE) {
+            throw new IOException("ZIP 条目或文件超过 4GB，需要 ZIP64");
+        }
+        return value;
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        position += len;
+    }
+
+    private void writeShort(int v) throws IOException {
+        write(new byte[]{(byte) v, (byte) (v >>> 8)}, 0, 2);
+    }
+
+    private void writeInt(long v) throws IOException {
+        write(new byte[]{(byte) v, (byte) (v >>> 8), (byte) (v >>> 16), (byte) (v >>> 24)}, 0, 4);
+    }
+
+    private static final class Entry {
+
+        private final byte[] name;
+        private final int flags;
+        private final long offset;
+        private final int dosTime;
+        private final int dosDate;
+        private long crc;
+        private long size;
+        private long compressedSize;
+
+        Entry(String name, int flags, long offset) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.flags = flags;
+            this.offset = offset;
+            LocalDateTime now = LocalDateTime.now();
+            this.dosTime = now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() / 2;
+            this.dosDate = (now.getYear() - 1980) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 一个行组内单列的数据
+ * 值按 v1 数据页编码，页写满后立即压缩暂存，内存中只保留压缩后的页和当前页；
+ * 字典列先按字典索引编码，字典超过上限后该列余下的页改为 PLAIN 编码
+ */
+final class ColumnChunkWriter {
+
+    static final int MAX_DICTIONARY_ENTRIES = 1 << 15;
+    static final int MAX_DICTIONARY_BYTES = 1 << 20;
+
+    private static final int PAGE_DATA = 0;
+    private static final int PAGE_DICTIONARY = 2;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_PLAIN_DICTIONARY = 2;
+    private static final int ENCODING_RLE = 3;
+
+    private final ParquetColumn column;
+    private final ParquetCodec codec;
+    private final int pageSize;
+
+    // 当前页
+    private int[] levels = new int[1024];
+    private int levelCount;
+    private int[] indices = new int[1024];
+    private int indexCount;
+    private final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    private int booleanByte;
+    private int booleanBits;
+
+    // 当前行组
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+    private long dictionaryBytes;
+    private boolean dictionaryActive;
+    private final ByteArrayOutputStream pages = new ByteArrayOutputStream();
+    private long pagesUncompressedSize;
+    private final TreeSet<Integer> encodings = new TreeSet<>();
+    private long values;
+    private long nulls;
+    private long minLong = Long.MAX_VALUE;
+    private long maxLong = Long.MIN_VALUE;
+    private double minDouble = Double.POSITIVE_INFINITY;
+    private double maxDouble = Double.NEGATIVE_INFINITY;
+    private boolean hasStatistics;
+
+    ColumnChunkWriter(ParquetColumn column, ParquetCodec codec, int pageSize) {
+        this.column = column;
+        this.codec = codec;
+        this.pageSize = pageSize;
+        this.dictionaryActive = column.dictionary();
+    }
+
+    void add(Object value) {
+        if (value == null) {
+            level(0);
+            nulls++;
+        } else if (dictionaryActive && !addToDictionary((String) value)) {
+            // 字典已满：结束当前字典页，之后按 PLAIN 编码
+            closePage();
+            dictionaryActive = false;
+            level(1);
+            writePlain(value);
+        } else {
+            level(1);
+            if (!dictionaryActive) {
+                writePlain(value);
+            }
+            statistics(value);
+        }
+        values++;
+        if (pageBufferedSize() >= pageSize) {
+            closePage();
+        }
+    }
+
+    /**
+     * 当前暂存的字节数（已压缩的页加当前页）
+     */
+    long bufferedSize() {
+        return pages.size() + pageBufferedSize();
+    }
+
+    /**
+     * 写出行组中本列的全部页（字典页在前），返回列元数据并清空状态以便写下一个行组
+     *
+     * @param offset 本列在文件中的起始位置
+     */
+    Chunk flush(OutputStream out, long offset) throws IOException {
+        closePage();
+        Long dictionaryOffset = null;
+        long uncompressed = pagesUncompressedSize;
+        long compressed = pages.size();
+        if (encodings.contains(ENCODING_PLAIN_DICTIONARY)) {
+            ByteArrayOutputStream page = new ByteArrayOutputStream();
+            for (String entry : dictionary.keySet()) {
+                writeByteArray(page, ParquetColumn.utf8(entry));
+            }
+            byte[] raw = page.toByteArray();
+            byte[] data = codec.compress(raw);
+            byte[] header = pageHeader(PAGE_DICTIONARY, raw.length, data.length, dictionary.size(), ENCODING_PLAIN_DICTIONARY);
+            out.write(header);
+            out.write(data);
+            dictionaryOffset = offset;
+            uncompressed += header.length + raw.length;
+            compressed += header.length + data.length;
+        }
+        long dataOffset = offset + (dictionaryOffset != null ? compressed - pages.size() : 0);
+        pages.writeTo(out);
+        encodings.add(ENCODING_RLE);
+        Chunk chunk = new Chunk(column, codec, values, uncompressed, compressed, dataOffset, dictionaryOffset,
+                encodings.stream().mapToInt(Integer::intValue).toArray(), nulls, hasStatistics ? min() : null,
+                hasStatistics ? max() : null);
+        reset();
+        return chunk;
+    }
+
+    private boolean addToDictionary(String value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            int length = ParquetColumn.utf8(value).length;
+            if (dictionary.size() >= MAX_DICTIONARY_ENTRIES || dictionaryBytes + length + 4 > MAX_DICTIONARY_BYTES) {
+                return false;
+            }
+            index = dictionary.size();
+            dictionary.put(value, index);
+            dictionaryBytes += length + 4;
+        }
+        if (indexCount == indices.length) {
+            indices = Arrays.copyOf(indices, indexCount * 2);
+        }
+        indices[indexCount++] = index;
+        return true;
+    }
+
+    private void level(int level) {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+        }
+        levels[levelCount++] = level;
+    }
+
+    private void writePlain(Object value) {
+        switch (column.type()) {
+            case BOOLEAN -> {
+                if ((Boolean) value) {
+                    booleanByte |= 1 << booleanBits;
+                }
+                if (++booleanBits == 8) {
+                    plain.write(booleanByte);
+                    booleanByte = 0;
+                    booleanBits = 0;
+                }
+            }
+            case INT32 -> writeIntLE(plain, (Integer) value);
+            case INT64 -> writeLongLE(plain, (Long) value);
+            case FLOAT -> writeIntLE(plain, Float.floatToIntBits((Float) value));
+            case DOUBLE -> writeLongLE(plain, Double.doubleToLongBits((Double) value));
+            case BYTE_ARRAY -> writeByteArray(plain, ParquetColumn.utf8(value));
+        }
+    }
+
+    private void statistics(Object value) {
+        switch (column.type()) {
+            case INT32, INT64 -> {
+                long v = ((Number) value).longValue();
+                minLong = Math.min(minLong, v);
+                maxLong = Math.max(maxLong, v);
+                hasStatistics = true;
+            }
+            case FLOAT, DOUBLE -> {
+                double v = ((Number) value).doubleValue();
+                if (!Double.isNaN(v)) {
+                    minDouble = Math.min(minDouble, v);
+                    maxDouble = Math.max(maxDouble, v);
+                    hasStatistics = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private byte[] min() {
+        return statisticsValue(minLong, minDouble == 0.0 ? -0.0 : minDouble);
+    }
+
+    private byte[] max() {
+        return statisticsValue(maxLong, maxDouble == 0.0 ? 0.0 : maxDouble);
+    }
+
+    private byte[] statisticsValue(long longValue, double doubleValue) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8);
+        switch (column.type()) {
+            case INT32 -> writeIntLE(out, (int) longValue);
+            case INT64 -> writeLongLE(out, longValue);
+            case FLOAT -> writeIntLE(out, Float.floatToIntBits((float) doubleValue));
+            default -> writeLongLE(out, Double.doubleToLongBits(doubleValue));
+        }
+        return out.toByteArray();
+    }
+
+    private long pageBufferedSize() {
+        return plain.size() + indexCount + levelCount / 8;
+    }
+
+    private void closePage() {
+        if (levelCount == 0) {
+            return;
+        }
+        if (booleanBits > 0) {
+            plain.write(booleanByte);
+            booleanByte = 0;
+            booleanBits = 0;
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(plain.size() + indexCount + 64);
+        ByteArrayOutputStream encodedLevels = new ByteArrayOutputStream();
+        RleEncoder.encode(levels, levelCount, 1, encodedLevels);
+        writeIntLE(raw, encodedLevels.size());
+        raw.write(encodedLevels.toByteArray(), 0, encodedLevels.size());
+        int encoding;
+        if (dictionaryActive && indexCount > 0) {
+            int bitWidth = RleEncoder.bitWidth(dictionary.size() - 1);
+            raw.write(bitWidth);
+            RleEncoder.encode(indices, indexCount, bitWidth, raw);
+            encoding = ENCODING_PLAIN_DICTIONARY;
+        } else {
+            // 全为空值的页没有值，按 PLAIN 处理
+            raw.write(plain.toByteArray(), 0, plain.size());
+            encoding = ENCODING_PLAIN;
+        }
+        byte[] rawBytes = raw.toByteArray();
+        byte[] data = codec.compress(rawBytes);
+        byte[] header = pageHeader(PAGE_DATA, rawBytes.length, data.length, levelCount, encoding);
+        pages.write(header, 0, header.length);
+        pages.write(data, 0, data.length);
+        pagesUncompressedSize += header.length + rawBytes.length;
+        encodings.add(encoding);
+        levelCount = 0;
+        indexCount = 0;
+        plain.reset();
+    }
+
+    private static byte[] pageHeader(int type, int uncompressedSize, int compressedSize, int count, int encoding) {
+        ThriftCompactWriter header = new ThriftCompactWriter();
+        header.beginStruct();
+        header.i32(1, type);
+        header.i32(2, uncompressedSize);
+        header.i32(3, compressedSize);
+        if (type == PAGE_DATA) {
+            header.beginStruct(5);
+            header.i32(1, count);
+            header.i32(2, encoding);
+            header.i32(3, ENCODING_RLE);
+            header.i32(4, ENCODING_RLE);
+            header.endStruct();
+        } else {
+            header.beginStruct(7);
+            header.i32(1, count);
+            header.i32(2, encoding);
+            header.endStruct();
+        }
+        header.endStruct();
+        return header.toByteArray();
+    }
+
+    private void reset() {
+        dictionary.clear();
+        dictionaryBytes = 0;
+        dictionaryActive = column.dictionary();
+        pages.reset();
+        pagesUncompressedSize = 0;
+        encodings.clear();
+        values = 0;
+        nulls = 0;
+        minLong = Long.MAX_VALUE;
+        maxLong = Long.MIN_VALUE;
+        minDouble = Double.POSITIVE_INFINITY;
+        maxDouble = Double.NEGATIVE_INFINITY;
+        hasStatistics = false;
+    }
+
+    private static void writeByteArray(ByteArrayOutputStream out, byte[] bytes) {
+        writeIntLE(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int v) {
+        out.write(v);
+        out.write(v >>> 8);
+        out.write(v >>> 16);
+        out.write(v >>> 24);
+    }
+
+    private static void writeLongLE(ByteArrayOutputStream out, long v) {
+        writeIntLE(out, (int) v);
+        writeIntLE(out, (int) (v >>> 32));
+    }
+
+    /**
+     * 写出后的列元数据
+     */
+    record Chunk(ParquetColumn column, ParquetCodec codec, long values, long uncompressedSize, long compressedSize,
+                 long dataPageOffset, Long dictionaryPageOffset, int[] encodings, long nulls, byte[] min, byte[] max) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Parquet 页压缩方式，值为 Thrift 枚举值。
+ * 只提供 JDK 自带实现的编解码器；Snappy/ZSTD 需要本地库
+ */
+public enum ParquetCodec {
+
+    UNCOMPRESSED(0),
+    GZIP(2);
+
+    final int value;
+
+    ParquetCodec(int value) {
+        this.value = value;
+    }
+
+    /**
+     * 解析配置中的压缩方式，未知值按 GZIP 处理
+     */
+    public static ParquetCodec of(String name) {
+        return name != null && (name.equalsIgnoreCase("none") || name.equalsIgnoreCase("uncompressed"))
+                ? UNCOMPRESSED : GZIP;
+    }
+
+    byte[] compress(byte[] data) {
+        if (this == UNCOMPRESSED) {
+            return data;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
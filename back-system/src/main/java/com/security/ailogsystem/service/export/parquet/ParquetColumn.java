@@ -0,0 +1,91 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Parquet 列：由实体字段映射而来，所有列都是可空（OPTIONAL）的扁平列
+ */
+final class ParquetColumn {
+
+    /** Parquet 物理类型，值为 Thrift 枚举值 */
+    enum Type {
+        BOOLEAN(0), INT32(1), INT64(2), FLOAT(4), DOUBLE(5), BYTE_ARRAY(6);
+
+        final int value;
+
+        Type(int value) {
+            this.value = value;
+        }
+    }
+
+    /** 逻辑类型注解 */
+    enum Logical {
+        NONE, STRING, TIMESTAMP_MILLIS
+    }
+
+    private final String name;
+    private final Field field;
+    private final Type type;
+    private final Logical logical;
+    private final boolean dictionary;
+
+    ParquetColumn(String name, Field field, Type type, Logical logical, boolean dictionary) {
+        this.name = name;
+        this.field = field;
+        this.type = type;
+        this.logical = logical;
+        this.dictionary = dictionary;
+    }
+
+    String name() {
+        return name;
+    }
+
+    Type type() {
+        return type;
+    }
+
+    Logical logical() {
+        return logical;
+    }
+
+    /**
+     * 是否尝试字典编码（仅字符串列）
+     */
+    boolean dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 读取实体中的值并转换为写出用的类型：字符串和枚举为 String，时间为 UTC 纪元毫秒（不带时区的本地时间），
+     * 其余为对应的包装类型；null 表示空值
+     */
+    Object read(Object entity) {
+        Object value;
+        try {
+            value = field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法读取字段 " + field.getName(), e);
+        }
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        if (value instanceof LocalDateTime time) {
+            return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        return value;
+    }
+
+    static byte[] utf8(Object value) {
+        return ((String) value).getBytes(StandardCharsets.UTF_8);
+    }
+}
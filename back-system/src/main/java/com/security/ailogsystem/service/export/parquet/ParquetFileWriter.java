@@ -0,0 +1,201 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 Parquet 文件写出
+ * 按行接收实体，行组暂存的压缩数据达到 rowGroupSize 后整组写出，文件末尾写入元数据；
+ * 内存占用由行组大小决定，与总行数无关。所有列为可空扁平列，页为 v1 数据页
+ */
+public class ParquetFileWriter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CREATED_BY = "ai-log-system";
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_UTF8 = 0;
+
+    private final OutputStream out;
+    private final ParquetSchema schema;
+    private final ParquetCodec codec;
+    private final long rowGroupSize;
+    private final List<ColumnChunkWriter> columns = new ArrayList<>();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private long position;
+    private long rows;
+    private long totalRows;
+    private boolean finished;
+
+    /**
+     * @param rowGroupSize 行组大小（压缩后字节数）
+     * @param pageSize     数据页大小（编码后、压缩前字节数）
+     */
+    public ParquetFileWriter(OutputStream out, ParquetSchema schema, ParquetCodec codec,
+                             long rowGroupSize, int pageSize) throws IOException {
+        this.out = out;
+        this.schema = schema;
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+        for (ParquetColumn column : schema.columns()) {
+            columns.add(new ColumnChunkWriter(column, codec, pageSize));
+        }
+        write(MAGIC);
+    }
+
+    public void write(Object entity) throws IOException {
+        long buffered = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnChunkWriter column = columns.get(i);
+            column.add(schema.columns().get(i).read(entity));
+            buffered += column.bufferedSize();
+        }
+        rows++;
+        if (buffered >= rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    /**
+     * 写出剩余的行组和文件元数据，不关闭目标流
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        flushRowGroup();
+        byte[] footer = footer();
+        write(footer);
+        write(new byte[]{(byte) footer.length, (byte) (footer.length >>> 8),
+                (byte) (footer.length >>> 16), (byte) (footer.length >>> 24)});
+        write(MAGIC);
+        out.flush();
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        long start = position;
+        List<ColumnChunkWriter.Chunk> chunks = new ArrayList<>(columns.size());
+        for (ColumnChunkWriter column : columns) {
+            ColumnChunkWriter.Chunk chunk = column.flush(out, position);
+            position += chunk.compressedSize();
+            chunks.add(chunk);
+        }
+        rowGroups.add(new RowGroup(chunks, rows, start));
+        totalRows += rows;
+        rows = 0;
+    }
+
+    private byte[] footer() {
+        ThriftCompactWriter meta = new ThriftCompactWriter();
+        meta.beginStruct();
+        meta.i32(1, 1);
+        meta.beginList(2, ThriftCompactWriter.TYPE_STRUCT, schema.columns().size() + 1);
+        meta.beginStruct();
+        meta.string(4, schema.name());
+        meta.i32(5, schema.columns().size());
+        meta.endStruct();
+        for (ParquetColumn column : schema.columns()) {
+            schemaElement(meta, column);
+        }
+        meta.i64(3, totalRows);
+        meta.beginList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            rowGroup(meta, rowGroup);
+        }
+        meta.string(6, CREATED_BY);
+        // 各列按类型定义的顺序比较，读取方据此信任 min/max 统计
+        meta.beginList(7, ThriftCompactWriter.TYPE_STRUCT, schema.columns().size());
+        for (int i = 0; i < schema.columns().size(); i++) {
+            meta.beginStruct();
+            meta.beginStruct(1);
+            meta.endStruct();
+            meta.endStruct();
+        }
+        meta.endStruct();
+        return meta.toByteArray();
+    }
+
+    private static void schemaElement(ThriftCompactWriter meta, ParquetColumn column) {
+        meta.beginStruct();
+        meta.i32(1, column.type().value);
+        meta.i32(3, REPETITION_OPTIONAL);
+        meta.string(4, column.name());
+        if (column.logical() == ParquetColumn.Logical.STRING) {
+            meta.i32(6, CONVERTED_UTF8);
+            meta.beginStruct(10);
+            meta.beginStruct(1);
+            meta.endStruct();
+            meta.endStruct();
+        } else if (column.logical() == ParquetColumn.Logical.TIMESTAMP_MILLIS) {
+            // 本地时间（isAdjustedToUTC=false）没有对应的旧式 converted_type
+            meta.beginStruct(10);
+            meta.beginStruct(8);
+            meta.bool(1, false);
+            meta.beginStruct(2);
+            meta.beginStruct(1);
+            meta.endStruct();
+            meta.endStruct();
+            meta.endStruct();
+            meta.endStruct();
+        }
+        meta.endStruct();
+    }
+
+    private static void rowGroup(ThriftCompactWriter meta, RowGroup rowGroup) {
+        long uncompressed = 0;
+        long compressed = 0;
+        meta.beginStruct();
+        meta.beginList(1, ThriftCompactWriter.TYPE_STRUCT, rowGroup.chunks().size());
+        for (ColumnChunkWriter.Chunk chunk : rowGroup.chunks()) {
+            long chunkOffset = chunk.dictionaryPageOffset() != null ? chunk.dictionaryPageOffset() : chunk.dataPageOffset();
+            meta.beginStruct();
+            meta.i64(2, chunkOffset);
+            meta.beginStruct(3);
+            meta.i32(1, chunk.column().type().value);
+            meta.beginList(2, ThriftCompactWriter.TYPE_I32, chunk.encodings().length);
+            for (int encoding : chunk.encodings()) {
+                meta.listI32(encoding);
+            }
+            meta.beginList(3, ThriftCompactWriter.TYPE_BINARY, 1);
+            meta.listString(chunk.column().name());
+            meta.i32(4, chunk.codec().value);
+            meta.i64(5, chunk.values());
+            meta.i64(6, chunk.uncompressedSize());
+            meta.i64(7, chunk.compressedSize());
+            meta.i64(9, chunk.dataPageOffset());
+            if (chunk.dictionaryPageOffset() != null) {
+                meta.i64(11, chunk.dictionaryPageOffset());
+            }
+            meta.beginStruct(12);
+            meta.i64(3, chunk.nulls());
+            if (chunk.min() != null) {
+                meta.binary(5, chunk.max());
+                meta.binary(6, chunk.min());
+            }
+            meta.endStruct();
+            meta.endStruct();
+            meta.endStruct();
+            uncompressed += chunk.uncompressedSize();
+            compressed += chunk.compressedSize();
+        }
+        meta.i64(2, uncompressed);
+        meta.i64(3, rowGroup.rows());
+        meta.i64(5, rowGroup.offset());
+        meta.i64(6, compressed);
+        meta.endStruct();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private record RowGroup(List<ColumnChunkWriter.Chunk> chunks, long rows, long offset) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Transient;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 由实体类字段推导的 Parquet 模式
+ * 基本类型、字符串、枚举和 LocalDateTime 字段各对应一列，列名与数据库列名一致
+ * （@Column 指定的名称，否则为字段名的下划线形式）；关联实体、集合和 @Transient 字段不导出
+ */
+public final class ParquetSchema {
+
+    private final String name;
+    private final List<ParquetColumn> columns;
+
+    private ParquetSchema(String name, List<ParquetColumn> columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    /**
+     * @param dictionaryFields 尝试字典编码的字段名（实体字段名），适用于取值较少的字符串字段
+     */
+    public static ParquetSchema of(Class<?> entity, Collection<String> dictionaryFields) {
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = entity; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+        List<ParquetColumn> columns = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(Transient.class) || field.isSynthetic()) {
+                    continue;
+                }
+                ParquetColumn column = column(field, dictionaryFields.contains(field.getName()));
+                if (column != null) {
+                    field.setAccessible(true);
+                    columns.add(column);
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException(entity.getSimpleName() + " 没有可导出为 Parquet 的字段");
+        }
+        return new ParquetSchema(entity.getSimpleName(), List.copyOf(columns));
+    }
+
+    private static ParquetColumn column(Field field, boolean dictionary) {
+        Class<?> t = field.getType();
+        String name = columnName(field);
+        if (t == String.class || t.isEnum()) {
+            return new ParquetColumn(name, field, ParquetColumn.Type.BYTE_ARRAY, ParquetColumn.Logical.STRING, dictionary);
+        }
+        if (t == LocalDateTime.class) {
+            return new ParquetColumn(name, field, ParquetColumn.Type.INT64, ParquetColumn.Logical.TIMESTAMP_MILLIS, false);
+        }
+        ParquetColumn.Type type;
+        if (t == Long.class || t == long.class) {
+            type = ParquetColumn.Type.INT64;
+        } else if (t == Integer.class || t == int.class || t == Short.class || t == short.class
+                || t == Byte.class || t == byte.class) {
+            type = ParquetColumn.Type.INT32;
+        } else if (t == Double.class || t == double.class) {
+            type = ParquetColumn.Type.DOUBLE;
+        } else if (t == Float.class || t == float.class) {
+            type = ParquetColumn.Type.FLOAT;
+        } else if (t == Boolean.class || t == boolean.class) {
+            type = ParquetColumn.Type.BOOLEAN;
+        } else {
+            return null;
+        }
+        return new ParquetColumn(name, field, type, ParquetColumn.Logical.NONE, false);
+    }
+
+    private static String columnName(Field field) {
+        Column column = field.getAnnotation(Column.class);
+        if (column != null && !column.name().isEmpty()) {
+            return column.name();
+        }
+        // 与 Spring Boot 默认的 CamelCaseToUnderscoresNamingStrategy 一致
+        StringBuilder sb = new StringBuilder();
+        String name = field.getName();
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (Character.isUpperCase(ch) && i > 0) {
+                sb.append('_');
+            }
+            sb.append(Character.toLowerCase(ch));
+        }
+        return sb.toString();
+    }
+
+    String name() {
+        return name;
+    }
+
+    List<ParquetColumn> columns() {
+        return columns;
+    }
+}
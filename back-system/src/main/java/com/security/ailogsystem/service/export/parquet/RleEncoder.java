@@ -0,0 +1,80 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Parquet RLE/位打包混合编码，用于定义级别和字典索引。
+ * 连续 8 个以上相同的值写成 RLE 段，其余值每 8 个一组位打包；只有最后一组允许补零
+ */
+final class RleEncoder {
+
+    private static final int MIN_RUN = 8;
+
+    private RleEncoder() {
+    }
+
+    static void encode(int[] values, int count, int bitWidth, ByteArrayOutputStream out) {
+        int packedStart = 0;
+        int i = 0;
+        while (i < count) {
+            int run = 1;
+            while (i + run < count && values[i + run] == values[i]) {
+                run++;
+            }
+            if (run < MIN_RUN) {
+                i += run;
+                continue;
+            }
+            // 位打包段必须是 8 的整数倍，先用本段开头的值补齐
+            int aligned = i + Math.floorMod(packedStart - i, MIN_RUN);
+            if (i + run - aligned < MIN_RUN) {
+                i += run;
+                continue;
+            }
+            bitPack(values, packedStart, aligned - packedStart, bitWidth, out);
+            rle(values[i], i + run - aligned, bitWidth, out);
+            i += run;
+            packedStart = i;
+        }
+        bitPack(values, packedStart, count - packedStart, bitWidth, out);
+    }
+
+    static int bitWidth(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    private static void rle(int value, int run, int bitWidth, ByteArrayOutputStream out) {
+        varint((long) run << 1, out);
+        for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+            out.write(value >>> (b * 8) & 0xFF);
+        }
+    }
+
+    private static void bitPack(int[] values, int start, int length, int bitWidth, ByteArrayOutputStream out) {
+        if (length == 0) {
+            return;
+        }
+        int groups = (length + MIN_RUN - 1) / MIN_RUN;
+        varint((long) groups << 1 | 1, out);
+        long buffer = 0;
+        int bits = 0;
+        for (int n = 0; n < groups * MIN_RUN; n++) {
+            long value = n < length ? values[start + n] & 0xFFFFFFFFL : 0;
+            buffer |= value << bits;
+            bits += bitWidth;
+            while (bits >= 8) {
+                out.write((int) (buffer & 0xFF));
+                buffer >>>= 8;
+                bits -= 8;
+            }
+        }
+    }
+
+    private static void varint(long value, ByteArrayOutputStream out) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,122 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Thrift Compact 协议写出，Parquet 的页头和文件元数据使用该协议序列化。
+ * 只实现 Parquet 元数据用到的类型：bool、i32、i64、binary、struct 和 list
+ */
+class ThriftCompactWriter {
+
+    static final int TYPE_BOOLEAN_TRUE = 1;
+    static final int TYPE_BOOLEAN_FALSE = 2;
+    static final int TYPE_I32 = 5;
+    static final int TYPE_I64 = 6;
+    static final int TYPE_BINARY = 8;
+    static final int TYPE_LIST = 9;
+    static final int TYPE_STRUCT = 12;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final Deque<Integer> lastFieldIds = new ArrayDeque<>();
+    private int lastFieldId;
+
+    void i32(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        varint(zigzag(value));
+    }
+
+    void i64(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        varint(zigzag(value));
+    }
+
+    void bool(int id, boolean value) {
+        fieldHeader(id, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+    }
+
+    void string(int id, String value) {
+        binary(id, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void binary(int id, byte[] value) {
+        fieldHeader(id, TYPE_BINARY);
+        bytes(value);
+    }
+
+    /**
+     * 开始一个 struct 类型的字段，以 {@link #endStruct()} 结束
+     */
+    void beginStruct(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        beginStruct();
+    }
+
+    /**
+     * 开始顶层 struct 或 list 中的 struct 元素
+     */
+    void beginStruct() {
+        lastFieldIds.push(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    void endStruct() {
+        out.write(0);
+        lastFieldId = lastFieldIds.pop();
+    }
+
+    /**
+     * list 类型字段头，随后依次写入 size 个元素
+     */
+    void beginList(int id, int elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        if (size < 15) {
+            out.write(size << 4 | elementType);
+        } else {
+            out.write(0xF0 | elementType);
+            varint(size);
+        }
+    }
+
+    void listI32(int value) {
+        varint(zigzag(value));
+    }
+
+    void listString(String value) {
+        bytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void fieldHeader(int id, int type) {
+        int delta = id - lastFieldId;
+        if (delta > 0 && delta <= 15) {
+            out.write(delta << 4 | type);
+        } else {
+            out.write(type);
+            varint(zigzag(id));
+        }
+        lastFieldId = id;
+    }
+
+    private void bytes(byte[] value) {
+        varint(value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+}
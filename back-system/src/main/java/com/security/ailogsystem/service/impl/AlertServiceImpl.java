@@ -1,33 +1,54 @@
 package com.security.ailogsystem.service.impl;
 
+import com.security.ailogsystem.dto.CursorSliceDTO;
 import com.security.ailogsystem.dto.request.AlertRequest;
 import com.security.ailogsystem.dto.response.AlertResponse;
 import com.security.ailogsystem.model.Alert;
 import com.security.ailogsystem.repository.AlertRepository;
+import com.security.ailogsystem.repository.SparseFieldQuery;
 import com.security.ailogsystem.service.AlertService;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import com.security.ailogsystem.service.search.FullTextSearchService;
+import com.security.ailogsystem.util.KeysetCursor;
+import com.security.ailogsystem.websocket.DashboardStateService;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AlertServiceImpl implements AlertService {
 
+    // 游标分页允许的排序字段
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("createdTime", "timestamp", "id");
+
     private final AlertRepository alertRepository;
+    private final FullTextSearchService fullTextSearchService;
     private final com.security.ailogsystem.repository.SecurityAlertRepository securityAlertRepository;
     private final com.security.ailogsystem.service.WebSocketService webSocketService;
+    private final RangeResultCache rangeResultCache;
+    private final SparseFieldQuery sparseFieldQuery;
+    private final DashboardStateService dashboardStateService;
 
     @Override
     @Transactional
-    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats", "events:dashboard-stats"}, allEntries = true)
+    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats"}, allEntries = true)
     public AlertResponse createAlert(AlertRequest request) {
         Alert alert = Alert.builder()
                 .alertId(request.getAlertId())
@@ -47,6 +68,7 @@ public class AlertServiceImpl implements AlertService {
         }
 
         Alert savedAlert = alertRepository.save(alert);
+        dashboardStateService.alertsChanged();
         log.info("创建告警成功: ID={}, Type={}, Level={}",
                 savedAlert.getId(), savedAlert.getAlertType(), savedAlert.getAlertLevel());
 
@@ -94,6 +116,27 @@ public class AlertServiceImpl implements AlertService {
         return alerts.map(AlertResponse::fromEntity);
     }
 
+    @Override
+    public Page<Map<String, Object>> getAlertFields(Pageable pageable, String fields) {
+        return sparseFieldQuery.findAll(Alert.class, sparseFieldQuery.parse(Alert.class, fields), null, pageable,
+                alertRepository::count);
+    }
+
+    @Override
+    public CursorSliceDTO<Map<String, Object>> getAlertFieldsByCursor(String sortBy, Sort.Direction direction,
+                                                                      int size, String cursor, String fields) {
+        validateCursorRequest(sortBy, size);
+        KeysetCursor keyset = KeysetCursor.decode(cursor, sortBy, direction);
+        List<String> selected = sparseFieldQuery.parse(Alert.class, fields, sortBy);
+
+        List<Map<String, Object>> rows = sparseFieldQuery.findAll(Alert.class, selected,
+                keyset != null ? keyset.toSpecification() : null,
+                KeysetCursor.sort(sortBy, direction), 0, KeysetCursor.fetchSize(size));
+
+        Slice<Map<String, Object>> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+        return CursorSliceDTO.of(slice, KeysetCursor.next(slice, sortBy, direction));
+    }
+
     @Override
     public Page<AlertResponse> getUnhandledAlerts(Pageable pageable) {
         Page<Alert> alerts = alertRepository.findByHandled(false, pageable);
@@ -110,13 +153,38 @@ public class AlertServiceImpl implements AlertService {
     public Page<AlertResponse> searchAlerts(String keyword, String alertLevel, String alertType,
                                             Boolean handled, Alert.AlertStatus status,
                                             Pageable pageable) {
-        Page<Alert> alerts = alertRepository.searchAlerts(keyword, alertLevel, alertType, handled, status, pageable);
+        FullTextSearchService.KeywordMatch match = keyword != null ? fullTextSearchService.matchAlerts(keyword) : null;
+        Page<Alert> alerts = match != null
+                ? alertRepository.findAll(searchSpecification(keyword, alertLevel, alertType, handled, status, match), pageable)
+                : alertRepository.searchAlerts(keyword, alertLevel, alertType, handled, status, pageable);
         return alerts.map(AlertResponse::fromEntity);
     }
 
+    @Override
+    public CursorSliceDTO<AlertResponse> searchAlertsByCursor(String keyword, String alertLevel, String alertType,
+                                                              Boolean handled, Alert.AlertStatus status,
+                                                              String sortBy, Sort.Direction direction,
+                                                              int size, String cursor) {
+        validateCursorRequest(sortBy, size);
+        KeysetCursor keyset = KeysetCursor.decode(cursor, sortBy, direction);
+
+        FullTextSearchService.KeywordMatch match = keyword != null ? fullTextSearchService.matchAlerts(keyword) : null;
+        Specification<Alert> spec = searchSpecification(keyword, alertLevel, alertType, handled, status, match);
+        if (keyset != null) {
+            spec = spec.and(keyset.toSpecification());
+        }
+        List<Alert> rows = alertRepository.findBy(spec, query -> query
+                .sortBy(KeysetCursor.sort(sortBy, direction))
+                .limit(KeysetCursor.fetchSize(size))
+                .all());
+
+        Slice<Alert> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+        return CursorSliceDTO.of(slice, sortBy, direction, AlertResponse::fromEntity);
+    }
+
     @Override
     @Transactional
-    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats", "events:dashboard-stats"}, allEntries = true)
+    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats"}, allEntries = true)
     public boolean markAlertAsHandled(Long id, String handledBy, String resolution) {
         Alert alert = alertRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("告警不存在: " + id));
@@ -127,6 +195,8 @@ public class AlertServiceImpl implements AlertService {
         alert.setResolution(resolution);
 
         alertRepository.save(alert);
+        fullTextSearchService.alertUpdated(alert);
+        dashboardStateService.alertsChanged();
         log.info("标记告警为已处理: ID={}, HandledBy={}", id, handledBy);
 
         return true;
@@ -149,6 +219,8 @@ public class AlertServiceImpl implements AlertService {
         alert.setHandled(status == Alert.AlertStatus.RESOLVED);
 
         alertRepository.save(alert);
+        fullTextSearchService.alertUpdated(alert);
+        dashboardStateService.alertsChanged();
         log.info("更新告警状态: ID={}, Status={}", id, status);
 
         return true;
@@ -156,13 +228,14 @@ public class AlertServiceImpl implements AlertService {
 
     @Override
     @Transactional
-    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats", "events:dashboard-stats"}, allEntries = true)
+    @org.springframework.cache.annotation.CacheEvict(value = {"logs:statistics", "analysis:real-time-stats"}, allEntries = true)
     public boolean deleteAlert(Long id) {
-        if (!alertRepository.existsById(id)) {
-            throw new RuntimeException("告警不存在: " + id);
-        }
+        Alert alert = alertRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("告警不存在: " + id));
 
-        alertRepository.deleteById(id);
+        alertRepository.delete(alert);
+        dashboardStateService.alertsChanged();
+        rangeResultCache.invalidate(RangeResultCache.ALERTS, alert.getCreatedTime());
         log.info("删除告警: ID={}", id);
 
         return true;
@@ -186,12 +259,8 @@ public class AlertServiceImpl implements AlertService {
         levelStats.put("HIGH", 0L);
         levelStats.put("MEDIUM", 0L);
         levelStats.put("LOW", 0L);
-        List<Object[]> levelGroups = alertRepository.countByAlertLevelGroup();
-        for (Object[] row : levelGroups) {
-            String level = (String) row[0];
-            Long count = ((Number) row[1]).longValue();
-            levelStats.put(level, count);
-        }
+        countsAllTime("levels", alertRepository::countByAlertLevelInRange)
+                .forEach((level, count) -> levelStats.put((String) level, count));
         stats.put("alertsByLevel", levelStats);
 
         // 最近24小时告警数（需要创建对应的方法）
@@ -201,6 +270,66 @@ public class AlertServiceImpl implements AlertService {
         return stats;
     }
 
+    @Override
+    public Map<String, Object> getDashboardStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+
+        // 1. 威胁等级分布
+        Map<String, Long> threatLevels = new HashMap<>();
+        threatLevels.put("LOW", 0L);
+        threatLevels.put("MEDIUM", 0L);
+        threatLevels.put("HIGH", 0L);
+        threatLevels.put("CRITICAL", 0L);
+        countsAllTime("levels", alertRepository::countByAlertLevelInRange)
+                .forEach((level, count) -> threatLevels.put((String) level, count));
+        statistics.put("threatLevels", threatLevels);
+
+        // 2. 总告警数
+        long totalAlerts = alertRepository.count();
+        statistics.put("totalLogs", totalAlerts);
+        statistics.put("securityEvents", totalAlerts);
+
+        // 3. 未处理告警
+        statistics.put("unhandledAlerts", alertRepository.countByHandled(false));
+
+        // 4. 高/严重风险数量
+        long highRiskCount = threatLevels.get("HIGH") + threatLevels.get("CRITICAL");
+        statistics.put("highRiskCount", highRiskCount);
+
+        // 5. 每日统计（最近7天）
+        statistics.put("dailyCounts", RangeResultCache.toRowsByKey(countsSince("daily",
+                LocalDateTime.now().minusDays(7), alertRepository::countDailyInRange)));
+
+        // 6. 暴力破解尝试
+        statistics.put("bruteForceAttempts", RangeResultCache.toRowsByCount(
+                countsAllTime("login-failures", alertRepository::countLoginFailuresBySourceInRange)));
+
+        // 7. 事件类型统计
+        statistics.put("eventCounts", RangeResultCache.toRowsByCount(
+                countsAllTime("types", alertRepository::countByAlertTypeInRange)));
+
+        return statistics;
+    }
+
+    /**
+     * 统计 since 至今的分组计数：已关闭的时间桶各自缓存，只有最近未关闭的部分实时查询
+     */
+    private Map<Object, Long> countsSince(String query, LocalDateTime since,
+                                          BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> groupQuery) {
+        return rangeResultCache.get(RangeResultCache.ALERTS, query, since, RangeResultCache.OPEN_END, false,
+                (from, to, inclusiveEnd) -> RangeResultCache.toCounts(groupQuery.apply(from, to)),
+                RangeResultCache::sumCounts);
+    }
+
+    /**
+     * 全部告警的分组计数，从最早一条告警开始按时间桶统计
+     */
+    private Map<Object, Long> countsAllTime(String query,
+                                            BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> groupQuery) {
+        LocalDateTime earliest = alertRepository.findEarliestCreatedTime();
+        return earliest != null ? countsSince(query, earliest, groupQuery) : new HashMap<>();
+    }
+
     @Override
     public Page<AlertResponse> getRecentAlerts(int count) {
         // 使用第一页，指定数量
@@ -305,4 +434,48 @@ public class AlertServiceImpl implements AlertService {
             return false;
         }
     }
+
+    /**
+     * 与 AlertRepository.searchAlerts 相同的过滤条件；match 非空时关键词由全文索引命中的 id 匹配
+     */
+    private static void validateCursorRequest(String sortBy, int size) {
+        if (!CURSOR_SORT_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("不支持的排序字段: " + sortBy);
+        }
+        if (size <= 0 || size > 1000) {
+            throw new IllegalArgumentException("每页大小必须在 1 到 1000 之间");
+        }
+    }
+
+    private static Specification<Alert> searchSpecification(String keyword, String alertLevel, String alertType,
+                                                            Boolean handled, Alert.AlertStatus status,
+                                                            FullTextSearchService.KeywordMatch match) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (keyword != null) {
+                String likePattern = "%" + keyword.toLowerCase() + "%";
+                Predicate like = cb.or(
+                        cb.like(cb.lower(root.get("alertId")), likePattern),
+                        cb.like(cb.lower(root.get("source")), likePattern),
+                        cb.like(cb.lower(root.get("alertType")), likePattern),
+                        cb.like(cb.lower(root.get("description")), likePattern),
+                        cb.like(cb.lower(root.get("assignee")), likePattern)
+                );
+                predicates.add(match != null ? match.toPredicate(cb, root.get("id"), like) : like);
+            }
+            if (alertLevel != null) {
+                predicates.add(cb.equal(root.get("alertLevel"), alertLevel));
+            }
+            if (alertType != null) {
+                predicates.add(cb.equal(root.get("alertType"), alertType));
+            }
+            if (handled != null) {
+                predicates.add(cb.equal(root.get("handled"), handled));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
@@ -1,16 +1,21 @@
 package com.security.ailogsystem.service.impl;
 
+import com.security.ailogsystem.dto.CursorSliceDTO;
 import com.security.ailogsystem.dto.LogEntryDTO;
 import com.security.ailogsystem.exception.BatchOperationException;
 import com.security.ailogsystem.exception.DatabaseException;
 import com.security.ailogsystem.model.LogEntry;
 import com.security.ailogsystem.repository.LogEntryRepository;
 import com.security.ailogsystem.service.BatchLogService;
+import com.security.ailogsystem.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -38,6 +43,12 @@ public class BatchLogServiceImpl implements BatchLogService {
     
     // 最大批次大小
     private static final int MAX_BATCH_SIZE = 5000;
+    
+    // 游标分页最大每页大小
+    private static final int MAX_PAGE_SIZE = 1000;
+    
+    // 游标分页允许的排序字段
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("timestamp", "createdAt", "id");
 
     @Override
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class, timeout = 300)
@@ -225,6 +236,33 @@ public class BatchLogServiceImpl implements BatchLogService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSliceDTO<LogEntryDTO> efficientCursorQuery(String sortBy, Sort.Direction direction, int size, String cursor) {
+        if (!CURSOR_SORT_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("不支持的排序字段: " + sortBy);
+        }
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("每页大小必须在 1 到 " + MAX_PAGE_SIZE + " 之间");
+        }
+        KeysetCursor keyset = KeysetCursor.decode(cursor, sortBy, direction);
+        log.debug("执行游标分页查询，排序: {} {}, 大小: {}", sortBy, direction, size);
+        
+        long startTime = System.currentTimeMillis();
+        
+        Specification<LogEntry> spec = keyset != null ? keyset.toSpecification() : Specification.where(null);
+        List<LogEntry> rows = logEntryRepository.findBy(spec, query -> query
+                .sortBy(KeysetCursor.sort(sortBy, direction))
+                .limit(KeysetCursor.fetchSize(size))
+                .all());
+        Slice<LogEntry> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+        
+        long endTime = System.currentTimeMillis();
+        log.debug("游标分页查询完成，耗时: {}ms", (endTime - startTime));
+        
+        return CursorSliceDTO.of(slice, sortBy, direction, this::convertToDTO);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<LogEntryDTO> batchFindByIds(List<Long> ids) {
@@ -258,14 +296,13 @@ public class BatchLogServiceImpl implements BatchLogService {
         Map<String, Object> stats = new HashMap<>();
         
         try {
-            // 获取数据库统计信息
-            long totalLogs = logEntryRepository.count();
-            long anomalyLogs = logEntryRepository.countByIsAnomalyTrue();
-            long normalLogs = logEntryRepository.countByIsAnomalyFalse();
-            
-            // 获取最近24小时的统计
-            LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-            long recentLogs = logEntryRepository.countByTimestampBetween(last24Hours, LocalDateTime.now());
+            // 总数、异常/正常数和最近24小时的日志数由一条条件聚合查询得到
+            LocalDateTime now = LocalDateTime.now();
+            Object[] counts = logEntryRepository.summarizeAnomalyAndRecentCounts(now.minusHours(24), now).get(0);
+            long totalLogs = ((Number) counts[0]).longValue();
+            long anomalyLogs = ((Number) counts[1]).longValue();
+            long normalLogs = ((Number) counts[2]).longValue();
+            long recentLogs = ((Number) counts[3]).longValue();
             
             stats.put("totalLogs", totalLogs);
             stats.put("anomalyLogs", anomalyLogs);
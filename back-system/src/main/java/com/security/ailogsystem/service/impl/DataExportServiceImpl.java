@@ -1,550 +1,466 @@
 package com.security.ailogsystem.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.ailogsystem.config.ExportProperties;
+import com.security.ailogsystem.dto.ExportRequest;
 import com.security.ailogsystem.entity.SecurityLog;
 import com.security.ailogsystem.entity.SystemMetrics;
 import com.security.ailogsystem.model.Alert;
 import com.security.ailogsystem.model.LogEntry;
 import com.security.ailogsystem.model.UnifiedSecurityEvent;
-import com.security.ailogsystem.repository.*;
+import com.security.ailogsystem.repository.StreamingQuery;
 import com.security.ailogsystem.service.DataExportService;
+import com.security.ailogsystem.service.export.CompressedSpool;
+import com.security.ailogsystem.service.export.CsvExportWriter;
+import com.security.ailogsystem.service.export.ExcelExportWriter;
+import com.security.ailogsystem.service.export.ExportFormat;
+import com.security.ailogsystem.service.export.ExportProgress;
+import com.security.ailogsystem.service.export.ExportWriter;
+import com.security.ailogsystem.service.export.JsonExportWriter;
+import com.security.ailogsystem.service.export.ParquetExportWriter;
+import com.security.ailogsystem.service.export.parquet.ParquetCodec;
+import com.security.ailogsystem.service.export.ZipStreamWriter;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
-import java.io.ByteArrayOutputStream;
+import jakarta.persistence.criteria.Root;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 数据导出
+ * 按游标逐行读取（定期清空持久化上下文）并经格式写出器直接写入输出流，
+ * 内存占用只与游标批量和 Excel 行窗口有关，与导出行数无关
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class DataExportServiceImpl implements DataExportService {
+// 只读事务在启用读写分离时走副本连接池；导出数据量大，超时与批量事务一致
+@Transactional(readOnly = true, timeout = 300)
+public class DataExportServiceImpl implements DataExportService, DisposableBean {
 
-    private final LogEntryRepository logEntryRepository;
-    private final AlertRepository alertRepository;
-    private final UnifiedEventRepository eventRepository;
-    private final SecurityLogRepository securityLogRepository;
-    private final MetricsRepository metricsRepository;
+    private final StreamingQuery streamingQuery;
+    private final ExportProperties exportProperties;
     private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final int MAX_EXPORT_ROWS = 50000;
-    private static final String CSV_BOM = "\uFEFF";
+    /** 批量 ZIP 导出的后台数据集，全局并发数由 datasetPermits 限制 */
+    private final ExecutorService datasetExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("export-dataset-", 0).factory());
+    private Semaphore datasetPermits;
 
-    // ==================== exportLogs ====================
+    @PostConstruct
+    public void init() {
+        datasetPermits = new Semaphore(Math.max(1, exportProperties.getZip().getParallelism()));
+    }
 
     @Override
-    public Resource exportLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
-                               String level, String keyword) {
-        Specification<LogEntry> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (startTime != null) predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), startTime));
-            if (endTime != null)   predicates.add(cb.lessThanOrEqualTo(root.get("timestamp"), endTime));
-            if (level != null && !level.isEmpty()) predicates.add(cb.equal(root.get("level"), level));
-            if (keyword != null && !keyword.isEmpty()) predicates.add(cb.like(root.get("content"), "%" + keyword + "%"));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        List<LogEntry> logs = logEntryRepository.findAll(spec);
-        if (logs.size() > MAX_EXPORT_ROWS) {
-            log.warn("导出日志超限 {} 条，截断为 {} 条", logs.size(), MAX_EXPORT_ROWS);
-            logs = logs.subList(0, MAX_EXPORT_ROWS);
-        }
-        log.info("导出日志 {} 条", logs.size());
-        return switch (format.toLowerCase()) {
-            case "excel" -> exportLogsToExcel(logs);
-            case "json"  -> toJson(logs);
-            default      -> exportLogsToCsv(logs);
-        };
+    public void destroy() {
+        datasetExecutor.shutdownNow();
     }
 
-    // ==================== exportAlerts ====================
+    private static final List<String> LOG_HEADERS =
+            List.of("ID", "时间戳", "日志级别", "内容", "来源", "用户ID", "IP地址");
+    private static final List<String> ALERT_HEADERS =
+            List.of("告警ID", "告警类型", "告警级别", "状态", "来源", "描述", "创建时间", "处理人");
+    private static final List<String> EVENT_HEADERS =
+            List.of("ID", "事件类型", "严重程度", "来源系统", "来源IP", "目标IP", "时间戳", "威胁等级");
+    private static final List<String> SECURITY_LOG_HEADERS =
+            List.of("事件ID", "时间", "计算机名", "来源", "用户名", "IP地址", "登录类型", "威胁等级");
+    private static final List<String> METRICS_HEADERS =
+            List.of("时间戳", "主机名", "IP", "CPU使用率", "内存使用率", "磁盘使用率", "网络发送", "网络接收");
+
+    /** 单类型导出支持的数据类型 */
+    private static final List<String> SINGLE_TYPES =
+            List.of("logs", "alerts", "events", "security-logs", "system-metrics");
+    /** 批量导出支持的数据类型 */
+    private static final List<String> BATCH_TYPES = List.of("logs", "alerts", "events", "security-logs", "metrics");
+
+    // ==================== 按类型导出 ====================
 
     @Override
-    public Resource exportAlerts(String format, LocalDateTime startTime, LocalDateTime endTime,
-                                 String alertLevel, String alertType, String status) {
-        Specification<Alert> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (startTime != null)  predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), startTime));
-            if (endTime != null)    predicates.add(cb.lessThanOrEqualTo(root.get("timestamp"), endTime));
-            if (alertLevel != null && !alertLevel.isEmpty()) predicates.add(cb.equal(root.get("alertLevel"), alertLevel));
-            if (alertType  != null && !alertType.isEmpty())  predicates.add(cb.equal(root.get("alertType"), alertType));
-            if (status != null && !status.isEmpty())
-                predicates.add(cb.equal(root.get("status"), Alert.AlertStatus.valueOf(status)));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        List<Alert> alerts = alertRepository.findAll(spec);
-        if (alerts.size() > MAX_EXPORT_ROWS) {
-            log.warn("导出告警超限 {} 条，截断为 {} 条", alerts.size(), MAX_EXPORT_ROWS);
-            alerts = alerts.subList(0, MAX_EXPORT_ROWS);
-        }
-        log.info("导出告警 {} 条", alerts.size());
-        return switch (format.toLowerCase()) {
-            case "excel" -> exportAlertsToExcel(alerts);
-            case "json"  -> toJson(alerts);
-            default      -> exportAlertsToCsv(alerts);
-        };
+    public void exportLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
+                           String level, String keyword, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("logs").format(format).startTime(startTime).endTime(endTime)
+                .level(level).keyword(keyword).build(), out, ExportProgress.NONE);
     }
 
-    // ==================== exportEvents ====================
-
     @Override
-    public Resource exportEvents(String format, LocalDateTime startTime, LocalDateTime endTime,
-                                 String eventType, String severity) {
-        Specification<UnifiedSecurityEvent> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (startTime != null) predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), startTime));
-            if (endTime != null)   predicates.add(cb.lessThanOrEqualTo(root.get("timestamp"), endTime));
-            if (eventType != null && !eventType.isEmpty()) predicates.add(cb.equal(root.get("eventType"), eventType));
-            if (severity  != null && !severity.isEmpty())  predicates.add(cb.equal(root.get("severity"), severity));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        List<UnifiedSecurityEvent> events = eventRepository.findAll(spec);
-        if (events.size() > MAX_EXPORT_ROWS) {
-            log.warn("导出事件超限 {} 条，截断为 {} 条", events.size(), MAX_EXPORT_ROWS);
-            events = events.subList(0, MAX_EXPORT_ROWS);
-        }
-        log.info("导出安全事件 {} 条", events.size());
-        return switch (format.toLowerCase()) {
-            case "excel" -> exportEventsToExcel(events);
-            case "json"  -> toJson(events);
-            default      -> exportEventsToCsv(events);
-        };
+    public void exportAlerts(String format, LocalDateTime startTime, LocalDateTime endTime,
+                             String alertLevel, String alertType, String status, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("alerts").format(format).startTime(startTime).endTime(endTime)
+                .alertLevel(alertLevel).alertType(alertType).status(status).build(), out, ExportProgress.NONE);
     }
 
-    // ==================== exportSecurityLogs ====================
-
     @Override
-    public Resource exportSecurityLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
-                                       Integer eventId, String username) {
-        Specification<SecurityLog> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (startTime != null) predicates.add(cb.greaterThanOrEqualTo(root.get("eventTime"), startTime));
-            if (endTime != null)   predicates.add(cb.lessThanOrEqualTo(root.get("eventTime"), endTime));
-            if (eventId != null)   predicates.add(cb.equal(root.get("eventId"), eventId));
-            if (username != null && !username.isEmpty()) predicates.add(cb.like(root.get("userName"), "%" + username + "%"));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        List<SecurityLog> logs = securityLogRepository.findAll(spec);
-        if (logs.size() > MAX_EXPORT_ROWS) {
-            log.warn("导出安全日志超限 {} 条，截断为 {} 条", logs.size(), MAX_EXPORT_ROWS);
-            logs = logs.subList(0, MAX_EXPORT_ROWS);
-        }
-        log.info("导出Windows安全日志 {} 条", logs.size());
-        return switch (format.toLowerCase()) {
-            case "excel" -> exportSecurityLogsToExcel(logs);
-            case "json"  -> toJson(logs);
-            default      -> exportSecurityLogsToCsv(logs);
-        };
+    public void exportEvents(String format, LocalDateTime startTime, LocalDateTime endTime,
+                             String eventType, String severity, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("events").format(format).startTime(startTime).endTime(endTime)
+                .eventType(eventType).severity(severity).build(), out, ExportProgress.NONE);
     }
 
-    // ==================== exportSystemMetrics ====================
+    @Override
+    public void exportSecurityLogs(String format, LocalDateTime startTime, LocalDateTime endTime,
+                                   Integer eventId, String username, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("security-logs").format(format).startTime(startTime).endTime(endTime)
+                .eventId(eventId).username(username).build(), out, ExportProgress.NONE);
+    }
 
     @Override
-    public Resource exportSystemMetrics(String format, LocalDateTime startTime, LocalDateTime endTime,
-                                        String metricType) {
-        Specification<SystemMetrics> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (startTime != null) predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), startTime));
-            if (endTime != null)   predicates.add(cb.lessThanOrEqualTo(root.get("timestamp"), endTime));
-            if (metricType != null && !metricType.isEmpty()) predicates.add(cb.equal(root.get("metricType"), metricType));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        List<SystemMetrics> metrics = metricsRepository.findAll(spec);
-        if (metrics.size() > MAX_EXPORT_ROWS) {
-            log.warn("导出指标超限 {} 条，截断为 {} 条", metrics.size(), MAX_EXPORT_ROWS);
-            metrics = metrics.subList(0, MAX_EXPORT_ROWS);
-        }
-        log.info("导出系统性能指标 {} 条", metrics.size());
-        return switch (format.toLowerCase()) {
-            case "excel" -> exportMetricsToExcel(metrics);
-            case "json"  -> toJson(metrics);
-            default      -> exportMetricsToCsv(metrics);
-        };
+    public void exportSystemMetrics(String format, LocalDateTime startTime, LocalDateTime endTime,
+                                    String metricType, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("system-metrics").format(format).startTime(startTime).endTime(endTime)
+                .metricType(metricType).build(), out, ExportProgress.NONE);
     }
 
-    // ==================== batchExport ====================
+    @Override
+    public void batchExport(String format, List<String> dataTypes,
+                            LocalDateTime startTime, LocalDateTime endTime, OutputStream out) throws IOException {
+        export(ExportRequest.builder().type("batch").format(format).startTime(startTime).endTime(endTime)
+                .dataTypes(dataTypes).build(), out, ExportProgress.NONE);
+    }
 
     @Override
-    public Resource batchExport(String format, List<String> dataTypes,
-                                LocalDateTime startTime, LocalDateTime endTime) {
-        if ("excel".equalsIgnoreCase(format)) {
-            return batchExportToExcel(dataTypes, startTime, endTime);
+    public void export(ExportRequest request, OutputStream out, ExportProgress progress) throws IOException {
+        String type = request.getType() != null ? request.getType().toLowerCase() : "";
+        if ("batch".equals(type)) {
+            List<String> dataTypes = request.getDataTypes() != null ? request.getDataTypes() : List.of();
+            if (ExportFormat.of(type, request.getFormat()) == ExportFormat.EXCEL) {
+                batchExportToExcel(dataTypes, request, out, progress);
+            } else {
+                batchExportToZip(dataTypes, request, out, progress);
+            }
+            return;
+        }
+        if (!SINGLE_TYPES.contains(type)) {
+            throw new IllegalArgumentException("不支持的导出类型: " + request.getType());
+        }
+        try (ExportWriter writer = ExportProgress.track(writer(ExportFormat.of(type, request.getFormat()), out), progress)) {
+            long rows = writeDataset(writer, type, request);
+            writer.finish();
+            log.info("导出{} {} 条", type, rows);
         }
-        return batchExportToZip(dataTypes, startTime, endTime);
     }
 
-    // ==================== CSV ====================
+    // ==================== batchExport ====================
 
-    private Resource exportLogsToCsv(List<LogEntry> logs) {
-        StringBuilder csv = new StringBuilder(CSV_BOM).append("ID,时间戳,日志级别,内容,来源,用户ID,IP地址\n");
-        for (LogEntry e : logs) {
-            csv.append(String.format("%d,%s,%s,\"%s\",%s,%s,%s\n",
-                    e.getId(), fmt(e.getTimestamp()), e.getLevel(),
-                    esc(e.getContent()), e.getSource(), e.getUserId(), e.getIpAddress()));
+    private void batchExportToExcel(List<String> dataTypes, ExportRequest request, OutputStream out,
+                                    ExportProgress progress) throws IOException {
+        try (ExportWriter writer = ExportProgress.track(
+                new ExcelExportWriter(out, exportProperties.getExcelRowWindow()), progress)) {
+            for (String type : dataTypes) {
+                if (BATCH_TYPES.contains(type.toLowerCase())) {
+                    writeDataset(writer, type.toLowerCase(), timeRange(request));
+                }
+            }
+            writer.finish();
         }
-        return bytes(csv.toString());
     }
 
-    private Resource exportAlertsToCsv(List<Alert> alerts) {
-        StringBuilder csv = new StringBuilder(CSV_BOM).append("告警ID,告警类型,告警级别,状态,来源,描述,创建时间,处理人\n");
-        for (Alert a : alerts) {
-            csv.append(String.format("%s,%s,%s,%s,%s,\"%s\",%s,%s\n",
-                    a.getAlertId(), zhEventType(a.getAlertType()), zhSeverity(a.getAlertLevel().toString()),
-                    zhAlertStatus(a.getStatus().toString()), zhSource(a.getSource()), esc(a.getDescription()),
-                    fmt(a.getCreatedTime()), nvl(a.getAssignee())));
+    /**
+     * 每种数据一个 CSV 条目
+     * 第一个数据集在当前事务中边读边压缩直接写入响应；其余数据集同时在各自的只读事务（独立连接）中
+     * 边读边压缩到暂存文件，按顺序等待完成后原样拷入 ZIP，不再二次压缩
+     */
+    private void batchExportToZip(List<String> dataTypes, ExportRequest request, OutputStream out,
+                                  ExportProgress progress) throws IOException {
+        List<String> types = dataTypes.stream().map(String::toLowerCase).filter(BATCH_TYPES::contains).distinct().toList();
+        int level = exportProperties.getZip().getCompressionLevel();
+        AtomicBoolean aborted = new AtomicBoolean();
+        Map<String, CompletableFuture<CompressedSpool>> spools = new LinkedHashMap<>();
+        for (String type : types.subList(Math.min(1, types.size()), types.size())) {
+            spools.put(type, CompletableFuture.supplyAsync(
+                    () -> spool(type, request, level, progress, aborted), datasetExecutor));
         }
-        return bytes(csv.toString());
-    }
-
-    private Resource exportEventsToCsv(List<UnifiedSecurityEvent> events) {
-        StringBuilder csv = new StringBuilder(CSV_BOM).append("ID,事件类型,严重程度,来源系统,来源IP,目标IP,时间戳,威胁等级\n");
-        for (UnifiedSecurityEvent e : events) {
-            csv.append(String.format("%d,%s,%s,%s,%s,%s,%s,%s\n",
-                    e.getId(), zhEventType(e.getEventType()), zhSeverity(e.getSeverity()), zhSource(e.getSourceSystem()),
-                    nvl(e.getSourceIp()), nvl(e.getDestinationIp()),
-                    fmt(e.getTimestamp()), zhSeverity(nvl(e.getThreatLevel()))));
+        boolean completed = false;
+        try {
+            ZipStreamWriter zip = new ZipStreamWriter(out, level);
+            if (!types.isEmpty()) {
+                try (OutputStream entry = zip.openEntry(types.get(0) + ".csv");
+                     ExportWriter writer = ExportProgress.track(new CsvExportWriter(entry), progress)) {
+                    writeDataset(writer, types.get(0), timeRange(request));
+                    writer.finish();
+                }
+            }
+            for (Map.Entry<String, CompletableFuture<CompressedSpool>> spooled : spools.entrySet()) {
+                try (CompressedSpool spool = await(spooled.getValue())) {
+                    zip.addDeflated(spooled.getKey() + ".csv", spool);
+                }
+            }
+            zip.finish();
+            completed = true;
+        } finally {
+            if (!completed) {
+                // 中止仍在生成的数据集，已生成和稍后生成完的暂存文件都删除
+                aborted.set(true);
+                spools.values().forEach(future -> future.thenAccept(this::closeQuietly));
+            }
         }
-        return bytes(csv.toString());
     }
 
-    private Resource exportSecurityLogsToCsv(List<SecurityLog> logs) {
-        StringBuilder csv = new StringBuilder(CSV_BOM).append("事件ID,时间,计算机名,来源,用户名,IP地址,登录类型,威胁等级\n");
-        for (SecurityLog l : logs) {
-            csv.append(String.format("%d,%s,%s,%s,%s,%s,%s,%s\n",
-                    l.getEventId(), fmt(l.getEventTime()), nvl(l.getComputerName()),
-                    nvl(l.getSourceName()), nvl(l.getUserName()), nvl(l.getIpAddress()),
-                    nvl(l.getLogonType() != null ? l.getLogonType().toString() : null),
-                    zhSeverity(nvl(l.getThreatLevel()))));
+    /**
+     * 在独立的只读事务中生成一个数据集，边读边压缩到暂存文件
+     */
+    private CompressedSpool spool(String type, ExportRequest request, int level, ExportProgress progress,
+                                  AtomicBoolean aborted) {
+        ExportProgress guarded = () -> {
+            if (aborted.get()) {
+                throw new CancellationException("批量导出已中止");
+            }
+            progress.rowWritten();
+        };
+        try {
+            datasetPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("批量导出已中止");
         }
-        return bytes(csv.toString());
-    }
-
-    private Resource exportMetricsToCsv(List<SystemMetrics> metrics) {
-        StringBuilder csv = new StringBuilder(CSV_BOM).append("时间戳,主机名,IP,CPU使用率,内存使用率,磁盘使用率,网络发送,网络接收\n");
-        for (SystemMetrics m : metrics) {
-            csv.append(String.format("%s,%s,%s,%.2f,%.2f,%.2f,%d,%d\n",
-                    fmt(m.getTimestamp()), nvl(m.getHostname()), nvl(m.getIpAddress()),
-                    nvl(m.getCpuUsage()), nvl(m.getMemoryUsage()), nvl(m.getDiskUsage()),
-                    nvl(m.getNetworkSent()), nvl(m.getNetworkReceived())));
+        try {
+            if (aborted.get()) {
+                throw new CancellationException("批量导出已中止");
+            }
+            CompressedSpool spool = CompressedSpool.create(level);
+            try {
+                datasetTransaction().executeWithoutResult(status -> {
+                    try (OutputStream out = spool.open();
+                         ExportWriter writer = ExportProgress.track(new CsvExportWriter(out), guarded)) {
+                        writeDataset(writer, type, timeRange(request));
+                        writer.finish();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return spool;
+            } catch (RuntimeException e) {
+                closeQuietly(spool);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            datasetPermits.release();
         }
-        return bytes(csv.toString());
     }
 
-    // ==================== Excel ====================
-
-    private Resource exportLogsToExcel(List<LogEntry> logs) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = wb.createSheet("日志数据");
-            String[] headers = {"ID", "时间戳", "日志级别", "内容", "来源", "用户ID", "IP地址"};
-            writeHeader(wb, sheet, headers);
-            int row = 1;
-            for (LogEntry e : logs) {
-                Row r = sheet.createRow(row++);
-                r.createCell(0).setCellValue(e.getId());
-                r.createCell(1).setCellValue(fmt(e.getTimestamp()));
-                r.createCell(2).setCellValue(e.getLevel());
-                r.createCell(3).setCellValue(nvl(e.getContent()));
-                r.createCell(4).setCellValue(e.getSource());
-                r.createCell(5).setCellValue(nvl(e.getUserId()));
-                r.createCell(6).setCellValue(nvl(e.getIpAddress()));
-            }
-            autoSize(sheet, headers.length);
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("Excel导出失败", e); }
+    private TransactionTemplate datasetTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setTimeout(300);
+        return transaction;
     }
 
-    private Resource exportAlertsToExcel(List<Alert> alerts) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = wb.createSheet("告警数据");
-            String[] headers = {"告警ID", "告警类型", "告警级别", "状态", "来源", "描述", "创建时间", "处理人"};
-            writeHeader(wb, sheet, headers);
-            int row = 1;
-            for (Alert a : alerts) {
-                Row r = sheet.createRow(row++);
-                r.createCell(0).setCellValue(a.getAlertId());
-                r.createCell(1).setCellValue(zhEventType(a.getAlertType()));
-                r.createCell(2).setCellValue(zhSeverity(a.getAlertLevel().toString()));
-                r.createCell(3).setCellValue(zhAlertStatus(a.getStatus().toString()));
-                r.createCell(4).setCellValue(zhSource(a.getSource()));
-                r.createCell(5).setCellValue(nvl(a.getDescription()));
-                r.createCell(6).setCellValue(fmt(a.getCreatedTime()));
-                r.createCell(7).setCellValue(nvl(a.getAssignee()));
+    private static CompressedSpool await(CompletableFuture<CompressedSpool> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待批量导出数据集时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
             }
-            autoSize(sheet, headers.length);
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("Excel导出失败", e); }
-    }
-
-    private Resource exportEventsToExcel(List<UnifiedSecurityEvent> events) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = wb.createSheet("安全事件");
-            String[] headers = {"ID", "事件类型", "严重程度", "来源系统", "来源IP", "目标IP", "时间戳", "威胁等级"};
-            writeHeader(wb, sheet, headers);
-            int row = 1;
-            for (UnifiedSecurityEvent e : events) {
-                Row r = sheet.createRow(row++);
-                r.createCell(0).setCellValue(e.getId());
-                r.createCell(1).setCellValue(zhEventType(e.getEventType()));
-                r.createCell(2).setCellValue(zhSeverity(e.getSeverity()));
-                r.createCell(3).setCellValue(zhSource(e.getSourceSystem()));
-                r.createCell(4).setCellValue(nvl(e.getSourceIp()));
-                r.createCell(5).setCellValue(nvl(e.getDestinationIp()));
-                r.createCell(6).setCellValue(fmt(e.getTimestamp()));
-                r.createCell(7).setCellValue(zhSeverity(nvl(e.getThreatLevel())));
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
             }
-            autoSize(sheet, headers.length);
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("Excel导出失败", e); }
-    }
-
-    private Resource exportSecurityLogsToExcel(List<SecurityLog> logs) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = wb.createSheet("Windows安全日志");
-            String[] headers = {"事件ID", "时间", "计算机名", "来源", "用户名", "IP地址", "登录类型", "威胁等级"};
-            writeHeader(wb, sheet, headers);
-            int row = 1;
-            for (SecurityLog l : logs) {
-                Row r = sheet.createRow(row++);
-                r.createCell(0).setCellValue(l.getEventId());
-                r.createCell(1).setCellValue(fmt(l.getEventTime()));
-                r.createCell(2).setCellValue(nvl(l.getComputerName()));
-                r.createCell(3).setCellValue(nvl(l.getSourceName()));
-                r.createCell(4).setCellValue(nvl(l.getUserName()));
-                r.createCell(5).setCellValue(nvl(l.getIpAddress()));
-                r.createCell(6).setCellValue(l.getLogonType() != null ? l.getLogonType().toString() : "");
-                r.createCell(7).setCellValue(zhSeverity(nvl(l.getThreatLevel())));
+            if (cause instanceof Error error) {
+                throw error;
             }
-            autoSize(sheet, headers.length);
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("Excel导出失败", e); }
+            throw new IOException(cause);
+        }
     }
 
-    private Resource exportMetricsToExcel(List<SystemMetrics> metrics) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = wb.createSheet("系统性能指标");
-            String[] headers = {"时间戳", "主机名", "IP", "CPU使用率", "内存使用率", "磁盘使用率", "网络发送", "网络接收"};
-            writeHeader(wb, sheet, headers);
-            int row = 1;
-            for (SystemMetrics m : metrics) {
-                Row r = sheet.createRow(row++);
-                r.createCell(0).setCellValue(fmt(m.getTimestamp()));
-                r.createCell(1).setCellValue(nvl(m.getHostname()));
-                r.createCell(2).setCellValue(nvl(m.getIpAddress()));
-                r.createCell(3).setCellValue(nvl(m.getCpuUsage()));
-                r.createCell(4).setCellValue(nvl(m.getMemoryUsage()));
-                r.createCell(5).setCellValue(nvl(m.getDiskUsage()));
-                r.createCell(6).setCellValue(m.getNetworkSent() != null ? m.getNetworkSent() : 0L);
-                r.createCell(7).setCellValue(m.getNetworkReceived() != null ? m.getNetworkReceived() : 0L);
-            }
-            autoSize(sheet, headers.length);
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("Excel导出失败", e); }
+    private void closeQuietly(CompressedSpool spool) {
+        try {
+            spool.close();
+        } catch (IOException e) {
+            log.warn("删除导出暂存文件失败", e);
+        }
     }
 
-    // ==================== JSON ====================
-
-    private Resource toJson(Object data) {
-        try {
-            return bytes(objectMapper.writeValueAsString(data));
-        } catch (Exception e) { throw new RuntimeException("JSON导出失败", e); }
+    /** 批量导出只按时间范围过滤 */
+    private static ExportRequest timeRange(ExportRequest request) {
+        return ExportRequest.builder().format("csv")
+                .startTime(request.getStartTime()).endTime(request.getEndTime()).build();
     }
 
-    // ==================== Batch ====================
+    // ==================== 数据集 ====================
 
-    private Resource batchExportToExcel(List<String> dataTypes, LocalDateTime startTime, LocalDateTime endTime) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            for (String type : dataTypes) {
-                switch (type.toLowerCase()) {
-                    case "logs"          -> fillLogsSheet(wb, startTime, endTime);
-                    case "alerts"        -> fillAlertsSheet(wb, startTime, endTime);
-                    case "events"        -> fillEventsSheet(wb, startTime, endTime);
-                    case "security-logs" -> fillSecurityLogsSheet(wb, startTime, endTime);
-                    case "metrics"       -> fillMetricsSheet(wb, startTime, endTime);
-                }
-            }
-            wb.write(out);
-            return new ByteArrayResource(out.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("批量Excel导出失败", e); }
+    private long writeDataset(ExportWriter writer, String type, ExportRequest request) throws IOException {
+        return switch (type) {
+            case "logs"                      -> writeLogs(writer, logSpec(request));
+            case "alerts"                    -> writeAlerts(writer, alertSpec(request));
+            case "events"                    -> writeEvents(writer, eventSpec(request));
+            case "security-logs"             -> writeSecurityLogs(writer, securityLogSpec(request));
+            case "system-metrics", "metrics" -> writeMetrics(writer, metricsSpec(request));
+            default -> throw new IllegalArgumentException("不支持的导出类型: " + type);
+        };
     }
 
-    private Resource batchExportToZip(List<String> dataTypes, LocalDateTime startTime, LocalDateTime endTime) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
-            for (String type : dataTypes) {
-                Resource r = switch (type.toLowerCase()) {
-                    case "logs"          -> exportLogs("csv", startTime, endTime, null, null);
-                    case "alerts"        -> exportAlerts("csv", startTime, endTime, null, null, null);
-                    case "events"        -> exportEvents("csv", startTime, endTime, null, null);
-                    case "security-logs" -> exportSecurityLogs("csv", startTime, endTime, null, null);
-                    case "metrics"       -> exportSystemMetrics("csv", startTime, endTime, null);
-                    default -> null;
-                };
-                if (r != null) {
-                    zos.putNextEntry(new ZipEntry(type + ".csv"));
-                    zos.write(r.getContentAsByteArray());
-                    zos.closeEntry();
-                }
-            }
-            zos.finish();
-            return new ByteArrayResource(baos.toByteArray());
-        } catch (IOException e) { throw new RuntimeException("批量ZIP导出失败", e); }
+    private Specification<LogEntry> logSpec(ExportRequest r) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = timePredicates(root, cb, "timestamp", r);
+            if (r.getLevel() != null && !r.getLevel().isEmpty()) predicates.add(cb.equal(root.get("level"), r.getLevel()));
+            if (r.getKeyword() != null && !r.getKeyword().isEmpty())
+                predicates.add(cb.like(root.get("content"), "%" + r.getKeyword() + "%"));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    private void fillLogsSheet(Workbook wb, LocalDateTime s, LocalDateTime e) {
-        List<LogEntry> data = logEntryRepository.findAll(timeSpec("timestamp", s, e, LogEntry.class));
-        Sheet sheet = wb.createSheet("日志数据");
-        String[] h = {"ID", "时间戳", "日志级别", "内容", "来源", "用户ID", "IP地址"};
-        writeHeader(wb, sheet, h);
-        int row = 1;
-        for (LogEntry item : data) {
-            Row r = sheet.createRow(row++);
-            r.createCell(0).setCellValue(item.getId());
-            r.createCell(1).setCellValue(fmt(item.getTimestamp()));
-            r.createCell(2).setCellValue(item.getLevel());
-            r.createCell(3).setCellValue(nvl(item.getContent()));
-            r.createCell(4).setCellValue(item.getSource());
-            r.createCell(5).setCellValue(nvl(item.getUserId()));
-            r.createCell(6).setCellValue(nvl(item.getIpAddress()));
-        }
-        autoSize(sheet, h.length);
+    private Specification<Alert> alertSpec(ExportRequest r) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = timePredicates(root, cb, "timestamp", r);
+            if (r.getAlertLevel() != null && !r.getAlertLevel().isEmpty())
+                predicates.add(cb.equal(root.get("alertLevel"), r.getAlertLevel()));
+            if (r.getAlertType() != null && !r.getAlertType().isEmpty())
+                predicates.add(cb.equal(root.get("alertType"), r.getAlertType()));
+            if (r.getStatus() != null && !r.getStatus().isEmpty())
+                predicates.add(cb.equal(root.get("status"), Alert.AlertStatus.valueOf(r.getStatus())));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    private void fillAlertsSheet(Workbook wb, LocalDateTime s, LocalDateTime e) {
-        List<Alert> data = alertRepository.findAll(timeSpec("timestamp", s, e, Alert.class));
-        Sheet sheet = wb.createSheet("告警数据");
-        String[] h = {"告警ID", "告警类型", "告警级别", "状态", "来源", "描述", "创建时间"};
-        writeHeader(wb, sheet, h);
-        int row = 1;
-        for (Alert item : data) {
-            Row r = sheet.createRow(row++);
-            r.createCell(0).setCellValue(item.getAlertId());
-            r.createCell(1).setCellValue(zhEventType(item.getAlertType()));
-            r.createCell(2).setCellValue(zhSeverity(item.getAlertLevel().toString()));
-            r.createCell(3).setCellValue(zhAlertStatus(item.getStatus().toString()));
-            r.createCell(4).setCellValue(zhSource(item.getSource()));
-            r.createCell(5).setCellValue(nvl(item.getDescription()));
-            r.createCell(6).setCellValue(fmt(item.getCreatedTime()));
-        }
-        autoSize(sheet, h.length);
+    private Specification<UnifiedSecurityEvent> eventSpec(ExportRequest r) {
+        // 只有 JSON 输出原始消息等冷数据字段，此时一次关联取回，避免逐行加载
+        boolean withPayload = ExportFormat.of(r.getFormat()) == ExportFormat.JSON;
+        return (root, query, cb) -> {
+            List<Predicate> predicates = timePredicates(root, cb, "timestamp", r);
+            if (r.getEventType() != null && !r.getEventType().isEmpty())
+                predicates.add(cb.equal(root.get("eventType"), r.getEventType()));
+            if (r.getSeverity() != null && !r.getSeverity().isEmpty())
+                predicates.add(cb.equal(root.get("severity"), r.getSeverity()));
+            if (withPayload && query.getResultType() != Long.class) root.fetch("payload", JoinType.LEFT);
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    private void fillEventsSheet(Workbook wb, LocalDateTime s, LocalDateTime e) {
-        List<UnifiedSecurityEvent> data = eventRepository.findAll(timeSpec("timestamp", s, e, UnifiedSecurityEvent.class));
-        Sheet sheet = wb.createSheet("安全事件");
-        String[] h = {"ID", "事件类型", "严重程度", "来源系统", "来源IP", "目标IP", "时间戳"};
-        writeHeader(wb, sheet, h);
-        int row = 1;
-        for (UnifiedSecurityEvent item : data) {
-            Row r = sheet.createRow(row++);
-            r.createCell(0).setCellValue(item.getId());
-            r.createCell(1).setCellValue(zhEventType(item.getEventType()));
-            r.createCell(2).setCellValue(zhSeverity(item.getSeverity()));
-            r.createCell(3).setCellValue(zhSource(item.getSourceSystem()));
-            r.createCell(4).setCellValue(nvl(item.getSourceIp()));
-            r.createCell(5).setCellValue(nvl(item.getDestinationIp()));
-            r.createCell(6).setCellValue(fmt(item.getTimestamp()));
-        }
-        autoSize(sheet, h.length);
+    private Specification<SecurityLog> securityLogSpec(ExportRequest r) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = timePredicates(root, cb, "eventTime", r);
+            if (r.getEventId() != null) predicates.add(cb.equal(root.get("eventId"), r.getEventId()));
+            if (r.getUsername() != null && !r.getUsername().isEmpty())
+                predicates.add(cb.like(root.get("userName"), "%" + r.getUsername() + "%"));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    private void fillSecurityLogsSheet(Workbook wb, LocalDateTime s, LocalDateTime e) {
-        List<SecurityLog> data = securityLogRepository.findAll(timeSpec("eventTime", s, e, SecurityLog.class));
-        Sheet sheet = wb.createSheet("Windows安全日志");
-        String[] h = {"事件ID", "时间", "计算机名", "用户名", "IP地址", "威胁等级"};
-        writeHeader(wb, sheet, h);
-        int row = 1;
-        for (SecurityLog item : data) {
-            Row r = sheet.createRow(row++);
-            r.createCell(0).setCellValue(item.getEventId());
-            r.createCell(1).setCellValue(fmt(item.getEventTime()));
-            r.createCell(2).setCellValue(nvl(item.getComputerName()));
-            r.createCell(3).setCellValue(nvl(item.getUserName()));
-            r.createCell(4).setCellValue(nvl(item.getIpAddress()));
-            r.createCell(5).setCellValue(zhSeverity(nvl(item.getThreatLevel())));
-        }
-        autoSize(sheet, h.length);
+    private Specification<SystemMetrics> metricsSpec(ExportRequest r) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = timePredicates(root, cb, "timestamp", r);
+            if (r.getMetricType() != null && !r.getMetricType().isEmpty())
+                predicates.add(cb.equal(root.get("metricType"), r.getMetricType()));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
-    private void fillMetricsSheet(Workbook wb, LocalDateTime s, LocalDateTime e) {
-        List<SystemMetrics> data = metricsRepository.findAll(timeSpec("timestamp", s, e, SystemMetrics.class));
-        Sheet sheet = wb.createSheet("系统性能指标");
-        String[] h = {"时间戳", "主机名", "IP", "CPU使用率", "内存使用率", "磁盘使用率"};
-        writeHeader(wb, sheet, h);
-        int row = 1;
-        for (SystemMetrics item : data) {
-            Row r = sheet.createRow(row++);
-            r.createCell(0).setCellValue(fmt(item.getTimestamp()));
-            r.createCell(1).setCellValue(nvl(item.getHostname()));
-            r.createCell(2).setCellValue(nvl(item.getIpAddress()));
-            r.createCell(3).setCellValue(nvl(item.getCpuUsage()));
-            r.createCell(4).setCellValue(nvl(item.getMemoryUsage()));
-            r.createCell(5).setCellValue(nvl(item.getDiskUsage()));
-        }
-        autoSize(sheet, h.length);
+    private long writeLogs(ExportWriter writer, Specification<LogEntry> spec) throws IOException {
+        return write(writer, "日志数据", LOG_HEADERS, LogEntry.class, spec, e -> new Object[]{
+                e.getId(), e.getTimestamp(), e.getLevel(), e.getContent(), e.getSource(),
+                e.getUserId(), e.getIpAddress()});
     }
 
-    // ==================== 工具方法 ====================
+    private long writeAlerts(ExportWriter writer, Specification<Alert> spec) throws IOException {
+        return write(writer, "告警数据", ALERT_HEADERS, Alert.class, spec, a -> new Object[]{
+                a.getAlertId(), zhEventType(a.getAlertType()), zhSeverity(a.getAlertLevel()),
+                zhAlertStatus(a.getStatus() != null ? a.getStatus().name() : null), zhSource(a.getSource()),
+                a.getDescription(), a.getCreatedTime(), a.getAssignee()});
+    }
 
-    /** 通用时间范围 Specification */
-    private <T> Specification<T> timeSpec(String field, LocalDateTime s, LocalDateTime e, Class<T> clazz) {
-        return (root, query, cb) -> {
-            List<Predicate> p = new ArrayList<>();
-            if (s != null) p.add(cb.greaterThanOrEqualTo(root.get(field), s));
-            if (e != null) p.add(cb.lessThanOrEqualTo(root.get(field), e));
-            return cb.and(p.toArray(new Predicate[0]));
-        };
+    private long writeEvents(ExportWriter writer, Specification<UnifiedSecurityEvent> spec) throws IOException {
+        return write(writer, "安全事件", EVENT_HEADERS, UnifiedSecurityEvent.class, spec, e -> new Object[]{
+                e.getId(), zhEventType(e.getEventType()), zhSeverity(e.getSeverity()), zhSource(e.getSourceSystem()),
+                e.getSourceIp(), e.getDestinationIp(), e.getTimestamp(), zhSeverity(e.getThreatLevel())});
     }
 
-    private void writeHeader(Workbook wb, Sheet sheet, String[] headers) {
-        CellStyle style = wb.createCellStyle();
-        Font font = wb.createFont();
-        font.setBold(true);
-        style.setFont(font);
-        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        Row row = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = row.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(style);
-        }
+    private long writeSecurityLogs(ExportWriter writer, Specification<SecurityLog> spec) throws IOException {
+        return write(writer, "Windows安全日志", SECURITY_LOG_HEADERS, SecurityLog.class, spec, l -> new Object[]{
+                l.getEventId(), l.getEventTime(), l.getComputerName(), l.getSourceName(), l.getUserName(),
+                l.getIpAddress(), l.getLogonType(), zhSeverity(l.getThreatLevel())});
     }
 
-    private void autoSize(Sheet sheet, int cols) {
-        for (int i = 0; i < cols; i++) sheet.autoSizeColumn(i);
+    private long writeMetrics(ExportWriter writer, Specification<SystemMetrics> spec) throws IOException {
+        return write(writer, "系统性能指标", METRICS_HEADERS, SystemMetrics.class, spec, m -> new Object[]{
+                m.getTimestamp(), m.getHostname(), m.getIpAddress(),
+                nvl(m.getCpuUsage()), nvl(m.getMemoryUsage()), nvl(m.getDiskUsage()),
+                nvl(m.getNetworkSent()), nvl(m.getNetworkReceived())});
     }
 
-    private ByteArrayResource bytes(String text) {
-        return new ByteArrayResource(text.getBytes(StandardCharsets.UTF_8));
+    /**
+     * 以游标逐行读取数据集并写出，超过行数上限时截断
+     *
+     * @return 写出的行数
+     */
+    private <T> long write(ExportWriter writer, String name, List<String> headers, Class<T> type,
+                           Specification<T> spec, Function<T, Object[]> row) throws IOException {
+        int maxRows = Math.min(exportProperties.getMaxRows(), writer.maxRows());
+        writer.begin(name, headers, type);
+        long rows;
+        try {
+            rows = streamingQuery.forEach(type, spec, Sort.unsorted(), maxRows, item -> {
+                try {
+                    writer.row(item, row.apply(item));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (rows >= maxRows) {
+            log.warn("导出{}达到上限 {} 条，已截断", name, maxRows);
+        }
+        return rows;
     }
 
-    private String fmt(LocalDateTime dt) {
-        return dt != null ? dt.format(DATE_FORMATTER) : "";
+    private ExportWriter writer(ExportFormat format, OutputStream out) throws IOException {
+        ExportProperties.Parquet parquet = exportProperties.getParquet();
+        return switch (format) {
+            case EXCEL   -> new ExcelExportWriter(out, exportProperties.getExcelRowWindow());
+            case JSON    -> new JsonExportWriter(objectMapper, out);
+            case PARQUET -> new ParquetExportWriter(out, parquet.getDictionaryFields(),
+                    ParquetCodec.of(parquet.getCompression()), parquet.getRowGroupSize(), parquet.getPageSize());
+            default      -> new CsvExportWriter(out);
+        };
     }
 
-    private String esc(String v) {
-        return v == null ? "" : v.replace("\"", "\"\"");
+    // ==================== 工具方法 ====================
+
+    /** 通用时间范围条件 */
+    private static List<Predicate> timePredicates(Root<?> root, CriteriaBuilder cb, String field, ExportRequest r) {
+        List<Predicate> p = new ArrayList<>();
+        if (r.getStartTime() != null) p.add(cb.greaterThanOrEqualTo(root.get(field), r.getStartTime()));
+        if (r.getEndTime() != null)   p.add(cb.lessThanOrEqualTo(root.get(field), r.getEndTime()));
+        return p;
     }
 
-    private String nvl(String v) { return v != null ? v : ""; }
     private double nvl(Double v) { return v != null ? v : 0.0; }
     private long   nvl(Long v)   { return v != null ? v : 0L; }
 
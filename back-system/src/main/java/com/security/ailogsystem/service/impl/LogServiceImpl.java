@@ -87,20 +87,23 @@ public class LogServiceImpl implements LogService {
     public Map<String, Long> getLogStatistics() {
         Map<String, Long> statistics = new HashMap<>();
         
+        // 级别、来源和异常计数由一条条件聚合查询得到
+        Object[] counts = logEntryRepository.summarizeLevelSourceAndAnomalyCounts().get(0);
+        
         // 按级别统计
-        statistics.put("level_info", logEntryRepository.countByLevel("INFO"));
-        statistics.put("level_warn", logEntryRepository.countByLevel("WARN"));
-        statistics.put("level_error", logEntryRepository.countByLevel("ERROR"));
-        statistics.put("level_debug", logEntryRepository.countByLevel("DEBUG"));
+        statistics.put("level_info", ((Number) counts[0]).longValue());
+        statistics.put("level_warn", ((Number) counts[1]).longValue());
+        statistics.put("level_error", ((Number) counts[2]).longValue());
+        statistics.put("level_debug", ((Number) counts[3]).longValue());
         
         // 按来源统计
-        statistics.put("source_web", logEntryRepository.countBySource("web-server"));
-        statistics.put("source_database", logEntryRepository.countBySource("database"));
-        statistics.put("source_api", logEntryRepository.countBySource("api-gateway"));
+        statistics.put("source_web", ((Number) counts[4]).longValue());
+        statistics.put("source_database", ((Number) counts[5]).longValue());
+        statistics.put("source_api", ((Number) counts[6]).longValue());
         
         // 异常日志统计
-        statistics.put("anomaly_count", logEntryRepository.countByIsAnomalyTrue());
-        statistics.put("normal_count", logEntryRepository.countByIsAnomalyFalse());
+        statistics.put("anomaly_count", ((Number) counts[7]).longValue());
+        statistics.put("normal_count", ((Number) counts[8]).longValue());
         
         return statistics;
     }
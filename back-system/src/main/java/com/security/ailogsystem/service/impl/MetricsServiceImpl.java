@@ -12,6 +12,8 @@ import com.security.ailogsystem.repository.UnifiedEventRepository;
 import com.security.ailogsystem.service.AlertService;
 import com.security.ailogsystem.service.MetricsService;
 import com.security.ailogsystem.service.RuleEngineService;
+import com.security.ailogsystem.service.downsample.SeriesDownsampler;
+import com.security.ailogsystem.service.downsample.TimeBucket;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of MetricsService for managing system metrics from log collectors.
@@ -194,6 +197,65 @@ public class MetricsServiceImpl implements MetricsService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDownsampledHistory(LocalDateTime start, LocalDateTime end, String hostname,
+                                                     List<String> metrics, TimeBucket bucket, int maxPoints) {
+        int[] columns = new int[metrics.size()];
+        for (int i = 0; i < columns.length; i++) {
+            int index = CHART_METRICS.indexOf(metrics.get(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Unsupported metric: " + metrics.get(i));
+            }
+            // timestamp and hostname come first in each row
+            columns[i] = index + 2;
+        }
+
+        Map<String, SeriesDownsampler[]> hosts = new TreeMap<>();
+        long rawPoints = 0;
+        try (Stream<Object[]> rows = metricsRepository.streamChartColumns(start, end, hostname)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                rawPoints++;
+                String host = row[1] != null ? (String) row[1] : "unknown";
+                SeriesDownsampler[] series = hosts.computeIfAbsent(host, key -> {
+                    SeriesDownsampler[] created = new SeriesDownsampler[columns.length];
+                    for (int i = 0; i < created.length; i++) {
+                        created[i] = new SeriesDownsampler(start, end, bucket, maxPoints);
+                    }
+                    return created;
+                });
+                LocalDateTime timestamp = (LocalDateTime) row[0];
+                for (int i = 0; i < columns.length; i++) {
+                    series[i].add(timestamp, (Double) row[columns[i]]);
+                }
+            }
+        }
+
+        List<Map<String, Object>> seriesList = new ArrayList<>();
+        hosts.forEach((host, series) -> {
+            for (int i = 0; i < series.length; i++) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("hostname", host);
+                item.put("metric", metrics.get(i));
+                item.put("points", series[i].finish());
+                seriesList.add(item);
+            }
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("start", start);
+        response.put("end", end);
+        response.put("granularity", bucket != null ? bucket.name().toLowerCase() : "raw");
+        response.put("maxPoints", maxPoints);
+        response.put("rawPoints", rawPoints);
+        response.put("series", seriesList);
+        log.debug("Downsampled {} metrics rows into {} series between {} and {}",
+                rawPoints, seriesList.size(), start, end);
+        return response;
+    }
+
     @Override
     @Transactional
     public int cleanupOldMetrics(int retentionDays) {
@@ -11,8 +11,8 @@ import com.security.ailogsystem.dto.ScriptStatus;
 import com.security.ailogsystem.dto.ScheduledTaskStatus;
 import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
 import com.security.ailogsystem.service.ScriptExecutionService;
-import com.security.ailogsystem.service.UnifiedEventService;
 import com.security.ailogsystem.service.WebSocketService;
+import com.security.ailogsystem.service.ingest.EventIngestService;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -61,7 +61,7 @@ public class ScriptExecutionServiceImpl implements ScriptExecutionService {
 
     private final ScriptProperties scriptProperties;
     private final ApplicationEventPublisher eventPublisher;
-    private final UnifiedEventService unifiedEventService;
+    private final EventIngestService eventIngestService;
     private final WebSocketService webSocketService;
     private final ObjectMapper objectMapper;
 
@@ -331,7 +331,7 @@ public class ScriptExecutionServiceImpl implements ScriptExecutionService {
                 return;
             }
 
-            List<UnifiedSecurityEventDTO> savedEvents = unifiedEventService.createEvents(events);
+            List<UnifiedSecurityEventDTO> savedEvents = eventIngestService.ingestEvents(events).events();
             webSocketService.sendNotification(
                     String.format("脚本 %s 生成 %d 条安全事件", definition.getName(), savedEvents.size()),
                     "info");
@@ -347,7 +347,7 @@ public class ScriptExecutionServiceImpl implements ScriptExecutionService {
                                     String output,
                                     boolean isError) {
         UnifiedSecurityEventDTO event = buildFallbackEvent(definition, record, output, isError);
-        unifiedEventService.createEvent(event);
+        eventIngestService.ingestEvent(event);
         webSocketService.sendNotification(event.getNormalizedMessage(), isError ? "error" : "info");
     }
 
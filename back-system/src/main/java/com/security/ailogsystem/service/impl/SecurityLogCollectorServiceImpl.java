@@ -4,6 +4,7 @@ import com.security.ailogsystem.dto.ScriptRunResponse;
 import com.security.ailogsystem.dto.ScriptStatus;
 import com.security.ailogsystem.service.ScriptExecutionService;
 import com.security.ailogsystem.service.SecurityLogCollectorService;
+import com.security.ailogsystem.service.ingest.EventDeduplicator;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +34,7 @@ import java.util.concurrent.atomic.AtomicReference;
 public class SecurityLogCollectorServiceImpl implements SecurityLogCollectorService {
 
     private final ScriptExecutionService scriptExecutionService;
+    private final EventDeduplicator eventDeduplicator;
 
     // 脚本key，对应application.yml中配置的unified_log_collector
     private static final String SECURITY_LOG_SCRIPT_KEY = "unified_log_collector";
@@ -121,6 +123,9 @@ public class SecurityLogCollectorServiceImpl implements SecurityLogCollectorServ
                     .plusMinutes(collectionIntervalMinutes.get());
             status.put("nextCollectionTime", nextCollection);
         }
+
+        // 重复采集去重统计
+        status.put("dedup", eventDeduplicator.getStats());
         
         return status;
     }
@@ -5,20 +5,28 @@ import com.security.ailogsystem.dto.StatisticsDTO;
 import com.security.ailogsystem.repository.SecurityLogRepository;
 import com.security.ailogsystem.repository.SecurityAlertRepository;
 import com.security.ailogsystem.service.StatisticsService;
+import com.security.ailogsystem.service.aggregate.AggregateQueryExecutor;
+import com.security.ailogsystem.service.aggregate.AggregateResult;
+import com.security.ailogsystem.service.cache.RangeResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final SecurityLogRepository logRepository;
     private final SecurityAlertRepository alertRepository;
+    private final RangeResultCache rangeResultCache;
+    private final AggregateQueryExecutor aggregateQueryExecutor;
 
     @Override
     public StatisticsDTO getComprehensiveStatistics() {
@@ -27,16 +35,26 @@ public class StatisticsServiceImpl implements StatisticsService {
         LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
         LocalDateTime last7Days = LocalDateTime.now().minusDays(7);
 
-        // 获取基础数据
-        List<Object[]> eventCounts = logRepository.countEventsByType(last24Hours);
-        List<Object[]> dailyCounts = logRepository.getDailyLogCounts(last7Days);
-        List<Object[]> bruteForceAttempts = logRepository.findBruteForceAttempts(last24Hours, 5L);
-
-        // 获取威胁等级统计（需要先在Repository中添加该方法）
-        Map<String, Long> threatLevels = getThreatLevels(last24Hours);
+        // 互不依赖的子查询并发执行（已关闭的时间桶由范围缓存提供），超时的部分使用空值并标记为部分结果
+        AggregateResult result = aggregateQueryExecutor.batch()
+                .submit("eventCounts", () -> RangeResultCache.toRowsByCount(
+                        countsSince("event-types", last24Hours, logRepository::countEventsByTypeInRange)))
+                .submit("dailyCounts", () -> RangeResultCache.toRowsByKey(
+                        countsSince("daily", last7Days, logRepository::countDailyInRange)))
+                .submit("bruteForceAttempts", () -> findBruteForceAttempts(last24Hours, 5L))
+                .submit("threatLevels", () -> getThreatLevels(last24Hours))
+                .submit("totalLogs", logRepository::count)
+                .submit("activeUsers", this::calculateActiveUsers)
+                .submit("alerts", () -> alertRepository.countTotalAndUnhandled().get(0))
+                .await();
+
+        List<Object[]> eventCounts = result.get("eventCounts", List.of());
+        List<Object[]> dailyCounts = result.get("dailyCounts", List.of());
+        List<Object[]> bruteForceAttempts = result.get("bruteForceAttempts", List.of());
+        Map<String, Long> threatLevels = result.get("threatLevels", emptyThreatLevels());
 
         // 计算总日志数
-        Long totalLogs = logRepository.count();
+        Long totalLogs = result.get("totalLogs", 0L);
 
         // 计算安全事件数（高风险以上）
         Long securityEvents = threatLevels.getOrDefault("HIGH", 0L) +
@@ -52,7 +70,7 @@ public class StatisticsServiceImpl implements StatisticsService {
         Long anomalyCount = securityEvents;
 
         // 活跃用户数（模拟）
-        Long activeUsers = calculateActiveUsers();
+        Long activeUsers = result.get("activeUsers", 0L);
 
         // 响应时间（模拟）
         Integer responseTime = calculateResponseTime(highRiskCount);
@@ -60,9 +78,10 @@ public class StatisticsServiceImpl implements StatisticsService {
         // 吞吐量（模拟）
         Integer throughput = calculateThroughput(totalLogs, dailyCounts);
 
-        // 警报统计
-        Long totalAlerts = alertRepository.count();
-        Long unhandledAlerts = alertRepository.countByHandledFalse();
+        // 警报统计（总数和未处理数由一条条件聚合查询得到）
+        Object[] alertCounts = result.get("alerts", new Object[]{0L, 0L});
+        Long totalAlerts = ((Number) alertCounts[0]).longValue();
+        Long unhandledAlerts = ((Number) alertCounts[1]).longValue();
 
         return new StatisticsDTO(
                 threatLevels,
@@ -78,25 +97,52 @@ public class StatisticsServiceImpl implements StatisticsService {
                 responseTime,
                 throughput,
                 totalAlerts,
-                unhandledAlerts
+                unhandledAlerts,
+                !result.isComplete(),
+                result.getMissing()
         );
     }
 
     private Map<String, Long> getThreatLevels(LocalDateTime since) {
+        Map<String, Long> threatLevels = emptyThreatLevels();
+        countsSince("threat-levels", since, logRepository::countByThreatLevelGroupInRange)
+                .forEach((level, count) -> threatLevels.put((String) level, count));
+        return threatLevels;
+    }
+
+    private static Map<String, Long> emptyThreatLevels() {
         Map<String, Long> threatLevels = new HashMap<>();
         threatLevels.put("LOW", 0L);
         threatLevels.put("MEDIUM", 0L);
         threatLevels.put("HIGH", 0L);
         threatLevels.put("CRITICAL", 0L);
-        List<Object[]> groups = logRepository.countByThreatLevelGroup(since);
-        for (Object[] row : groups) {
-            String level = (String) row[0];
-            Long count = ((Number) row[1]).longValue();
-            threatLevels.put(level, count);
-        }
         return threatLevels;
     }
 
+    /**
+     * 统计 since 至今的分组计数：已关闭的时间桶各自缓存，只有最近未关闭的部分实时查询
+     */
+    private Map<Object, Long> countsSince(String query, LocalDateTime since,
+                                          BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> groupQuery) {
+        return rangeResultCache.get(RangeResultCache.SECURITY_LOGS, query, since, RangeResultCache.OPEN_END, false,
+                (from, to, inclusiveEnd) -> RangeResultCache.toCounts(groupQuery.apply(from, to)),
+                RangeResultCache::sumCounts);
+    }
+
+    /**
+     * 登录失败次数超过阈值的来源 IP；阈值作用于合并后的总数，因此缓存的是按 IP 的失败次数
+     */
+    private List<Object[]> findBruteForceAttempts(LocalDateTime since, long threshold) {
+        Map<Object, Long> failures = new HashMap<>(
+                countsSince("failed-logins", since, logRepository::countFailedLoginsByIpInRange));
+        failures.values().removeIf(count -> count <= threshold);
+        return RangeResultCache.toRowsByCount(failures);
+    }
+
+    private List<Object[]> getTopIpAddresses(LocalDateTime since) {
+        return RangeResultCache.toRowsByCount(countsSince("ips", since, logRepository::countByIpAddressInRange));
+    }
+
     private String calculateSystemHealth(Map<String, Long> threatLevels, Long securityEvents) {
         if (securityEvents == 0) return "healthy";
 
@@ -114,8 +160,7 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     private Long calculateActiveUsers() {
         LocalDateTime since = LocalDateTime.now().minusHours(24);
-        List<Object[]> topIps = logRepository.getTopIpAddresses(since);
-        return (long) topIps.size();
+        return (long) countsSince("ips", since, logRepository::countByIpAddressInRange).size();
     }
 
     private Integer calculateResponseTime(Long highRiskCount) {
@@ -159,10 +204,8 @@ public class StatisticsServiceImpl implements StatisticsService {
         Map<String, Object> result = new HashMap<>();
         Map<String, Long> sourceStats = new HashMap<>();
         LocalDateTime since = LocalDateTime.now().minusDays(7);
-        List<Object[]> eventCounts = logRepository.countEventsByType(since);
-        for (Object[] row : eventCounts) {
-            sourceStats.put("EVENT_" + row[0], ((Number) row[1]).longValue());
-        }
+        countsSince("event-types", since, logRepository::countEventsByTypeInRange)
+                .forEach((eventId, count) -> sourceStats.put("EVENT_" + eventId, count));
 
         result.put("sources", sourceStats);
         result.put("totalSources", sourceStats.size());
@@ -175,11 +218,11 @@ public class StatisticsServiceImpl implements StatisticsService {
         log.info("获取异常统计");
 
         LocalDateTime since = LocalDateTime.now().minusDays(7);
-        long loginAnomalies = Optional.ofNullable(logRepository.countByEventIdAndEventTimeBetween(4625, since, LocalDateTime.now())).orElse(0L);
-        long high = Optional.ofNullable(logRepository.countByThreatLevelAndEventTimeAfter("HIGH", since)).orElse(0L);
-        long critical = Optional.ofNullable(logRepository.countByThreatLevelAndEventTimeAfter("CRITICAL", since)).orElse(0L);
-        long networkAnomalies = high + critical;
-        long fileAnomalies = Optional.ofNullable(logRepository.countByEventIdAndEventTimeBetween(4663, since, LocalDateTime.now())).orElse(0L);
+        Map<Object, Long> eventCounts = countsSince("event-types", since, logRepository::countEventsByTypeInRange);
+        Map<String, Long> threatLevels = getThreatLevels(since);
+        long loginAnomalies = eventCounts.getOrDefault(4625, 0L);
+        long networkAnomalies = threatLevels.get("HIGH") + threatLevels.get("CRITICAL");
+        long fileAnomalies = eventCounts.getOrDefault(4663, 0L);
         long total = loginAnomalies + networkAnomalies + fileAnomalies;
 
         Map<String, Object> result = new HashMap<>();
@@ -197,7 +240,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     public List<Map<String, Object>> getTopIps(Integer limit) {
         log.info("获取Top IPs");
         LocalDateTime since = LocalDateTime.now().minusDays(7);
-        List<Object[]> rows = logRepository.getTopIpAddresses(since);
+        List<Object[]> rows = getTopIpAddresses(since);
         List<Map<String, Object>> topIps = new ArrayList<>();
         for (Object[] row : rows.subList(0, Math.min(limit, rows.size()))) {
             Map<String, Object> item = new HashMap<>();
@@ -213,7 +256,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     public List<Map<String, Object>> getUserActivityStats(Integer limit) {
         log.info("获取用户活动统计");
         LocalDateTime since = LocalDateTime.now().minusDays(7);
-        List<Object[]> topIps = logRepository.getTopIpAddresses(since);
+        List<Object[]> topIps = getTopIpAddresses(since);
         List<Map<String, Object>> userStats = new ArrayList<>();
         int max = Math.min(limit, topIps.size());
         for (int i = 0; i < max; i++) {
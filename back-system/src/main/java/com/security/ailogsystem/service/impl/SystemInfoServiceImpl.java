@@ -3,6 +3,8 @@ package com.security.ailogsystem.service.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.security.ailogsystem.config.ScriptProperties;
 import com.security.ailogsystem.service.SystemInfoService;
+import com.security.ailogsystem.service.collector.CollectorWorkerPool;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +19,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -30,6 +33,9 @@ public class SystemInfoServiceImpl implements SystemInfoService {
     @Autowired
     private ScriptProperties scriptProperties;
 
+    @Autowired
+    private CollectorWorkerPool collectorWorkerPool;
+
     @Value("${system.info.python.script.path:}")
     private String pythonScriptPath;
 
@@ -42,6 +48,20 @@ public class SystemInfoServiceImpl implements SystemInfoService {
             "network", 3000
     );
 
+    @PostConstruct
+    public void startCollectorWorkers() {
+        // 常驻采集进程的启动命令在首次启动进程时才解析，不阻塞应用启动
+        collectorWorkerPool.start(() -> {
+            File scriptFile = new File(getPythonScriptPath());
+            if (!scriptFile.exists()) {
+                throw new IllegalStateException("Python脚本不存在: " + scriptFile);
+            }
+            ProcessBuilder processBuilder = new ProcessBuilder(resolvePythonExecutable(), scriptFile.getPath(), "--worker");
+            processBuilder.directory(scriptFile.getParentFile());
+            return processBuilder;
+        });
+    }
+
     @Override
     public Map<String, Object> collectSystemInfo() {
         log.info("开始收集完整系统信息");
@@ -93,6 +113,9 @@ public class SystemInfoServiceImpl implements SystemInfoService {
     }
 
     private Map<String, Object> executePythonCollection(String infoType, boolean forcePython) {
+        if (collectorWorkerPool.isEnabled()) {
+            return executeWorkerCollection(infoType, forcePython);
+        }
         String scriptPath = getPythonScriptPath();
         String pythonExec = resolvePythonExecutable();
 
@@ -181,14 +204,7 @@ public class SystemInfoServiceImpl implements SystemInfoService {
                         jsonLine,
                         new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {}
                 );
-                result.put("collection_timestamp", System.currentTimeMillis());
-
-                if (!forcePython) {
-                    realTimeCache.put(infoType, result);
-                    cacheTimestamps.put(infoType, System.currentTimeMillis());
-                }
-
-                return result;
+                return completeCollection(infoType, result, forcePython);
             } else {
                 String stderr = stderrBuilder.toString().trim();
                 String msg = "Python脚本退出码=" + exitCode + ", type=" + infoType + ", stderr=" + stderr;
@@ -212,6 +228,37 @@ public class SystemInfoServiceImpl implements SystemInfoService {
         }
     }
 
+    /**
+     * 通过常驻采集进程采集，失败时的降级方式与单次启动进程相同
+     */
+    private Map<String, Object> executeWorkerCollection(String infoType, boolean forcePython) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = collectorWorkerPool.collect(infoType);
+            log.debug("[Python采集] 常驻进程采集成功 type={}, 耗时={}ms", infoType,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return completeCollection(infoType, result, forcePython);
+        } catch (Exception e) {
+            if (forcePython) {
+                log.error("[强制Python] 常驻进程采集失败 type={}, error={}", infoType, e.getMessage());
+                throw new RuntimeException("进程信息Python采集失败: " + e.getMessage(), e);
+            }
+            log.warn("常驻进程采集失败，类型: {}，降级为Java原生采集: {}", infoType, e.getMessage());
+            return collectJavaNativeInfo(infoType);
+        }
+    }
+
+    private Map<String, Object> completeCollection(String infoType, Map<String, Object> result, boolean forcePython) {
+        result.put("collection_timestamp", System.currentTimeMillis());
+
+        if (!forcePython) {
+            realTimeCache.put(infoType, result);
+            cacheTimestamps.put(infoType, System.currentTimeMillis());
+        }
+
+        return result;
+    }
+
     @Override
     public boolean testPythonEnvironment() {
         log.info("测试Python环境");
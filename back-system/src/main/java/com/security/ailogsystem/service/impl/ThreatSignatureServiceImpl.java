@@ -148,8 +148,9 @@ public class ThreatSignatureServiceImpl implements ThreatSignatureService {
         if (StringUtils.hasText(event.getRawData())) {
             builder.append(event.getRawData()).append(" ");
         }
-        if (event.getEventData() != null && !event.getEventData().isEmpty()) {
-            builder.append(event.getEventData().toString());
+        Map<String, Object> eventData = event.getEventData();
+        if (!eventData.isEmpty()) {
+            builder.append(eventData);
         }
         return builder.toString();
     }
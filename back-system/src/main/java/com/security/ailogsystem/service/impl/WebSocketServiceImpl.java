@@ -2,9 +2,12 @@ package com.security.ailogsystem.service.impl;
 
 import com.security.ailogsystem.entity.SecurityLog;
 import com.security.ailogsystem.entity.SecurityAlert;
-import com.security.ailogsystem.repository.UnifiedEventRepository;
-import com.security.ailogsystem.repository.AlertRepository;
 import com.security.ailogsystem.service.WebSocketService;
+import com.security.ailogsystem.websocket.EventAttributes;
+import com.security.ailogsystem.websocket.FilteredSubscriptionRegistry;
+import com.security.ailogsystem.websocket.SessionSendBuffer;
+import com.security.ailogsystem.websocket.SseEventStream;
+import com.security.ailogsystem.websocket.TopicPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,29 +25,41 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketServiceImpl.class);
     private static final String TOPIC = "/topic/events";
+    /**
+     * SecurityLog 均由 Windows 事件日志采集产生
+     */
+    private static final String WINDOWS = "WINDOWS";
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private UnifiedEventRepository eventRepository;
+    private TopicPublisher topicPublisher;
 
     @Autowired
-    private AlertRepository alertRepository;
+    private SessionSendBuffer sessionSendBuffer;
+
+    @Autowired
+    private FilteredSubscriptionRegistry filteredSubscriptionRegistry;
+
+    @Autowired
+    private SseEventStream sseEventStream;
 
     private final Map<String, String> activeSessions = new ConcurrentHashMap<>();
     private final Map<String, String> userSessions = new ConcurrentHashMap<>();
     private final AtomicInteger connectionCount = new AtomicInteger(0);
     private final AtomicInteger onlineUserCount = new AtomicInteger(0);
 
+    /**
+     * 经发布层合并、限速后广播
+     */
     private void publish(String type, Map<String, Object> data) {
+        publish(type, data, EventAttributes.of(type));
+    }
+
+    private void publish(String type, Map<String, Object> data, EventAttributes attributes) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("id", java.util.UUID.randomUUID().toString());
-            message.put("type", type);
-            message.put("data", data);
-            message.put("ts", System.currentTimeMillis());
-            messagingTemplate.convertAndSend(TOPIC, message);
+            topicPublisher.publish(TOPIC, type, data, attributes);
             log.debug("[WS] 发布 type={}, topic={}", type, TOPIC);
         } catch (Exception e) {
             log.error("[WS] 发布失败 type={}: {}", type, e.getMessage());
@@ -56,7 +71,7 @@ public class WebSocketServiceImpl implements WebSocketService {
         try {
             Map<String, Object> data = new HashMap<>();
             data.put("log", logEntry);
-            publish("LOG", data);
+            publish("LOG", data, attributes(logEntry));
         } catch (Exception e) {
             log.error("[WS] sendLog失败: {}", e.getMessage());
         }
@@ -69,9 +84,12 @@ public class WebSocketServiceImpl implements WebSocketService {
             Map<String, Object> data = new HashMap<>();
             data.put("count", logs.size());
             data.put("logs", logs.subList(0, Math.min(logs.size(), 10)));
-            publish("LOG", data);
+            topicPublisher.publishBroadcast(TOPIC, "LOG", data);
+            // 过滤订阅逐条按属性路由，只收到匹配的日志
+            for (SecurityLog logEntry : logs) {
+                topicPublisher.publishFiltered(TOPIC, "LOG", Map.of("log", logEntry), attributes(logEntry));
+            }
             log.info("[WS] 广播 {} 条新日志", logs.size());
-            pushStatsSnapshot();
         } catch (Exception e) {
             log.error("[WS] broadcastNewLogs失败: {}", e.getMessage());
         }
@@ -91,7 +109,10 @@ public class WebSocketServiceImpl implements WebSocketService {
                 data.put("source", alert.getSecurityLog().getSourceName());
                 data.put("computerName", alert.getSecurityLog().getComputerName());
             }
-            publish("ALERT", data);
+            SecurityLog source = alert.getSecurityLog();
+            publish("ALERT", data, new EventAttributes("ALERT", alert.getAlertLevel().name(),
+                    source != null ? WINDOWS : null, source != null ? source.getComputerName() : null,
+                    alert.getAlertType()));
             log.info("[WS] 告警: {} - {}", alert.getAlertLevel(), alert.getAlertType());
         } catch (Exception e) {
             log.error("[WS] sendAlert失败: {}", e.getMessage());
@@ -159,6 +180,11 @@ public class WebSocketServiceImpl implements WebSocketService {
         status.put("onlineUsers", onlineUserCount.get());
         status.put("activeSessions", activeSessions.size());
         status.put("userSessions", userSessions.size());
+        status.put("droppedEvents", topicPublisher.getDropped());
+        status.put("droppedSessionMessages", sessionSendBuffer.getDropped());
+        status.put("pendingSessionMessages", sessionSendBuffer.getPending());
+        status.put("filteredSubscriptions", filteredSubscriptionRegistry.size());
+        status.put("sseClients", sseEventStream.getClientCount());
         status.put("lastUpdate", System.currentTimeMillis());
         return status;
     }
@@ -206,16 +232,8 @@ public class WebSocketServiceImpl implements WebSocketService {
         }
     }
 
-    private void pushStatsSnapshot() {
-        try {
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalEvents", eventRepository.count());
-            stats.put("anomalyCount", eventRepository.countByIsAnomalyTrue());
-            stats.put("totalAlerts", alertRepository.count());
-            stats.put("unhandledAlerts", alertRepository.countByHandledFalse());
-            publish("STATS", stats);
-        } catch (Exception e) {
-            log.warn("[WS] 推送统计快照失败: {}", e.getMessage());
-        }
+    private static EventAttributes attributes(SecurityLog logEntry) {
+        return new EventAttributes("LOG", logEntry.getThreatLevel(), WINDOWS, logEntry.getComputerName(),
+                logEntry.getEventId() != null ? String.valueOf(logEntry.getEventId()) : null);
     }
 }
@@ -7,6 +7,9 @@ import com.security.ailogsystem.repository.SecurityLogRepository;
 import com.security.ailogsystem.service.ThreatDetectionService;
 import com.security.ailogsystem.service.WindowsLogService;
 import com.security.ailogsystem.service.WebSocketService;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import com.security.ailogsystem.service.ingest.EventDeduplicator;
+import com.security.ailogsystem.service.ingest.EventIngestService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +41,15 @@ public class WindowsLogServiceImpl implements WindowsLogService {
     @Autowired
     private WebSocketService webSocketService;
 
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+
+    @Autowired
+    private EventIngestService eventIngestService;
+
+    @Autowired
+    private RangeResultCache rangeResultCache;
+
     @Value("${log.collection.batch-size:100}")
     private int batchSize;
 
@@ -197,6 +209,7 @@ public class WindowsLogServiceImpl implements WindowsLogService {
 
             if (!expiredLogs.isEmpty()) {
                 logRepository.deleteAll(expiredLogs);
+                rangeResultCache.invalidateBefore(RangeResultCache.SECURITY_LOGS, threshold);
                 logger.info("清理了 {} 条过期日志", expiredLogs.size());
                 return expiredLogs.size();
             }
@@ -214,6 +227,8 @@ public class WindowsLogServiceImpl implements WindowsLogService {
     @SuppressWarnings("unchecked")
     private List<SecurityLog> parseSecurityLogs(String jsonOutput) {
         List<SecurityLog> logs = new ArrayList<>();
+        // 写库或写入写前日志成功后才确认去重指纹，失败时下次轮询仍会重新读取
+        EventDeduplicator.Batch dedup = eventDeduplicator.batch();
 
         try {
             Object jsonData = objectMapper.readValue(jsonOutput, Object.class);
@@ -225,14 +240,22 @@ public class WindowsLogServiceImpl implements WindowsLogService {
                 events = Collections.singletonList((Map<String, Object>) jsonData);
             }
 
+            int duplicates = 0;
             for (Map<String, Object> event : events) {
                 SecurityLog log = parseEventData(event);
+                if (log != null && isDuplicate(dedup, event, log)) {
+                    duplicates++;
+                    continue;
+                }
                 if (log != null) {
                     // 威胁检测
                     threatDetectionService.analyzeThreat(log);
                     logs.add(log);
                 }
             }
+            if (duplicates > 0) {
+                logger.debug("丢弃 {} 条重复采集的安全日志", duplicates);
+            }
 
             // ========== 新增：清洗 raw_message 中的非法 UTF-8 字符 ==========
             for (SecurityLog log : logs) {
@@ -245,9 +268,10 @@ public class WindowsLogServiceImpl implements WindowsLogService {
             }
             // =============================================================
 
-            // 批量保存
-            if (!logs.isEmpty()) {
-                logRepository.saveAll(logs);
+            // 批量保存（先写本地写前日志，数据库不可用时暂存等待重放）
+            boolean saved = !logs.isEmpty() && eventIngestService.ingestSecurityLogs(logs);
+            dedup.commit();
+            if (saved) {
                 logger.info("成功保存 {} 条安全日志", logs.size());
 
                 // 实时推送新日志
@@ -255,6 +279,7 @@ public class WindowsLogServiceImpl implements WindowsLogService {
             }
 
         } catch (Exception e) {
+            dedup.rollback();
             logger.error("解析安全日志失败", e);
         }
 
@@ -290,6 +315,18 @@ public class WindowsLogServiceImpl implements WindowsLogService {
         }
     }
 
+    /**
+     * 按事件记录号（Get-EventLog 的 Index）判断是否为重叠窗口重复读取的日志
+     */
+    private boolean isDuplicate(EventDeduplicator.Batch dedup, Map<String, Object> event, SecurityLog log) {
+        String recordId = getStringValue(event, "Index");
+        if (recordId == null) {
+            recordId = getStringValue(event, "RecordId");
+        }
+        return dedup.isDuplicate("WINDOWS_EVENTLOG", recordId, log.getEventTime(),
+                log.getEventId(), log.getComputerName(), log.getRawMessage());
+    }
+
     /**
      * 解析事件时间
      */
@@ -0,0 +1,258 @@
+package com.security.ailogsystem.service.ingest;
+
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 采集入口去重
+ * 定时采集脚本和 Windows 日志轮询会重复读取重叠的时间窗口，
+ * 在异常检测、入库和告警之前按事件指纹丢弃重复事件：
+ * 先查精确 LRU，未命中再查时间分区布隆过滤器。
+ * 首次出现的指纹先占用 LRU，事件入库或写入写前日志后才记入布隆过滤器；写入失败时释放占用，
+ * 采集端重试的事件不会被当作重复丢弃。事务内判重随事务提交/回滚确认或释放，
+ * 事务外的写入流程用 {@link #batch()} 自行确认或释放
+ */
+@Slf4j
+@Component
+public class EventDeduplicator {
+
+    private static final String[] RECORD_ID_KEYS = {"recordId", "RecordId", "record_id", "Index"};
+
+    private final boolean enabled;
+    private final int lruSize;
+    private final TimePartitionedBloomFilter bloomFilter;
+    private final LinkedHashMap<EventFingerprint, Boolean> recent;
+
+    // 统计
+    private final LongAdder checkedCount = new LongAdder();
+    private final LongAdder lruHits = new LongAdder();
+    private final LongAdder bloomHits = new LongAdder();
+    private final Map<String, LongAdder> droppedBySource = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EventDeduplicator(
+            @Value("${log.dedup.enabled:true}") boolean enabled,
+            @Value("${log.dedup.lru-size:20000}") int lruSize,
+            @Value("${log.dedup.bloom.partitions:6}") int partitions,
+            @Value("${log.dedup.bloom.partition-minutes:30}") int partitionMinutes,
+            @Value("${log.dedup.bloom.expected-insertions:100000}") int expectedInsertions,
+            @Value("${log.dedup.bloom.false-positive-rate:0.0001}") double falsePositiveRate) {
+        this(enabled, lruSize, partitions, partitionMinutes * 60_000L, expectedInsertions,
+                falsePositiveRate, System::currentTimeMillis);
+    }
+
+    EventDeduplicator(boolean enabled, int lruSize, int partitions, long partitionMillis,
+                      int expectedInsertions, double falsePositiveRate, LongSupplier clock) {
+        this.enabled = enabled;
+        this.lruSize = lruSize;
+        this.bloomFilter = new TimePartitionedBloomFilter(partitions, partitionMillis,
+                expectedInsertions, falsePositiveRate, clock);
+        this.recent = new LinkedHashMap<>(Math.min(lruSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EventFingerprint, Boolean> eldest) {
+                return size() > EventDeduplicator.this.lruSize;
+            }
+        };
+        log.info("采集去重已{}: LRU={}, 布隆分区={}x{}ms, 每分区{}位/{}个哈希",
+                enabled ? "启用" : "禁用", lruSize, partitions, partitionMillis,
+                bloomFilter.getBitsPerPartition(), bloomFilter.getHashFunctions());
+    }
+
+    /**
+     * 判断统一安全事件是否重复；首次出现的事件会被记录（事务内在提交后记录）
+     */
+    public boolean isDuplicate(UnifiedSecurityEvent event) {
+        if (!enabled) {
+            return false;
+        }
+        return isDuplicate(event.getSourceSystem(), fingerprint(event));
+    }
+
+    /**
+     * 判断原始采集记录是否重复；首次出现的记录会被记录（事务内在提交后记录）
+     */
+    public boolean isDuplicate(String source, String recordId, LocalDateTime timestamp,
+                               Integer eventCode, String host, String content) {
+        if (!enabled) {
+            return false;
+        }
+        return isDuplicate(source, EventFingerprint.of(source, recordId, timestamp, eventCode, host, content));
+    }
+
+    /**
+     * 按指纹判重；首次出现的指纹会写入 LRU 和布隆过滤器。
+     * 在事务内调用时先占用 LRU，事务提交后再写入布隆过滤器，回滚时释放占用
+     */
+    public boolean isDuplicate(String source, EventFingerprint fingerprint) {
+        if (!enabled) {
+            return false;
+        }
+        Batch transactionBatch = transactionBatch();
+        return check(source, fingerprint, transactionBatch != null ? transactionBatch.claimed : null);
+    }
+
+    /**
+     * 开始一批待确认的判重：写入成功后调用 {@link Batch#commit()}，失败时调用 {@link Batch#rollback()}
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * 一批判重占用的指纹
+     * 判重时只占用 LRU，{@link #commit()} 后记入布隆过滤器，{@link #rollback()} 释放 LRU 占用
+     */
+    public final class Batch {
+
+        private final List<EventFingerprint> claimed = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public boolean isDuplicate(UnifiedSecurityEvent event) {
+            return enabled && check(event.getSourceSystem(), fingerprint(event), claimed);
+        }
+
+        public boolean isDuplicate(String source, String recordId, LocalDateTime timestamp,
+                                   Integer eventCode, String host, String content) {
+            return enabled && check(source,
+                    EventFingerprint.of(source, recordId, timestamp, eventCode, host, content), claimed);
+        }
+
+        /**
+         * 事件已入库或已写入写前日志，记录本批指纹
+         */
+        public void commit() {
+            synchronized (EventDeduplicator.this) {
+                claimed.forEach(bloomFilter::put);
+            }
+            claimed.clear();
+        }
+
+        /**
+         * 写入失败，释放本批占用，重试时不视为重复
+         */
+        public void rollback() {
+            synchronized (EventDeduplicator.this) {
+                claimed.forEach(recent::remove);
+            }
+            if (!claimed.isEmpty()) {
+                log.debug("写入失败，释放 {} 个去重指纹", claimed.size());
+            }
+            claimed.clear();
+        }
+    }
+
+    /**
+     * 判重并记录首次出现的指纹；claimed 不为 null 时只占用 LRU，由调用方确认后再写入布隆过滤器
+     */
+    private boolean check(String source, EventFingerprint fingerprint, List<EventFingerprint> claimed) {
+        checkedCount.increment();
+        boolean duplicate;
+        synchronized (this) {
+            if (recent.get(fingerprint) != null) {
+                lruHits.increment();
+                duplicate = true;
+            } else if (bloomFilter.mightContain(fingerprint)) {
+                // LRU 已淘汰但仍在布隆窗口内，按配置误判率视为重复
+                bloomHits.increment();
+                recent.put(fingerprint, Boolean.TRUE);
+                duplicate = true;
+            } else {
+                recent.put(fingerprint, Boolean.TRUE);
+                if (claimed != null) {
+                    claimed.add(fingerprint);
+                } else {
+                    bloomFilter.put(fingerprint);
+                }
+                duplicate = false;
+            }
+        }
+        if (duplicate) {
+            droppedBySource.computeIfAbsent(source != null ? source : "UNKNOWN", k -> new LongAdder()).increment();
+            log.debug("丢弃重复事件: source={}, fingerprint={}", source, fingerprint.toHex());
+        }
+        return duplicate;
+    }
+
+    /**
+     * 去重统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Long> dropped = new HashMap<>();
+        droppedBySource.forEach((source, count) -> dropped.put(source, count.sum()));
+
+        stats.put("enabled", enabled);
+        stats.put("checked", checkedCount.sum());
+        stats.put("lruHits", lruHits.sum());
+        stats.put("bloomHits", bloomHits.sum());
+        stats.put("droppedTotal", dropped.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("droppedBySource", dropped);
+        synchronized (this) {
+            stats.put("lruEntries", recent.size());
+        }
+        stats.put("lruCapacity", lruSize);
+        stats.put("bloomPartitions", bloomFilter.getPartitionCount());
+        return stats;
+    }
+
+    /**
+     * 当前事务共用的判重批次，随事务提交确认、回滚释放；不在事务内时返回 null
+     */
+    private Batch transactionBatch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            Batch created = new Batch();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EventDeduplicator.this);
+                    if (status == STATUS_COMMITTED) {
+                        created.commit();
+                    } else {
+                        created.rollback();
+                    }
+                }
+            });
+            batch = created;
+        }
+        return batch;
+    }
+
+    private EventFingerprint fingerprint(UnifiedSecurityEvent event) {
+        String host = event.getHostName() != null ? event.getHostName() : event.getHostIp();
+        String content = event.getRawMessage() != null ? event.getRawMessage() : event.getNormalizedMessage();
+        return EventFingerprint.of(event.getSourceSystem(), extractRecordId(event), event.getTimestamp(),
+                event.getEventCode(), host, event.getEventType() + ":" + content);
+    }
+
+    private String extractRecordId(UnifiedSecurityEvent event) {
+        for (String key : RECORD_ID_KEYS) {
+            String value = event.getEventDataString(key);
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,215 @@
+package com.security.ailogsystem.service.ingest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
+import com.security.ailogsystem.entity.SecurityLog;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.repository.SecurityLogRepository;
+import com.security.ailogsystem.service.UnifiedEventService;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 采集写入入口
+ * 去重后的事件先追加到本地写前日志再写库：写库成功追加提交标记，
+ * 数据库不可用时记录留在本地，由定时重放器按序写回，采集端不会因数据库故障丢数据
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventIngestService {
+
+    private static final TypeReference<List<UnifiedSecurityEventDTO>> EVENT_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<SecurityLog>> SECURITY_LOG_LIST = new TypeReference<>() {
+    };
+
+    private final UnifiedEventService eventService;
+    private final SecurityLogRepository securityLogRepository;
+    private final EventDeduplicator eventDeduplicator;
+    private final IngestJournal journal;
+    private final ObjectMapper objectMapper;
+    private final RangeResultCache rangeResultCache;
+
+    @Value("${ingest.spool.replay-batch-records:50}")
+    private int replayBatchRecords;
+
+    /**
+     * 写入结果
+     *
+     * @param events   与请求按位置一一对应的事件，已入库的带ID，重复或暂存的原样返回
+     * @param deferred 是否暂存在本地写前日志等待重放
+     */
+    public record IngestResult(List<UnifiedSecurityEventDTO> events, boolean deferred) {
+    }
+
+    /**
+     * 写入单个安全事件
+     */
+    public IngestResult ingestEvent(UnifiedSecurityEventDTO eventDTO) {
+        return ingestEvents(List.of(eventDTO));
+    }
+
+    /**
+     * 批量写入安全事件
+     */
+    public IngestResult ingestEvents(List<UnifiedSecurityEventDTO> eventDTOs) {
+        // 去重必须在写日志之前完成，重放时不再去重；写日志或写库成功后才确认指纹
+        EventDeduplicator.Batch dedup = eventDeduplicator.batch();
+        List<UnifiedSecurityEventDTO> freshDTOs = new ArrayList<>(eventDTOs.size());
+        List<UnifiedSecurityEvent> freshEvents = new ArrayList<>(eventDTOs.size());
+        int[] positions = new int[eventDTOs.size()];
+        for (int i = 0; i < eventDTOs.size(); i++) {
+            UnifiedSecurityEvent event = eventDTOs.get(i).toEntity();
+            if (!dedup.isDuplicate(event)) {
+                positions[freshEvents.size()] = i;
+                freshDTOs.add(eventDTOs.get(i));
+                freshEvents.add(event);
+            }
+        }
+
+        List<UnifiedSecurityEventDTO> result = new ArrayList<>(eventDTOs);
+        if (freshEvents.isEmpty()) {
+            return new IngestResult(result, false);
+        }
+        if (!journal.isEnabled()) {
+            fillSaved(result, positions, persistEvents(freshEvents, dedup));
+            return new IngestResult(result, false);
+        }
+
+        // 已有积压时新记录直接排在积压之后，保证写库顺序与采集顺序一致
+        boolean inline = !journal.hasBacklog();
+        long seq;
+        try {
+            seq = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, objectMapper.writeValueAsBytes(freshDTOs), inline);
+        } catch (IOException e) {
+            log.error("写入采集写前日志失败，直接写库: {}", e.getMessage());
+            fillSaved(result, positions, persistEvents(freshEvents, dedup));
+            return new IngestResult(result, false);
+        }
+        // 已写入写前日志，写库失败也会重放
+        dedup.commit();
+        if (!inline) {
+            log.info("存在待重放积压，{} 个事件已暂存本地写前日志", freshEvents.size());
+            return new IngestResult(result, true);
+        }
+
+        try {
+            List<UnifiedSecurityEvent> saved = eventService.persistEvents(freshEvents);
+            journal.markCommitted(seq);
+            fillSaved(result, positions, saved);
+            return new IngestResult(result, false);
+        } catch (RuntimeException e) {
+            journal.markFailed(seq);
+            log.warn("事件写库失败，{} 个事件已暂存本地写前日志等待重放: {}", freshEvents.size(), e.getMessage());
+            return new IngestResult(result, true);
+        }
+    }
+
+    /**
+     * 写入 Windows 安全日志
+     *
+     * @return 是否已同步写库；为 false 时日志暂存在本地写前日志等待重放
+     */
+    public boolean ingestSecurityLogs(List<SecurityLog> logs) {
+        if (logs.isEmpty()) {
+            return true;
+        }
+        if (!journal.isEnabled()) {
+            saveSecurityLogs(logs);
+            return true;
+        }
+
+        boolean inline = !journal.hasBacklog();
+        long seq;
+        try {
+            seq = journal.append(IngestJournal.RecordType.SECURITY_LOGS, objectMapper.writeValueAsBytes(logs), inline);
+        } catch (IOException e) {
+            log.error("写入采集写前日志失败，直接写库: {}", e.getMessage());
+            saveSecurityLogs(logs);
+            return true;
+        }
+        if (!inline) {
+            log.info("存在待重放积压，{} 条安全日志已暂存本地写前日志", logs.size());
+            return false;
+        }
+
+        try {
+            saveSecurityLogs(logs);
+            journal.markCommitted(seq);
+            return true;
+        } catch (RuntimeException e) {
+            journal.markFailed(seq);
+            log.warn("安全日志写库失败，{} 条日志已暂存本地写前日志等待重放: {}", logs.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 定时重放写前日志中未提交的记录，同时推进检查点、清理已处理分段
+     */
+    @Scheduled(fixedDelayString = "${ingest.spool.replay-interval-ms:5000}")
+    public void replayJournal() {
+        if (journal.isEnabled()) {
+            journal.replay(this::applyEntry, replayBatchRecords);
+        }
+    }
+
+    private void applyEntry(IngestJournal.Entry entry) {
+        try {
+            switch (entry.type()) {
+                case UNIFIED_EVENTS -> {
+                    List<UnifiedSecurityEventDTO> dtos = objectMapper.readValue(entry.payload(), EVENT_LIST);
+                    eventService.persistEvents(dtos.stream().map(UnifiedSecurityEventDTO::toEntity)
+                            .collect(Collectors.toCollection(ArrayList::new)));
+                }
+                case SECURITY_LOGS -> saveSecurityLogs(objectMapper.readValue(entry.payload(), SECURITY_LOG_LIST));
+                default -> {
+                }
+            }
+        } catch (IOException | DataIntegrityViolationException e) {
+            // 无法解析或违反约束的记录重试也不会成功，记录后跳过，避免阻塞后续重放
+            log.error("丢弃无法重放的写前日志记录: seq={}, type={}, {}", entry.seq(), entry.type(), e.getMessage());
+        }
+    }
+
+    /**
+     * 直接写库，写库失败时释放去重指纹，采集端重试时不被当作重复丢弃
+     */
+    private List<UnifiedSecurityEvent> persistEvents(List<UnifiedSecurityEvent> events, EventDeduplicator.Batch dedup) {
+        try {
+            List<UnifiedSecurityEvent> saved = eventService.persistEvents(events);
+            dedup.commit();
+            return saved;
+        } catch (RuntimeException e) {
+            dedup.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * 写入安全日志；补采的历史日志会改变已缓存的统计时间桶
+     */
+    private void saveSecurityLogs(List<SecurityLog> logs) {
+        securityLogRepository.saveAll(logs);
+        rangeResultCache.invalidate(RangeResultCache.SECURITY_LOGS,
+                logs.stream().map(SecurityLog::getEventTime).toList());
+    }
+
+    private static void fillSaved(List<UnifiedSecurityEventDTO> result, int[] positions, List<UnifiedSecurityEvent> saved) {
+        for (int i = 0; i < saved.size(); i++) {
+            result.set(positions[i], UnifiedSecurityEventDTO.fromEntity(saved.get(i)));
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.security.ailogsystem.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 采集写前日志（本地分段 WAL）
+ * 采集到的事件先追加到本地分段文件再确认，数据库写入成功后追加提交标记；
+ * 数据库不可用时未提交的记录由重放器按序写回数据库，并通过检查点推进和删除旧分段
+ *
+ * 记录格式：payloadLength(int) seq(long) appendedAt(long) type(byte) crc32c(int) payload
+ */
+@Slf4j
+@Component
+public class IngestJournal {
+
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 1 + 4;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * 记录类型
+     */
+    public enum RecordType {
+        UNIFIED_EVENTS((byte) 1),
+        SECURITY_LOGS((byte) 2),
+        COMMIT((byte) 3);
+
+        private final byte code;
+
+        RecordType(byte code) {
+            this.code = code;
+        }
+
+        static RecordType of(byte code) {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 日志记录
+     */
+    public record Entry(long seq, RecordType type, long appendedAt, byte[] payload) {
+    }
+
+    /**
+     * 同步写库的记录状态：写库中或已提交。写库失败的记录移除状态，交给重放器
+     */
+    private enum InlineState {
+        INFLIGHT, COMMITTED
+    }
+
+    /**
+     * 重放处理器，抛出异常表示暂时无法写入（如数据库不可用），重放在该记录处停止
+     */
+    @FunctionalInterface
+    public interface ReplayHandler {
+        void apply(Entry entry) throws Exception;
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    private final Object writeLock = new Object();
+    private final Object replayLock = new Object();
+
+    // 写入状态（writeLock 保护）
+    private FileChannel writer;
+    private long writerSegment;
+    private volatile long writerPosition;
+    private long nextSeq = 1;
+
+    // 重放状态（replayLock 保护）
+    private long checkpointSegment;
+    private long checkpointOffset;
+
+    // 写库中与已提交放在同一个映射里，状态切换是一次原子替换，重放线程读一次即可判断
+    private final Map<Long, InlineState> inline = new ConcurrentHashMap<>();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final AtomicLong replayedRecords = new AtomicLong();
+    private final AtomicReference<String> lastReplayError = new AtomicReference<>();
+
+    @Autowired
+    public IngestJournal(@Value("${ingest.spool.enabled:true}") boolean enabled,
+                         @Value("${ingest.spool.directory:data/ingest-spool}") String directory,
+                         @Value("${ingest.spool.segment-bytes:67108864}") long segmentBytes,
+                         @Value("${ingest.spool.fsync:true}") boolean fsync) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("采集写前日志已禁用");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            readCheckpoint();
+            recover();
+            log.info("采集写前日志已打开: 目录={}, 待重放={}, 下一序号={}", directory, pendingRecords.get(), nextSeq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开采集写前日志失败: " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (writeLock) {
+            if (writer != null) {
+                try {
+                    writer.force(true);
+                    writer.close();
+                } catch (IOException e) {
+                    log.warn("关闭采集写前日志失败: {}", e.getMessage());
+                }
+                writer = null;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一条数据记录
+     *
+     * @param inlineAttempt 调用方是否会立即尝试写库；为 true 时须随后调用 markCommitted 或 markFailed
+     * @return 记录序号
+     */
+    public long append(RecordType type, byte[] payload, boolean inlineAttempt) throws IOException {
+        long appendedAt = System.currentTimeMillis();
+        long seq;
+        synchronized (writeLock) {
+            seq = nextSeq++;
+            // 先登记状态，避免重放线程在记录可见后、登记前误判
+            if (inlineAttempt) {
+                inline.put(seq, InlineState.INFLIGHT);
+            } else {
+                addPending(appendedAt);
+            }
+            try {
+                write(seq, type, appendedAt, payload, fsync);
+            } catch (IOException e) {
+                if (inlineAttempt) {
+                    inline.remove(seq);
+                } else {
+                    pendingRecords.decrementAndGet();
+                }
+                throw e;
+            }
+        }
+        return seq;
+    }
+
+    /**
+     * 记录已成功写库
+     */
+    public void markCommitted(long seq) {
+        inline.put(seq, InlineState.COMMITTED);
+        synchronized (writeLock) {
+            try {
+                // 提交标记不强制刷盘，丢失只会导致重启后重复写入
+                write(seq, RecordType.COMMIT, System.currentTimeMillis(), new byte[0], false);
+            } catch (IOException e) {
+                log.warn("写入提交标记失败: seq={}, {}", seq, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录写库失败，交给重放器处理
+     */
+    public void markFailed(long seq) {
+        addPending(System.currentTimeMillis());
+        inline.remove(seq);
+    }
+
+    /**
+     * 是否存在待重放的积压记录；有积压时新记录应直接入队以保持顺序
+     */
+    public boolean hasBacklog() {
+        return pendingRecords.get() > 0;
+    }
+
+    /**
+     * 从检查点开始按序重放未提交的记录
+     *
+     * @return 本次成功重放的记录数
+     */
+    public int replay(ReplayHandler handler, int maxRecords) {
+        if (!enabled) {
+            return 0;
+        }
+        synchronized (replayLock) {
+            int processed = 0;
+            long passedSeq = 0;
+            long segment = checkpointSegment;
+            long offset = checkpointOffset;
+            try {
+                while (processed < maxRecords) {
+                    Path path = segmentPath(segment);
+                    boolean sealed;
+                    long limit;
+                    synchronized (writeLock) {
+                        sealed = segment < writerSegment;
+                        limit = sealed ? sizeOf(path) : writerPosition;
+                    }
+                    Entry entry = offset < limit ? readEntry(path, offset, limit) : null;
+                    if (entry == null) {
+                        if (sealed) {
+                            if (offset < limit) {
+                                log.error("采集写前日志分段 {} 在偏移 {} 处损坏，丢弃剩余 {} 字节", segment, offset, limit - offset);
+                            }
+                            // 当前分段已全部处理，切换到下一分段并删除旧文件
+                            long next = nextSegmentAfter(segment);
+                            Files.deleteIfExists(path);
+                            segment = next;
+                            offset = 0;
+                            continue;
+                        }
+                        break;
+                    }
+                    InlineState state = entry.type() == RecordType.COMMIT ? null : inline.get(entry.seq());
+                    if (state == InlineState.INFLIGHT) {
+                        // 同步写库尚未完成，等待其结果
+                        break;
+                    }
+                    if (state == InlineState.COMMITTED) {
+                        inline.remove(entry.seq());
+                    } else if (entry.type() != RecordType.COMMIT) {
+                        try {
+                            handler.apply(entry);
+                        } catch (Exception e) {
+                            lastReplayError.set(e.getMessage());
+                            oldestPendingAt.set(entry.appendedAt());
+                            log.debug("重放暂停于 seq={}: {}", entry.seq(), e.getMessage());
+                            break;
+                        }
+                        processed++;
+                        replayedRecords.incrementAndGet();
+                        if (pendingRecords.decrementAndGet() <= 0) {
+                            pendingRecords.set(0);
+                            oldestPendingAt.set(0);
+                        }
+                    }
+                    if (entry.type() != RecordType.COMMIT) {
+                        passedSeq = entry.seq();
+                    }
+                    offset += HEADER_BYTES + entry.payload().length;
+                }
+            } catch (IOException e) {
+                lastReplayError.set(e.getMessage());
+                log.warn("读取采集写前日志失败: {}", e.getMessage());
+            }
+            // 序号按追加顺序递增，已越过的记录不会再被检查，清理残留的提交状态
+            long passed = passedSeq;
+            if (passed > 0) {
+                inline.entrySet().removeIf(e -> e.getKey() <= passed && e.getValue() == InlineState.COMMITTED);
+            }
+            if (segment != checkpointSegment || offset != checkpointOffset) {
+                writeCheckpoint(segment, offset);
+            }
+            if (processed > 0) {
+                lastReplayError.set(null);
+                log.info("采集写前日志重放 {} 条记录，剩余 {}", processed, pendingRecords.get());
+            }
+            return processed;
+        }
+    }
+
+    public long getPendingRecords() {
+        return pendingRecords.get();
+    }
+
+    /**
+     * 最早一条待重放记录的滞后时间（毫秒）
+     */
+    public long getLagMillis() {
+        long oldest = oldestPendingAt.get();
+        return pendingRecords.get() > 0 && oldest > 0 ? System.currentTimeMillis() - oldest : 0L;
+    }
+
+    /**
+     * 本地分段文件总大小
+     */
+    public long getSpoolBytes() {
+        if (!enabled) {
+            return 0L;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment).mapToLong(this::sizeOf).sum();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toString());
+        stats.put("pendingRecords", getPendingRecords());
+        stats.put("inflightRecords", count(InlineState.INFLIGHT));
+        stats.put("committedRecords", count(InlineState.COMMITTED));
+        stats.put("lagMillis", getLagMillis());
+        stats.put("spoolBytes", getSpoolBytes());
+        stats.put("replayedRecords", replayedRecords.get());
+        stats.put("lastReplayError", lastReplayError.get());
+        return stats;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private long count(InlineState state) {
+        return inline.values().stream().filter(state::equals).count();
+    }
+
+    private void addPending(long appendedAt) {
+        if (pendingRecords.getAndIncrement() == 0) {
+            oldestPendingAt.compareAndSet(0, appendedAt);
+        }
+    }
+
+    private void write(long seq, RecordType type, long appendedAt, byte[] payload, boolean sync) throws IOException {
+        if (writer == null) {
+            throw new IOException("采集写前日志未打开");
+        }
+        int size = HEADER_BYTES + payload.length;
+        if (writerPosition > 0 && writerPosition + size > segmentBytes) {
+            roll();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(payload.length)
+                .putLong(seq)
+                .putLong(appendedAt)
+                .put(type.code)
+                .putInt(checksum(seq, appendedAt, type.code, payload))
+                .put(payload)
+                .flip();
+        while (buffer.hasRemaining()) {
+            writer.write(buffer, writerPosition + buffer.position());
+        }
+        if (sync) {
+            writer.force(false);
+        }
+        writerPosition += size;
+    }
+
+    private void roll() throws IOException {
+        writer.force(true);
+        writer.close();
+        writerSegment++;
+        writer = FileChannel.open(segmentPath(writerSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        writerPosition = 0;
+        log.debug("采集写前日志切换分段: {}", writerSegment);
+    }
+
+    /**
+     * 启动恢复：扫描检查点之后的全部记录，重建序号、提交集合与积压计数，截断末尾不完整的记录
+     */
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        segments.removeIf(id -> {
+            if (id < checkpointSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(id));
+                } catch (IOException e) {
+                    log.warn("删除已重放分段失败: {}", e.getMessage());
+                }
+                return true;
+            }
+            return false;
+        });
+
+        Map<Long, Long> dataSeqs = new LinkedHashMap<>();
+        Set<Long> commitSeqs = new HashSet<>();
+        long maxSeq = 0;
+        long lastSegment = segments.isEmpty() ? checkpointSegment : segments.get(segments.size() - 1);
+        long lastValidEnd = 0;
+
+        for (long id : segments) {
+            Path path = segmentPath(id);
+            long size = sizeOf(path);
+            long offset = id == checkpointSegment ? checkpointOffset : 0;
+            Entry entry;
+            while (offset < size && (entry = readEntry(path, offset, size)) != null) {
+                maxSeq = Math.max(maxSeq, entry.seq());
+                if (entry.type() == RecordType.COMMIT) {
+                    commitSeqs.add(entry.seq());
+                } else {
+                    dataSeqs.put(entry.seq(), entry.appendedAt());
+                }
+                offset += HEADER_BYTES + entry.payload().length;
+            }
+            if (offset < size) {
+                log.warn("采集写前日志分段 {} 在偏移 {} 处存在损坏或不完整记录", id, offset);
+                if (id == lastSegment) {
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        channel.truncate(offset);
+                    }
+                }
+            }
+            if (id == lastSegment) {
+                lastValidEnd = offset;
+            }
+        }
+
+        for (Map.Entry<Long, Long> data : dataSeqs.entrySet()) {
+            if (commitSeqs.contains(data.getKey())) {
+                inline.put(data.getKey(), InlineState.COMMITTED);
+            } else {
+                addPending(data.getValue());
+            }
+        }
+        nextSeq = Math.max(maxSeq + 1, readSeqFloor());
+
+        synchronized (writeLock) {
+            writerSegment = lastSegment;
+            writer = FileChannel.open(segmentPath(writerSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            writerPosition = segments.isEmpty() ? 0 : lastValidEnd;
+        }
+    }
+
+    private Entry readEntry(Path path, long offset, long limit) throws IOException {
+        if (offset + HEADER_BYTES > limit) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, offset);
+            header.flip();
+            int length = header.getInt();
+            long seq = header.getLong();
+            long appendedAt = header.getLong();
+            byte typeCode = header.get();
+            int crc = header.getInt();
+            RecordType type = RecordType.of(typeCode);
+            if (length < 0 || type == null || offset + HEADER_BYTES + length > limit) {
+                return null;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(channel, body, offset + HEADER_BYTES);
+            byte[] payload = body.array();
+            if (checksum(seq, appendedAt, typeCode, payload) != crc) {
+                return null;
+            }
+            return new Entry(seq, type, appendedAt, payload);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("意外的文件结尾");
+            }
+        }
+    }
+
+    private static int checksum(long seq, long appendedAt, byte type, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(17).putLong(seq).putLong(appendedAt).put(type).flip();
+        crc.update(header);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        checkpointSegment = 1;
+        checkpointOffset = 0;
+        if (Files.exists(path)) {
+            String[] parts = Files.readString(path, StandardCharsets.UTF_8).trim().split("\\s+");
+            if (parts.length >= 2) {
+                checkpointSegment = Long.parseLong(parts[0]);
+                checkpointOffset = Long.parseLong(parts[1]);
+            }
+        } else {
+            List<Long> segments = listSegments();
+            if (!segments.isEmpty()) {
+                checkpointSegment = segments.get(0);
+            }
+        }
+    }
+
+    /**
+     * 检查点同时记录下一序号下限，防止分段全部删除后序号回退
+     */
+    private long readSeqFloor() {
+        try {
+            Path path = directory.resolve(CHECKPOINT_FILE);
+            if (Files.exists(path)) {
+                String[] parts = Files.readString(path, StandardCharsets.UTF_8).trim().split("\\s+");
+                if (parts.length >= 3) {
+                    return Long.parseLong(parts[2]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("读取序号下限失败: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    private void writeCheckpoint(long segment, long offset) {
+        long seqFloor;
+        synchronized (writeLock) {
+            seqFloor = nextSeq;
+        }
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temp, segment + " " + offset + " " + seqFloor, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointSegment = segment;
+            checkpointOffset = offset;
+        } catch (IOException e) {
+            log.warn("写入采集写前日志检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment)
+                    .map(p -> {
+                        String name = p.getFileName().toString();
+                        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private long nextSegmentAfter(long segment) throws IOException {
+        for (long id : listSegments()) {
+            if (id > segment) {
+                return id;
+            }
+        }
+        return segment + 1;
+    }
+
+    private boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
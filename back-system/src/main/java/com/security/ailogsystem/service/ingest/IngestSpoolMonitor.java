@@ -0,0 +1,41 @@
+package com.security.ailogsystem.service.ingest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 采集写前日志监控
+ * 在 /actuator/health 中展示积压详情，并向 Prometheus 暴露积压条数、滞后时间和本地文件大小
+ */
+@Component("ingestSpool")
+@RequiredArgsConstructor
+public class IngestSpoolMonitor implements HealthIndicator, MeterBinder {
+
+    private final IngestJournal journal;
+
+    @Override
+    public Health health() {
+        // 积压本身不代表故障，数据仍在本地安全保存，只在详情中体现
+        return Health.up().withDetails(journal.getStats()).build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ingest.spool.pending", journal, IngestJournal::getPendingRecords)
+                .description("采集写前日志待重放记录数")
+                .register(registry);
+        Gauge.builder("ingest.spool.lag", journal, j -> j.getLagMillis() / 1000.0)
+                .description("最早一条待重放记录的滞后时间")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("ingest.spool.size", journal, IngestJournal::getSpoolBytes)
+                .description("采集写前日志本地分段文件大小")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
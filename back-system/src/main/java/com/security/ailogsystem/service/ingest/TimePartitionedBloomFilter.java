@@ -0,0 +1,118 @@
+package com.security.ailogsystem.service.ingest;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * 按时间分区的布隆过滤器
+ * 每个分区覆盖固定时长，查询时检查全部存活分区，写入只落在当前分区；
+ * 分区到期后整体清空复用，从而在固定内存内保留最近 partitions * partitionMillis 的指纹
+ * 非线程安全，由调用方加锁
+ */
+public class TimePartitionedBloomFilter {
+
+    private final long[][] partitions;
+    private final int bitsPerPartition;
+    private final int hashFunctions;
+    private final long partitionMillis;
+    private final LongSupplier clock;
+
+    private int current;
+    private long currentStart;
+
+    /**
+     * @param partitionCount      分区数量
+     * @param partitionMillis     单个分区覆盖的时长（毫秒）
+     * @param expectedInsertions  单个分区预期写入量
+     * @param falsePositiveRate   单个分区目标误判率
+     * @param clock               时间源（毫秒）
+     */
+    public TimePartitionedBloomFilter(int partitionCount, long partitionMillis, int expectedInsertions,
+                                      double falsePositiveRate, LongSupplier clock) {
+        if (partitionCount < 1 || partitionMillis <= 0 || expectedInsertions < 1
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数非法");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerPartition = (int) Math.min(Math.max(bits, 64), Integer.MAX_VALUE - 63);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerPartition / expectedInsertions * Math.log(2)));
+        this.partitions = new long[partitionCount][(bitsPerPartition + 63) >>> 6];
+        this.partitionMillis = partitionMillis;
+        this.clock = clock;
+        this.currentStart = clock.getAsLong();
+    }
+
+    /**
+     * 指纹是否可能已存在（存在误判，不存在漏判）
+     */
+    public boolean mightContain(EventFingerprint fingerprint) {
+        rotateIfNeeded();
+        for (long[] words : partitions) {
+            if (contains(words, fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 写入当前分区
+     */
+    public void put(EventFingerprint fingerprint) {
+        rotateIfNeeded();
+        long[] words = partitions[current];
+        long combined = fingerprint.hi();
+        for (int i = 0; i < hashFunctions; i++) {
+            int index = (int) ((combined & Long.MAX_VALUE) % bitsPerPartition);
+            words[index >>> 6] |= 1L << index;
+            combined += fingerprint.lo();
+        }
+    }
+
+    public int getBitsPerPartition() {
+        return bitsPerPartition;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    private boolean contains(long[] words, EventFingerprint fingerprint) {
+        long combined = fingerprint.hi();
+        for (int i = 0; i < hashFunctions; i++) {
+            int index = (int) ((combined & Long.MAX_VALUE) % bitsPerPartition);
+            if ((words[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += fingerprint.lo();
+        }
+        return true;
+    }
+
+    private void rotateIfNeeded() {
+        long now = clock.getAsLong();
+        long elapsed = now - currentStart;
+        if (elapsed < partitionMillis) {
+            return;
+        }
+        long steps = elapsed / partitionMillis;
+        if (steps >= partitions.length) {
+            // 长时间无写入，所有分区都已过期
+            for (long[] words : partitions) {
+                Arrays.fill(words, 0L);
+            }
+            current = 0;
+            currentStart = now;
+            return;
+        }
+        for (long i = 0; i < steps; i++) {
+            current = (current + 1) % partitions.length;
+            Arrays.fill(partitions[current], 0L);
+        }
+        currentStart += steps * partitionMillis;
+    }
+}
@@ -0,0 +1,624 @@
+package com.security.ailogsystem.service.rollup;
+
+import com.security.ailogsystem.model.EventRollup;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import com.security.ailogsystem.service.downsample.ChartPoint;
+import com.security.ailogsystem.service.downsample.LttbDownsampler;
+import com.security.ailogsystem.service.downsample.TimeBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.security.ailogsystem.service.rollup.RollupGranularity.DAY;
+import static com.security.ailogsystem.service.rollup.RollupGranularity.HOUR;
+import static com.security.ailogsystem.service.rollup.RollupGranularity.MINUTE;
+
+/**
+ * 安全事件统计预聚合
+ * 维护分钟/小时/天三张预聚合表：入库事务提交后以独立事务增量累加，状态变更和删除时增减计数；
+ * 定时校准任务按明细表重算最近窗口和增量失败的分钟，首次启动时从新到旧按天回填历史数据。
+ * 统计和趋势查询按时间范围拆分为整天/整小时/整分钟片段读取预聚合表，首尾零散部分查询明细表，
+ * 预聚合未就绪（回填中或已禁用）时整体回退到明细表查询。
+ * 查询结果经 {@link RangeResultCache} 缓存已关闭的时间桶，计数变化时使对应时间桶失效
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventRollupService {
+
+    private static final String EVENT_TABLE = "unified_security_events";
+    private static final String DIMENSIONS = "source_system, event_type, category, severity, threat_level, status, is_anomaly";
+    // 明细表维度的规范化表达式，与 RollupKey.of 保持一致
+    private static final String RAW_DIMENSIONS = dimension("source_system") + ", " + dimension("event_type") + ", "
+            + dimension("category") + ", " + dimension("severity") + ", " + dimension("threat_level") + ", "
+            + dimension("status") + ", COALESCE(is_anomaly, 0)";
+    private static final String GROUP_BY_DIMENSIONS = " GROUP BY 1, 2, 3, 4, 5, 6, 7";
+    private static final String GROUP_BY_BUCKET_DIMENSIONS = " GROUP BY 1, 2, 3, 4, 5, 6, 7, 8";
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucket)
+            .thenComparing(RollupKey::sourceSystem).thenComparing(RollupKey::eventType)
+            .thenComparing(RollupKey::category).thenComparing(RollupKey::severity)
+            .thenComparing(RollupKey::threatLevel).thenComparing(RollupKey::status)
+            .thenComparing(RollupKey::anomaly);
+
+    /**
+     * 提交后累加预聚合的同步回调顺序；{@link LiveEventCounters} 的回调排在其后，计数器增加时预聚合已写入
+     */
+    static final int INCREMENT_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransactionTemplate;
+    private final RangeResultCache rangeResultCache;
+
+    @Value("${statistics.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statistics.rollup.lateness-minutes:10}")
+    private int latenessMinutes;
+
+    @Value("${statistics.rollup.minute-retention-days:7}")
+    private int minuteRetentionDays;
+
+    private volatile boolean ready;
+    private volatile LocalDateTime watermark;
+    private final Set<LocalDateTime> dirtyMinutes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 统计
+    private final AtomicLong recordedEvents = new AtomicLong();
+    private final AtomicLong incrementFailures = new AtomicLong();
+    private final AtomicLong rebuiltDays = new AtomicLong();
+    private volatile LocalDateTime lastCatchUpAt;
+    private volatile long lastCatchUpMillis;
+    private volatile String lastError;
+
+    /**
+     * 趋势数据点
+     */
+    public record Point(LocalDateTime bucket, long eventCount, long anomalyCount) {
+    }
+
+    private record RollupKey(LocalDateTime bucket, String sourceSystem, String eventType, String category,
+                             String severity, String threatLevel, String status, boolean anomaly) {
+
+        static RollupKey of(UnifiedSecurityEvent event) {
+            return new RollupKey(MINUTE.truncate(event.getTimestamp()), normalize(event.getSourceSystem()),
+                    normalize(event.getEventType()), normalize(event.getCategory()), normalize(event.getSeverity()),
+                    normalize(event.getThreatLevel()), normalize(event.getStatus()),
+                    Boolean.TRUE.equals(event.getIsAnomaly()));
+        }
+
+        RollupKey withStatus(String newStatus) {
+            return new RollupKey(bucket, sourceSystem, eventType, category, severity, threatLevel, newStatus, anomaly);
+        }
+
+        RollupKey at(RollupGranularity granularity) {
+            return new RollupKey(granularity.truncate(bucket), sourceSystem, eventType, category, severity,
+                    threatLevel, status, anomaly);
+        }
+    }
+
+    // ==================== 增量维护 ====================
+
+    /**
+     * 新入库事件计入预聚合；在事件入库的事务内调用时于提交后累加，入库回滚则不计入
+     */
+    @Transactional
+    public void record(List<UnifiedSecurityEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // 迟到事件会改变已缓存的时间桶
+        rangeResultCache.invalidate(RangeResultCache.EVENTS,
+                events.stream().map(UnifiedSecurityEvent::getTimestamp).toList());
+        if (!enabled) {
+            return;
+        }
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (UnifiedSecurityEvent event : events) {
+            if (event.getTimestamp() != null) {
+                deltas.merge(RollupKey.of(event), 1L, Long::sum);
+            }
+        }
+        apply(deltas);
+        recordedEvents.addAndGet(events.size());
+    }
+
+    /**
+     * 事件处理状态变更后将计数从旧状态移到新状态
+     */
+    @Transactional
+    public void statusChanged(UnifiedSecurityEvent event, String previousStatus) {
+        String previous = normalize(previousStatus);
+        if (event.getTimestamp() == null || previous.equals(normalize(event.getStatus()))) {
+            return;
+        }
+        rangeResultCache.invalidate(RangeResultCache.EVENTS, event.getTimestamp());
+        if (!enabled) {
+            return;
+        }
+        RollupKey current = RollupKey.of(event);
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        deltas.put(current.withStatus(previous), -1L);
+        deltas.put(current, 1L);
+        apply(deltas);
+    }
+
+    /**
+     * 事件删除后扣减计数
+     */
+    @Transactional
+    public void removed(UnifiedSecurityEvent event) {
+        if (event.getTimestamp() == null) {
+            return;
+        }
+        rangeResultCache.invalidate(RangeResultCache.EVENTS, event.getTimestamp());
+        if (!enabled) {
+            return;
+        }
+        apply(Map.of(RollupKey.of(event), -1L));
+    }
+
+    /**
+     * 明细表按截止时间清理后同步清理预聚合，并重算截止时间所在的分钟、小时和天
+     */
+    @Transactional
+    public void purgeBefore(LocalDateTime cutoff) {
+        rangeResultCache.invalidateBefore(RangeResultCache.EVENTS, cutoff);
+        if (!enabled) {
+            return;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update("DELETE FROM " + granularity.table() + " WHERE bucket_start < ?",
+                    granularity.truncate(cutoff));
+        }
+        LocalDateTime minute = MINUTE.truncate(cutoff);
+        rebuild(minute, MINUTE.next(minute), false);
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 统计时间范围内（含首尾）的事件总数、异常数和各维度分布
+     */
+    public EventRollupSummary summarize(LocalDateTime start, LocalDateTime end) {
+        return rangeResultCache.get(RangeResultCache.EVENTS, "summary", start, end, true,
+                this::summarizeRange, EventRollupSummary::combine);
+    }
+
+    /**
+     * 全部历史事件的统计
+     */
+    public EventRollupSummary summarizeAll() {
+        EventRollupSummary summary = new EventRollupSummary();
+        RowCallbackHandler handler = rs -> summary.add(rs.getString(1), rs.getString(2), rs.getString(3),
+                rs.getString(4), rs.getString(5), rs.getString(6), rs.getBoolean(7), rs.getLong(8));
+        if (isReady()) {
+            jdbcTemplate.query("SELECT " + DIMENSIONS + ", SUM(event_count) FROM " + DAY.table()
+                    + GROUP_BY_DIMENSIONS, handler);
+        } else {
+            jdbcTemplate.query("SELECT " + RAW_DIMENSIONS + ", COUNT(*) FROM " + EVENT_TABLE
+                    + GROUP_BY_DIMENSIONS, handler);
+        }
+        return summary;
+    }
+
+    /**
+     * 按粒度返回时间范围内（含首尾）的事件数和异常数，按时间升序，无事件的桶不返回
+     */
+    public List<Point> series(LocalDateTime start, LocalDateTime end, RollupGranularity granularity) {
+        return rangeResultCache.get(RangeResultCache.EVENTS, "series:" + granularity, start, end, true,
+                (from, to, inclusiveEnd) -> seriesRange(from, to, inclusiveEnd, granularity),
+                EventRollupService::concatPoints);
+    }
+
+    /**
+     * 图表趋势：按图表粒度出趋势（周由天级趋势合并），点数超过 maxPoints 时按事件数做 LTTB 降采样
+     */
+    public List<Point> chartSeries(LocalDateTime start, LocalDateTime end, TimeBucket bucket, int maxPoints) {
+        List<Point> points = series(start, end, bucket.rollup());
+        if (bucket == TimeBucket.WEEK) {
+            points = concatPoints(Collections.singletonList(points.stream()
+                    .map(point -> new Point(bucket.truncate(point.bucket()), point.eventCount(), point.anomalyCount()))
+                    .toList()));
+        }
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+        List<Point> sampled = new ArrayList<>(maxPoints);
+        LttbDownsampler<Point> lttb = new LttbDownsampler<>(ChartPoint.epochMilli(start), ChartPoint.epochMilli(end),
+                maxPoints, point -> ChartPoint.epochMilli(point.bucket()), Point::eventCount, sampled::add);
+        points.forEach(lttb::add);
+        lttb.finish();
+        return sampled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("ready", ready);
+        status.put("watermark", watermark);
+        status.put("minuteFloor", minuteFloor());
+        status.put("dirtyMinutes", dirtyMinutes.size());
+        status.put("recordedEvents", recordedEvents.get());
+        status.put("incrementFailures", incrementFailures.get());
+        status.put("rebuiltDays", rebuiltDays.get());
+        status.put("lastCatchUpAt", lastCatchUpAt);
+        status.put("lastCatchUpMillis", lastCatchUpMillis);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    // ==================== 回填与校准 ====================
+
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeOnStartup() {
+        if (enabled && running.compareAndSet(false, true)) {
+            try {
+                initialize();
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * 定时按明细表重算最近窗口（覆盖未经增量路径写入的事件）和增量失败的分钟，并清理过期的分钟数据
+     */
+    @Scheduled(fixedDelayString = "${statistics.rollup.catch-up-interval-ms:60000}",
+            initialDelayString = "${statistics.rollup.catch-up-interval-ms:60000}")
+    public void catchUp() {
+        // 回填或上一轮校准仍在进行时跳过，避免阻塞调度线程
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        if (!ready) {
+            try {
+                initialize();
+            } finally {
+                running.set(false);
+            }
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            rebuild(MINUTE.truncate(watermark.minusMinutes(latenessMinutes)), MINUTE.next(MINUTE.truncate(now)), false);
+            watermark = now;
+
+            for (Iterator<LocalDateTime> it = dirtyMinutes.iterator(); it.hasNext(); ) {
+                LocalDateTime minute = it.next();
+                it.remove();
+                try {
+                    rebuild(minute, MINUTE.next(minute), false);
+                    rangeResultCache.invalidate(RangeResultCache.EVENTS, minute);
+                } catch (DataAccessException e) {
+                    dirtyMinutes.add(minute);
+                    throw e;
+                }
+            }
+
+            LocalDateTime floor = minuteFloor();
+            batchTransactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.update("DELETE FROM " + MINUTE.table() + " WHERE bucket_start < ?", floor));
+            lastError = null;
+        } catch (DataAccessException e) {
+            lastError = e.getMessage();
+            log.warn("事件统计预聚合校准失败: {}", e.getMessage());
+        } finally {
+            lastCatchUpAt = LocalDateTime.now();
+            lastCatchUpMillis = System.currentTimeMillis() - start;
+            running.set(false);
+        }
+    }
+
+    /**
+     * 按明细表重算最近若干天的预聚合
+     */
+    public Map<String, Object> rebuildRecent(int days) {
+        if (!isReady() || !running.compareAndSet(false, true)) {
+            log.info("事件统计预聚合未就绪或正在重算，跳过本次触发");
+            return getStatus();
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            rebuild(DAY.truncate(now).minusDays(Math.max(0, days - 1L)), MINUTE.next(MINUTE.truncate(now)), true);
+            rangeResultCache.invalidateAll(RangeResultCache.EVENTS);
+            lastError = null;
+        } catch (DataAccessException e) {
+            lastError = e.getMessage();
+            log.error("重算事件统计预聚合失败", e);
+        } finally {
+            running.set(false);
+        }
+        return getStatus();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 首次启动时从新到旧回填全部历史；已有数据时补齐停机窗口，以及早于已有最早一天的明细
+     */
+    private void initialize() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime end = MINUTE.next(MINUTE.truncate(now));
+            LocalDateTime eventsMin = jdbcTemplate.queryForObject(
+                    "SELECT MIN(timestamp) FROM " + EVENT_TABLE, LocalDateTime.class);
+            if (eventsMin != null) {
+                LocalDateTime rollupMin = jdbcTemplate.queryForObject(
+                        "SELECT MIN(bucket_start) FROM " + DAY.table(), LocalDateTime.class);
+                if (rollupMin == null) {
+                    log.info("开始回填事件统计预聚合: {} 至今", DAY.truncate(eventsMin).toLocalDate());
+                    rebuild(DAY.truncate(eventsMin), end, true);
+                } else {
+                    LocalDateTime lastMinute = jdbcTemplate.queryForObject(
+                            "SELECT MAX(bucket_start) FROM " + MINUTE.table(), LocalDateTime.class);
+                    LocalDateTime from = lastMinute != null ? lastMinute.minusMinutes(latenessMinutes) : minuteFloor();
+                    rebuild(MINUTE.truncate(from), end, true);
+                    if (DAY.truncate(eventsMin).isBefore(rollupMin)) {
+                        log.info("补齐早于 {} 的事件统计预聚合", rollupMin.toLocalDate());
+                        rebuild(DAY.truncate(eventsMin), rollupMin, true);
+                    }
+                }
+            }
+            watermark = now;
+            ready = true;
+            lastError = null;
+            log.info("事件统计预聚合已就绪，统计查询改由预聚合表提供");
+        } catch (DataAccessException e) {
+            lastError = e.getMessage();
+            log.error("初始化事件统计预聚合失败，统计查询暂时回退到明细表: {}", e.getMessage());
+        }
+    }
+
+    private List<RollupPlanner.Segment> plan(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                                             RollupGranularity coarsest) {
+        if (!isReady()) {
+            if (end.isBefore(start) || (!inclusiveEnd && !end.isAfter(start))) {
+                return List.of();
+            }
+            return List.of(RollupPlanner.Segment.raw(start, end, inclusiveEnd));
+        }
+        return RollupPlanner.plan(start, end, inclusiveEnd, coarsest, minuteFloor());
+    }
+
+    private EventRollupSummary summarizeRange(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd) {
+        EventRollupSummary summary = new EventRollupSummary();
+        RowCallbackHandler handler = rs -> summary.add(rs.getString(1), rs.getString(2), rs.getString(3),
+                rs.getString(4), rs.getString(5), rs.getString(6), rs.getBoolean(7), rs.getLong(8));
+        for (RollupPlanner.Segment segment : plan(start, end, inclusiveEnd, DAY)) {
+            if (segment.isRaw()) {
+                jdbcTemplate.query("SELECT " + RAW_DIMENSIONS + ", COUNT(*) FROM " + EVENT_TABLE
+                        + rawRange(segment) + GROUP_BY_DIMENSIONS, handler, segment.from(), segment.to());
+            } else {
+                jdbcTemplate.query("SELECT " + DIMENSIONS + ", SUM(event_count) FROM " + segment.granularity().table()
+                        + " WHERE bucket_start >= ? AND bucket_start < ?" + GROUP_BY_DIMENSIONS,
+                        handler, segment.from(), segment.to());
+            }
+        }
+        return summary;
+    }
+
+    private List<Point> seriesRange(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                                    RollupGranularity granularity) {
+        TreeMap<LocalDateTime, long[]> buckets = new TreeMap<>();
+        for (RollupPlanner.Segment segment : plan(start, end, inclusiveEnd, granularity)) {
+            if (segment.isRaw()) {
+                jdbcTemplate.query("SELECT " + granularity.bucketExpression("timestamp")
+                                + ", COUNT(*), SUM(CASE WHEN is_anomaly = 1 THEN 1 ELSE 0 END) FROM " + EVENT_TABLE
+                                + rawRange(segment) + " GROUP BY 1",
+                        (RowCallbackHandler) rs -> addPoint(buckets, granularity.parse(rs.getString(1)),
+                                rs.getLong(2), rs.getLong(3)),
+                        segment.from(), segment.to());
+            } else {
+                jdbcTemplate.query("SELECT bucket_start, SUM(event_count),"
+                                + " SUM(CASE WHEN is_anomaly = 1 THEN event_count ELSE 0 END) FROM "
+                                + segment.granularity().table()
+                                + " WHERE bucket_start >= ? AND bucket_start < ? GROUP BY bucket_start",
+                        (RowCallbackHandler) rs -> addPoint(buckets,
+                                granularity.truncate(rs.getTimestamp(1).toLocalDateTime()), rs.getLong(2), rs.getLong(3)),
+                        segment.from(), segment.to());
+            }
+        }
+        List<Point> points = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, counts) -> {
+            if (counts[0] != 0) {
+                points.add(new Point(bucket, counts[0], counts[1]));
+            }
+        });
+        return points;
+    }
+
+    /**
+     * 按时间顺序拼接各片段的趋势点；相邻片段落在同一个桶（如按天出趋势时首部不足一小时的片段）时合并计数
+     */
+    private static List<Point> concatPoints(List<List<Point>> parts) {
+        List<Point> points = new ArrayList<>();
+        for (List<Point> part : parts) {
+            for (Point point : part) {
+                int last = points.size() - 1;
+                if (last >= 0 && points.get(last).bucket().equals(point.bucket())) {
+                    Point previous = points.get(last);
+                    points.set(last, new Point(point.bucket(), previous.eventCount() + point.eventCount(),
+                            previous.anomalyCount() + point.anomalyCount()));
+                } else {
+                    points.add(point);
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * 分钟表只保留最近若干整天
+     */
+    private LocalDateTime minuteFloor() {
+        return DAY.truncate(LocalDateTime.now()).minusDays(minuteRetentionDays);
+    }
+
+    /**
+     * 将增量累加到预聚合表；在事务内调用时推迟到提交之后，调用方回滚的变更不会计入
+     */
+    private void apply(Map<RollupKey, Long> deltas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return INCREMENT_ORDER;
+                }
+
+                @Override
+                public void afterCommit() {
+                    applyInNewTransaction(deltas);
+                }
+            });
+        } else {
+            applyInNewTransaction(deltas);
+        }
+    }
+
+    /**
+     * 在独立事务中批量累加到三张预聚合表；失败时只回滚本事务，不影响事件入库，
+     * 记录受影响的分钟交由校准任务重算
+     */
+    private void applyInNewTransaction(Map<RollupKey, Long> deltas) {
+        LocalDateTime floor = minuteFloor();
+        TransactionTemplate transaction = new TransactionTemplate(batchTransactionTemplate.getTransactionManager());
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> incrementAll(deltas, floor));
+        } catch (DataAccessException | TransactionException e) {
+            incrementFailures.incrementAndGet();
+            deltas.keySet().forEach(key -> dirtyMinutes.add(key.bucket()));
+            log.warn("更新事件统计预聚合失败，等待校准任务重算: {}", e.getMessage());
+        }
+    }
+
+    private void incrementAll(Map<RollupKey, Long> deltas, LocalDateTime floor) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<RollupKey, Long> bucketed = new TreeMap<>(KEY_ORDER);
+            deltas.forEach((key, delta) -> {
+                if (granularity != MINUTE || !key.bucket().isBefore(floor)) {
+                    bucketed.merge(key.at(granularity), delta, Long::sum);
+                }
+            });
+            List<Object[]> args = new ArrayList<>(bucketed.size());
+            // 按键排序写入，降低并发事务之间的死锁概率
+            bucketed.forEach((key, delta) -> {
+                if (delta != 0) {
+                    args.add(new Object[]{key.bucket(), key.sourceSystem(), key.eventType(), key.category(),
+                            key.severity(), key.threatLevel(), key.status(), key.anomaly(), delta});
+                }
+            });
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + granularity.table() + " (bucket_start, " + DIMENSIONS
+                        + ", event_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)", args);
+            }
+        }
+    }
+
+    /**
+     * 按天分块重算 [from, to)（均按分钟对齐），每天一个事务
+     */
+    private void rebuild(LocalDateTime from, LocalDateTime to, boolean newestFirst) {
+        List<LocalDateTime[]> chunks = new ArrayList<>();
+        for (LocalDateTime day = DAY.truncate(from); day.isBefore(to); day = day.plusDays(1)) {
+            LocalDateTime chunkFrom = from.isAfter(day) ? from : day;
+            LocalDateTime chunkTo = to.isBefore(day.plusDays(1)) ? to : day.plusDays(1);
+            chunks.add(new LocalDateTime[]{chunkFrom, chunkTo});
+        }
+        if (newestFirst) {
+            Collections.reverse(chunks);
+        }
+        for (LocalDateTime[] chunk : chunks) {
+            batchTransactionTemplate.executeWithoutResult(status -> rebuildChunk(chunk[0], chunk[1]));
+            if (chunks.size() > 1) {
+                rebuiltDays.incrementAndGet();
+                log.debug("事件统计预聚合已重算: {}", chunk[0].toLocalDate());
+            }
+        }
+    }
+
+    /**
+     * 重算一天之内的 [from, to)：分钟表保留期内由明细生成分钟再汇总为小时，更早的直接由明细生成小时，最后汇总整天
+     */
+    private void rebuildChunk(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime hourFrom = HOUR.truncate(from);
+        LocalDateTime hourTo = HOUR.ceil(to);
+        if (!from.isBefore(minuteFloor())) {
+            recomputeFromEvents(MINUTE, from, to);
+            recomputeFromRollup(HOUR, MINUTE, hourFrom, hourTo);
+        } else {
+            recomputeFromEvents(HOUR, hourFrom, hourTo);
+        }
+        LocalDateTime day = DAY.truncate(from);
+        recomputeFromRollup(DAY, HOUR, day, DAY.next(day));
+    }
+
+    private void recomputeFromEvents(RollupGranularity target, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update("DELETE FROM " + target.table() + " WHERE bucket_start >= ? AND bucket_start < ?", from, to);
+        jdbcTemplate.update("INSERT INTO " + target.table() + " (bucket_start, " + DIMENSIONS + ", event_count)"
+                + " SELECT " + target.bucketExpression("timestamp") + ", " + RAW_DIMENSIONS + ", COUNT(*)"
+                + " FROM " + EVENT_TABLE + " WHERE timestamp >= ? AND timestamp < ?" + GROUP_BY_BUCKET_DIMENSIONS,
+                from, to);
+    }
+
+    private void recomputeFromRollup(RollupGranularity target, RollupGranularity source,
+                                     LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update("DELETE FROM " + target.table() + " WHERE bucket_start >= ? AND bucket_start < ?", from, to);
+        jdbcTemplate.update("INSERT INTO " + target.table() + " (bucket_start, " + DIMENSIONS + ", event_count)"
+                + " SELECT " + target.bucketExpression("bucket_start") + ", " + DIMENSIONS + ", SUM(event_count)"
+                + " FROM " + source.table() + " WHERE bucket_start >= ? AND bucket_start < ?"
+                + GROUP_BY_BUCKET_DIMENSIONS + " HAVING SUM(event_count) <> 0", from, to);
+    }
+
+    private static String rawRange(RollupPlanner.Segment segment) {
+        return " WHERE timestamp >= ? AND timestamp " + (segment.inclusiveEnd() ? "<=" : "<") + " ?";
+    }
+
+    private static void addPoint(TreeMap<LocalDateTime, long[]> buckets, LocalDateTime bucket, long events, long anomalies) {
+        long[] counts = buckets.computeIfAbsent(bucket, key -> new long[2]);
+        counts[0] += events;
+        counts[1] += anomalies;
+    }
+
+    private static String dimension(String column) {
+        return "LEFT(COALESCE(" + column + ", ''), " + EventRollup.DIMENSION_LENGTH + ")";
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > EventRollup.DIMENSION_LENGTH ? value.substring(0, EventRollup.DIMENSION_LENGTH) : value;
+    }
+}
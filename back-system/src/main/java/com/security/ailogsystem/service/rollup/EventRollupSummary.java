@@ -0,0 +1,96 @@
+package com.security.ailogsystem.service.rollup;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间范围内的事件统计汇总
+ * 各维度分布不含空值键，与原 GROUP BY 统计过滤 null 键的行为一致
+ */
+@Getter
+public class EventRollupSummary {
+
+    private long totalEvents;
+    private long anomalyEvents;
+    private final Map<String, Long> sourceSystems = new HashMap<>();
+    private final Map<String, Long> eventTypes = new HashMap<>();
+    private final Map<String, Long> categories = new HashMap<>();
+    private final Map<String, Long> severities = new HashMap<>();
+    private final Map<String, Long> threatLevels = new HashMap<>();
+    private final Map<String, Long> statuses = new HashMap<>();
+
+    void add(String sourceSystem, String eventType, String category, String severity, String threatLevel,
+             String status, boolean anomaly, long count) {
+        if (count == 0) {
+            return;
+        }
+        totalEvents += count;
+        if (anomaly) {
+            anomalyEvents += count;
+        }
+        increment(sourceSystems, sourceSystem, count);
+        increment(eventTypes, eventType, count);
+        increment(categories, category, count);
+        increment(severities, severity, count);
+        increment(threatLevels, threatLevel, count);
+        increment(statuses, status, count);
+    }
+
+    /**
+     * 合并多个时间片段的统计，返回新的汇总，不修改参数
+     */
+    public static EventRollupSummary combine(List<EventRollupSummary> parts) {
+        EventRollupSummary total = new EventRollupSummary();
+        for (EventRollupSummary part : parts) {
+            total.totalEvents += part.totalEvents;
+            total.anomalyEvents += part.anomalyEvents;
+            part.sourceSystems.forEach((key, count) -> increment(total.sourceSystems, key, count));
+            part.eventTypes.forEach((key, count) -> increment(total.eventTypes, key, count));
+            part.categories.forEach((key, count) -> increment(total.categories, key, count));
+            part.severities.forEach((key, count) -> increment(total.severities, key, count));
+            part.threatLevels.forEach((key, count) -> increment(total.threatLevels, key, count));
+            part.statuses.forEach((key, count) -> increment(total.statuses, key, count));
+        }
+        return total;
+    }
+
+    /**
+     * 各维度分布的条目总数
+     */
+    public int size() {
+        return sourceSystems.size() + eventTypes.size() + categories.size() + severities.size()
+                + threatLevels.size() + statuses.size();
+    }
+
+    /**
+     * 按前端的维度参数取分布，无法识别时返回事件类型分布
+     */
+    public Map<String, Long> getDistribution(String dimension) {
+        switch (dimension == null ? "" : dimension.toLowerCase()) {
+            case "source":
+            case "sources":
+                return sourceSystems;
+            case "level":
+            case "levels":
+            case "threatlevel":
+                return threatLevels;
+            case "severity":
+                return severities;
+            case "category":
+                return categories;
+            case "status":
+                return statuses;
+            default:
+                return eventTypes;
+        }
+    }
+
+    private static void increment(Map<String, Long> counts, String key, long count) {
+        if (key != null && !key.isEmpty()) {
+            counts.merge(key, count, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.security.ailogsystem.service.rollup;
+
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 仪表板实时计数器
+ * 总数、今日数、异常数、按严重级别/威胁等级分布以及最近若干天的每日计数保存在内存中，
+ * 事件入库和删除提交后增减，启动时和定时任务按统计预聚合表校准；仪表板接口只读取这些计数器。
+ * 提交后先累加预聚合再增减计数器，两步之间持有读锁，校准持有写锁，因此校准不会读到只完成了其中一步的事件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveEventCounters {
+
+    private static final long RECONCILE_LOCK_TIMEOUT_SECONDS = 10;
+
+    private final EventRollupService eventRollupService;
+
+    @Value("${statistics.live-counters.daily-days:7}")
+    private int dailyDays;
+
+    private final Counter total = new Counter();
+    private final Counter anomalies = new Counter();
+    private final Map<String, Counter> severities = new ConcurrentHashMap<>();
+    private final Map<String, Counter> threatLevels = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Counter> daily = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private volatile boolean seeded;
+    private volatile LocalDateTime lastReconcileAt;
+    private volatile long lastDrift;
+
+    /**
+     * 计数器快照，dailyCounts 按日期升序且包含无事件的日期
+     */
+    public record Snapshot(long totalEvents, long todayEvents, long anomalyEvents, Map<String, Long> severities,
+                           Map<String, Long> threatLevels, SortedMap<LocalDate, Long> dailyCounts,
+                           LocalDateTime lastReconcileAt) {
+    }
+
+    /**
+     * 基数加增量：增量由 LongAdder 无锁累加，校准时只改写基数，校准期间的增量不会丢失
+     */
+    private static final class Counter {
+        private final LongAdder delta = new LongAdder();
+        private volatile long base;
+
+        long get() {
+            return base + delta.sum();
+        }
+
+        long pending() {
+            return delta.sum();
+        }
+
+        void add(long n) {
+            delta.add(n);
+        }
+
+        /**
+         * @return 校准前后的偏差
+         */
+        long reconcile(long dbValue, long pendingAtSnapshot) {
+            long drift = base + pendingAtSnapshot - dbValue;
+            base = dbValue - pendingAtSnapshot;
+            return drift;
+        }
+    }
+
+    // ==================== 增量维护 ====================
+
+    /**
+     * 新入库事件计数，在当前事务提交后生效
+     */
+    public void recorded(List<UnifiedSecurityEvent> events) {
+        if (!events.isEmpty()) {
+            afterRollupIncrement(() -> events.forEach(event -> apply(event, 1)));
+        }
+    }
+
+    /**
+     * 删除事件扣减计数，在当前事务提交后生效
+     */
+    public void removed(UnifiedSecurityEvent event) {
+        afterRollupIncrement(() -> apply(event, -1));
+    }
+
+    /**
+     * 批量清理后无法逐条扣减，提交后立即重新校准
+     */
+    public void purged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reconcile();
+                }
+            });
+        } else {
+            reconcile();
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    public Snapshot snapshot() {
+        if (!seeded) {
+            reconcile();
+        }
+        LocalDate today = LocalDate.now();
+        SortedMap<LocalDate, Long> dailyCounts = new TreeMap<>();
+        for (LocalDate day = today.minusDays(dailyDays); !day.isAfter(today); day = day.plusDays(1)) {
+            Counter counter = daily.get(day);
+            dailyCounts.put(day, counter != null ? counter.get() : 0L);
+        }
+        return new Snapshot(total.get(), dailyCounts.get(today), anomalies.get(), values(severities),
+                values(threatLevels), dailyCounts, lastReconcileAt);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("seeded", seeded);
+        status.put("lastReconcileAt", lastReconcileAt);
+        status.put("lastDrift", lastDrift);
+        status.put("totalEvents", total.get());
+        return status;
+    }
+
+    // ==================== 校准 ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * 定时按统计预聚合表校准，纠正未经增量路径写入、事务回滚或跨天造成的偏差
+     */
+    @Scheduled(fixedDelayString = "${statistics.live-counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${statistics.live-counters.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        if (gate.getReadHoldCount() > 0) {
+            // 同一事务内先入库再清理时，本线程仍持有读锁，留给下一次定时校准
+            return;
+        }
+        try {
+            if (!gate.writeLock().tryLock(RECONCILE_LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("仪表板实时计数器校准跳过: 等待进行中的增量超时");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            reconcileLocked();
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    private void reconcileLocked() {
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(dailyDays);
+
+        // 持有写锁时没有进行中的增量，各计数器的增量与预聚合对应同一时刻
+        long totalPending = total.pending();
+        long anomalyPending = anomalies.pending();
+        Map<String, Long> severityPending = pending(severities);
+        Map<String, Long> threatPending = pending(threatLevels);
+        Map<LocalDate, Long> dailyPending = pending(daily);
+
+        EventRollupSummary allTime;
+        Map<LocalDate, Long> dbDaily = new HashMap<>();
+        try {
+            allTime = eventRollupService.summarizeAll();
+            for (EventRollupService.Point point : eventRollupService.series(firstDay.atStartOfDay(),
+                    LocalDateTime.now(), RollupGranularity.DAY)) {
+                dbDaily.put(point.bucket().toLocalDate(), point.eventCount());
+            }
+        } catch (DataAccessException e) {
+            log.warn("仪表板实时计数器校准失败: {}", e.getMessage());
+            return;
+        }
+
+        long drift = Math.abs(total.reconcile(allTime.getTotalEvents(), totalPending))
+                + Math.abs(anomalies.reconcile(allTime.getAnomalyEvents(), anomalyPending))
+                + reconcile(severities, severityPending, allTime.getSeverities())
+                + reconcile(threatLevels, threatPending, allTime.getThreatLevels())
+                + reconcile(daily, dailyPending, dbDaily);
+        daily.keySet().removeIf(day -> day.isBefore(firstDay));
+
+        if (seeded && drift != 0) {
+            log.info("仪表板实时计数器已校准，偏差 {}", drift);
+        }
+        lastDrift = drift;
+        lastReconcileAt = LocalDateTime.now();
+        seeded = true;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void apply(UnifiedSecurityEvent event, long n) {
+        total.add(n);
+        if (Boolean.TRUE.equals(event.getIsAnomaly())) {
+            anomalies.add(n);
+        }
+        increment(severities, event.getSeverity(), n);
+        increment(threatLevels, event.getThreatLevel(), n);
+        if (event.getTimestamp() != null) {
+            LocalDate day = event.getTimestamp().toLocalDate();
+            if (!day.isBefore(LocalDate.now().minusDays(dailyDays))) {
+                daily.computeIfAbsent(day, key -> new Counter()).add(n);
+            }
+        }
+    }
+
+    private static <K> void increment(Map<K, Counter> counters, K key, long n) {
+        if (key != null && !"".equals(key)) {
+            counters.computeIfAbsent(key, k -> new Counter()).add(n);
+        }
+    }
+
+    private static <K> Map<K, Long> pending(Map<K, Counter> counters) {
+        Map<K, Long> pending = new HashMap<>();
+        counters.forEach((key, counter) -> pending.put(key, counter.pending()));
+        return pending;
+    }
+
+    private static <K> long reconcile(Map<K, Counter> counters, Map<K, Long> pending, Map<K, Long> dbValues) {
+        long drift = 0;
+        Set<K> keys = new HashSet<>(pending.keySet());
+        keys.addAll(dbValues.keySet());
+        for (K key : keys) {
+            Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+            drift += Math.abs(counter.reconcile(dbValues.getOrDefault(key, 0L), pending.getOrDefault(key, 0L)));
+        }
+        return drift;
+    }
+
+    private static Map<String, Long> values(Map<String, Counter> counters) {
+        Map<String, Long> values = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long value = counter.get();
+            if (value != 0) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * 在当前事务提交后、预聚合累加之后增减计数；从提交前到增减完成一直持有读锁
+     */
+    private void afterRollupIncrement(Runnable increment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            gate.readLock().lock();
+            try {
+                increment.run();
+            } finally {
+                gate.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public int getOrder() {
+                return EventRollupService.INCREMENT_ORDER + 1;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                gate.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                try {
+                    increment.run();
+                } finally {
+                    unlock();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // 提交失败或回滚时同样释放
+                unlock();
+            }
+
+            private void unlock() {
+                if (locked) {
+                    locked = false;
+                    gate.readLock().unlock();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package com.security.ailogsystem.service.rollup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 预聚合时间粒度
+ * 每个粒度对应一张预聚合表，以及 MySQL DATE_FORMAT 分桶格式和返回给前端的时间标签格式
+ */
+public enum RollupGranularity {
+
+    MINUTE("event_rollup_minute", "%Y-%m-%d %H:%i:00", "yyyy-MM-dd HH:mm:00"),
+    HOUR("event_rollup_hour", "%Y-%m-%d %H:00:00", "yyyy-MM-dd HH:00:00"),
+    DAY("event_rollup_day", "%Y-%m-%d", "yyyy-MM-dd");
+
+    private final String table;
+    private final String sqlFormat;
+    private final DateTimeFormatter labelFormatter;
+
+    RollupGranularity(String table, String sqlFormat, String labelPattern) {
+        this.table = table;
+        this.sqlFormat = sqlFormat;
+        this.labelFormatter = DateTimeFormatter.ofPattern(labelPattern);
+    }
+
+    public String table() {
+        return table;
+    }
+
+    /**
+     * 将时间列截断到本粒度的 SQL 表达式
+     */
+    public String bucketExpression(String column) {
+        return "DATE_FORMAT(" + column + ", '" + sqlFormat + "')";
+    }
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        switch (this) {
+            case MINUTE:
+                return time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            default:
+                return time.toLocalDate().atStartOfDay();
+        }
+    }
+
+    public LocalDateTime next(LocalDateTime bucket) {
+        switch (this) {
+            case MINUTE:
+                return bucket.plusMinutes(1);
+            case HOUR:
+                return bucket.plusHours(1);
+            default:
+                return bucket.plusDays(1);
+        }
+    }
+
+    /**
+     * 向上取整到桶边界，已对齐时原样返回
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime bucket = truncate(time);
+        return bucket.equals(time) ? bucket : next(bucket);
+    }
+
+    /**
+     * 次一级粒度，MINUTE 返回 null
+     */
+    public RollupGranularity finer() {
+        switch (this) {
+            case DAY:
+                return HOUR;
+            case HOUR:
+                return MINUTE;
+            default:
+                return null;
+        }
+    }
+
+    public String label(LocalDateTime bucket) {
+        return labelFormatter.format(bucket);
+    }
+
+    /**
+     * 解析 bucketExpression 生成的字符串
+     */
+    public LocalDateTime parse(String value) {
+        if (this == DAY) {
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    /**
+     * 解析前端传入的粒度参数，无法识别时返回 defaultValue
+     */
+    public static RollupGranularity of(String value, RollupGranularity defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "minute":
+            case "min":
+                return MINUTE;
+            case "hour":
+            case "hourly":
+                return HOUR;
+            case "day":
+            case "daily":
+                return DAY;
+            default:
+                return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.security.ailogsystem.service.rollup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将任意时间范围拆分为预聚合表可以精确回答的片段
+ * 中间完整的天/小时/分钟分别读取对应粒度的预聚合表，首尾不足一分钟的部分以及
+ * 超出分钟表保留期的零散分钟直接查询明细表（数据量很小，走时间索引）
+ */
+public final class RollupPlanner {
+
+    /**
+     * 查询片段；granularity 为 null 表示查询明细表
+     */
+    public record Segment(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, boolean inclusiveEnd) {
+
+        public boolean isRaw() {
+            return granularity == null;
+        }
+
+        static Segment raw(LocalDateTime from, LocalDateTime to, boolean inclusiveEnd) {
+            return new Segment(null, from, to, inclusiveEnd);
+        }
+    }
+
+    private RollupPlanner() {
+    }
+
+    /**
+     * @param start       起始时间（含）
+     * @param end         结束时间（含），与原 BETWEEN 查询语义一致
+     * @param coarsest    允许使用的最粗粒度，按小时出趋势时传 HOUR
+     * @param minuteFloor 分钟表保留的最早时间（按分钟对齐），更早的分钟片段改查明细表
+     */
+    public static List<Segment> plan(LocalDateTime start, LocalDateTime end, RollupGranularity coarsest,
+                                     LocalDateTime minuteFloor) {
+        return plan(start, end, true, coarsest, minuteFloor);
+    }
+
+    /**
+     * @param inclusiveEnd 结束时间是否包含在内；为 false 时按 [start, end) 拆分
+     */
+    public static List<Segment> plan(LocalDateTime start, LocalDateTime end, boolean inclusiveEnd,
+                                     RollupGranularity coarsest, LocalDateTime minuteFloor) {
+        List<Segment> segments = new ArrayList<>();
+        if (end.isBefore(start) || (!inclusiveEnd && !end.isAfter(start))) {
+            return segments;
+        }
+        LocalDateTime first = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime last = RollupGranularity.MINUTE.truncate(end);
+        if (!first.isBefore(last)) {
+            segments.add(Segment.raw(start, end, inclusiveEnd));
+            return segments;
+        }
+        if (start.isBefore(first)) {
+            segments.add(Segment.raw(start, first, false));
+        }
+        decompose(first, last, coarsest, minuteFloor, segments);
+        if (inclusiveEnd || last.isBefore(end)) {
+            segments.add(Segment.raw(last, end, inclusiveEnd));
+        }
+        return segments;
+    }
+
+    private static void decompose(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+                                  LocalDateTime minuteFloor, List<Segment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == RollupGranularity.MINUTE) {
+            if (!to.isAfter(minuteFloor)) {
+                segments.add(Segment.raw(from, to, false));
+            } else if (from.isBefore(minuteFloor)) {
+                segments.add(Segment.raw(from, minuteFloor, false));
+                segments.add(new Segment(RollupGranularity.MINUTE, minuteFloor, to, false));
+            } else {
+                segments.add(new Segment(RollupGranularity.MINUTE, from, to, false));
+            }
+            return;
+        }
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.truncate(to);
+        if (alignedFrom.isBefore(alignedTo)) {
+            decompose(from, alignedFrom, granularity.finer(), minuteFloor, segments);
+            segments.add(new Segment(granularity, alignedFrom, alignedTo, false));
+            decompose(alignedTo, to, granularity.finer(), minuteFloor, segments);
+        } else {
+            decompose(from, to, granularity.finer(), minuteFloor, segments);
+        }
+    }
+}
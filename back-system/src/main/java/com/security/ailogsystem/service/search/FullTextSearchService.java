@@ -0,0 +1,346 @@
+package com.security.ailogsystem.service.search;
+
+import com.security.ailogsystem.model.Alert;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.repository.AlertRepository;
+import com.security.ailogsystem.repository.UnifiedEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 事件与告警关键词检索的本地全文索引
+ * 索引线程按 id 顺序增量读取入库已超过等待时间的事件（原始消息、标准化消息、异常原因）和告警
+ * （编号、来源、类型、描述、处理人），按天分段写入本地 Lucene 索引；检索时返回命中 id，
+ * 由调用方与数据库过滤条件组合：已索引部分按 id 匹配，索引位置之后尚未索引的少量新记录仍按 LIKE 匹配。
+ * 索引未启用、关键词过短或命中过多时返回 null，调用方回退到原有 LIKE 查询
+ */
+@Slf4j
+@Service
+public class FullTextSearchService {
+
+    private final UnifiedEventRepository eventRepository;
+    private final AlertRepository alertRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long settleSeconds;
+    private final long gapRetentionMillis;
+    private final int maxGapSpan;
+    private final int maxCandidates;
+    private final int minKeywordLength;
+
+    private SegmentedTextIndex eventIndex;
+    private SegmentedTextIndex alertIndex;
+    private volatile boolean ready;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Queue<SegmentedTextIndex.Doc> alertUpdates = new ConcurrentLinkedQueue<>();
+
+    // 统计
+    private final AtomicLong indexedEvents = new AtomicLong();
+    private final AtomicLong indexedAlerts = new AtomicLong();
+    private final AtomicLong indexQueries = new AtomicLong();
+    private final AtomicLong fallbackQueries = new AtomicLong();
+    private volatile String lastError;
+
+    /**
+     * 关键词检索结果：ids 为已索引记录中包含关键词子串的候选 id，indexedUpTo 之后的记录和 gaps 中的记录尚未索引
+     */
+    public record KeywordMatch(Set<Long> ids, long indexedUpTo, Set<Long> gaps) {
+
+        /**
+         * 组合为数据库条件：候选 id 或尚未索引的记录，且满足原 LIKE 条件。
+         * 索引只用于缩小范围，结果始终由 LIKE 判定，与索引进度无关
+         */
+        public Predicate toPredicate(CriteriaBuilder cb, Expression<Long> id, Predicate likeFilter) {
+            Predicate pending = gaps.isEmpty() ? cb.greaterThan(id, indexedUpTo)
+                    : cb.or(cb.greaterThan(id, indexedUpTo), id.in(gaps));
+            return cb.and(ids.isEmpty() ? pending : cb.or(id.in(ids), pending), likeFilter);
+        }
+    }
+
+    @Autowired
+    public FullTextSearchService(UnifiedEventRepository eventRepository,
+                                 AlertRepository alertRepository,
+                                 @Value("${search.fulltext.enabled:true}") boolean enabled,
+                                 @Value("${search.fulltext.directory:data/fulltext-index}") String directory,
+                                 @Value("${search.fulltext.batch-size:1000}") int batchSize,
+                                 @Value("${search.fulltext.max-batches-per-run:20}") int maxBatchesPerRun,
+                                 @Value("${search.fulltext.settle-seconds:30}") long settleSeconds,
+                                 @Value("${search.fulltext.gap-retention-minutes:10}") long gapRetentionMinutes,
+                                 @Value("${search.fulltext.max-gap-span:1000}") int maxGapSpan,
+                                 @Value("${search.fulltext.max-candidates:10000}") int maxCandidates,
+                                 @Value("${search.fulltext.min-keyword-length:2}") int minKeywordLength) {
+        this.eventRepository = eventRepository;
+        this.alertRepository = alertRepository;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.settleSeconds = settleSeconds;
+        this.gapRetentionMillis = gapRetentionMinutes * 60_000L;
+        this.maxGapSpan = maxGapSpan;
+        this.maxCandidates = maxCandidates;
+        this.minKeywordLength = minKeywordLength;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("全文索引已禁用，关键词检索使用数据库 LIKE 查询");
+            return;
+        }
+        // 不使用停用词，保证 "a"、"the" 等词也能检索
+        eventIndex = new SegmentedTextIndex("events", directory.resolve("events"), maxGapSpan);
+        alertIndex = new SegmentedTextIndex("alerts", directory.resolve("alerts"), maxGapSpan);
+        try {
+            eventIndex.open();
+            alertIndex.open();
+            ready = true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("打开全文索引失败，关键词检索回退到数据库 LIKE 查询: {}", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        ready = false;
+        if (eventIndex != null) {
+            eventIndex.close();
+        }
+        if (alertIndex != null) {
+            alertIndex.close();
+        }
+    }
+
+    // ==================== 检索 ====================
+
+    /**
+     * 检索事件关键词，时间范围用于跳过无关的日期分段
+     */
+    public KeywordMatch matchEvents(String keyword, LocalDateTime startTime, LocalDateTime endTime) {
+        return match(eventIndex, keyword, startTime != null ? startTime.toLocalDate() : null,
+                endTime != null ? endTime.toLocalDate() : null);
+    }
+
+    /**
+     * 检索告警关键词
+     */
+    public KeywordMatch matchAlerts(String keyword) {
+        return match(alertIndex, keyword, null, null);
+    }
+
+    // ==================== 索引维护 ====================
+
+    /**
+     * 告警处理人等可检索字段变更后重新索引；尚未索引的告警由增量读取覆盖
+     */
+    public void alertUpdated(Alert alert) {
+        if (ready && alert.getId() != null && alert.getId() <= alertIndex.getCursor()) {
+            alertUpdates.add(alertDoc(alert));
+        }
+    }
+
+    /**
+     * 事件按保留期清理后整段删除对应日期之前的索引；在事务内调用时提交后再删除
+     */
+    public void eventsPurgedBefore(LocalDateTime cutoff) {
+        afterCommit(() -> dropBefore(eventIndex, cutoff));
+    }
+
+    /**
+     * 告警按保留期清理后整段删除对应日期之前的索引；在事务内调用时提交后再删除
+     */
+    public void alertsPurgedBefore(LocalDateTime cutoff) {
+        afterCommit(() -> dropBefore(alertIndex, cutoff));
+    }
+
+    /**
+     * 定时增量索引新入库的事件和告警
+     */
+    @Scheduled(fixedDelayString = "${search.fulltext.index-interval-ms:2000}")
+    public void indexPending() {
+        if (!ready || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(settleSeconds);
+            indexedEvents.addAndGet(fillGaps(eventIndex, eventRepository::findForFullTextIndexByIds,
+                    FullTextSearchService::eventDoc));
+            indexedAlerts.addAndGet(fillGaps(alertIndex, alertRepository::findAllById, FullTextSearchService::alertDoc));
+            indexedEvents.addAndGet(catchUp(eventIndex,
+                    lastId -> eventRepository.findForFullTextIndex(lastId, settledBefore, PageRequest.of(0, batchSize)),
+                    UnifiedSecurityEvent::getId, FullTextSearchService::eventDoc));
+            indexedAlerts.addAndGet(catchUp(alertIndex,
+                    lastId -> alertRepository.findForFullTextIndex(lastId, settledBefore, PageRequest.of(0, batchSize)),
+                    Alert::getId, FullTextSearchService::alertDoc));
+
+            List<SegmentedTextIndex.Doc> updates = new ArrayList<>();
+            for (SegmentedTextIndex.Doc doc; (doc = alertUpdates.poll()) != null; ) {
+                updates.add(doc);
+            }
+            if (!updates.isEmpty()) {
+                alertIndex.index(updates);
+                alertIndex.commit(alertIndex.getCursor());
+            }
+
+            eventIndex.closeIdleWriters(10 * 60_000L);
+            alertIndex.closeIdleWriters(10 * 60_000L);
+            lastError = null;
+        } catch (IOException | DataAccessException e) {
+            lastError = e.getMessage();
+            log.warn("全文索引增量更新失败: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("ready", ready);
+        status.put("directory", directory.toString());
+        if (ready) {
+            status.put("eventCursor", eventIndex.getCursor());
+            status.put("eventSegments", eventIndex.getSegmentCount());
+            status.put("eventGaps", eventIndex.getGaps().size());
+            status.put("alertCursor", alertIndex.getCursor());
+            status.put("alertSegments", alertIndex.getSegmentCount());
+            status.put("alertGaps", alertIndex.getGaps().size());
+        }
+        status.put("indexedEvents", indexedEvents.get());
+        status.put("indexedAlerts", indexedAlerts.get());
+        status.put("indexQueries", indexQueries.get());
+        status.put("fallbackQueries", fallbackQueries.get());
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private KeywordMatch match(SegmentedTextIndex index, String keyword, LocalDate from, LocalDate to) {
+        if (!ready || keyword == null || keyword.trim().length() < minKeywordLength) {
+            return null;
+        }
+        // 先取索引位置和待补 id 再检索：检索期间新提交的记录 id 更大，或仍在待补 id 中，都由 LIKE 条件覆盖
+        long indexedUpTo = index.getCursor();
+        Set<Long> gaps = Set.copyOf(index.getGaps());
+        if (gaps.size() > maxCandidates) {
+            fallbackQueries.incrementAndGet();
+            return null;
+        }
+        try {
+            Set<Long> ids = index.search(keyword.trim(), from, to, maxCandidates);
+            if (ids != null) {
+                indexQueries.incrementAndGet();
+                return new KeywordMatch(ids, indexedUpTo, gaps);
+            }
+        } catch (SegmentedTextIndex.TooManyHitsException e) {
+            log.debug("关键词 {} 命中超过 {} 条，回退到数据库查询", keyword, maxCandidates);
+        } catch (IOException | RuntimeException e) {
+            log.warn("全文索引检索失败，回退到数据库查询: {}", e.getMessage());
+        }
+        fallbackQueries.incrementAndGet();
+        return null;
+    }
+
+    private void dropBefore(SegmentedTextIndex index, LocalDateTime cutoff) {
+        if (ready) {
+            index.dropBefore(cutoff.toLocalDate());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 补读索引位置之前被越过的 id：提交晚于更大 id 的事务在提交后才可见，
+     * 超过保留时间仍未出现的 id 视为已回滚或已删除
+     */
+    private <T> long fillGaps(SegmentedTextIndex index, Function<List<Long>, List<T>> fetch,
+                              Function<T, SegmentedTextIndex.Doc> toDoc) throws IOException {
+        index.expireGaps(System.currentTimeMillis() - gapRetentionMillis);
+        List<Long> ids = index.getGaps().stream().limit(batchSize).toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<T> rows = fetch.apply(ids);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        index.index(rows.stream().map(toDoc).collect(Collectors.toList()));
+        index.commit(index.getCursor());
+        return rows.size();
+    }
+
+    private <T> long catchUp(SegmentedTextIndex index, Function<Long, List<T>> fetch, ToLongFunction<T> idOf,
+                             Function<T, SegmentedTextIndex.Doc> toDoc) throws IOException {
+        long indexed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<T> rows = fetch.apply(index.getCursor());
+            if (rows.isEmpty()) {
+                break;
+            }
+            index.index(rows.stream().map(toDoc).collect(Collectors.toList()));
+            index.commit(idOf.applyAsLong(rows.get(rows.size() - 1)));
+            indexed += rows.size();
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return indexed;
+    }
+
+    private static SegmentedTextIndex.Doc eventDoc(UnifiedSecurityEvent event) {
+        LocalDateTime time = event.getTimestamp() != null ? event.getTimestamp() : event.getCreatedAt();
+        return new SegmentedTextIndex.Doc(event.getId(), time != null ? time.toLocalDate() : LocalDate.now(),
+                text(event.getRawMessage(), event.getNormalizedMessage(), event.getAnomalyReason()));
+    }
+
+    private static SegmentedTextIndex.Doc alertDoc(Alert alert) {
+        return new SegmentedTextIndex.Doc(alert.getId(), alert.getCreatedTime().toLocalDate(),
+                text(alert.getAlertId(), alert.getSource(), alert.getAlertType(), alert.getDescription(),
+                        alert.getAssignee()));
+    }
+
+    private static String text(String... values) {
+        return Stream.of(values).filter(Objects::nonNull).collect(Collectors.joining("\n"));
+    }
+}
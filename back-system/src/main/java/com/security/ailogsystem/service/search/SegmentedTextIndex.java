@@ -0,0 +1,404 @@
+package com.security.ailogsystem.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * 按天分段的本地全文索引
+ * 每天一个 Lucene 索引目录（yyyy-MM-dd），文档只包含记录 id 和待检索文本，保留期清理时整段删除；
+ * 另以 cursor 文件记录已按 id 顺序索引到的位置，gaps 文件记录位置之前被越过、尚未索引的 id
+ * （提交晚于更大 id 的事务），由调用方按 id 补读。写入、提交和分段清理由单个索引线程调用，检索可并发。
+ * 文本按 SubstringAnalyzer 切分为三元组，检索结果为包含关键词子串的文档；format 文件记录分词方式，不一致时清空重建
+ */
+@Slf4j
+class SegmentedTextIndex {
+
+    static final String ID = "id";
+    static final String TEXT = "text";
+    private static final String CURSOR_FILE = "cursor";
+    private static final String GAPS_FILE = "gaps";
+    private static final String FORMAT_FILE = "format";
+    static final String FORMAT = "substring-3";
+    // 单个 id 空洞超过该长度时视为 id 跳跃（删除、自增步长变化），不逐个跟踪
+    static final int DEFAULT_MAX_GAP_SPAN = 1000;
+
+    /**
+     * 待索引文档，day 决定所在分段
+     */
+    record Doc(long id, LocalDate day, String text) {
+    }
+
+    /**
+     * 命中数超过上限，调用方应回退到数据库查询
+     */
+    static final class TooManyHitsException extends RuntimeException {
+        TooManyHitsException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Segment {
+        private final LocalDate day;
+        private final FSDirectory directory;
+        private IndexWriter writer;
+        private volatile SearcherManager searcherManager;
+        private boolean dirty;
+        private long lastWriteAt;
+
+        Segment(LocalDate day, FSDirectory directory) {
+            this.day = day;
+            this.directory = directory;
+        }
+    }
+
+    private final String name;
+    private final Path directory;
+    private final Analyzer analyzer = new SubstringAnalyzer();
+    private final int maxGapSpan;
+    private final NavigableMap<LocalDate, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile long cursor;
+    // 索引位置之前尚未索引的 id -> 发现时间（毫秒）
+    private final NavigableMap<Long, Long> gaps = new ConcurrentSkipListMap<>();
+    // 上次提交之后写入的 id
+    private final Set<Long> indexedIds = new HashSet<>();
+
+    SegmentedTextIndex(String name, Path directory) {
+        this(name, directory, DEFAULT_MAX_GAP_SPAN);
+    }
+
+    SegmentedTextIndex(String name, Path directory, int maxGapSpan) {
+        this.name = name;
+        this.directory = directory;
+        this.maxGapSpan = maxGapSpan;
+    }
+
+    /**
+     * 打开已有分段并读取索引位置；分词方式与现有索引不一致时清空，由调用方从头重建
+     */
+    synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        Path formatFile = directory.resolve(FORMAT_FILE);
+        if (!Files.exists(formatFile) || !FORMAT.equals(Files.readString(formatFile, StandardCharsets.UTF_8).trim())) {
+            try (Stream<Path> children = Files.list(directory)) {
+                List<Path> stale = children.toList();
+                if (!stale.isEmpty()) {
+                    log.info("全文索引 {} 的格式已变更，清空后重建", name);
+                    IOUtils.rm(stale.toArray(new Path[0]));
+                }
+            }
+            write(FORMAT_FILE, FORMAT);
+        }
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : children.filter(Files::isDirectory).toList()) {
+                LocalDate day;
+                try {
+                    day = LocalDate.parse(child.getFileName().toString());
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                Segment segment = new Segment(day, FSDirectory.open(child));
+                if (DirectoryReader.indexExists(segment.directory)) {
+                    segment.searcherManager = new SearcherManager(segment.directory, null);
+                }
+                segments.put(day, segment);
+            }
+        }
+        Path cursorFile = directory.resolve(CURSOR_FILE);
+        if (Files.exists(cursorFile)) {
+            cursor = Long.parseLong(Files.readString(cursorFile, StandardCharsets.UTF_8).trim());
+        }
+        Path gapsFile = directory.resolve(GAPS_FILE);
+        if (Files.exists(gapsFile)) {
+            for (String line : Files.readAllLines(gapsFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length == 2) {
+                    gaps.put(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                }
+            }
+        }
+        log.info("全文索引 {} 已打开: {} 个分段, 已索引到 id={}, 待补 {} 个", name, segments.size(), cursor, gaps.size());
+    }
+
+    long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * 索引位置之前尚未索引的 id
+     */
+    NavigableSet<Long> getGaps() {
+        return Collections.unmodifiableNavigableSet(gaps.navigableKeySet());
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 写入或覆盖文档，提交后可见
+     */
+    synchronized void index(List<Doc> docs) throws IOException {
+        long now = System.currentTimeMillis();
+        for (Doc doc : docs) {
+            Segment segment = segment(doc.day());
+            if (segment.writer == null) {
+                segment.writer = new IndexWriter(segment.directory, new IndexWriterConfig(analyzer)
+                        .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            }
+            Document document = new Document();
+            document.add(new StringField(ID, Long.toString(doc.id()), Field.Store.NO));
+            document.add(new NumericDocValuesField(ID, doc.id()));
+            document.add(new TextField(TEXT, doc.text(), Field.Store.NO));
+            segment.writer.updateDocument(new Term(ID, Long.toString(doc.id())), document);
+            segment.dirty = true;
+            segment.lastWriteAt = now;
+            indexedIds.add(doc.id());
+        }
+    }
+
+    /**
+     * 提交有改动的分段并记录索引位置；位置在分段提交之后写入，宕机时最多重复索引一批。
+     * 位置推进时越过的、本次未写入的 id 记为待补，已写入的待补 id 移除
+     */
+    synchronized void commit(long newCursor) throws IOException {
+        for (Segment segment : segments.values()) {
+            if (!segment.dirty) {
+                continue;
+            }
+            segment.writer.commit();
+            segment.dirty = false;
+            if (segment.searcherManager == null) {
+                segment.searcherManager = new SearcherManager(segment.directory, null);
+            } else {
+                segment.searcherManager.maybeRefresh();
+            }
+        }
+        boolean gapsChanged = gaps.keySet().removeAll(indexedIds);
+        if (newCursor > cursor) {
+            gapsChanged |= trackGaps(newCursor);
+        }
+        indexedIds.clear();
+        // 先写待补 id 再写位置，宕机时不会丢失越过的 id
+        if (gapsChanged) {
+            writeGaps();
+        }
+        if (newCursor != cursor) {
+            write(CURSOR_FILE, Long.toString(newCursor));
+            cursor = newCursor;
+        }
+    }
+
+    /**
+     * 移除发现时间早于指定时刻的待补 id，视为已回滚或已删除
+     */
+    synchronized int expireGaps(long discoveredBeforeMillis) throws IOException {
+        int before = gaps.size();
+        gaps.values().removeIf(discoveredAt -> discoveredAt < discoveredBeforeMillis);
+        int expired = before - gaps.size();
+        if (expired > 0) {
+            writeGaps();
+            log.debug("全文索引 {} 放弃 {} 个超时未出现的待补 id", name, expired);
+        }
+        return expired;
+    }
+
+    /**
+     * 关闭一段时间没有写入的分段的 IndexWriter，释放写缓冲和文件锁
+     */
+    synchronized void closeIdleWriters(long idleMillis) {
+        long threshold = System.currentTimeMillis() - idleMillis;
+        for (Segment segment : segments.values()) {
+            if (segment.writer != null && !segment.dirty && segment.lastWriteAt < threshold) {
+                IOUtils.closeWhileHandlingException(segment.writer);
+                segment.writer = null;
+            }
+        }
+    }
+
+    /**
+     * 删除早于指定日期的整段索引
+     */
+    synchronized int dropBefore(LocalDate day) {
+        int dropped = 0;
+        for (Segment segment : new ArrayList<>(segments.headMap(day, false).values())) {
+            segments.remove(segment.day);
+            Path path = segment.directory.getDirectory();
+            IOUtils.closeWhileHandlingException(segment.writer, segment.searcherManager, segment.directory);
+            try {
+                IOUtils.rm(path);
+                dropped++;
+            } catch (IOException e) {
+                log.warn("删除全文索引分段失败: {} {}", name, segment.day, e);
+            }
+        }
+        if (dropped > 0) {
+            log.info("全文索引 {} 已删除 {} 个早于 {} 的分段", name, dropped, day);
+        }
+        return dropped;
+    }
+
+    /**
+     * 检索包含关键词子串（不区分大小写）的记录 id
+     * 多个字段拼接索引，跨字段拼接处的匹配可能多出少量候选，调用方需按原条件复核
+     *
+     * @param from 起始日期（含），null 表示不限
+     * @param to   结束日期（含），null 表示不限
+     * @return 关键词为空时返回 null
+     * @throws TooManyHitsException 命中数超过 maxHits
+     */
+    Set<Long> search(String keyword, LocalDate from, LocalDate to, int maxHits) throws IOException {
+        Query query = SubstringAnalyzer.substringQuery(TEXT, keyword);
+        if (query == null) {
+            return null;
+        }
+        NavigableMap<LocalDate, Segment> range = segments;
+        if (from != null && to != null) {
+            range = from.isAfter(to) ? Collections.emptyNavigableMap() : segments.subMap(from, true, to, true);
+        } else if (from != null) {
+            range = segments.tailMap(from, true);
+        } else if (to != null) {
+            range = segments.headMap(to, true);
+        }
+        IdCollector collector = new IdCollector(maxHits);
+        for (Segment segment : range.values()) {
+            SearcherManager manager = segment.searcherManager;
+            if (manager == null) {
+                continue;
+            }
+            IndexSearcher searcher;
+            try {
+                searcher = manager.acquire();
+            } catch (AlreadyClosedException e) {
+                // 分段刚被保留期清理删除
+                continue;
+            }
+            try {
+                searcher.search(query, collector);
+            } finally {
+                manager.release(searcher);
+            }
+        }
+        return collector.ids;
+    }
+
+    synchronized void close() {
+        for (Segment segment : segments.values()) {
+            IOUtils.closeWhileHandlingException(segment.writer, segment.searcherManager, segment.directory);
+        }
+        segments.clear();
+    }
+
+    /**
+     * 记录 (cursor, newCursor) 之间本次未写入的 id；超过 maxGapSpan 的空洞视为 id 跳跃
+     */
+    private boolean trackGaps(long newCursor) {
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        long previous = cursor;
+        List<Long> written = new ArrayList<>();
+        for (long id : indexedIds) {
+            if (id > cursor && id < newCursor) {
+                written.add(id);
+            }
+        }
+        written.add(newCursor);
+        Collections.sort(written);
+        for (long id : written) {
+            long span = id - previous - 1;
+            if (span > maxGapSpan) {
+                log.debug("全文索引 {} 跳过 id 空洞 ({}, {})", name, previous, id);
+            } else {
+                for (long missing = previous + 1; missing < id; missing++) {
+                    gaps.putIfAbsent(missing, now);
+                    changed = true;
+                }
+            }
+            previous = id;
+        }
+        return changed;
+    }
+
+    private void writeGaps() throws IOException {
+        StringBuilder content = new StringBuilder();
+        gaps.forEach((id, discoveredAt) -> content.append(id).append(' ').append(discoveredAt).append('\n'));
+        write(GAPS_FILE, content.toString());
+    }
+
+    private void write(String file, String content) throws IOException {
+        Path tmp = directory.resolve(file + ".tmp");
+        Files.writeString(tmp, content, StandardCharsets.UTF_8);
+        Files.move(tmp, directory.resolve(file), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Segment segment(LocalDate day) throws IOException {
+        Segment segment = segments.get(day);
+        if (segment == null) {
+            Path path = directory.resolve(day.toString());
+            Files.createDirectories(path);
+            segment = new Segment(day, FSDirectory.open(path));
+            segments.put(day, segment);
+        }
+        return segment;
+    }
+
+    private static final class IdCollector extends SimpleCollector {
+        private final Set<Long> ids = new HashSet<>();
+        private final int maxHits;
+        private NumericDocValues values;
+
+        IdCollector(int maxHits) {
+            this.maxHits = maxHits;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values = DocValues.getNumeric(context.reader(), ID);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                ids.add(values.longValue());
+                if (ids.size() > maxHits) {
+                    throw new TooManyHitsException();
+                }
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+}
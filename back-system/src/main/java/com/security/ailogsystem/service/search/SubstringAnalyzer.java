@@ -0,0 +1,109 @@
+package com.security.ailogsystem.service.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 子串检索分词器
+ * 文本转小写后从每个字符起取 3 个字符作为一个词（末尾不足 3 个字符的取到结尾），位置依次递增；
+ * 文本包含某个子串，当且仅当子串的各个三元组按相同间隔出现在文本中，因此检索不需要前导通配符
+ */
+final class SubstringAnalyzer extends Analyzer {
+
+    static final int GRAM = 3;
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        return new TokenStreamComponents(new GramTokenizer());
+    }
+
+    /**
+     * 构造包含关键词（不区分大小写）的文档的查询：
+     * 不足 3 个字符时按词前缀匹配，否则将三元组作为短语按原间隔匹配（相邻且互不重叠的三元组即可覆盖全部字符）
+     *
+     * @return 关键词为空时返回 null
+     */
+    static Query substringQuery(String field, String keyword) {
+        char[] chars = lowerCase(keyword.toCharArray(), keyword.length());
+        if (chars.length == 0) {
+            return null;
+        }
+        if (chars.length < GRAM) {
+            return new PrefixQuery(new Term(field, new String(chars)));
+        }
+        PhraseQuery.Builder builder = new PhraseQuery.Builder();
+        int last = chars.length - GRAM;
+        for (int position = 0; position < last; position += GRAM) {
+            builder.add(new Term(field, new String(chars, position, GRAM)), position);
+        }
+        builder.add(new Term(field, new String(chars, last, GRAM)), last);
+        return builder.build();
+    }
+
+    private static char[] lowerCase(char[] chars, int length) {
+        for (int i = 0; i < length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return chars;
+    }
+
+    private static final class GramTokenizer extends Tokenizer {
+        private final CharTermAttribute term = addAttribute(CharTermAttribute.class);
+        private final OffsetAttribute offset = addAttribute(OffsetAttribute.class);
+        private char[] text = new char[256];
+        private int length;
+        private int position;
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            length = 0;
+            position = 0;
+            int read;
+            while ((read = input.read(text, length, text.length - length)) != -1) {
+                length += read;
+                if (length == text.length) {
+                    text = Arrays.copyOf(text, text.length * 2);
+                }
+            }
+            lowerCase(text, length);
+        }
+
+        @Override
+        public boolean incrementToken() {
+            if (position >= length) {
+                return false;
+            }
+            clearAttributes();
+            int end = Math.min(position + GRAM, length);
+            term.copyBuffer(text, position, end - position);
+            offset.setOffset(correctOffset(position), correctOffset(end));
+            position++;
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            offset.setOffset(correctOffset(length), correctOffset(length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            // 超长文本用过的大缓冲区不随分词器复用保留
+            if (text.length > 4096) {
+                text = new char[256];
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.security.ailogsystem.service.timeline;
+
+import com.security.ailogsystem.dto.CursorSliceDTO;
+import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.repository.SparseFieldQuery;
+import com.security.ailogsystem.repository.UnifiedEventRepository;
+import com.security.ailogsystem.service.downsample.LttbDownsampler;
+import com.security.ailogsystem.service.downsample.TimeBucket;
+import com.security.ailogsystem.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 实体调查时间线
+ * 按用户、来源 IP 或主机 IP 返回时间倒序的事件（游标分页）和按时间分桶的事件数/异常数。
+ * 查询条件为 维度列 = ? AND timestamp 范围，由 (维度列, timestamp, is_anomaly) 复合索引支撑：
+ * 翻页先只查 (id, timestamp)（索引覆盖），再按主键加载本页的事件；分桶计数只读索引
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class EventTimelineService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String SORT_BY = "timestamp";
+    private static final Sort.Direction DIRECTION = Sort.Direction.DESC;
+
+    private final UnifiedEventRepository eventRepository;
+    private final SparseFieldQuery sparseFieldQuery;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param cursor 上一页返回的 nextCursor，为空时返回首页并附带分桶计数
+     * @throws IllegalArgumentException 时间范围无效、分桶数超过上限或游标无效
+     */
+    public Map<String, Object> timeline(TimelineDimension dimension, String value, LocalDateTime start,
+                                        LocalDateTime end, TimeBucket bucket, String cursor, int size) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("时间线实体不能为空");
+        }
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("开始时间必须早于结束时间");
+        }
+        KeysetCursor keyset = KeysetCursor.decode(cursor, SORT_BY, DIRECTION);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dimension", dimension.name());
+        result.put("value", value);
+        result.put("startTime", start);
+        result.put("endTime", end);
+        result.put("events", events(dimension, value, start, end, keyset, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+        if (keyset == null) {
+            List<Map<String, Object>> buckets = new ArrayList<>();
+            long totalEvents = 0;
+            long anomalyEvents = 0;
+            for (Map.Entry<LocalDateTime, long[]> entry : buckets(dimension, value, start, end, bucket).entrySet()) {
+                long[] counts = entry.getValue();
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("time", bucket.label(entry.getKey()));
+                item.put("eventCount", counts[0]);
+                item.put("anomalyCount", counts[1]);
+                buckets.add(item);
+                totalEvents += counts[0];
+                anomalyEvents += counts[1];
+            }
+            result.put("granularity", bucket.name().toLowerCase());
+            result.put("buckets", buckets);
+            result.put("totalEvents", totalEvents);
+            result.put("anomalyEvents", anomalyEvents);
+        }
+        return result;
+    }
+
+    /**
+     * 时间倒序的一页事件：先按索引取 (id, timestamp) 定位本页，再按主键加载这些事件
+     */
+    private CursorSliceDTO<UnifiedSecurityEventDTO> events(TimelineDimension dimension, String value,
+                                                           LocalDateTime start, LocalDateTime end,
+                                                           KeysetCursor keyset, int size) {
+        Specification<UnifiedSecurityEvent> spec = filter(dimension, value, start, end);
+        if (keyset != null) {
+            spec = spec.and(keyset.toSpecification());
+        }
+        List<Map<String, Object>> keys = sparseFieldQuery.findAll(UnifiedSecurityEvent.class, List.of("id", SORT_BY),
+                spec, KeysetCursor.sort(SORT_BY, DIRECTION), 0, KeysetCursor.fetchSize(size));
+        Slice<Map<String, Object>> slice = KeysetCursor.slice(keys, size, SORT_BY, DIRECTION);
+
+        List<Long> ids = slice.getContent().stream().map(row -> (Long) row.get("id")).toList();
+        Map<Long, UnifiedSecurityEvent> events = eventRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(UnifiedSecurityEvent::getId, Function.identity()));
+        List<UnifiedSecurityEventDTO> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UnifiedSecurityEvent event = events.get(id);
+            if (event != null) {
+                content.add(UnifiedSecurityEventDTO.fromEntitySummary(event));
+            }
+        }
+        return new CursorSliceDTO<>(content, size, content.size(), slice.hasNext(),
+                KeysetCursor.next(slice, SORT_BY, DIRECTION));
+    }
+
+    /**
+     * 按时间分桶的事件数和异常数，按时间升序；周由天级分组合并
+     */
+    private TreeMap<LocalDateTime, long[]> buckets(TimelineDimension dimension, String value, LocalDateTime start,
+                                                   LocalDateTime end, TimeBucket bucket) {
+        long bucketCount = bucketCount(start, end, bucket);
+        if (bucketCount > LttbDownsampler.MAX_POINTS_LIMIT) {
+            throw new IllegalArgumentException("时间范围内的分桶数 " + bucketCount + " 超过上限 "
+                    + LttbDownsampler.MAX_POINTS_LIMIT + "，请使用更粗的粒度");
+        }
+        String pattern = bucketPattern(bucket);
+        String expression = "format(e.timestamp as '" + pattern + "')";
+        List<Object[]> rows = entityManager.createQuery("SELECT " + expression + ", COUNT(e), "
+                        + "SUM(CASE WHEN e.isAnomaly = true THEN 1 ELSE 0 END) FROM UnifiedSecurityEvent e"
+                        + " WHERE e." + dimension.property() + " = :value AND e.timestamp BETWEEN :start AND :end"
+                        + " GROUP BY " + expression, Object[].class)
+                .setParameter("value", value)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+
+        DateTimeFormatter parser = new DateTimeFormatterBuilder().appendPattern(pattern)
+                .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                .toFormatter();
+        TreeMap<LocalDateTime, long[]> buckets = new TreeMap<>();
+        for (Object[] row : rows) {
+            LocalDateTime time = bucket.truncate(LocalDateTime.parse((String) row[0], parser));
+            long[] counts = buckets.computeIfAbsent(time, key -> new long[2]);
+            counts[0] += ((Number) row[1]).longValue();
+            counts[1] += row[2] != null ? ((Number) row[2]).longValue() : 0L;
+        }
+        return buckets;
+    }
+
+    private static Specification<UnifiedSecurityEvent> filter(TimelineDimension dimension, String value,
+                                                              LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get(dimension.property()), value),
+                cb.between(root.<LocalDateTime>get(SORT_BY), start, end));
+    }
+
+    /**
+     * 分组格式（HQL format 会按数据库方言翻译，如 MySQL 的 DATE_FORMAT）
+     */
+    private static String bucketPattern(TimeBucket bucket) {
+        switch (bucket.rollup()) {
+            case MINUTE:
+                return "yyyy-MM-dd HH:mm";
+            case HOUR:
+                return "yyyy-MM-dd HH";
+            default:
+                return "yyyy-MM-dd";
+        }
+    }
+
+    private static long bucketCount(LocalDateTime start, LocalDateTime end, TimeBucket bucket) {
+        Duration range = Duration.between(start, end);
+        switch (bucket) {
+            case MINUTE:
+                return range.toMinutes() + 1;
+            case HOUR:
+                return range.toHours() + 1;
+            case DAY:
+                return range.toDays() + 1;
+            default:
+                return range.toDays() / 7 + 1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.security.ailogsystem.service.timeline;
+
+/**
+ * 调查时间线的实体维度，每个维度都有 (列, timestamp, is_anomaly) 复合索引
+ */
+public enum TimelineDimension {
+
+    USER("userId"),
+    SOURCE_IP("sourceIp"),
+    HOST("hostIp");
+
+    private final String property;
+
+    TimelineDimension(String property) {
+        this.property = property;
+    }
+
+    /**
+     * 实体属性名
+     */
+    public String property() {
+        return property;
+    }
+
+    /**
+     * 解析路径中的维度：user、source-ip、host
+     *
+     * @throws IllegalArgumentException 不支持的维度
+     */
+    public static TimelineDimension of(String value) {
+        switch (value == null ? "" : value.trim().toLowerCase()) {
+            case "user":
+            case "user-id":
+                return USER;
+            case "source-ip":
+            case "ip":
+                return SOURCE_IP;
+            case "host":
+            case "host-ip":
+                return HOST;
+            default:
+                throw new IllegalArgumentException("不支持的时间线维度: " + value);
+        }
+    }
+}
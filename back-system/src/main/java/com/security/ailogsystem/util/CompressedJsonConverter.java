@@ -0,0 +1,46 @@
+package com.security.ailogsystem.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JSON 列透明压缩
+ * MySQL JSON 列只接受合法 JSON，压缩值包装为 {"$z":"C1:..."} 存储；
+ * 读取时兼容 MySQL 规范化后的空白，未包装的历史 JSON 原样返回
+ */
+@Converter
+public class CompressedJsonConverter implements AttributeConverter<String, String> {
+
+    static final String KEY = "$z";
+    private static final Pattern WRAPPED = Pattern.compile("^\\{\\s*\"\\$z\"\\s*:\\s*\"([A-Za-z0-9+/=:]+)\"\\s*}$");
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        String encoded = PayloadCompression.current().encode(attribute);
+        // Base64 与前缀只含 [A-Za-z0-9+/=:]，无需 JSON 转义
+        return encoded != null ? "{\"" + KEY + "\":\"" + encoded + "\"}" : attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        String encoded = unwrap(dbData);
+        return encoded != null ? PayloadCompression.current().decode(encoded) : dbData;
+    }
+
+    /**
+     * 提取包装中的压缩编码，不是压缩值时返回 null
+     */
+    public static String unwrap(String dbData) {
+        if (dbData == null || dbData.indexOf(KEY) < 0) {
+            return null;
+        }
+        Matcher matcher = WRAPPED.matcher(dbData.trim());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.security.ailogsystem.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * TEXT 列透明压缩
+ * 写入时超过阈值的文本压缩存储，读取时自动解压，历史明文行无需迁移即可读取
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return PayloadCompression.current().compressText(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return PayloadCompression.current().decompressText(dbData);
+    }
+}
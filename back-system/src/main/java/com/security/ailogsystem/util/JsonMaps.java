@@ -0,0 +1,78 @@
+package com.security.ailogsystem.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 实体内 JSON 字段的共享编解码
+ * 实体无法注入 Spring 的 ObjectMapper，这里提供一个全局复用的预配置实例和预构建的 Reader，
+ * 避免每次访问都新建 ObjectMapper 并重新解析类型
+ */
+public final class JsonMaps {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final ObjectReader OBJECT_MAP_READER =
+            MAPPER.readerFor(new TypeReference<Map<String, Object>>() {});
+    private static final ObjectReader DOUBLE_MAP_READER =
+            MAPPER.readerFor(new TypeReference<Map<String, Double>>() {});
+
+    private JsonMaps() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     * 解析为只读 Map；空值或格式错误时返回空 Map
+     */
+    public static Map<String, Object> readObjectMap(String json) {
+        if (json == null || json.isBlank()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<String, Object> map = OBJECT_MAP_READER.readValue(json);
+            return map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap();
+        } catch (JsonProcessingException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 解析为只读数值 Map；空值或格式错误时返回空 Map
+     */
+    public static Map<String, Double> readDoubleMap(String json) {
+        if (json == null || json.isBlank()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<String, Double> map = DOUBLE_MAP_READER.readValue(json);
+            return map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap();
+        } catch (JsonProcessingException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 序列化为 JSON；失败时返回 fallback
+     */
+    public static String write(Object value, String fallback) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.security.ailogsystem.util;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 键集（游标）分页
+ * 按 (排序字段, id) 定位上一页最后一条记录，下一页只取其后的记录，不使用 OFFSET 也不执行 COUNT；
+ * 游标对客户端不透明，内容为排序字段、方向、最后一条记录的排序值和 id。
+ * 排序值为 null 的记录按 MySQL 语义处理：升序排在最前，降序排在最后
+ */
+public final class KeysetCursor {
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final String value;
+    private final long lastId;
+
+    private KeysetCursor(String sortBy, Sort.Direction direction, String value, long lastId) {
+        this.sortBy = sortBy;
+        this.direction = direction;
+        this.value = value;
+        this.lastId = lastId;
+    }
+
+    /**
+     * 解析客户端传回的游标，并校验与本次请求的排序条件一致
+     *
+     * @return 游标为空时返回 null，表示第一页
+     * @throws IllegalArgumentException 游标无法解析或排序条件不一致
+     */
+    public static KeysetCursor decode(String token, String sortBy, Sort.Direction direction) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (!parts[0].equals(sortBy) || !parts[1].equals(direction.name())) {
+            throw new IllegalArgumentException("分页游标与排序条件不一致");
+        }
+        try {
+            String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new KeysetCursor(parts[0], direction, value, Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 排序字段加 id 作为同值时的次序，保证翻页稳定
+     */
+    public static Sort sort(String sortBy, Sort.Direction direction) {
+        Sort sort = Sort.by(direction, sortBy);
+        return ID.equals(sortBy) ? sort : sort.and(Sort.by(direction, ID));
+    }
+
+    /**
+     * 查询条数：多取一条用于判断是否还有下一页
+     */
+    public static int fetchSize(int size) {
+        return size + 1;
+    }
+
+    /**
+     * 将多取一条的查询结果截成 Slice
+     */
+    public static <T> Slice<T> slice(List<T> rows, int size, String sortBy, Sort.Direction direction) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort(sortBy, direction)), hasNext);
+    }
+
+    /**
+     * 下一页游标，已是最后一页时返回 null
+     */
+    public static String next(Slice<?> slice, String sortBy, Sort.Direction direction) {
+        if (!slice.hasNext() || slice.getContent().isEmpty()) {
+            return null;
+        }
+        Object last = slice.getContent().get(slice.getContent().size() - 1);
+        Object id = property(last, ID);
+        Object value = property(last, sortBy);
+        String encodedValue = value == null ? "" : "=" + (value instanceof Enum<?> e ? e.name() : value.toString());
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + encodedValue;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 记录可以是实体，也可以是稀疏字段查询返回的字段 Map
+     */
+    private static Object property(Object row, String name) {
+        if (row instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+        return PropertyAccessorFactory.forBeanPropertyAccess(row).getPropertyValue(name);
+    }
+
+    /**
+     * 只取游标之后记录的查询条件
+     */
+    public <T> Specification<T> toSpecification() {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get(ID);
+            Predicate idAfter = after(cb, id, lastId);
+            if (ID.equals(sortBy)) {
+                return idAfter;
+            }
+            Path<Comparable<Object>> key = root.get(sortBy);
+            if (value == null) {
+                Predicate sameKey = cb.and(cb.isNull(key), idAfter);
+                return direction.isAscending() ? cb.or(sameKey, cb.isNotNull(key)) : sameKey;
+            }
+            Comparable<Object> keyValue = parse(key.getJavaType(), value);
+            Predicate keyAfter = after(cb, key, keyValue);
+            Predicate sameKey = cb.and(cb.equal(key, keyValue), idAfter);
+            return direction.isAscending() ? cb.or(keyAfter, sameKey) : cb.or(keyAfter, sameKey, cb.isNull(key));
+        };
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder cb, Path<Y> path, Y bound) {
+        return direction.isAscending() ? cb.greaterThan(path, bound) : cb.lessThan(path, bound);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable<Object> parse(Class<?> type, String value) {
+        try {
+            if (type == LocalDateTime.class) {
+                return (Comparable) LocalDateTime.parse(value);
+            }
+            if (type == LocalDate.class) {
+                return (Comparable) LocalDate.parse(value);
+            }
+            if (type == Long.class || type == long.class) {
+                return (Comparable) Long.valueOf(value);
+            }
+            if (type == Integer.class || type == int.class) {
+                return (Comparable) Integer.valueOf(value);
+            }
+            if (type == Double.class || type == double.class) {
+                return (Comparable) Double.valueOf(value);
+            }
+            if (type == BigDecimal.class) {
+                return (Comparable) new BigDecimal(value);
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                return (Comparable) Boolean.valueOf(value);
+            }
+            if (type.isEnum()) {
+                return (Comparable) Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return (Comparable) value;
+    }
+}
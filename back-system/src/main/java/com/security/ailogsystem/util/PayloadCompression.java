@@ -0,0 +1,188 @@
+package com.security.ailogsystem.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 大文本字段压缩编解码
+ * 压缩后的值格式为 "C1:{字典ID}:{Base64(zlib)}"，文本列前加 \u0001 标记，未带标记的值视为历史明文原样返回；
+ * 可选预置字典用于提升 Windows 事件等重复性文本的压缩率，字典ID为字典内容的 CRC32，0 表示无字典
+ */
+public final class PayloadCompression {
+
+    static final String TEXT_MARKER = "\u0001";
+    static final String VERSION_PREFIX = "C1:";
+    static final String NO_DICTIONARY = "0";
+
+    private static volatile PayloadCompression current = new PayloadCompression(true, 512, Deflater.DEFAULT_COMPRESSION, null, Map.of());
+
+    private final boolean enabled;
+    private final int minLength;
+    private final int level;
+    private final byte[] dictionary;
+    private final String dictionaryId;
+    private final Map<String, byte[]> dictionaries;
+
+    /**
+     * @param enabled            是否压缩新写入的值（关闭后仍可读取已压缩的值）
+     * @param minLength          低于该字符数的值不压缩
+     * @param level              Deflate 压缩级别
+     * @param dictionary         写入使用的字典，可为 null
+     * @param legacyDictionaries 仅用于读取的历史字典
+     */
+    public PayloadCompression(boolean enabled, int minLength, int level, byte[] dictionary,
+                              Map<String, byte[]> legacyDictionaries) {
+        this.enabled = enabled;
+        this.minLength = minLength;
+        this.level = level;
+        this.dictionaries = new HashMap<>(legacyDictionaries);
+        if (dictionary != null && dictionary.length > 0) {
+            this.dictionary = dictionary;
+            this.dictionaryId = dictionaryId(dictionary);
+            this.dictionaries.put(this.dictionaryId, dictionary);
+        } else {
+            this.dictionary = null;
+            this.dictionaryId = NO_DICTIONARY;
+        }
+    }
+
+    public static PayloadCompression current() {
+        return current;
+    }
+
+    /**
+     * 安装全局编解码配置，由 PayloadCompressionConfig 在启动时调用
+     */
+    public static void install(PayloadCompression compression) {
+        current = compression;
+    }
+
+    public static String dictionaryId(byte[] dictionary) {
+        CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        return Long.toHexString(crc.getValue());
+    }
+
+    public String getDictionaryId() {
+        return dictionaryId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * 压缩为不带文本标记的编码；不满足压缩条件或压缩无收益时返回 null
+     */
+    public String encode(String plain) {
+        if (!enabled || plain == null || plain.length() < minLength) {
+            return null;
+        }
+        byte[] input = plain.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            String encoded = VERSION_PREFIX + dictionaryId + ":" + Base64.getEncoder().encodeToString(out.toByteArray());
+            // Base64 有 4/3 膨胀，短文本或高熵文本可能反而变大
+            return encoded.length() < input.length ? encoded : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解码 encode 的结果
+     *
+     * @throws IllegalArgumentException 格式错误、字典缺失或数据损坏
+     */
+    public String decode(String encoded) {
+        if (!encoded.startsWith(VERSION_PREFIX)) {
+            throw new IllegalArgumentException("不支持的压缩格式版本");
+        }
+        int separator = encoded.indexOf(':', VERSION_PREFIX.length());
+        if (separator < 0) {
+            throw new IllegalArgumentException("压缩值缺少字典标识");
+        }
+        String dictId = encoded.substring(VERSION_PREFIX.length(), separator);
+        byte[] input = Base64.getDecoder().decode(encoded.substring(separator + 1));
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        byte[] dict = dictionaries.get(dictId);
+                        if (dict == null) {
+                            throw new IllegalArgumentException("缺少压缩字典: " + dictId);
+                        }
+                        inflater.setDictionary(dict);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalArgumentException("压缩数据不完整");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩数据损坏: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 文本列写入：满足条件时压缩并加标记，否则原样存储
+     */
+    public String compressText(String plain) {
+        if (plain == null || plain.startsWith(TEXT_MARKER)) {
+            return plain;
+        }
+        String encoded = encode(plain);
+        return encoded != null ? TEXT_MARKER + encoded : plain;
+    }
+
+    /**
+     * 文本列读取：带标记的值解压，历史明文原样返回
+     */
+    public String decompressText(String stored) {
+        if (!isCompressedText(stored)) {
+            return stored;
+        }
+        return decode(stored.substring(TEXT_MARKER.length()));
+    }
+
+    public static boolean isCompressedText(String stored) {
+        return stored != null && stored.startsWith(TEXT_MARKER + VERSION_PREFIX);
+    }
+
+    /**
+     * 已压缩的值（可带文本标记）是否使用了当前写入字典，用于后台重压缩判断
+     */
+    public boolean usesCurrentDictionary(String compressed) {
+        String encoded = compressed.startsWith(TEXT_MARKER) ? compressed.substring(TEXT_MARKER.length()) : compressed;
+        return encoded.startsWith(VERSION_PREFIX + dictionaryId + ":");
+    }
+}
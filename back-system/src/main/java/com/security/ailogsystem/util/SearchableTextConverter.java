@@ -0,0 +1,22 @@
+package com.security.ailogsystem.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * 参与关键词检索的 TEXT 列
+ * 数据库按 LIKE 匹配这些列，因此始终明文写入；读取时兼容曾被压缩写入的历史值，由后台重压缩任务逐步还原为明文
+ */
+@Converter
+public class SearchableTextConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return PayloadCompression.current().decompressText(dbData);
+    }
+}
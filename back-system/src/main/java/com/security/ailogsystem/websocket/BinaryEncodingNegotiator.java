@@ -0,0 +1,162 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 二进制负载编码协商（握手拦截器 + clientInboundChannel / clientOutboundChannel 拦截器）
+ * 原生 WebSocket 端点握手时标记会话可以接收二进制帧；这类会话的 CONNECT 帧带 payload-encoding: cbor 头时，
+ * 之后发给它的 JSON 负载转写为 CBOR，以二进制帧发送，并带 payload-encoding: cbor 头供客户端识别。
+ * SockJS 只能传输文本帧，经 /ws、/api/ws 连接或未协商的会话仍收到 JSON。
+ * 代理把同一条消息发给多个订阅时共用同一个负载数组，转写结果按数组实例缓存，每条消息只转写一次
+ */
+@Slf4j
+@Component
+public class BinaryEncodingNegotiator implements ChannelInterceptor, HandshakeInterceptor, MeterBinder {
+
+    public static final String ENCODING_HEADER = "payload-encoding";
+    public static final String CBOR = "cbor";
+
+    private static final String BINARY_CAPABLE = BinaryEncodingNegotiator.class.getName() + ".BINARY_CAPABLE";
+    private static final int CACHE_SIZE = 64;
+
+    private final WebSocketPublishProperties properties;
+    private final CborMessageConverter converter = new CborMessageConverter();
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+    private final Map<byte[], byte[]> encoded = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<byte[], byte[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public BinaryEncodingNegotiator(WebSocketPublishProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(BINARY_CAPABLE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(message);
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || !sessions.contains(sessionId)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        byte[] cbor = encode(json);
+        if (cbor == null) {
+            return message;
+        }
+        // StompSubProtocolHandler 只对 application/octet-stream 的负载发送二进制帧
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        frames.incrementAndGet();
+        savedBytes.addAndGet(json.length - cbor.length);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    /**
+     * 已协商二进制编码的会话数
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void negotiate(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (properties.isBinaryEncoding() && CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))
+                && attributes != null && attributes.containsKey(BINARY_CAPABLE) && accessor.getSessionId() != null) {
+            sessions.add(accessor.getSessionId());
+            log.debug("[WS] 会话 {} 使用 CBOR 负载", accessor.getSessionId());
+        }
+    }
+
+    private byte[] encode(byte[] json) {
+        synchronized (encoded) {
+            byte[] cached = encoded.get(json);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try {
+            byte[] cbor = converter.transcode(json);
+            synchronized (encoded) {
+                encoded.put(json, cbor);
+            }
+            return cbor;
+        } catch (IOException e) {
+            // 无法转写的负载按原样以 JSON 发送
+            log.debug("[WS] CBOR 转写失败，按 JSON 发送: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("websocket.binary.sessions", sessions, Set::size)
+                .description("协商使用 CBOR 负载的会话数")
+                .register(registry);
+        FunctionCounter.builder("websocket.binary.frames", frames, AtomicLong::get)
+                .description("以 CBOR 二进制帧发出的消息数")
+                .register(registry);
+        FunctionCounter.builder("websocket.binary.saved.bytes", savedBytes, AtomicLong::get)
+                .description("CBOR 负载相对 JSON 节省的字节数")
+                .register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.security.ailogsystem.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * CBOR 消息转换器
+ * 只处理 content-type 为 application/cbor 的消息（严格匹配），未声明类型的消息仍由默认的 JSON 转换器处理；
+ * 日期按 ISO 字符串写出，与 JSON 负载的字段值一致。
+ * {@link #transcode} 把代理已序列化的 JSON 负载流式转写为 CBOR，不经过对象树
+ */
+public class CborMessageConverter extends MappingJackson2MessageConverter {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public CborMessageConverter() {
+        super(APPLICATION_CBOR);
+        setStrictContentTypeMatch(true);
+        setObjectMapper(Jackson2ObjectMapperBuilder.cbor()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    /**
+     * JSON 字节转写为等价的 CBOR 字节
+     */
+    public byte[] transcode(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = JSON_FACTORY.createParser(json);
+             JsonGenerator generator = getObjectMapper().getFactory().createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,142 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.repository.AlertRepository;
+import com.security.ailogsystem.service.rollup.LiveEventCounters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 仪表板状态
+ * 在内存中维护当前聚合状态和版本号，定时从实时计数器取值，只把变化的字段以 JSON Merge Patch 推送到
+ * /topic/dashboard（DASHBOARD_DELTA，data 为 {seq, prev, patch}）。
+ * 客户端收到 prev 与本地版本不一致的差量（落后或重连）时，订阅 /app/dashboard/snapshot 取完整状态后继续应用差量。
+ * 事件计数来自内存计数器，告警计数只在告警变更后或按刷新间隔查询
+ */
+@Slf4j
+@Component
+public class DashboardStateService {
+
+    public static final String DESTINATION = "/topic/dashboard";
+    public static final String DELTA = "DASHBOARD_DELTA";
+
+    private final LiveEventCounters liveEventCounters;
+    private final AlertRepository alertRepository;
+    private final TopicPublisher topicPublisher;
+
+    @Value("${dashboard.state.alert-refresh-ms:30000}")
+    private long alertRefreshMs;
+
+    private Map<String, Object> state = Map.of();
+    private long seq;
+
+    private volatile boolean alertsDirty = true;
+    private long alertsRefreshedAt;
+    private long totalAlerts;
+    private long unhandledAlerts;
+
+    public DashboardStateService(LiveEventCounters liveEventCounters, AlertRepository alertRepository,
+                                 TopicPublisher topicPublisher) {
+        this.liveEventCounters = liveEventCounters;
+        this.alertRepository = alertRepository;
+        this.topicPublisher = topicPublisher;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.state.interval-ms:1000}")
+    public void tick() {
+        refresh(System.currentTimeMillis());
+    }
+
+    /**
+     * 完整状态及其版本号
+     */
+    public synchronized Map<String, Object> snapshot() {
+        if (seq == 0) {
+            refresh(System.currentTimeMillis());
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("seq", seq);
+        snapshot.put("state", state);
+        return snapshot;
+    }
+
+    /**
+     * 告警新增或状态变化，在当前事务提交后重新查询告警计数
+     */
+    public void alertsChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    alertsDirty = true;
+                }
+            });
+        } else {
+            alertsDirty = true;
+        }
+    }
+
+    /**
+     * 重新计算状态，有变化时版本号加一并推送差量
+     */
+    synchronized void refresh(long now) {
+        Map<String, Object> next = build(now);
+        Map<String, Object> patch = MergePatch.diff(state, next);
+        if (patch.isEmpty()) {
+            return;
+        }
+        long prev = seq++;
+        state = next;
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("seq", seq);
+        delta.put("prev", prev);
+        delta.put("patch", patch);
+        topicPublisher.publish(DESTINATION, DELTA, delta);
+        log.debug("[WS] 仪表板状态 v{}，变化字段 {}", seq, patch.keySet());
+    }
+
+    long seq() {
+        return seq;
+    }
+
+    private Map<String, Object> build(long now) {
+        LiveEventCounters.Snapshot counters = liveEventCounters.snapshot();
+        refreshAlerts(now);
+
+        Map<String, Object> next = new LinkedHashMap<>();
+        next.put("totalEvents", counters.totalEvents());
+        next.put("todayEvents", counters.todayEvents());
+        next.put("anomalyCount", counters.anomalyEvents());
+        next.put("severityCounts", new TreeMap<>(counters.severities()));
+        next.put("threatLevelCounts", new TreeMap<>(counters.threatLevels()));
+        Map<String, Object> daily = new TreeMap<>();
+        counters.dailyCounts().forEach((day, count) -> daily.put(day.toString(), count));
+        next.put("dailyCounts", daily);
+        next.put("totalAlerts", totalAlerts);
+        next.put("unhandledAlerts", unhandledAlerts);
+        return next;
+    }
+
+    private void refreshAlerts(long now) {
+        if (!alertsDirty && now - alertsRefreshedAt < alertRefreshMs) {
+            return;
+        }
+        // 查询失败时沿用上次的值，到下一个刷新间隔再试
+        alertsDirty = false;
+        alertsRefreshedAt = now;
+        try {
+            totalAlerts = alertRepository.count();
+            unhandledAlerts = alertRepository.countByHandledFalse();
+        } catch (DataAccessException e) {
+            log.warn("[WS] 查询告警计数失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.security.ailogsystem.websocket;
+
+import java.util.Locale;
+
+/**
+ * 广播事件的路由属性，用于匹配过滤订阅；值统一转为大写，缺失的属性为 null
+ */
+public record EventAttributes(String type, String severity, String sourceSystem, String host, String eventType) {
+
+    public EventAttributes {
+        type = normalize(type);
+        severity = normalize(severity);
+        sourceSystem = normalize(sourceSystem);
+        host = normalize(host);
+        eventType = normalize(eventType);
+    }
+
+    /**
+     * 只有消息类型的属性（统计、通知等）
+     */
+    public static EventAttributes of(String type) {
+        return new EventAttributes(type, null, null, null, null);
+    }
+
+    String get(EventFilter.Field field) {
+        return switch (field) {
+            case TYPE -> type;
+            case SEVERITY -> severity;
+            case SOURCE_SYSTEM -> sourceSystem;
+            case HOST -> host;
+            case EVENT_TYPE -> eventType;
+        };
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toUpperCase(Locale.ROOT);
+    }
+}
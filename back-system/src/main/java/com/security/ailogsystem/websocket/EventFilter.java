@@ -0,0 +1,169 @@
+package com.security.ailogsystem.websocket;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 订阅过滤条件
+ * 表达式由分号分隔的条件组成，条件之间为“且”，同一条件的多个取值以逗号分隔为“或”，比较不区分大小写，例如：
+ * <pre>severity&gt;=HIGH; sourceSystem=WINDOWS; host=web-01,web-02; eventType=4625</pre>
+ * 支持的字段为 type、severity、sourceSystem、host、eventType，只有 severity 支持 &gt;=。
+ * 事件缺少某个字段时，该字段上的条件不匹配。解析时编译为谓词，每条事件只做集合查找
+ */
+public final class EventFilter implements Predicate<EventAttributes> {
+
+    /**
+     * 可过滤的字段，声明顺序即选择性从高到低，订阅按第一个出现的字段建立索引
+     */
+    public enum Field {
+        HOST("host"),
+        EVENT_TYPE("eventType"),
+        SOURCE_SYSTEM("sourceSystem"),
+        SEVERITY("severity"),
+        TYPE("type");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        static Field of(String key) {
+            for (Field field : values()) {
+                if (field.key.equalsIgnoreCase(key)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("不支持的过滤字段: " + key);
+        }
+    }
+
+    static final List<String> SEVERITIES = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    private static final int MAX_LENGTH = 1024;
+
+    private final String expression;
+    private final Map<Field, Set<String>> clauses;
+    private final Predicate<EventAttributes> predicate;
+
+    private EventFilter(String expression, Map<Field, Set<String>> clauses) {
+        this.expression = expression;
+        this.clauses = clauses;
+        this.predicate = compile(clauses);
+    }
+
+    /**
+     * 解析过滤表达式，格式错误时抛出 IllegalArgumentException；空表达式匹配所有事件
+     */
+    public static EventFilter parse(String expression) {
+        String source = expression == null ? "" : expression.trim();
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("过滤表达式过长，最多 " + MAX_LENGTH + " 个字符");
+        }
+        Map<Field, Set<String>> clauses = new EnumMap<>(Field.class);
+        for (String clause : source.split(";")) {
+            if (clause.isBlank()) {
+                continue;
+            }
+            boolean atLeast = clause.contains(">=");
+            int split = atLeast ? clause.indexOf(">=") : clause.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("无效的过滤条件: " + clause.trim());
+            }
+            Field field = Field.of(clause.substring(0, split).trim());
+            if (clauses.containsKey(field)) {
+                throw new IllegalArgumentException("重复的过滤字段: " + field.key());
+            }
+            Set<String> values = values(clause.substring(split + (atLeast ? 2 : 1)));
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("过滤字段 " + field.key() + " 缺少取值");
+            }
+            if (field == Field.SEVERITY) {
+                values = severities(values, atLeast);
+            } else if (atLeast) {
+                throw new IllegalArgumentException("只有 severity 支持 >=: " + clause.trim());
+            }
+            clauses.put(field, Collections.unmodifiableSet(values));
+        }
+        return new EventFilter(source, Collections.unmodifiableMap(clauses));
+    }
+
+    @Override
+    public boolean test(EventAttributes attributes) {
+        return predicate.test(attributes);
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    /**
+     * 建立索引所用的字段，条件为空时返回 null
+     */
+    Field indexField() {
+        for (Field field : Field.values()) {
+            if (clauses.containsKey(field)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    Set<String> values(Field field) {
+        return clauses.getOrDefault(field, Set.of());
+    }
+
+    private static Predicate<EventAttributes> compile(Map<Field, Set<String>> clauses) {
+        Predicate<EventAttributes> predicate = attributes -> true;
+        for (Map.Entry<Field, Set<String>> clause : clauses.entrySet()) {
+            Field field = clause.getKey();
+            Set<String> accepted = clause.getValue();
+            predicate = predicate.and(attributes -> {
+                String value = attributes.get(field);
+                return value != null && accepted.contains(value);
+            });
+        }
+        return predicate;
+    }
+
+    private static Set<String> values(String list) {
+        Set<String> values = new LinkedHashSet<>();
+        for (String value : list.split(",")) {
+            String normalized = EventAttributes.normalize(value);
+            if (normalized != null) {
+                values.add(normalized);
+            }
+        }
+        return values;
+    }
+
+    private static Set<String> severities(Set<String> values, boolean atLeast) {
+        for (String value : values) {
+            if (!SEVERITIES.contains(value)) {
+                throw new IllegalArgumentException("无效的严重级别: " + value + "，可选 " + SEVERITIES);
+            }
+        }
+        if (!atLeast) {
+            return values;
+        }
+        if (values.size() != 1) {
+            throw new IllegalArgumentException("severity>= 只能指定一个级别");
+        }
+        String min = values.iterator().next();
+        return new LinkedHashSet<>(SEVERITIES.subList(SEVERITIES.indexOf(min), SEVERITIES.size()));
+    }
+
+    @Override
+    public String toString() {
+        return expression.isEmpty() ? "*" : expression;
+    }
+}
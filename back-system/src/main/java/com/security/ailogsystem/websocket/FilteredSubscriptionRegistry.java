@@ -0,0 +1,184 @@
+package com.security.ailogsystem.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 过滤订阅注册表（clientInboundChannel 拦截器）
+ * 客户端订阅 /topic/** 时携带 filter 头即为过滤订阅：订阅不交给消息代理，由发布层按条件只把匹配的事件发给该订阅。
+ * 订阅按过滤条件中选择性最高的字段建立索引，路由时只对事件属性命中的索引桶逐个求值，成本与订阅总数无关
+ */
+@Slf4j
+@Component
+public class FilteredSubscriptionRegistry implements ChannelInterceptor {
+
+    public static final String FILTER_HEADER = "filter";
+
+    private static final String FILTERABLE_PREFIX = "/topic/";
+
+    /**
+     * 目的地 -> (会话:订阅 -> 订阅)，只在变更时加锁修改
+     */
+    private final Map<String, Map<String, Subscription>> subscriptions = new HashMap<>();
+
+    /**
+     * 目的地 -> 索引，变更时整体重建，路由时无锁读取
+     */
+    private volatile Map<String, SubscriptionIndex> indexes = Map.of();
+
+    public record Subscription(String sessionId, String subscriptionId, String destination, EventFilter filter) {
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.SUBSCRIBE) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            String expression = accessor.getFirstNativeHeader(FILTER_HEADER);
+            String destination = accessor.getDestination();
+            if (expression == null || destination == null || !destination.startsWith(FILTERABLE_PREFIX)) {
+                return message;
+            }
+            EventFilter filter;
+            try {
+                filter = EventFilter.parse(expression);
+            } catch (IllegalArgumentException e) {
+                throw new MessageDeliveryException(message, "订阅过滤条件无效: " + e.getMessage());
+            }
+            register(new Subscription(accessor.getSessionId(), accessor.getSubscriptionId(), destination, filter));
+            return null;
+        }
+        if (type == SimpMessageType.UNSUBSCRIBE) {
+            unregister(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                    SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        unregisterSession(event.getSessionId());
+    }
+
+    /**
+     * 目的地上是否有过滤订阅
+     */
+    public boolean hasSubscriptions(String destination) {
+        return indexes.containsKey(destination);
+    }
+
+    /**
+     * 返回目的地上与事件属性匹配的过滤订阅
+     */
+    public List<Subscription> match(String destination, EventAttributes attributes) {
+        SubscriptionIndex index = indexes.get(destination);
+        return index == null ? List.of() : index.match(attributes);
+    }
+
+    public int size() {
+        return indexes.values().stream().mapToInt(SubscriptionIndex::size).sum();
+    }
+
+    synchronized void register(Subscription subscription) {
+        subscriptions.computeIfAbsent(subscription.destination(), d -> new LinkedHashMap<>())
+                .put(key(subscription.sessionId(), subscription.subscriptionId()), subscription);
+        rebuild();
+        log.debug("[WS] 过滤订阅 session={}, id={}, destination={}, filter={}", subscription.sessionId(),
+                subscription.subscriptionId(), subscription.destination(), subscription.filter());
+    }
+
+    synchronized void unregister(String sessionId, String subscriptionId) {
+        String key = key(sessionId, subscriptionId);
+        boolean removed = false;
+        for (Map<String, Subscription> byKey : subscriptions.values()) {
+            removed |= byKey.remove(key) != null;
+        }
+        if (removed) {
+            rebuild();
+        }
+    }
+
+    synchronized void unregisterSession(String sessionId) {
+        boolean removed = false;
+        for (Map<String, Subscription> byKey : subscriptions.values()) {
+            removed |= byKey.values().removeIf(s -> s.sessionId().equals(sessionId));
+        }
+        if (removed) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        subscriptions.values().removeIf(Map::isEmpty);
+        Map<String, SubscriptionIndex> rebuilt = new HashMap<>();
+        subscriptions.forEach((destination, byKey) -> rebuilt.put(destination, new SubscriptionIndex(byKey.values())));
+        indexes = Map.copyOf(rebuilt);
+    }
+
+    private static String key(String sessionId, String subscriptionId) {
+        return sessionId + ":" + subscriptionId;
+    }
+
+    /**
+     * 单个目的地的订阅索引：每个订阅只挂在其索引字段的各个取值下，没有条件的订阅单独存放。
+     * 事件每个字段只有一个值，因此同一订阅最多被取到一次，不需要去重
+     */
+    private static final class SubscriptionIndex {
+
+        private final Map<EventFilter.Field, Map<String, List<Subscription>>> buckets =
+                new EnumMap<>(EventFilter.Field.class);
+        private final List<Subscription> unfiltered = new ArrayList<>();
+        private final int size;
+
+        SubscriptionIndex(Collection<Subscription> subscriptions) {
+            for (Subscription subscription : subscriptions) {
+                EventFilter.Field field = subscription.filter().indexField();
+                if (field == null) {
+                    unfiltered.add(subscription);
+                    continue;
+                }
+                Map<String, List<Subscription>> byValue = buckets.computeIfAbsent(field, f -> new HashMap<>());
+                for (String value : subscription.filter().values(field)) {
+                    byValue.computeIfAbsent(value, v -> new ArrayList<>()).add(subscription);
+                }
+            }
+            this.size = subscriptions.size();
+        }
+
+        List<Subscription> match(EventAttributes attributes) {
+            List<Subscription> matched = new ArrayList<>(unfiltered);
+            buckets.forEach((field, byValue) -> {
+                String value = attributes.get(field);
+                List<Subscription> candidates = value == null ? null : byValue.get(value);
+                if (candidates != null) {
+                    for (Subscription candidate : candidates) {
+                        if (candidate.filter().test(attributes)) {
+                            matched.add(candidate);
+                        }
+                    }
+                }
+            });
+            return matched;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.security.ailogsystem.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JSON Merge Patch（RFC 7386）差量计算：只包含变化的字段，嵌套对象递归比较，被删除的字段取值为 null
+ */
+public final class MergePatch {
+
+    private MergePatch() {
+    }
+
+    /**
+     * 计算把 previous 变为 next 的补丁，没有变化时返回空 Map
+     */
+    public static Map<String, Object> diff(Map<String, ?> previous, Map<String, ?> next) {
+        Map<String, Object> patch = new LinkedHashMap<>();
+        next.forEach((key, value) -> {
+            Object old = previous.get(key);
+            if (old instanceof Map<?, ?> oldMap && value instanceof Map<?, ?> newMap) {
+                Map<String, Object> nested = diff(cast(oldMap), cast(newMap));
+                if (!nested.isEmpty()) {
+                    patch.put(key, nested);
+                }
+            } else if (!previous.containsKey(key) || !Objects.equals(old, value)) {
+                patch.put(key, value);
+            }
+        });
+        previous.keySet().forEach(key -> {
+            if (!next.containsKey(key)) {
+                patch.put(key, null);
+            }
+        });
+        return patch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> cast(Map<?, ?> map) {
+        return (Map<String, ?>) map;
+    }
+}
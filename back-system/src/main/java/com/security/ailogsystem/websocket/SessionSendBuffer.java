@@ -0,0 +1,148 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话发送缓冲（clientOutboundChannel 拦截器）
+ * 每个会话同时只有一条 MESSAGE 帧在发送，其余的在会话自己的有界队列中排队，队列满时丢弃最旧的消息并计数；
+ * 慢消费的会话只占用一个出站线程，也不会让出站通道的任务无限堆积。连接、心跳等控制帧不经过缓冲
+ */
+@Slf4j
+@Component
+public class SessionSendBuffer implements ExecutorChannelInterceptor, MeterBinder {
+
+    private final WebSocketPublishProperties properties;
+    private final Map<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+    private final ThreadLocal<Message<?>> releasing = new ThreadLocal<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SessionSendBuffer(WebSocketPublishProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = sessionId(message);
+        if (sessionId == null || releasing.get() == message) {
+            return message;
+        }
+        SessionQueue queue = sessions.computeIfAbsent(sessionId, id -> new SessionQueue());
+        synchronized (queue) {
+            if (!queue.inFlight) {
+                queue.inFlight = true;
+                return message;
+            }
+            if (queue.pending.size() >= Math.max(1, properties.getSessionBufferSize())) {
+                queue.pending.pollFirst();
+                dropped.incrementAndGet();
+                if (++queue.dropped % 1000 == 1) {
+                    log.warn("[WS] 会话 {} 消费过慢，发送缓冲已满，丢弃最旧的消息（累计 {}）", sessionId, queue.dropped);
+                }
+            }
+            queue.pending.addLast(message);
+            return null;
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = sessionId(message);
+        SessionQueue queue = sessionId != null ? sessions.get(sessionId) : null;
+        if (queue == null) {
+            return;
+        }
+        Message<?> next;
+        synchronized (queue) {
+            next = queue.pending.pollFirst();
+            if (next == null) {
+                queue.inFlight = false;
+                return;
+            }
+        }
+        releasing.set(next);
+        try {
+            if (!channel.send(next)) {
+                release(queue);
+            }
+        } catch (RuntimeException e) {
+            log.warn("[WS] 会话 {} 排队消息发送失败: {}", sessionId, e.getMessage());
+            release(queue);
+        } finally {
+            releasing.remove();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    /**
+     * 丢弃的消息总数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 各会话排队中的消息总数
+     */
+    public int getPending() {
+        int pending = 0;
+        for (SessionQueue queue : sessions.values()) {
+            synchronized (queue) {
+                pending += queue.pending.size();
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("websocket.session.dropped", dropped, AtomicLong::get)
+                .description("因会话发送缓冲已满被丢弃的消息数")
+                .register(registry);
+        Gauge.builder("websocket.session.pending", this, SessionSendBuffer::getPending)
+                .description("各会话发送缓冲中排队的消息数")
+                .register(registry);
+    }
+
+    private static String sessionId(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+
+    private static void release(SessionQueue queue) {
+        synchronized (queue) {
+            queue.inFlight = false;
+        }
+    }
+
+    private static final class SessionQueue {
+
+        private final ArrayDeque<Message<?>> pending = new ArrayDeque<>();
+        private boolean inFlight;
+        private long dropped;
+    }
+}
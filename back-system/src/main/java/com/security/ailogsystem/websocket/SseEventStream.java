@@ -0,0 +1,311 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.SseStreamProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 实时事件流
+ * 发布层每个窗口把 /topic/events 的事件追加到共享的环形缓冲，事件序号单调递增；每个连接只记录自己发送到的位置，
+ * 有新事件或心跳到期时由虚拟线程按位置补齐后退出，连接空闲时不占用线程。
+ * 事件 ID 为“启动纪元-序号”，序号每次启动从 1 开始，纪元区分不同的启动。
+ * 重连时按 Last-Event-ID 从缓冲补发；所需事件已被覆盖或 ID 属于之前的启动时先发送 reset 事件，再从最早的事件开始
+ */
+@Slf4j
+@Component
+public class SseEventStream implements MeterBinder, DisposableBean {
+
+    public static final String DESTINATION = "/topic/events";
+
+    private final SseStreamProperties properties;
+    private final String epoch;
+    private final LiveEvent[] ring;
+    private long lastId;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger filteredClients = new AtomicInteger();
+    private final AtomicLong resets = new AtomicLong();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("sse-sender-", 0).factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-heartbeat").daemon(true).factory());
+
+    record LiveEvent(long id, Map<String, Object> envelope, EventAttributes attributes,
+                     boolean broadcast, boolean routed) {
+    }
+
+    @Autowired
+    public SseEventStream(SseStreamProperties properties) {
+        this(properties, Long.toString(System.currentTimeMillis(), 36));
+    }
+
+    SseEventStream(SseStreamProperties properties, String epoch) {
+        this.properties = properties;
+        this.epoch = epoch;
+        this.ring = new LiveEvent[Math.max(1, properties.getReplaySize())];
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = Math.max(1, properties.getHeartbeatSeconds());
+        heartbeat.scheduleWithFixedDelay(() -> {
+            for (Client client : clients) {
+                client.heartbeatDue = true;
+                signal(client);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 建立连接；filter 为空时接收广播事件，否则接收与条件匹配的逐条事件。
+     * lastEventId 为空时只接收之后的新事件
+     *
+     * @throws IllegalStateException 连接数已达上限
+     */
+    public SseEmitter subscribe(EventFilter filter, String lastEventId) {
+        if (clients.size() >= properties.getMaxClients()) {
+            throw new IllegalStateException("SSE 连接数已达上限 " + properties.getMaxClients());
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(Math.max(1, properties.getTimeoutMinutes())));
+        Client client = new Client(emitter, filter);
+        synchronized (ring) {
+            client.cursor = resumeFrom(lastEventId);
+        }
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> {
+            remove(client);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(client));
+        clients.add(client);
+        if (filter != null) {
+            filteredClients.incrementAndGet();
+        }
+        signal(client);
+        return emitter;
+    }
+
+    /**
+     * 是否有过滤连接接收这条只发给过滤订阅的逐条事件；没有时发布层不把它追加到缓冲
+     */
+    boolean matchesFilteredClient(String destination, EventAttributes attributes) {
+        if (!DESTINATION.equals(destination) || filteredClients.get() == 0) {
+            return false;
+        }
+        for (Client client : clients) {
+            if (client.filter != null && client.filter.test(attributes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 追加发布层一个窗口的事件并通知各连接
+     */
+    void append(String destination, List<TopicPublisher.Pending> events) {
+        if (!DESTINATION.equals(destination) || events.isEmpty()) {
+            return;
+        }
+        synchronized (ring) {
+            for (TopicPublisher.Pending event : events) {
+                long id = ++lastId;
+                ring[(int) (id % ring.length)] = new LiveEvent(id, event.envelope(), event.attributes(),
+                        event.broadcast(), event.routed());
+            }
+        }
+        clients.forEach(this::signal);
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * 所需事件已不在缓冲中、需要客户端重新加载的次数
+     */
+    public long getResets() {
+        return resets.get();
+    }
+
+    long lastId() {
+        synchronized (ring) {
+            return lastId;
+        }
+    }
+
+    /**
+     * 序号对应的事件 ID
+     */
+    String eventId(long id) {
+        return epoch + "-" + id;
+    }
+
+    /**
+     * 取游标之后的事件；游标落后于缓冲时标记 reset 并从最早的事件开始
+     */
+    List<LiveEvent> after(Client client) {
+        synchronized (ring) {
+            long oldest = Math.max(1, lastId - ring.length + 1);
+            if (client.cursor > lastId || client.cursor < oldest - 1) {
+                client.reset = true;
+                client.cursor = oldest - 1;
+            }
+            List<LiveEvent> events = new ArrayList<>((int) (lastId - client.cursor));
+            for (long id = client.cursor + 1; id <= lastId; id++) {
+                events.add(ring[(int) (id % ring.length)]);
+            }
+            return events;
+        }
+    }
+
+    /**
+     * 由客户端带回的事件 ID 得到游标；之前启动的 ID 与本次的序号无关，即使数值不超过当前序号也须 reset
+     */
+    long resumeFrom(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return lastId;
+        }
+        String value = lastEventId.trim();
+        int separator = value.lastIndexOf('-');
+        if (separator <= 0 || !epoch.equals(value.substring(0, separator))) {
+            // 之前启动的 ID 和无法识别的 ID 都按缓冲已覆盖处理
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void signal(Client client) {
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RuntimeException e) {
+                client.draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * 同一连接的写出都在这里串行进行，写完当前所有事件后退出；期间到达的信号由退出前的复查接住
+     */
+    private void drain(Client client) {
+        try {
+            while (true) {
+                if (!client.connected) {
+                    client.connected = true;
+                    client.emitter.send(SseEmitter.event()
+                            .name("connect")
+                            .reconnectTime(properties.getRetryMs())
+                            .data(Map.of("lastEventId", eventId(client.cursor), "timestamp", System.currentTimeMillis()),
+                                    MediaType.APPLICATION_JSON));
+                }
+                List<LiveEvent> events = after(client);
+                if (client.reset) {
+                    client.reset = false;
+                    resets.incrementAndGet();
+                    client.emitter.send(SseEmitter.event()
+                            .name("reset")
+                            .data(Map.of("resumeFrom", eventId(client.cursor + 1)), MediaType.APPLICATION_JSON));
+                }
+                for (LiveEvent event : events) {
+                    if (client.accepts(event)) {
+                        client.emitter.send(SseEmitter.event()
+                                .id(eventId(event.id()))
+                                .name(String.valueOf(event.envelope().get("type")))
+                                .data(event.envelope(), MediaType.APPLICATION_JSON));
+                    }
+                    client.cursor = event.id();
+                }
+                if (client.heartbeatDue) {
+                    client.heartbeatDue = false;
+                    if (events.isEmpty()) {
+                        client.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+                client.draining.set(false);
+                if (!client.pending() || !client.draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("[SSE] 连接已断开: {}", e.getMessage());
+            remove(client);
+            client.emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Client client) {
+        if (clients.remove(client) && client.filter != null) {
+            filteredClients.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sse.clients", clients, Set::size)
+                .description("SSE 实时事件流连接数")
+                .register(registry);
+        FunctionCounter.builder("sse.resets", resets, AtomicLong::get)
+                .description("重连时所需事件已不在缓冲中的次数")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        clients.forEach(client -> client.emitter.complete());
+        clients.clear();
+    }
+
+    final class Client {
+
+        private final SseEmitter emitter;
+        private final EventFilter filter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private boolean connected;
+        boolean reset;
+        long cursor;
+
+        Client(SseEmitter emitter, EventFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        boolean accepts(LiveEvent event) {
+            return filter == null ? event.broadcast() : event.routed() && filter.test(event.attributes());
+        }
+
+        private boolean pending() {
+            return heartbeatDue || cursor < lastId();
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 广播事件发布层
+ * 事件先进入所属目的地的待发送队列，每个窗口合并为一帧发出（多于一个事件时为 BATCH 帧，data.events 为事件列表）；
+ * 每个目的地按每秒事件数限速，积压超过上限时丢弃最旧的事件。
+ * 快照类事件（如 STATS）只保留最新值，按最小间隔发送，值在发送时才计算。
+ * 目的地上有过滤订阅时，同一窗口的事件按属性路由，每个匹配的订阅单独收到一帧。
+ * 只发给过滤订阅的逐条事件在发布时即完成匹配，进入独立的队列，按单独的速率和积压上限发送，不挤占广播事件；
+ * 同一批事件也追加到 SSE 实时事件流的共享缓冲
+ */
+@Slf4j
+@Component
+public class TopicPublisher implements MeterBinder, DisposableBean {
+
+    public static final String BATCH = "BATCH";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final FilteredSubscriptionRegistry subscriptions;
+    private final SseEventStream sseEventStream;
+    private final WebSocketPublishProperties properties;
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong filteredDropped = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ws-publisher").daemon(true).factory());
+
+    public TopicPublisher(SimpMessagingTemplate messagingTemplate,
+                          @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                          FilteredSubscriptionRegistry subscriptions,
+                          SseEventStream sseEventStream,
+                          WebSocketPublishProperties properties) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.subscriptions = subscriptions;
+        this.sseEventStream = sseEventStream;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        long window = Math.max(10, properties.getWindowMs());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("[WS] 推送窗口发送失败: {}", e.getMessage(), e);
+            }
+        }, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发布事件；快照类事件只保留最新值
+     */
+    public void publish(String destination, String type, Map<String, Object> data) {
+        publish(destination, type, data, EventAttributes.of(type));
+    }
+
+    /**
+     * 发布带路由属性的事件，普通订阅和匹配的过滤订阅都会收到
+     */
+    public void publish(String destination, String type, Map<String, Object> data, EventAttributes attributes) {
+        if (properties.getConflatedTypes().contains(type)) {
+            topic(destination).latest(type, () -> data);
+        } else {
+            topic(destination).add(new Pending(envelope(type, data), attributes, true, true));
+        }
+    }
+
+    /**
+     * 只发给普通订阅的事件（如批量汇总），过滤订阅改为通过 {@link #publishFiltered} 逐条接收
+     */
+    public void publishBroadcast(String destination, String type, Map<String, Object> data) {
+        topic(destination).add(new Pending(envelope(type, data), EventAttributes.of(type), true, false));
+    }
+
+    /**
+     * 只按属性路由给过滤订阅（WebSocket 或 SSE）的事件；发布时即与过滤订阅匹配，没有匹配的订阅时直接忽略
+     */
+    public void publishFiltered(String destination, String type, Map<String, Object> data,
+                                EventAttributes attributes) {
+        List<FilteredSubscriptionRegistry.Subscription> matched = subscriptions.match(destination, attributes);
+        boolean sse = sseEventStream.matchesFilteredClient(destination, attributes);
+        if (!matched.isEmpty() || sse) {
+            topic(destination).addFiltered(
+                    new Filtered(new Pending(envelope(type, data), attributes, false, true), matched, sse));
+        }
+    }
+
+    /**
+     * 发布快照类事件，值在实际发送时才计算，同一间隔内多次发布只计算一次
+     */
+    public void publishLatest(String destination, String type, Supplier<Map<String, Object>> data) {
+        topic(destination).latest(type, data);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 过滤订阅逐条事件因积压超过上限被丢弃的数量
+     */
+    public long getFilteredDropped() {
+        return filteredDropped.get();
+    }
+
+    public long getFrames() {
+        return frames.get();
+    }
+
+    /**
+     * 发送各目的地本窗口的事件
+     */
+    void flush(long now) {
+        for (Topic topic : topics.values()) {
+            Drained drained = topic.drain(now);
+            List<Pending> events = new ArrayList<>(drained.events());
+            drained.snapshots().forEach((type, supplier) -> {
+                try {
+                    Map<String, Object> data = supplier.get();
+                    if (data != null) {
+                        events.add(new Pending(envelope(type, data), EventAttributes.of(type), true, true));
+                    }
+                } catch (Exception e) {
+                    log.warn("[WS] 计算 {} 快照失败: {}", type, e.getMessage());
+                }
+            });
+            List<Map<String, Object>> broadcast = events.stream()
+                    .filter(Pending::broadcast)
+                    .map(Pending::envelope)
+                    .toList();
+            if (!broadcast.isEmpty()) {
+                try {
+                    messagingTemplate.convertAndSend(topic.destination, frame(broadcast));
+                    frames.incrementAndGet();
+                    log.debug("[WS] 发布 {} 个事件到 {}", broadcast.size(), topic.destination);
+                } catch (Exception e) {
+                    log.error("[WS] 发布失败 destination={}: {}", topic.destination, e.getMessage());
+                }
+            }
+            if (subscriptions.hasSubscriptions(topic.destination) || !drained.filtered().isEmpty()) {
+                route(topic.destination, events, drained.filtered());
+            }
+            List<Pending> live = new ArrayList<>(events);
+            for (Filtered event : drained.filtered()) {
+                if (event.sse()) {
+                    live.add(event.event());
+                }
+            }
+            sseEventStream.append(topic.destination, live);
+        }
+    }
+
+    /**
+     * 按过滤订阅分组后直接发往出站通道，每个订阅一帧；逐条事件使用发布时匹配到的订阅
+     */
+    private void route(String destination, List<Pending> events, List<Filtered> filtered) {
+        Map<FilteredSubscriptionRegistry.Subscription, List<Map<String, Object>>> routed = new LinkedHashMap<>();
+        if (subscriptions.hasSubscriptions(destination)) {
+            for (Pending event : events) {
+                if (!event.routed()) {
+                    continue;
+                }
+                subscriptions.match(destination, event.attributes()).forEach(subscription ->
+                        routed.computeIfAbsent(subscription, s -> new ArrayList<>()).add(event.envelope()));
+            }
+        }
+        for (Filtered event : filtered) {
+            event.subscriptions().forEach(subscription ->
+                    routed.computeIfAbsent(subscription, s -> new ArrayList<>()).add(event.event().envelope()));
+        }
+        routed.forEach((subscription, matched) -> {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(subscription.sessionId());
+            accessor.setSubscriptionId(subscription.subscriptionId());
+            accessor.setDestination(destination);
+            accessor.setLeaveMutable(true);
+            try {
+                Message<?> message = messagingTemplate.getMessageConverter()
+                        .toMessage(frame(matched), accessor.getMessageHeaders());
+                if (message != null && clientOutboundChannel.send(message)) {
+                    frames.incrementAndGet();
+                }
+            } catch (Exception e) {
+                log.error("[WS] 过滤订阅发送失败 session={}, id={}: {}", subscription.sessionId(),
+                        subscription.subscriptionId(), e.getMessage());
+            }
+        });
+    }
+
+    private Topic topic(String destination) {
+        return topics.computeIfAbsent(destination, Topic::new);
+    }
+
+    private static Map<String, Object> frame(List<Map<String, Object>> events) {
+        return events.size() == 1 ? events.get(0) : envelope(BATCH, Map.of("events", events));
+    }
+
+    private static Map<String, Object> envelope(String type, Map<String, Object> data) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("id", UUID.randomUUID().toString());
+        message.put("type", type);
+        message.put("data", data);
+        message.put("ts", System.currentTimeMillis());
+        return message;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("websocket.publish.dropped", dropped, AtomicLong::get)
+                .description("因积压超过上限被丢弃的广播事件数")
+                .register(registry);
+        FunctionCounter.builder("websocket.publish.filtered.dropped", filteredDropped, AtomicLong::get)
+                .description("因积压超过上限被丢弃的过滤订阅逐条事件数")
+                .register(registry);
+        FunctionCounter.builder("websocket.publish.frames", frames, AtomicLong::get)
+                .description("合并后发出的广播帧数")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 待发送事件：broadcast 为发给普通订阅，routed 为参与过滤订阅路由
+     */
+    record Pending(Map<String, Object> envelope, EventAttributes attributes, boolean broadcast, boolean routed) {
+    }
+
+    /**
+     * 只发给过滤订阅的逐条事件：subscriptions 为发布时匹配到的 WebSocket 订阅，sse 为是否追加到 SSE 实时事件流
+     */
+    record Filtered(Pending event, List<FilteredSubscriptionRegistry.Subscription> subscriptions, boolean sse) {
+    }
+
+    private record Drained(List<Pending> events, List<Filtered> filtered,
+                           Map<String, Supplier<Map<String, Object>>> snapshots) {
+    }
+
+    private final class Topic {
+
+        private final String destination;
+        private final Lane<Pending> pending = new Lane<>();
+        private final Lane<Filtered> filtered = new Lane<>();
+        private final Map<String, Supplier<Map<String, Object>>> latest = new LinkedHashMap<>();
+        private final Map<String, Long> lastSnapshotAt = new HashMap<>();
+
+        private Topic(String destination) {
+            this.destination = destination;
+        }
+
+        synchronized void add(Pending event) {
+            if (pending.add(event, properties.getMaxPending()) && dropped.incrementAndGet() % 1000 == 1) {
+                log.warn("[WS] {} 待发送事件超过上限 {}，丢弃最旧的事件（累计 {}）",
+                        destination, properties.getMaxPending(), dropped.get());
+            }
+        }
+
+        synchronized void addFiltered(Filtered event) {
+            if (filtered.add(event, properties.getFilteredMaxPending())
+                    && filteredDropped.incrementAndGet() % 1000 == 1) {
+                log.warn("[WS] {} 过滤订阅待发送事件超过上限 {}，丢弃最旧的事件（累计 {}）",
+                        destination, properties.getFilteredMaxPending(), filteredDropped.get());
+            }
+        }
+
+        synchronized void latest(String type, Supplier<Map<String, Object>> data) {
+            latest.put(type, data);
+        }
+
+        synchronized Drained drain(long now) {
+            List<Pending> events = pending.drain(now, properties.getMaxEventsPerSecond());
+            List<Filtered> routedOnly = filtered.drain(now, properties.getFilteredMaxEventsPerSecond());
+            Map<String, Supplier<Map<String, Object>>> snapshots = new LinkedHashMap<>();
+            latest.entrySet().removeIf(entry -> {
+                long last = lastSnapshotAt.getOrDefault(entry.getKey(), Long.MIN_VALUE / 2);
+                if (now - last < properties.getConflateIntervalMs()) {
+                    return false;
+                }
+                snapshots.put(entry.getKey(), entry.getValue());
+                lastSnapshotAt.put(entry.getKey(), now);
+                return true;
+            });
+            return new Drained(events, routedOnly, snapshots);
+        }
+    }
+
+    /**
+     * 有积压上限的待发送队列，由所属 Topic 加锁访问
+     */
+    private final class Lane<T> {
+
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+        private double tokens;
+        private long refilledAt = -1;
+
+        /**
+         * 加入队尾，超过上限时先丢弃最旧的事件；返回是否有丢弃
+         */
+        boolean add(T event, int maxPending) {
+            boolean dropped = queue.size() >= Math.max(1, maxPending);
+            if (dropped) {
+                queue.pollFirst();
+            }
+            queue.addLast(event);
+            return dropped;
+        }
+
+        List<T> drain(long now, int maxEventsPerSecond) {
+            // 令牌桶：每秒补充 maxEventsPerSecond 个，最多积累一个窗口的量，避免空闲后突发一个超大帧
+            double rate = Math.max(1, maxEventsPerSecond);
+            double burst = Math.max(1, rate * properties.getWindowMs() / 1000.0);
+            tokens = refilledAt < 0 ? burst : Math.min(burst, tokens + (now - refilledAt) * rate / 1000.0);
+            refilledAt = now;
+
+            List<T> events = new ArrayList<>();
+            while (!queue.isEmpty() && tokens >= 1) {
+                events.add(queue.pollFirst());
+                tokens -= 1;
+            }
+            return events;
+        }
+    }
+}
@@ -537,6 +537,24 @@ CREATE TABLE `threat_signatures` (
 ) ENGINE=InnoDB AUTO_INCREMENT=110 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='威胁检测规则库';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `unified_security_event_payloads`
+--
+
+DROP TABLE IF EXISTS `unified_security_event_payloads`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+ SET character_set_client = utf8mb4 ;
+CREATE TABLE `unified_security_event_payloads` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '大字段ID',
+  `raw_message` text COLLATE utf8mb4_unicode_ci COMMENT '原始日志消息',
+  `raw_data` text COLLATE utf8mb4_unicode_ci COMMENT '原始数据(JSON)',
+  `event_data_json` text COLLATE utf8mb4_unicode_ci COMMENT '事件详细数据(JSON)',
+  `features_json` text COLLATE utf8mb4_unicode_ci COMMENT '特征数据(JSON)',
+  `anomaly_reason` text COLLATE utf8mb4_unicode_ci COMMENT '异常原因',
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统一安全事件大字段表(冷数据)';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `unified_security_events`
 --
@@ -546,7 +564,6 @@ DROP TABLE IF EXISTS `unified_security_events`;
  SET character_set_client = utf8mb4 ;
 CREATE TABLE `unified_security_events` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '事件ID',
-  `anomaly_reason` text COLLATE utf8mb4_unicode_ci COMMENT '异常原因',
   `anomaly_score` double DEFAULT NULL COMMENT '异常评分',
   `assigned_to` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '分配给',
   `category` varchar(255) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '事件分类',
@@ -555,10 +572,8 @@ CREATE TABLE `unified_security_events` (
   `destination_port` int(11) DEFAULT NULL COMMENT '目标端口',
   `detection_algorithm` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '检测算法',
   `event_code` int(11) DEFAULT NULL COMMENT '事件代码(Windows事件ID)',
-  `event_data_json` text COLLATE utf8mb4_unicode_ci COMMENT '事件详细数据(JSON)',
   `event_sub_type` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '事件子类型',
   `event_type` varchar(255) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '事件类型',
-  `features_json` text COLLATE utf8mb4_unicode_ci COMMENT '特征数据(JSON)',
   `host_ip` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '主机IP',
   `host_name` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '主机名',
   `is_anomaly` bit(1) DEFAULT NULL COMMENT '是否异常',
@@ -567,8 +582,6 @@ CREATE TABLE `unified_security_events` (
   `process_id` int(11) DEFAULT NULL COMMENT '进程ID',
   `process_name` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '进程名称',
   `protocol` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '网络协议',
-  `raw_data` text COLLATE utf8mb4_unicode_ci COMMENT '原始数据(JSON)',
-  `raw_message` text COLLATE utf8mb4_unicode_ci COMMENT '原始日志消息',
   `resolution_notes` text COLLATE utf8mb4_unicode_ci COMMENT '处理备注',
   `resolved_at` datetime(6) DEFAULT NULL COMMENT '解决时间',
   `session_id` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '会话ID',
@@ -586,7 +599,9 @@ CREATE TABLE `unified_security_events` (
   `ai_anomaly_score` double DEFAULT NULL,
   `ai_is_anomaly` bit(1) DEFAULT NULL,
   `combined_score` double DEFAULT NULL,
+  `payload_id` bigint(20) DEFAULT NULL COMMENT '大字段ID',
   PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_use_payload_id` (`payload_id`),
   KEY `idx_use_timestamp` (`timestamp`),
   KEY `idx_use_severity` (`severity`),
   KEY `idx_use_category` (`category`),
@@ -594,8 +609,11 @@ CREATE TABLE `unified_security_events` (
   KEY `idx_use_event_type` (`event_type`),
   KEY `idx_use_is_anomaly` (`is_anomaly`),
   KEY `idx_use_threat_level` (`threat_level`),
-  KEY `idx_use_source_ip` (`source_ip`),
-  KEY `idx_events_timestamp` (`timestamp` DESC)
+  KEY `idx_use_user_timestamp` (`user_id`,`timestamp`,`is_anomaly`),
+  KEY `idx_use_host_timestamp` (`host_ip`,`timestamp`,`is_anomaly`),
+  KEY `idx_use_source_ip_timestamp` (`source_ip`,`timestamp`,`is_anomaly`),
+  KEY `idx_events_timestamp` (`timestamp` DESC),
+  CONSTRAINT `fk_use_payload` FOREIGN KEY (`payload_id`) REFERENCES `unified_security_event_payloads` (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=14196 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统一安全事件表(核心数据)';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
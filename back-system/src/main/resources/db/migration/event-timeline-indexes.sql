@@ -0,0 +1,25 @@
+-- 实体调查时间线索引（/events/timeline/{dimension}/{value}）
+--
+-- 按用户、来源 IP、主机 IP 查询时间线和分桶计数时，(维度列, timestamp) 定位并按时间有序扫描，
+-- InnoDB 二级索引自带主键 id，游标翻页只读索引即可取得 (id, timestamp)；
+-- 末尾的 is_anomaly 使按时间分桶的事件数/异常数统计不回表。
+-- 原 source_ip 单列索引是新索引的前缀，一并删除。
+--
+-- 使用 ddl-auto: update 时 Hibernate 会按实体上的 @Index 自动创建，本脚本用于关闭自动建表的环境。
+-- 在线 DDL，不阻塞写入。
+
+ALTER TABLE `unified_security_events`
+  ADD INDEX `idx_use_user_timestamp` (`user_id`, `timestamp`, `is_anomaly`),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE `unified_security_events`
+  ADD INDEX `idx_use_host_timestamp` (`host_ip`, `timestamp`, `is_anomaly`),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE `unified_security_events`
+  ADD INDEX `idx_use_source_ip_timestamp` (`source_ip`, `timestamp`, `is_anomaly`),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE `unified_security_events`
+  DROP INDEX `idx_use_source_ip`,
+  ALGORITHM=INPLACE, LOCK=NONE;
@@ -2,6 +2,11 @@
 """
 系统信息收集器 - 支持多种数据类型
 支持的数据类型: performance, cpu_info, system_basic, memory_info, disk_info, process_info
+
+单次调用: python system_info_collector.py <type>，stdout 输出一行 JSON
+常驻模式: python system_info_collector.py --worker，启动后先输出 {"ready": true, "pid": ...}，
+之后每从 stdin 读到一行请求 {"id": 1, "type": "performance"} 就输出一行响应 {"id": 1, "data": {...}}；
+type 为 ping 时用于健康检查，请求无法处理时响应 {"id": 1, "error": "..."}。stdout 只输出协议行，日志写 stderr
 """
 
 import psutil
@@ -205,18 +210,25 @@ def collect_disk_info():
     except Exception as e:
         return {"error": f"磁盘信息收集失败: {str(e)}"}
 
+# 进程 CPU 采样：间隔下限，以及常驻模式下可直接沿用上次采样作为基准的最长间隔（秒）
+PROCESS_SAMPLE_INTERVAL = 0.5
+PROCESS_SAMPLE_MAX_AGE = 10.0
+_last_process_sample = 0.0
+
 def collect_process_info():
     """收集进程信息（双采样机制获取准确CPU使用率）"""
+    global _last_process_sample
     try:
-        SAMPLE_INTERVAL = 0.5
+        # psutil 会缓存进程对象，常驻进程中上次采样距今合适时以其为基准，省去预热和等待；新出现的进程本次为 0
+        elapsed = time.monotonic() - _last_process_sample
+        if not PROCESS_SAMPLE_INTERVAL <= elapsed <= PROCESS_SAMPLE_MAX_AGE:
+            for proc in psutil.process_iter(['pid']):
+                try:
+                    proc.cpu_percent(interval=None)
+                except (psutil.NoSuchProcess, psutil.AccessDenied, psutil.ZombieProcess):
+                    continue
 
-        for proc in psutil.process_iter(['pid']):
-            try:
-                proc.cpu_percent(interval=None)
-            except (psutil.NoSuchProcess, psutil.AccessDenied, psutil.ZombieProcess):
-                continue
-
-        time.sleep(SAMPLE_INTERVAL)
+            time.sleep(PROCESS_SAMPLE_INTERVAL)
 
         process_count = 0
         running_count = 0
@@ -248,6 +260,7 @@ def collect_process_info():
             except (psutil.NoSuchProcess, psutil.AccessDenied, psutil.ZombieProcess):
                 continue
 
+        _last_process_sample = time.monotonic()
         processes.sort(key=lambda x: x['cpu'], reverse=True)
         top50 = processes[:50]
 
@@ -352,32 +365,59 @@ def send_to_system_info_service(enriched_payload, data_type):
         print(f"推送系统信息失败: {e}", file=sys.stderr)
         return False
 
+COLLECTORS = {
+    "performance": collect_performance,
+    "cpu_info": collect_cpu_info,
+    "system_basic": collect_system_basic,
+    "memory_info": collect_memory_info,
+    "disk_info": collect_disk_info,
+    "process_info": collect_process_info,
+}
+
+def collect(data_type):
+    """根据数据类型调用相应的收集函数"""
+    collector = COLLECTORS.get(data_type)
+    if collector is None:
+        return {"error": f"未知的数据类型: {data_type}"}
+    return collector()
+
+def write_line(payload):
+    sys.stdout.write(json.dumps(payload) + "\n")
+    sys.stdout.flush()
+
+def run_worker():
+    """常驻模式：逐行处理 stdin 的请求，stdin 关闭时退出"""
+    write_line({"ready": True, "pid": os.getpid()})
+    while True:
+        line = sys.stdin.readline()
+        if not line:
+            break
+        line = line.strip()
+        if not line:
+            continue
+        request_id = None
+        try:
+            request = json.loads(line)
+            request_id = request.get("id")
+            data_type = request.get("type")
+            if data_type == "ping":
+                response = {"id": request_id, "data": {"pong": True}}
+            else:
+                response = {"id": request_id, "data": collect(data_type)}
+        except Exception as e:
+            response = {"id": request_id, "error": f"请求处理失败: {str(e)}"}
+        write_line(response)
+
 def main():
-    if len(sys.argv) < 2:
-        # 默认返回性能数据
-        data_type = "performance"
-        result = collect_performance()
-    else:
-        data_type = sys.argv[1]
-
-        # 根据数据类型调用相应的收集函数
-        if data_type == "performance":
-            result = collect_performance()
-        elif data_type == "cpu_info":
-            result = collect_cpu_info()
-        elif data_type == "system_basic":
-            result = collect_system_basic()
-        elif data_type == "memory_info":
-            result = collect_memory_info()
-        elif data_type == "disk_info":
-            result = collect_disk_info()
-        elif data_type == "process_info":
-            result = collect_process_info()
-        else:
-            result = {"error": f"未知的数据类型: {data_type}"}
+    if len(sys.argv) >= 2 and sys.argv[1] == "--worker":
+        run_worker()
+        return
+
+    # 默认返回性能数据
+    data_type = sys.argv[1] if len(sys.argv) >= 2 else "performance"
 
     # 输出JSON结果（Java后端通过ProcessBuilder直接读取stdout）
-    print(json.dumps(result))
+    print(json.dumps(collect(data_type)))
 
 if __name__ == "__main__":
     main()
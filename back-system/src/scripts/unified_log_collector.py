@@ -1262,7 +1262,9 @@ class IntegratedSecurityAlertCollector:
                 severity=sev,
                 raw_message=msg,
                 normalized_message=f"Win事件{eid}:{etype}",
+                host_name=event.get("MachineName"),
                 source_ip=ip,
+                event_data={"recordId": event.get("RecordId"), "eventCode": eid},
                 threat_level=self._calculate_threat_level(eid, sev),
                 anomaly_score=self._calculate_windows_anomaly_score(eid, msg)
             )
@@ -1439,6 +1441,9 @@ class IntegratedSecurityAlertCollector:
                     "category": event.get("category"),
                     "severity": event.get("severity"),
                     "normalizedMessage": event.get("normalized_message"),
+                    # 去重指纹字段：主机 + 事件记录号
+                    "hostName": event.get("host_name") or None,
+                    "eventData": event.get("event_data") if isinstance(event.get("event_data"), dict) else None,
                     # AI 分析相关字段（可选但建议保留）
                     "anomalyScore": float(event.get("anomaly_score", 0.0)),
                     "aiAnomalyScore": float(event.get("ai_anomaly_score", 0.0)),
@@ -1456,6 +1461,10 @@ class IntegratedSecurityAlertCollector:
                 core_events.append(core)
 
             response = self.session.post(url, json=core_events, timeout=self.config.request_timeout)
+            if response.status_code == 202:
+                # 后端数据库暂不可用，事件已写入后端本地写前日志，稍后自动入库（暂无数据库ID）
+                logger.info(f"后端已暂存 {len(events)} 个安全事件，等待入库")
+                return True
             if response.status_code in (200, 201):
                 logger.info(f"成功发送 {len(events)} 个安全事件")
                 try:
@@ -0,0 +1,83 @@
+package com.security.ailogsystem.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 副本延迟检测测试：两个独立的 H2 内存库分别充当主库和副本，手工同步心跳表模拟复制
+ */
+@DisplayName("副本延迟检测测试")
+class ReplicaLagMonitorTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = h2("primary");
+        DataSource replicaDataSource = h2("replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        properties.setLagCheck(ReplicaDataSourceProperties.LagCheck.HEARTBEAT);
+        monitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, properties);
+    }
+
+    @Test
+    @DisplayName("主库尚无心跳时不可用，副本应用心跳后延迟为 0")
+    void shouldBecomeHealthyOnceHeartbeatIsReplicated() {
+        monitor.check();
+        assertFalse(monitor.isHealthy());
+
+        replicate();
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+        assertEquals(0L, monitor.getStatus().get("lagSeconds"));
+    }
+
+    @Test
+    @DisplayName("副本已追上时延迟与两次检测的间隔无关")
+    void shouldNotReportCheckIntervalAsLag() {
+        monitor.check();
+        // 上次心跳写于一分钟前且已复制到副本
+        primary.update("UPDATE replica_heartbeat SET beat_millis = ?", System.currentTimeMillis() - 60_000);
+        replicate();
+
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+        assertEquals(0L, monitor.getStatus().get("lagSeconds"));
+    }
+
+    @Test
+    @DisplayName("副本未应用主库心跳时按心跳写入至今的时间计算延迟")
+    void shouldReportLagWhenHeartbeatIsNotApplied() {
+        monitor.check();
+        replicate();
+        primary.update("UPDATE replica_heartbeat SET beat_millis = ?", System.currentTimeMillis() - 60_000);
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ?", System.currentTimeMillis() - 120_000);
+
+        monitor.check();
+        assertFalse(monitor.isHealthy());
+        assertTrue((Long) monitor.getStatus().get("lagSeconds") >= 60);
+    }
+
+    private void replicate() {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.update("MERGE INTO replica_heartbeat (id, beat_millis) KEY (id) VALUES (1, ?)", beat);
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
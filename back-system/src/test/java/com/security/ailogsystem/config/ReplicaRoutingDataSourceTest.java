@@ -0,0 +1,102 @@
+package com.security.ailogsystem.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离路由测试：用两个独立的 H2 内存库分别充当主库和副本
+ */
+@DisplayName("读写分离路由测试")
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+    }
+
+    @Test
+    @DisplayName("副本可用时只读事务使用副本，读写事务使用主库")
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        ReplicaRoutingDataSource routing = routing(ReplicaDataSourceProperties.LagCheck.NONE);
+        DataSource dataSource = lazy(routing);
+        // 代理创建时在事务外取一次连接探测默认连接属性，走主库
+        long primaryBefore = (Long) routing.getStatus().get("primaryConnections");
+
+        assertEquals("replica", currentNode(dataSource, true));
+        assertEquals("primary", currentNode(dataSource, false));
+        assertEquals(1L, routing.getStatus().get("replicaConnections"));
+        assertEquals(primaryBefore + 1, routing.getStatus().get("primaryConnections"));
+        assertEquals(true, routing.getStatus().get("healthy"));
+    }
+
+    @Test
+    @DisplayName("心跳无法复制到副本时视为不可用，只读事务回退主库")
+    void shouldFallBackToPrimaryWhenHeartbeatIsNotReplicated() {
+        ReplicaRoutingDataSource routing = routing(ReplicaDataSourceProperties.LagCheck.HEARTBEAT);
+
+        assertEquals("primary", currentNode(lazy(routing), true));
+        assertEquals(0L, routing.getStatus().get("replicaConnections"));
+        assertEquals(false, routing.getStatus().get("healthy"));
+        assertNotNull(routing.getStatus().get("lastError"));
+    }
+
+    @Test
+    @DisplayName("副本连接获取失败时本次回退主库")
+    void shouldFallBackToPrimaryWhenReplicaConnectionFails() {
+        ReplicaLagMonitor monitor = routing(ReplicaDataSourceProperties.LagCheck.NONE).lagMonitor();
+        DataSource unreachable = new DriverManagerDataSource("jdbc:unreachable://replica", "sa", "");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, unreachable, monitor);
+
+        assertEquals("primary", currentNode(lazy(routing), true));
+        assertEquals(1L, routing.getStatus().get("fallbacks"));
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaDataSourceProperties.LagCheck lagCheck) {
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        properties.setLagCheck(lagCheck);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, replica, properties);
+        monitor.check();
+        return new ReplicaRoutingDataSource(primary, replica, monitor);
+    }
+
+    /**
+     * 与生产配置一致经 LazyConnectionDataSourceProxy 包装
+     */
+    private static DataSource lazy(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * 在事务内查询当前连接所在的库
+     */
+    private String currentNode(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private DataSource h2(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.security.ailogsystem.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统一安全事件 JSON 字段访问测试
+ */
+@DisplayName("统一安全事件 JSON 字段访问测试")
+class UnifiedSecurityEventTest {
+
+    @Test
+    @DisplayName("重复读取 eventData 复用同一解析结果")
+    void shouldCacheParsedEventData() {
+        UnifiedSecurityEvent event = new UnifiedSecurityEvent();
+        event.setEventDataJson("{\"RecordId\":42,\"LogonType\":\"3\"}");
+
+        Map<String, Object> first = event.getEventData();
+        assertSame(first, event.getEventData());
+        assertEquals(42, first.get("RecordId"));
+        assertEquals("42", event.getEventDataString("RecordId"));
+        assertNull(event.getEventDataString("Missing"));
+        assertThrows(UnsupportedOperationException.class, () -> first.put("x", 1));
+    }
+
+    @Test
+    @DisplayName("写入 JSON 或 Map 后缓存失效")
+    void shouldInvalidateCacheOnWrite() {
+        UnifiedSecurityEvent event = new UnifiedSecurityEvent();
+        event.setEventDataJson("{\"a\":1}");
+        Map<String, Object> before = event.getEventData();
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("b", "2");
+        event.setEventData(data);
+
+        assertNotSame(before, event.getEventData());
+        assertEquals(Map.of("b", "2"), event.getEventData());
+
+        event.setEventDataJson(null);
+        assertTrue(event.getEventData().isEmpty());
+    }
+
+    @Test
+    @DisplayName("特征向量缓存与单值读取")
+    void shouldReadFeatures() {
+        UnifiedSecurityEvent event = new UnifiedSecurityEvent();
+        assertTrue(event.getFeatures().isEmpty());
+        assertEquals(-1.0, event.getFeature("score", -1.0));
+
+        event.setFeatures(Map.of("score", 0.75));
+        assertSame(event.getFeatures(), event.getFeatures());
+        assertEquals(0.75, event.getFeature("score", -1.0));
+
+        event.setFeaturesJson("not json");
+        assertTrue(event.getFeatures().isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package com.security.ailogsystem.repository;
+
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.util.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 键集（游标）分页在数据库上的翻页测试：排序值大量重复且含 null，逐页翻完后不漏行也不重复
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("键集（游标）分页翻页测试")
+class KeysetPaginationTest {
+
+    private static final int ROWS = 37;
+
+    @Autowired
+    private UnifiedEventRepository eventRepository;
+
+    private List<UnifiedSecurityEvent> events;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<UnifiedSecurityEvent> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(UnifiedSecurityEvent.builder()
+                    // 每 4 条共用一个时间，每 3 条共用一个评分，约四分之一没有评分和威胁等级
+                    .timestamp(base.minusMinutes(i / 4))
+                    .anomalyScore(i % 4 == 1 ? null : (double) (i % 3))
+                    .threatLevel(i % 5 == 2 ? null : List.of("LOW", "MEDIUM", "HIGH").get(i % 3))
+                    .sourceSystem("WINDOWS")
+                    .eventType("LOGIN_FAILURE")
+                    .category("AUTHENTICATION")
+                    .severity("HIGH")
+                    .build());
+        }
+        events = eventRepository.saveAllAndFlush(rows);
+    }
+
+    @ParameterizedTest(name = "{0} {1}，每页 {2} 条")
+    @CsvSource({
+            "timestamp, DESC, 3", "timestamp, ASC, 5",
+            "anomalyScore, DESC, 4", "anomalyScore, ASC, 4", "anomalyScore, ASC, 1",
+            "threatLevel, DESC, 6", "threatLevel, ASC, 2",
+            "id, DESC, 7", "id, ASC, 7"})
+    @DisplayName("按排序值和 id 逐页翻完，顺序与整表排序一致，不漏行也不重复")
+    void shouldPageThroughEveryRowOnce(String sortBy, Sort.Direction direction, int size) {
+        List<Long> paged = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            KeysetCursor cursor = KeysetCursor.decode(token, sortBy, direction);
+            Specification<UnifiedSecurityEvent> spec = Specification.where(null);
+            if (cursor != null) {
+                spec = spec.and(cursor.toSpecification());
+            }
+            List<UnifiedSecurityEvent> rows = eventRepository.findBy(spec, query -> query
+                    .sortBy(KeysetCursor.sort(sortBy, direction))
+                    .limit(KeysetCursor.fetchSize(size))
+                    .all());
+            Slice<UnifiedSecurityEvent> slice = KeysetCursor.slice(rows, size, sortBy, direction);
+            slice.getContent().forEach(event -> paged.add(event.getId()));
+            token = KeysetCursor.next(slice, sortBy, direction);
+            assertTrue(++pages <= ROWS, "翻页未结束");
+        } while (token != null);
+
+        assertEquals(ROWS, new HashSet<>(paged).size(), "有重复的行");
+        assertEquals(expectedOrder(sortBy, direction), paged);
+        assertEquals(eventRepository.findAll(KeysetCursor.sort(sortBy, direction)).stream()
+                .map(UnifiedSecurityEvent::getId).toList(), paged);
+    }
+
+    /**
+     * 按 MySQL 语义在内存中排序：null 升序在前、降序在后，同值按 id 与排序方向一致
+     */
+    private List<Long> expectedOrder(String sortBy, Sort.Direction direction) {
+        Function<UnifiedSecurityEvent, Comparable<Object>> key = event -> switch (sortBy) {
+            case "timestamp" -> comparable(event.getTimestamp());
+            case "anomalyScore" -> comparable(event.getAnomalyScore());
+            case "threatLevel" -> comparable(event.getThreatLevel());
+            default -> comparable(event.getId());
+        };
+        Comparator<UnifiedSecurityEvent> order = Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+        order = order.thenComparing(UnifiedSecurityEvent::getId);
+        if (direction.isDescending()) {
+            order = order.reversed();
+        }
+        return events.stream().sorted(order).map(UnifiedSecurityEvent::getId).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable<Object>) value;
+    }
+}
@@ -0,0 +1,122 @@
+package com.security.ailogsystem.repository;
+
+import com.security.ailogsystem.config.PayloadCompressionConfig;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.model.UnifiedSecurityEventPayload;
+import com.security.ailogsystem.service.PayloadRecompressionService;
+import com.security.ailogsystem.util.PayloadCompression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键词检索列存储测试：长文本压缩后 LIKE 无法匹配，检索列须保持明文
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({PayloadCompressionConfig.class, PayloadRecompressionService.class})
+@DisplayName("关键词检索列存储测试")
+class SearchableTextColumnTest {
+
+    private static final String MESSAGE = ("An account failed to log on. Account Name: administrator "
+            + "Logon Type: 3 Source Network Address: 192.168.1.15 ").repeat(20);
+
+    @Autowired
+    private UnifiedEventRepository eventRepository;
+
+    @Autowired
+    private PayloadRecompressionService recompressionService;
+
+    @Autowired
+    private PayloadCompression payloadCompression;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("超过压缩阈值的消息明文存储，关键词 LIKE 可以匹配，其余大字段仍压缩")
+    void shouldStoreSearchableColumnsAsPlainText() {
+        UnifiedSecurityEvent event = event();
+        event.setRawMessage(MESSAGE);
+        event.setRawData(MESSAGE);
+        Long id = eventRepository.saveAndFlush(event).getId();
+        entityManager.clear();
+
+        assertEquals(MESSAGE, jdbcTemplate.queryForObject(
+                "SELECT normalized_message FROM unified_security_events WHERE id = ?", String.class, id));
+        assertEquals(MESSAGE, jdbcTemplate.queryForObject(
+                "SELECT p.raw_message FROM unified_security_event_payloads p "
+                        + "JOIN unified_security_events e ON e.payload_id = p.id WHERE e.id = ?", String.class, id));
+        assertTrue(PayloadCompression.isCompressedText(jdbcTemplate.queryForObject(
+                "SELECT p.raw_data FROM unified_security_event_payloads p "
+                        + "JOIN unified_security_events e ON e.payload_id = p.id WHERE e.id = ?", String.class, id)));
+
+        assertEquals(List.of(id), ids(keyword("Address: 192.168.1.15")));
+        assertEquals(List.of(), ids(keyword("administrator Address")));
+    }
+
+    @Test
+    @DisplayName("已被压缩写入的检索列可以读取，重压缩任务将其还原为明文")
+    void shouldRestoreCompressedSearchableColumns() {
+        Long id = eventRepository.saveAndFlush(event()).getId();
+        String compressed = payloadCompression.compressText(MESSAGE);
+        assertTrue(PayloadCompression.isCompressedText(compressed));
+        jdbcTemplate.update("UPDATE unified_security_events SET normalized_message = ? WHERE id = ?", compressed, id);
+        entityManager.clear();
+
+        assertEquals(MESSAGE, eventRepository.findById(id).orElseThrow().getNormalizedMessage());
+        assertEquals(List.of(), ids(keyword("Address: 192.168.1.15")));
+
+        recompressionService.recompress();
+        entityManager.clear();
+
+        assertEquals(MESSAGE, jdbcTemplate.queryForObject(
+                "SELECT normalized_message FROM unified_security_events WHERE id = ?", String.class, id));
+        assertEquals(List.of(id), ids(keyword("Address: 192.168.1.15")));
+    }
+
+    private static UnifiedSecurityEvent event() {
+        return UnifiedSecurityEvent.builder()
+                .timestamp(LocalDateTime.now())
+                .sourceSystem("WINDOWS")
+                .eventType("LOGIN_FAILURE")
+                .category("AUTHENTICATION")
+                .severity("HIGH")
+                .normalizedMessage(MESSAGE)
+                .build();
+    }
+
+    /**
+     * 与事件检索相同的关键词 LIKE 条件
+     */
+    private static Specification<UnifiedSecurityEvent> keyword(String keyword) {
+        return (root, query, cb) -> {
+            String likePattern = "%" + keyword + "%";
+            Join<UnifiedSecurityEvent, UnifiedSecurityEventPayload> payload = root.join("payload", JoinType.LEFT);
+            return cb.or(
+                    cb.like(payload.get("rawMessage"), likePattern),
+                    cb.like(root.get("normalizedMessage"), likePattern),
+                    cb.like(payload.get("anomalyReason"), likePattern));
+        };
+    }
+
+    private List<Long> ids(Specification<UnifiedSecurityEvent> specification) {
+        return eventRepository.findAll(specification).stream().map(UnifiedSecurityEvent::getId).toList();
+    }
+}
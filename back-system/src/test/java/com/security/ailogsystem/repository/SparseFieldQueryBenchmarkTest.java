@@ -0,0 +1,135 @@
+package com.security.ailogsystem.repository;
+
+import com.security.ailogsystem.dto.response.AlertResponse;
+import com.security.ailogsystem.model.Alert;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 稀疏字段查询测试，并对 1000 行分页比较完整实体映射 DTO 与稀疏字段查询的堆分配和耗时；
+ * 多轮测量的部分标记为 benchmark，默认不运行，用 mvn test -Pbenchmark 单独运行
+ */
+@Slf4j
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(SparseFieldQuery.class)
+@DisplayName("稀疏字段查询测试")
+class SparseFieldQueryBenchmarkTest {
+
+    private static final int ROWS = 1000;
+    private static final String FIELDS = "alertLevel,alertType,status,handled,createdTime";
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private SparseFieldQuery sparseFieldQuery;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        String description = "告警详情".repeat(200);
+        for (int i = 0; i < ROWS; i++) {
+            alertRepository.save(Alert.builder()
+                    .alertId("BENCH_" + i)
+                    .source("BENCHMARK")
+                    .alertType(i % 2 == 0 ? "BRUTE_FORCE" : "PORT_SCAN")
+                    .alertLevel(i % 3 == 0 ? "HIGH" : "LOW")
+                    .description(description)
+                    .resolution(description)
+                    .aiConfidence(BigDecimal.valueOf(0.9))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("只返回 id 和指定字段，不托管实体")
+    void shouldSelectRequestedFieldsOnly() {
+        List<String> fields = sparseFieldQuery.parse(Alert.class, FIELDS);
+
+        Page<Map<String, Object>> page = sparseFieldQuery.findAll(Alert.class, fields, null,
+                PageRequest.of(0, ROWS, Sort.by(Sort.Direction.DESC, "createdTime")), alertRepository::count);
+
+        assertEquals(ROWS, page.getNumberOfElements());
+        assertEquals(ROWS, page.getTotalElements());
+        assertEquals(List.of("id", "alertLevel", "alertType", "status", "handled", "createdTime"),
+                List.copyOf(page.getContent().get(0).keySet()));
+        assertEquals(0, session().getStatistics().getEntityCount());
+        assertNull(sparseFieldQuery.parse(Alert.class, " "));
+        assertThrows(IllegalArgumentException.class, () -> sparseFieldQuery.parse(Alert.class, "unifiedEvent"));
+        assertThrows(IllegalArgumentException.class, () -> sparseFieldQuery.parse(Alert.class, "password"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("1000 行分页：稀疏字段查询的堆分配低于完整实体映射 DTO")
+    void benchmarkThousandRowPage() {
+        Pageable pageable = PageRequest.of(0, ROWS, Sort.by(Sort.Direction.DESC, "createdTime"));
+        List<String> fields = sparseFieldQuery.parse(Alert.class, FIELDS);
+
+        Supplier<Object> entities = () -> alertRepository.findAll(pageable).map(AlertResponse::fromEntity);
+        Supplier<Object> sparse = () -> sparseFieldQuery.findAll(Alert.class, fields, null, pageable,
+                alertRepository::count);
+
+        long[] entityResult = measure(entities);
+        long[] sparseResult = measure(sparse);
+
+        log.info("1000 行分页 完整实体: {} KB, {} ms; 稀疏字段: {} KB, {} ms",
+                entityResult[0] / 1024, String.format("%.2f", entityResult[1] / 1e6),
+                sparseResult[0] / 1024, String.format("%.2f", sparseResult[1] / 1e6));
+        assertTrue(sparseResult[0] < entityResult[0],
+                "稀疏字段查询分配 " + sparseResult[0] + " 字节，完整实体 " + entityResult[0] + " 字节");
+    }
+
+    /**
+     * 预热后多轮执行，返回每轮平均分配字节数和平均耗时（纳秒）；每轮结束清空持久化上下文
+     */
+    private long[] measure(Supplier<Object> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(query.get());
+            entityManager.clear();
+        }
+        int rounds = 20;
+        long allocated = 0;
+        long elapsed = 0;
+        for (int i = 0; i < rounds; i++) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            assertNotNull(query.get());
+            elapsed += System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            entityManager.clear();
+        }
+        return new long[]{allocated / rounds, elapsed / rounds};
+    }
+
+    private Session session() {
+        return entityManager.getEntityManager().unwrap(Session.class);
+    }
+}
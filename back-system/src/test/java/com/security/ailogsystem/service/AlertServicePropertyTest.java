@@ -37,7 +37,7 @@ class AlertServicePropertyTest {
     @BeforeEach
     void setUp() {
         // Create AlertService instance with the repository
-        alertService = new AlertServiceImpl(null, null, securityAlertRepository);
+        alertService = new AlertServiceImpl(null, null, securityAlertRepository, null, null, null, null);
     }
 
     /**
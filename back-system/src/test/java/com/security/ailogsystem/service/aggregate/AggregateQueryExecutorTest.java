@@ -0,0 +1,124 @@
+package com.security.ailogsystem.service.aggregate;
+
+import com.security.ailogsystem.config.AggregateQueryProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统计子查询并发执行器测试
+ */
+@DisplayName("统计子查询并发执行器测试")
+class AggregateQueryExecutorTest {
+
+    private AggregateQueryExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("子查询并发执行，总耗时接近最慢的子查询")
+    void shouldRunSubQueriesConcurrently() {
+        executor = executor(4, 5000);
+
+        long start = System.nanoTime();
+        AggregateResult result = executor.batch()
+                .submit("a", () -> sleepAndReturn(300, 1L))
+                .submit("b", () -> sleepAndReturn(300, 2L))
+                .submit("c", () -> sleepAndReturn(300, 3L))
+                .await();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.isComplete());
+        assertEquals(List.of(1L, 2L, 3L), List.of(result.get("a", 0L), result.get("b", 0L), result.get("c", 0L)));
+        assertTrue(elapsedMs < 800, "耗时 " + elapsedMs + " ms");
+        assertEquals(false, result.flags().get("partial"));
+    }
+
+    @Test
+    @DisplayName("同时执行的子查询数不超过并发上限")
+    void shouldCapConcurrencyPerBatch() {
+        executor = executor(2, 5000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        AggregateQueryExecutor.Batch batch = executor.batch();
+        for (int i = 0; i < 6; i++) {
+            batch.submit("q" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleepAndReturn(100, null);
+                running.decrementAndGet();
+                return true;
+            });
+        }
+
+        assertTrue(batch.await().isComplete());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("超过总时限的子查询被取消，其余结果照常返回并标记为部分结果")
+    void shouldReturnPartialResultsOnDeadline() {
+        executor = executor(4, 300);
+
+        long start = System.nanoTime();
+        AggregateResult result = executor.batch()
+                .submit("fast", () -> 42L)
+                .submit("slow", () -> sleepAndReturn(5000, 1L))
+                .submit("broken", () -> {
+                    throw new IllegalStateException("查询失败");
+                })
+                .await();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(42L, result.get("fast", 0L));
+        assertEquals(0L, result.get("slow", 0L));
+        assertFalse(result.isComplete());
+        assertEquals(List.of("slow"), result.getTimedOut());
+        assertEquals("查询失败", result.getFailed().get("broken"));
+        assertEquals(List.of("slow", "broken"), result.getMissing());
+        assertEquals(true, result.flags().get("partial"));
+        assertTrue(elapsedMs < 2000, "耗时 " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("子查询在只读事务中执行")
+    void shouldRunInReadOnlyTransaction() {
+        executor = executor(4, 5000);
+
+        AggregateResult result = executor.batch()
+                .submit("readOnly", TransactionSynchronizationManager::isCurrentTransactionReadOnly)
+                .await();
+
+        assertEquals(true, result.get("readOnly", false));
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.batch().submit("a", () -> 1).submit("a", () -> 2));
+    }
+
+    private AggregateQueryExecutor executor(int maxConcurrency, long timeoutMs) {
+        AggregateQueryProperties properties = new AggregateQueryProperties();
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.setTimeoutMs(timeoutMs);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:aggregate;DB_CLOSE_DELAY=-1", "sa", "");
+        return new AggregateQueryExecutor(properties, new DataSourceTransactionManager(dataSource));
+    }
+
+    private static <T> T sleepAndReturn(long millis, T value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,87 @@
+package com.security.ailogsystem.service.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 范围查询时间桶拆分测试
+ */
+@DisplayName("范围查询时间桶拆分测试")
+class RangeBucketsTest {
+
+    @Test
+    @DisplayName("最近 24 小时由首部零散部分、23 个整小时和实时尾部组成")
+    void shouldSplitLast24Hours() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 10, 14, 20, 5);
+        LocalDateTime start = now.minusHours(24);
+        LocalDateTime closedBefore = RangeBuckets.closedBefore(now, 15);
+
+        List<RangeBuckets.Piece> pieces = RangeBuckets.split(start, now, true, closedBefore);
+
+        assertContiguous(pieces, start, now);
+        assertEquals(LocalDateTime.of(2024, 3, 10, 14, 0), closedBefore);
+        assertFalse(pieces.get(0).closed());
+        assertEquals(LocalDateTime.of(2024, 3, 9, 15, 0), pieces.get(0).to());
+        RangeBuckets.Piece tail = pieces.get(pieces.size() - 1);
+        assertFalse(tail.closed());
+        assertEquals(closedBefore, tail.from());
+        assertTrue(tail.inclusiveEnd());
+        // 3/9 15:00 至 3/10 14:00：9 个小时 + 14 个小时
+        assertEquals(23, pieces.stream().filter(RangeBuckets.Piece::closed).count());
+    }
+
+    @Test
+    @DisplayName("长时间范围优先使用整月和整天时间桶")
+    void shouldUseCoarseBucketsForLongRange() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 30, 22, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 5, 2, 3, 0);
+
+        List<RangeBuckets.Piece> pieces = RangeBuckets.split(start, end, false, LocalDateTime.of(2030, 1, 1, 0, 0));
+
+        assertContiguous(pieces, start, end);
+        assertTrue(pieces.stream().allMatch(RangeBuckets.Piece::closed));
+        assertTrue(pieces.stream().anyMatch(p -> p.from().equals(LocalDateTime.of(2024, 2, 1, 0, 0))
+                && p.to().equals(LocalDateTime.of(2024, 3, 1, 0, 0))));
+        // 2 小时 + 1 天 + 3 个月 + 1 天 + 3 小时
+        assertEquals(10, pieces.size());
+    }
+
+    @Test
+    @DisplayName("范围全部未关闭或不足一小时时整体实时计算")
+    void shouldComputeOpenRangeLive() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 10, 13, 10);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 10, 14, 20);
+
+        List<RangeBuckets.Piece> pieces = RangeBuckets.split(start, end, true, LocalDateTime.of(2024, 3, 10, 14, 0));
+
+        assertEquals(List.of(new RangeBuckets.Piece(start, end, true, false)), pieces);
+        assertTrue(RangeBuckets.split(end, start, true, end).isEmpty());
+        assertTrue(RangeBuckets.split(start, start, false, end).isEmpty());
+    }
+
+    @Test
+    @DisplayName("结束时间不含且恰好对齐时不产生尾部片段")
+    void shouldSkipEmptyExclusiveTail() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 10, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 10, 6, 0);
+
+        List<RangeBuckets.Piece> pieces = RangeBuckets.split(start, end, false, LocalDateTime.of(2024, 3, 11, 0, 0));
+
+        assertEquals(6, pieces.size());
+        assertTrue(pieces.stream().allMatch(RangeBuckets.Piece::closed));
+    }
+
+    private static void assertContiguous(List<RangeBuckets.Piece> pieces, LocalDateTime start, LocalDateTime end) {
+        assertEquals(start, pieces.get(0).from());
+        for (int i = 1; i < pieces.size(); i++) {
+            assertEquals(pieces.get(i - 1).to(), pieces.get(i).from(), "片段不连续: " + pieces);
+            assertFalse(pieces.get(i - 1).inclusiveEnd());
+        }
+        assertEquals(end, pieces.get(pieces.size() - 1).to());
+    }
+}
@@ -0,0 +1,95 @@
+package com.security.ailogsystem.service.cache;
+
+import com.security.ailogsystem.config.CacheSpecProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 时间范围查询结果缓存测试
+ */
+@DisplayName("时间范围查询结果缓存测试")
+class RangeResultCacheTest {
+
+    private static final LocalDateTime DAY1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime DAY3 = LocalDateTime.of(2024, 1, 3, 0, 0);
+
+    private RangeResultCache cache;
+    private final List<LocalDateTime> loads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cache = new RangeResultCache(new CacheSpecProperties());
+        loads.clear();
+    }
+
+    private Map<Object, Long> query(LocalDateTime start, LocalDateTime end) {
+        return cache.get(RangeResultCache.ALERTS, "levels", start, end, false,
+                (from, to, inclusiveEnd) -> {
+                    loads.add(from);
+                    return Map.<Object, Long>of("HIGH", 1L);
+                },
+                RangeResultCache::sumCounts);
+    }
+
+    @Test
+    @DisplayName("已关闭时间桶只加载一次，实时尾部每次重新计算")
+    void shouldCacheClosedBucketsOnly() {
+        assertEquals(Map.of("HIGH", 2L), query(DAY1, DAY3));
+        assertEquals(2, loads.size());
+        assertEquals(Map.of("HIGH", 2L), query(DAY1, DAY3));
+        assertEquals(2, loads.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        query(now.minusMinutes(5), RangeResultCache.OPEN_END);
+        query(now.minusMinutes(5), RangeResultCache.OPEN_END);
+        assertEquals(4, loads.size());
+    }
+
+    @Test
+    @DisplayName("按记录时间失效只影响包含该时间的时间桶")
+    void shouldInvalidateContainingBucket() {
+        query(DAY1, DAY3);
+        loads.clear();
+
+        cache.invalidate(RangeResultCache.ALERTS, DAY1.plusDays(1).plusHours(3));
+        cache.invalidate(RangeResultCache.ALERTS, LocalDateTime.now());
+        query(DAY1, DAY3);
+
+        assertEquals(List.of(DAY1.plusDays(1)), loads);
+    }
+
+    @Test
+    @DisplayName("加载期间发生失效时不写入缓存")
+    void shouldNotCacheResultLoadedDuringInvalidation() {
+        cache.get(RangeResultCache.ALERTS, "levels", DAY1, DAY1.plusDays(1), false,
+                (from, to, inclusiveEnd) -> {
+                    cache.invalidate(RangeResultCache.ALERTS, from);
+                    return Map.<Object, Long>of("HIGH", 1L);
+                },
+                RangeResultCache::sumCounts);
+
+        query(DAY1, DAY1.plusDays(1));
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    @DisplayName("合并结果为新对象，不修改已缓存的片段")
+    void shouldNotMutateCachedParts() {
+        Map<Object, Long> first = query(DAY1, DAY3);
+        first.put("HIGH", 100L);
+
+        assertEquals(Map.of("HIGH", 2L), query(DAY1, DAY3));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> status = (Map<String, Object>) ((Map<String, Object>) cache.getStatus().get("caches"))
+                .get(RangeResultCache.ALERTS);
+        assertEquals(2L, status.get("hitCount"));
+    }
+}
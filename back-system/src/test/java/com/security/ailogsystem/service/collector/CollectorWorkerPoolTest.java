@@ -0,0 +1,196 @@
+package com.security.ailogsystem.service.collector;
+
+import com.security.ailogsystem.config.CollectorWorkerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 常驻采集进程池测试
+ * 用按同一行协议应答的 Java 程序代替 Python 脚本：hang 不响应，crash 直接退出，slow 延迟 200 毫秒
+ */
+@DisplayName("常驻采集进程池测试")
+class CollectorWorkerPoolTest {
+
+    private static final String FAKE_WORKER = """
+            import java.io.*;
+            import java.util.regex.*;
+
+            public class FakeWorker {
+                public static void main(String[] args) throws Exception {
+                    long pid = ProcessHandle.current().pid();
+                    System.out.println("{\\"ready\\": true, \\"pid\\": " + pid + "}");
+                    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                    Pattern idPattern = Pattern.compile("\\"id\\":(\\\\d+)");
+                    Pattern typePattern = Pattern.compile("\\"type\\":\\"(\\\\w+)\\"");
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        Matcher id = idPattern.matcher(line);
+                        Matcher type = typePattern.matcher(line);
+                        if (!id.find() || !type.find()) {
+                            System.out.println("{\\"id\\": null, \\"error\\": \\"bad request\\"}");
+                            continue;
+                        }
+                        switch (type.group(1)) {
+                            case "hang" -> Thread.sleep(Long.MAX_VALUE);
+                            case "crash" -> System.exit(3);
+                            case "slow" -> Thread.sleep(200);
+                            default -> { }
+                        }
+                        System.err.println("handled " + type.group(1));
+                        System.out.println("{\\"id\\": " + id.group(1) + ", \\"data\\": {\\"type\\": \\""
+                                + type.group(1) + "\\", \\"pid\\": " + pid + "}}");
+                    }
+                }
+            }
+            """;
+
+    @TempDir
+    static Path workerDir;
+
+    private CollectorWorkerProperties properties;
+    private CollectorWorkerPool pool;
+
+    @BeforeAll
+    static void compileFakeWorker() throws IOException {
+        Path source = workerDir.resolve("FakeWorker.java");
+        Files.writeString(source, FAKE_WORKER);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, source.toString()));
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties = new CollectorWorkerProperties();
+        properties.setPoolSize(1);
+        properties.setRequestTimeoutMs(2000);
+        properties.setStartTimeoutMs(10000);
+        properties.setHealthCheckSeconds(3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+    }
+
+    @Test
+    @DisplayName("同一进程连续处理多个请求，健康检查预热后不再启动新进程")
+    void shouldReuseWorker() throws Exception {
+        pool = start();
+        awaitLiveWorkers(1);
+
+        Map<String, Object> first = pool.collect("performance");
+        Map<String, Object> second = pool.collect("process_info");
+
+        assertEquals("performance", first.get("type"));
+        assertEquals("process_info", second.get("type"));
+        assertEquals(first.get("pid"), second.get("pid"));
+        assertEquals(1, pool.getLiveWorkers());
+        assertEquals(0, pool.getRestarts());
+    }
+
+    @Test
+    @DisplayName("请求超时的进程被结束，下一次采集启动新进程")
+    void shouldRestartAfterTimeout() throws Exception {
+        pool = start();
+        Object pid = pool.collect("performance").get("pid");
+
+        assertThrows(TimeoutException.class, () -> pool.collect("hang"));
+        assertEquals(1, pool.getTimeouts());
+        assertEquals(1, pool.getRestarts());
+        assertEquals(0, pool.getLiveWorkers());
+
+        assertNotEquals(pid, pool.collect("performance").get("pid"));
+        assertEquals(1, pool.getLiveWorkers());
+    }
+
+    @Test
+    @DisplayName("进程崩溃后重新启动，健康检查结束已退出的空闲进程并补足")
+    void shouldRestartAfterCrash() throws Exception {
+        pool = start();
+        Object pid = pool.collect("performance").get("pid");
+
+        assertThrows(IOException.class, () -> pool.collect("crash"));
+        assertEquals(1, pool.getRestarts());
+        Object restarted = pool.collect("performance").get("pid");
+        assertNotEquals(pid, restarted);
+
+        ProcessHandle.of(((Number) restarted).longValue()).ifPresent(ProcessHandle::destroyForcibly);
+        Thread.sleep(200);
+        pool.checkHealth();
+        assertEquals(2, pool.getRestarts());
+        assertEquals(1, pool.getLiveWorkers());
+        assertNotEquals(restarted, pool.collect("performance").get("pid"));
+    }
+
+    @Test
+    @DisplayName("同时进行的采集数不超过进程数")
+    void shouldBoundConcurrency() throws Exception {
+        properties.setPoolSize(2);
+        pool = start();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Map<String, Object>>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.submit(() -> pool.collect("slow")));
+            }
+            Set<Object> pids = new HashSet<>();
+            for (Future<Map<String, Object>> future : futures) {
+                pids.add(future.get().get("pid"));
+            }
+            assertTrue(pids.size() <= 2, "进程数 " + pids.size());
+            assertTrue(pool.getLiveWorkers() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("启动方式不可用时采集失败，不影响调用方降级")
+    void shouldFailWhenLauncherUnavailable() {
+        pool = new CollectorWorkerPool(properties);
+        pool.start(() -> {
+            throw new IllegalStateException("Python脚本不存在");
+        });
+
+        IOException error = assertThrows(IOException.class, () -> pool.collect("performance"));
+        assertTrue(error.getMessage().contains("Python脚本不存在"));
+        assertEquals(0, pool.getLiveWorkers());
+    }
+
+    /**
+     * 等待启动时立即执行的健康检查预热完成；此时直接调用 checkHealth 会因许可被预热占用而跳过
+     */
+    private void awaitLiveWorkers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + properties.getStartTimeoutMs();
+        while (pool.getLiveWorkers() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, pool.getLiveWorkers());
+    }
+
+    private CollectorWorkerPool start() {
+        CollectorWorkerPool started = new CollectorWorkerPool(properties);
+        String java = ProcessHandle.current().info().command().orElse("java");
+        started.start(() -> new ProcessBuilder(java, "-cp", workerDir.toString(), "FakeWorker"));
+        return started;
+    }
+}
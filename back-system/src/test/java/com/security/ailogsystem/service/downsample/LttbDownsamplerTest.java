@@ -0,0 +1,98 @@
+package com.security.ailogsystem.service.downsample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式 LTTB 降采样测试
+ */
+@DisplayName("流式 LTTB 降采样测试")
+class LttbDownsamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 4, 0, 0);
+
+    private static List<long[]> downsample(List<long[]> input, long endX, int maxPoints) {
+        List<long[]> output = new ArrayList<>();
+        LttbDownsampler<long[]> lttb = new LttbDownsampler<>(0, endX, maxPoints, p -> p[0], p -> p[1], output::add);
+        input.forEach(lttb::add);
+        lttb.finish();
+        return output;
+    }
+
+    @Test
+    @DisplayName("点数不超过上限时原样输出")
+    void shouldKeepSmallSeries() {
+        List<long[]> input = List.of(new long[]{0, 1}, new long[]{10, 5}, new long[]{20, 2});
+
+        assertEquals(input, downsample(input, 20, 3));
+    }
+
+    @Test
+    @DisplayName("保留首尾点和尖峰，输出点数不超过上限且按时间升序")
+    void shouldKeepShapeWithinLimit() {
+        List<long[]> input = new ArrayList<>();
+        for (long x = 0; x < 10_000; x++) {
+            input.add(new long[]{x, x == 4321 ? 1000 : x % 7});
+        }
+
+        List<long[]> output = downsample(input, 9_999, 100);
+
+        assertTrue(output.size() <= 100);
+        assertTrue(output.size() > 90);
+        assertSame(input.get(0), output.get(0));
+        assertSame(input.get(input.size() - 1), output.get(output.size() - 1));
+        assertTrue(output.stream().anyMatch(p -> p[1] == 1000));
+        for (int i = 1; i < output.size(); i++) {
+            assertTrue(output.get(i)[0] > output.get(i - 1)[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("空桶跳过，稀疏数据不会补点")
+    void shouldSkipEmptyBuckets() {
+        List<long[]> input = new ArrayList<>();
+        for (long x = 0; x < 50; x++) {
+            input.add(new long[]{x, x});
+        }
+        input.add(new long[]{9_000, 3});
+
+        List<long[]> output = downsample(input, 10_000, 10);
+
+        assertTrue(output.size() <= 10);
+        assertEquals(9_000, output.get(output.size() - 1)[0]);
+    }
+
+    @Test
+    @DisplayName("按周分桶求均值后再限制点数")
+    void shouldAverageIntoWeeksBeforeLttb() {
+        LocalDateTime end = START.plusDays(28);
+        SeriesDownsampler series = new SeriesDownsampler(START, end, TimeBucket.WEEK, 200);
+        for (LocalDateTime time = START; time.isBefore(end); time = time.plusHours(1)) {
+            series.add(time, time.isBefore(START.plusDays(7)) ? 10.0 : 20.0);
+        }
+        series.add(end, null);
+
+        List<ChartPoint> points = series.finish();
+
+        assertEquals(4, points.size());
+        assertEquals(new ChartPoint(ChartPoint.epochMilli(START), 10.0), points.get(0));
+        assertEquals(new ChartPoint(ChartPoint.epochMilli(START.plusDays(21)), 20.0), points.get(3));
+    }
+
+    @Test
+    @DisplayName("粒度参数解析，周从周一开始")
+    void shouldParseTimeBucket() {
+        assertEquals(TimeBucket.WEEK, TimeBucket.of("weekly", null));
+        assertEquals(TimeBucket.HOUR, TimeBucket.of("hour", null));
+        assertNull(TimeBucket.of("raw", null));
+        assertEquals(START, TimeBucket.WEEK.truncate(START.plusDays(6).plusHours(23)));
+        assertEquals(3, LttbDownsampler.clamp(0));
+        assertEquals(LttbDownsampler.MAX_POINTS_LIMIT, LttbDownsampler.clamp(1_000_000));
+    }
+}
@@ -0,0 +1,52 @@
+package com.security.ailogsystem.service.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CSV 写出器测试")
+class CsvExportWriterTest {
+
+    @Test
+    @DisplayName("带 BOM 的表头，字段仅在需要时加引号，小数保留两位")
+    void shouldWriteRfc4180Records() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvExportWriter writer = new CsvExportWriter(out);
+        writer.begin("日志数据", List.of("ID", "时间戳", "内容", "CPU使用率"));
+        writer.row(null, new Object[]{1L, LocalDateTime.of(2026, 5, 1, 8, 30, 5), "普通内容", 12.345});
+        writer.row(null, new Object[]{2L, null, "含,逗号 \"引号\"\n换行", -0.5});
+        writer.row(null, new Object[]{3, null, "", 7.0});
+        writer.finish();
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals("\uFEFFID,时间戳,内容,CPU使用率\n"
+                + "1,2026-05-01 08:30:05,普通内容,12.35\n"
+                + "2,,\"含,逗号 \"\"引号\"\"\n换行\",-0.50\n"
+                + "3,,,7.00\n", csv);
+    }
+
+    @Test
+    @DisplayName("finish 不关闭目标流，且只允许一个数据集")
+    void shouldNotCloseTargetStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("目标流不应被关闭");
+            }
+        };
+        try (CsvExportWriter writer = new CsvExportWriter(out)) {
+            writer.begin("a", List.of("x"));
+            writer.row(null, new Object[]{Double.NaN});
+            writer.finish();
+            assertThrows(IllegalStateException.class, () -> writer.begin("b", List.of("y")));
+        }
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("x\nNaN\n"));
+    }
+}
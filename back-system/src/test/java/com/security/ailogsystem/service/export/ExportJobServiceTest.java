@@ -0,0 +1,179 @@
+package com.security.ailogsystem.service.export;
+
+import com.security.ailogsystem.config.ExportProperties;
+import com.security.ailogsystem.dto.ExportRequest;
+import com.security.ailogsystem.service.DataExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("异步导出任务测试")
+class ExportJobServiceTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean block;
+    private ExportJobService jobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(stagingDir.resolve("export-stale.csv.part"), "上次运行遗留");
+        ExportProperties properties = new ExportProperties();
+        properties.getJobs().setStagingDir(stagingDir.toString());
+        properties.getJobs().setConcurrency(2);
+        properties.getJobs().setMaxActivePerUser(1);
+        properties.getJobs().setMaxRetainedPerUser(3);
+        properties.getJobs().setRetentionMinutes(60);
+        jobService = new ExportJobService(new FakeExportService(), properties);
+        jobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.destroy();
+    }
+
+    @Test
+    @DisplayName("任务在后台写入暂存文件并报告行数和字节数，只对提交者可见")
+    void shouldRunJobToStagedFile() throws Exception {
+        assertFalse(Files.exists(stagingDir.resolve("export-stale.csv.part")));
+
+        ExportJob job = jobService.submit("alice", request("logs"));
+        awaitFinished(job);
+
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRows().get());
+        assertEquals("row-1\nrow-2\nrow-3\n", Files.readString(job.getFile(), StandardCharsets.UTF_8));
+        assertEquals(Files.size(job.getFile()), job.getBytes().get());
+        assertEquals(ExportFormat.CSV, job.getFormat());
+        assertNotNull(job.getExpiresAt());
+        assertEquals(List.of(job), jobService.list("alice"));
+        assertTrue(jobService.get("bob", job.getId()).isEmpty());
+
+        assertEquals(0, jobService.cleanup(LocalDateTime.now()));
+        assertEquals(1, jobService.cleanup(job.getExpiresAt()));
+        assertFalse(Files.exists(job.getFile()));
+        assertTrue(jobService.list("alice").isEmpty());
+    }
+
+    @Test
+    @DisplayName("超过进行中任务配额时拒绝提交，取消后删除未完成的文件")
+    void shouldEnforceQuotaAndCancel() throws Exception {
+        block = true;
+        ExportJob running = jobService.submit("alice", request("events"));
+        assertThrows(ExportQuotaExceededException.class, () -> jobService.submit("alice", request("alerts")));
+        ExportJob other = jobService.submit("bob", request("alerts"));
+
+        assertTrue(jobService.cancel("alice", running.getId()));
+        assertEquals(ExportJob.Status.CANCELLED, running.getStatus());
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(other);
+        assertEquals(ExportJob.Status.CANCELLED, running.getStatus());
+        assertEquals(ExportJob.Status.COMPLETED, other.getStatus());
+        try (var files = Files.list(stagingDir)) {
+            assertEquals(List.of(other.getFile()), files.toList());
+        }
+
+        ExportJob next = jobService.submit("alice", request("alerts"));
+        awaitFinished(next);
+        assertEquals(ExportJob.Status.COMPLETED, next.getStatus());
+        assertTrue(jobService.cancel("alice", running.getId()));
+        assertEquals(List.of(next), jobService.list("alice"));
+    }
+
+    @Test
+    @DisplayName("不支持的类型和缺少数据类型的批量导出直接拒绝")
+    void shouldRejectInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("alice", request("users")));
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("alice", request("batch")));
+        assertEquals(ExportFormat.ZIP, ExportFormat.of("batch", "csv"));
+        assertEquals(ExportFormat.EXCEL, ExportFormat.of("batch", "excel"));
+    }
+
+    private static ExportRequest request(String type) {
+        return ExportRequest.builder().type(type).format("csv").build();
+    }
+
+    private static void awaitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(job.getFinishedAt(), "任务未在时限内结束");
+    }
+
+    /**
+     * 写出三行；block 为 true 时写出第一行后等待放行
+     */
+    private class FakeExportService implements DataExportService {
+
+        @Override
+        public void export(ExportRequest request, OutputStream out, ExportProgress progress) throws IOException {
+            for (int i = 1; i <= 3; i++) {
+                out.write(("row-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                progress.rowWritten();
+                if (block && i == 1) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void exportLogs(String format, LocalDateTime startTime, LocalDateTime endTime, String level,
+                               String keyword, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void exportAlerts(String format, LocalDateTime startTime, LocalDateTime endTime, String alertLevel,
+                                 String alertType, String status, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void exportEvents(String format, LocalDateTime startTime, LocalDateTime endTime, String eventType,
+                                 String severity, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void exportSecurityLogs(String format, LocalDateTime startTime, LocalDateTime endTime, Integer eventId,
+                                       String username, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void exportSystemMetrics(String format, LocalDateTime startTime, LocalDateTime endTime,
+                                        String metricType, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void batchExport(String format, List<String> dataTypes, LocalDateTime startTime,
+                                LocalDateTime endTime, OutputStream out) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
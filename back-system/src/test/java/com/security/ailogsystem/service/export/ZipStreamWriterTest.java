@@ -0,0 +1,95 @@
+package com.security.ailogsystem.service.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("流式 ZIP 写出测试")
+class ZipStreamWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("边写边压缩的条目与暂存条目都能被标准 ZIP 读取")
+    void shouldWriteReadableArchive() throws IOException {
+        String logs = "id,message\n" + "1,登录失败\n".repeat(5000);
+        String alerts = "id,level\n" + "1,HIGH\n".repeat(3000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipStreamWriter zip = new ZipStreamWriter(bytes, 6);
+        try (OutputStream entry = zip.openEntry("logs.csv")) {
+            entry.write(logs.getBytes(StandardCharsets.UTF_8));
+        }
+        try (CompressedSpool spool = CompressedSpool.create(1)) {
+            try (OutputStream out = spool.open()) {
+                out.write(alerts.getBytes(StandardCharsets.UTF_8));
+            }
+            zip.addDeflated("告警.csv", spool);
+            assertTrue(Files.exists(spool.file()));
+        }
+        try (OutputStream ignored = zip.openEntry("empty.csv")) {
+            // 空条目
+        }
+        zip.finish();
+
+        Map<String, String> streamed = readStream(bytes.toByteArray());
+        assertEquals(Map.of("logs.csv", logs, "告警.csv", alerts, "empty.csv", ""), streamed);
+        assertEquals(streamed, readCentralDirectory(bytes.toByteArray()));
+        assertTrue(bytes.size() < logs.length() / 10);
+    }
+
+    @Test
+    @DisplayName("暂存数据未写完时拒绝加入，关闭后删除临时文件")
+    void shouldRejectIncompleteSpool() throws IOException {
+        ZipStreamWriter zip = new ZipStreamWriter(new ByteArrayOutputStream(), 6);
+        CompressedSpool spool = CompressedSpool.create(6);
+        Path file = spool.file();
+        OutputStream out = spool.open();
+        out.write(1);
+
+        assertThrows(IllegalStateException.class, () -> zip.addDeflated("a.csv", spool));
+
+        out.close();
+        spool.close();
+        assertFalse(Files.exists(file));
+    }
+
+    private Map<String, String> readStream(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private Map<String, String> readCentralDirectory(byte[] archive) throws IOException {
+        Path file = Files.write(dir.resolve("export.zip"), archive);
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry : zip.stream().toList()) {
+                entries.put(entry.getName(),
+                        new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,203 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Transient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Parquet 写出测试")
+class ParquetFileWriterTest {
+
+    static class Sample {
+        private static final String IGNORED = "static";
+        private Long id;
+        private LocalDateTime createdAt;
+        private String eventType;
+        @Column(name = "ip_address")
+        private String ip;
+        private Integer port;
+        private Double score;
+        private Boolean anomaly;
+        private List<String> tags;
+        @Transient
+        private String temp;
+    }
+
+    @Test
+    @DisplayName("由实体字段推导列名和类型，跳过集合、静态和 @Transient 字段")
+    void shouldDeriveSchemaFromFields() {
+        ParquetSchema schema = ParquetSchema.of(Sample.class, List.of("eventType"));
+
+        assertEquals(List.of("id", "created_at", "event_type", "ip_address", "port", "score", "anomaly"),
+                schema.columns().stream().map(ParquetColumn::name).toList());
+        assertEquals(List.of(ParquetColumn.Type.INT64, ParquetColumn.Type.INT64, ParquetColumn.Type.BYTE_ARRAY,
+                        ParquetColumn.Type.BYTE_ARRAY, ParquetColumn.Type.INT32, ParquetColumn.Type.DOUBLE,
+                        ParquetColumn.Type.BOOLEAN),
+                schema.columns().stream().map(ParquetColumn::type).toList());
+        assertEquals(ParquetColumn.Logical.TIMESTAMP_MILLIS, schema.columns().get(1).logical());
+        assertTrue(schema.columns().get(2).dictionary());
+        assertFalse(schema.columns().get(3).dictionary());
+    }
+
+    @Test
+    @DisplayName("RLE/位打包混合编码：长段用 RLE，其余按 8 个一组位打包")
+    void shouldEncodeRleHybrid() {
+        ByteArrayOutputStream run = new ByteArrayOutputStream();
+        int[] same = new int[10];
+        Arrays.fill(same, 1);
+        RleEncoder.encode(same, same.length, 1, run);
+        assertArrayEquals(new byte[]{0x14, 0x01}, run.toByteArray());
+
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        RleEncoder.encode(new int[]{0, 1, 0}, 3, 1, packed);
+        assertArrayEquals(new byte[]{0x03, 0x02}, packed.toByteArray());
+
+        assertEquals(1, RleEncoder.bitWidth(0));
+        assertEquals(3, RleEncoder.bitWidth(4));
+    }
+
+    @Test
+    @DisplayName("多个行组写出后文件首尾为 PAR1，末尾记录元数据长度")
+    void shouldWriteFramedFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParquetFileWriter writer = new ParquetFileWriter(out, ParquetSchema.of(Sample.class, List.of("eventType")),
+                ParquetCodec.GZIP, 2048, 512);
+        for (int i = 0; i < 5000; i++) {
+            Sample sample = new Sample();
+            sample.id = (long) i;
+            sample.createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i);
+            sample.eventType = i % 5 == 0 ? null : "LOGIN_FAILURE";
+            sample.ip = "10.0.0." + i % 256;
+            sample.anomaly = i % 2 == 0;
+            writer.write(sample);
+        }
+        writer.finish();
+
+        byte[] file = out.toByteArray();
+        assertEquals("PAR1", new String(file, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(file, file.length - 4, 4, StandardCharsets.US_ASCII));
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertTrue(footerLength > 0 && footerLength < file.length - 12);
+        String footer = new String(file, file.length - 8 - footerLength, footerLength, StandardCharsets.ISO_8859_1);
+        assertTrue(footer.contains("event_type"));
+        assertTrue(file.length < 5000 * 20);
+    }
+
+    @Test
+    @DisplayName("按格式读回元数据、字典页和数据页，多个行组和页的值与写入一致")
+    void shouldRoundTrip() throws IOException {
+        String[] types = {"LOGIN_FAILURE", "PROCESS_CREATE", "登录成功"};
+        for (ParquetCodec codec : ParquetCodec.values()) {
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Sample sample = new Sample();
+                sample.id = (long) i;
+                sample.createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i);
+                sample.eventType = i % 5 == 0 ? null : types[i % 3];
+                sample.ip = "10.0.0." + i % 256;
+                sample.port = i % 7 == 0 ? null : i % 1000;
+                sample.score = i % 4 == 0 ? null : i * 0.5;
+                sample.anomaly = i % 3 == 0 ? null : i % 2 == 0;
+                samples.add(sample);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ParquetFileWriter writer = new ParquetFileWriter(out, ParquetSchema.of(Sample.class, List.of("eventType")),
+                    codec, 4096, 512);
+            for (Sample sample : samples) {
+                writer.write(sample);
+            }
+            writer.finish();
+
+            ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+            assertEquals(List.of("id", "created_at", "event_type", "ip_address", "port", "score", "anomaly"),
+                    reader.columnNames());
+            assertEquals(3000, reader.rows());
+            assertTrue(reader.rowGroups().size() > 1, codec + " 行组数 " + reader.rowGroups().size());
+            assertEquals(3000, reader.rowGroups().stream().mapToLong(rowGroup -> (Long) rowGroup.get(3)).sum());
+
+            assertEquals(samples.stream().map(s -> (Object) s.id).toList(), reader.readColumn(0));
+            assertEquals(samples.stream().map(s -> (Object) s.createdAt.toInstant(ZoneOffset.UTC).toEpochMilli())
+                    .toList(), reader.readColumn(1));
+            assertEquals(samples.stream().map(s -> (Object) s.eventType).toList(), reader.readColumn(2));
+            assertEquals(samples.stream().map(s -> (Object) s.ip).toList(), reader.readColumn(3));
+            assertEquals(samples.stream().map(s -> (Object) s.port).toList(), reader.readColumn(4));
+            assertEquals(samples.stream().map(s -> (Object) s.score).toList(), reader.readColumn(5));
+            assertEquals(samples.stream().map(s -> (Object) s.anomaly).toList(), reader.readColumn(6));
+
+            ParquetTestReader.Chunk eventTypes = reader.readChunk(0, 2);
+            assertEquals(List.of("PROCESS_CREATE", "登录成功", "LOGIN_FAILURE"), eventTypes.dictionary());
+            assertEquals(ParquetTestReader.PAGE_DICTIONARY, eventTypes.pages().get(0).type());
+            assertTrue(eventTypes.pages().stream().skip(1)
+                    .allMatch(page -> page.encoding() == ParquetTestReader.ENCODING_PLAIN_DICTIONARY));
+            ParquetTestReader.Chunk ips = reader.readChunk(0, 3);
+            assertTrue(ips.dictionary().isEmpty());
+            assertTrue(ips.pages().size() > 1, "数据页数 " + ips.pages().size());
+            assertTrue(ips.pages().stream().allMatch(page -> page.encoding() == ParquetTestReader.ENCODING_PLAIN));
+
+            // 统计信息按小端写出 min/max，空值数与定义级别一致
+            Map<Integer, Object> statistics = ParquetTestReader.struct(reader.columnMeta(0, 0), 12);
+            long rows = (Long) reader.rowGroups().get(0).get(3);
+            assertEquals(0L, ByteBuffer.wrap((byte[]) statistics.get(6)).order(ByteOrder.LITTLE_ENDIAN).getLong());
+            assertEquals(rows - 1, ByteBuffer.wrap((byte[]) statistics.get(5)).order(ByteOrder.LITTLE_ENDIAN).getLong());
+            Map<Integer, Object> portStatistics = ParquetTestReader.struct(reader.columnMeta(0, 4), 12);
+            assertEquals(reader.readChunk(0, 4).values().stream().filter(Objects::isNull).count(),
+                    portStatistics.get(3));
+        }
+    }
+
+    @Test
+    @DisplayName("字典超过上限后余下的页改为 PLAIN 编码，读回的值不变")
+    void shouldFallBackToPlainWhenDictionaryFull() throws IOException {
+        int count = ColumnChunkWriter.MAX_DICTIONARY_ENTRIES + 100;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParquetFileWriter writer = new ParquetFileWriter(out, ParquetSchema.of(Sample.class, List.of("eventType")),
+                ParquetCodec.GZIP, 64L << 20, 8192);
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sample sample = new Sample();
+            sample.id = (long) i;
+            sample.eventType = "TYPE_" + i;
+            expected.add(sample.eventType);
+            writer.write(sample);
+        }
+        writer.finish();
+
+        ParquetTestReader reader = new ParquetTestReader(out.toByteArray());
+        assertEquals(1, reader.rowGroups().size());
+        ParquetTestReader.Chunk chunk = reader.readChunk(0, 2);
+        assertEquals(ColumnChunkWriter.MAX_DICTIONARY_ENTRIES, chunk.dictionary().size());
+        assertEquals(expected, chunk.values());
+        List<Integer> encodings = chunk.pages().stream().skip(1).map(ParquetTestReader.Page::encoding).toList();
+        assertEquals(ParquetTestReader.ENCODING_PLAIN_DICTIONARY, encodings.get(0));
+        assertEquals(ParquetTestReader.ENCODING_PLAIN, encodings.get(encodings.size() - 1));
+        // 创建时间全为空：每页只有定义级别
+        assertTrue(reader.readColumn(1).stream().allMatch(Objects::isNull));
+    }
+
+    @Test
+    @DisplayName("没有数据时仍写出只含模式的合法文件")
+    void shouldWriteEmptyFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ParquetFileWriter(out, ParquetSchema.of(Sample.class, List.of()), ParquetCodec.UNCOMPRESSED, 1024, 512)
+                .finish();
+
+        byte[] file = out.toByteArray();
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertEquals(file.length, 4 + footerLength + 8);
+    }
+}
@@ -0,0 +1,361 @@
+package com.security.ailogsystem.service.export.parquet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 测试用 Parquet 读取
+ * 独立于写出端按格式规范解析：Thrift Compact 编码的文件元数据、页头，字典页和 v1 数据页的值。
+ * 只覆盖写出端用到的编码（PLAIN、PLAIN_DICTIONARY、RLE 定义级别）和压缩方式（无、GZIP）；
+ * 读取时同时校验列元数据中的偏移、字节数和值数与实际页一致
+ */
+final class ParquetTestReader {
+
+    static final int PAGE_DATA = 0;
+    static final int PAGE_DICTIONARY = 2;
+    static final int ENCODING_PLAIN = 0;
+    static final int ENCODING_PLAIN_DICTIONARY = 2;
+    static final int ENCODING_RLE = 3;
+
+    /** 一个页：页类型、值数（含空值）、值编码 */
+    record Page(int type, int count, int encoding) {
+    }
+
+    /** 行组内一列读出的结果：字典（无字典页时为空）、按顺序的页和解码后的值（空值为 null） */
+    record Chunk(List<String> dictionary, List<Page> pages, List<Object> values) {
+    }
+
+    private final byte[] file;
+    private final Map<Integer, Object> metadata;
+
+    ParquetTestReader(byte[] file) {
+        this.file = file;
+        assertEquals("PAR1", new String(file, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(file, file.length - 4, 4, StandardCharsets.US_ASCII));
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        Compact footer = new Compact(file, file.length - 8 - footerLength);
+        this.metadata = footer.struct();
+        assertEquals(file.length - 8, footer.pos, "元数据长度与 Thrift 结构不符");
+    }
+
+    Map<Integer, Object> metadata() {
+        return metadata;
+    }
+
+    long rows() {
+        return (Long) metadata.get(3);
+    }
+
+    /**
+     * 模式中的叶子列（跳过根节点）
+     */
+    List<Map<Integer, Object>> schema() {
+        List<Map<Integer, Object>> elements = list(metadata, 2);
+        assertEquals(elements.size() - 1, ((Number) elements.get(0).get(5)).intValue(), "根节点的子节点数");
+        return elements.subList(1, elements.size());
+    }
+
+    List<String> columnNames() {
+        return schema().stream().map(element -> string(element.get(4))).toList();
+    }
+
+    List<Map<Integer, Object>> rowGroups() {
+        return list(metadata, 4);
+    }
+
+    /**
+     * 行组内一列的 ColumnMetaData
+     */
+    Map<Integer, Object> columnMeta(int rowGroup, int column) {
+        Map<Integer, Object> chunk = list(rowGroups().get(rowGroup), 1).get(column);
+        @SuppressWarnings("unchecked")
+        Map<Integer, Object> meta = (Map<Integer, Object>) chunk.get(3);
+        return meta;
+    }
+
+    /**
+     * 依次读出所有行组中的一列
+     */
+    List<Object> readColumn(int column) {
+        List<Object> values = new ArrayList<>();
+        for (int rowGroup = 0; rowGroup < rowGroups().size(); rowGroup++) {
+            values.addAll(readChunk(rowGroup, column).values());
+        }
+        return values;
+    }
+
+    /**
+     * 从列元数据记录的起始位置读出本列的全部页：字典页（若有）在前，之后为数据页
+     */
+    Chunk readChunk(int rowGroup, int column) {
+        Map<Integer, Object> meta = columnMeta(rowGroup, column);
+        int type = (Integer) meta.get(1);
+        int codec = (Integer) meta.get(4);
+        long valueCount = (Long) meta.get(5);
+        long dataOffset = (Long) meta.get(9);
+        Long dictionaryOffset = (Long) meta.get(11);
+        int start = (int) (dictionaryOffset != null ? dictionaryOffset : dataOffset);
+
+        List<String> dictionary = new ArrayList<>();
+        List<Page> pages = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        int pos = start;
+        long uncompressed = 0;
+        while (values.size() < valueCount) {
+            if (pages.size() == (dictionaryOffset != null ? 1 : 0)) {
+                assertEquals(dataOffset, pos, "第一个数据页的偏移");
+            }
+            Compact compact = new Compact(file, pos);
+            Map<Integer, Object> header = compact.struct();
+            int headerLength = compact.pos - pos;
+            int uncompressedSize = (Integer) header.get(2);
+            int compressedSize = (Integer) header.get(3);
+            byte[] data = decompress(Arrays.copyOfRange(file, compact.pos, compact.pos + compressedSize), codec);
+            assertEquals(uncompressedSize, data.length, "页的未压缩大小");
+            pos = compact.pos + compressedSize;
+            uncompressed += headerLength + uncompressedSize;
+
+            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            if ((Integer) header.get(1) == PAGE_DICTIONARY) {
+                assertTrue(pages.isEmpty(), "字典页必须在最前");
+                Map<Integer, Object> dictionaryHeader = struct(header, 7);
+                int count = (Integer) dictionaryHeader.get(1);
+                for (int i = 0; i < count; i++) {
+                    dictionary.add(string(readByteArray(buffer)));
+                }
+                pages.add(new Page(PAGE_DICTIONARY, count, (Integer) dictionaryHeader.get(2)));
+            } else {
+                assertEquals(PAGE_DATA, header.get(1));
+                Map<Integer, Object> dataHeader = struct(header, 5);
+                int count = (Integer) dataHeader.get(1);
+                int encoding = (Integer) dataHeader.get(2);
+                assertEquals(ENCODING_RLE, dataHeader.get(3), "定义级别编码");
+                values.addAll(readDataPage(buffer, type, count, encoding, dictionary));
+                pages.add(new Page(PAGE_DATA, count, encoding));
+            }
+            assertFalse(buffer.hasRemaining(), "页内有未读的字节");
+        }
+        assertEquals(valueCount, values.size(), "列的值数");
+        assertEquals((Long) meta.get(7), pos - start, "列的压缩后字节数");
+        assertEquals((Long) meta.get(6), uncompressed, "列的未压缩字节数");
+        return new Chunk(dictionary, pages, values);
+    }
+
+    private static List<Object> readDataPage(ByteBuffer buffer, int type, int count, int encoding,
+                                             List<String> dictionary) {
+        int levelsLength = buffer.getInt();
+        ByteBuffer levelBuffer = buffer.slice(buffer.position(), levelsLength).order(ByteOrder.LITTLE_ENDIAN);
+        int[] levels = decodeRle(levelBuffer, 1, count);
+        assertFalse(levelBuffer.hasRemaining(), "定义级别有未读的字节");
+        buffer.position(buffer.position() + levelsLength);
+        int present = (int) Arrays.stream(levels).filter(level -> level == 1).count();
+
+        List<Object> presentValues = new ArrayList<>(present);
+        if (encoding == ENCODING_PLAIN_DICTIONARY) {
+            assertFalse(dictionary.isEmpty(), "字典编码的页前没有字典页");
+            int bitWidth = buffer.get();
+            for (int index : decodeRle(buffer, bitWidth, present)) {
+                presentValues.add(dictionary.get(index));
+            }
+        } else {
+            assertEquals(ENCODING_PLAIN, encoding);
+            int booleanBits = 0;
+            int booleanByte = 0;
+            for (int i = 0; i < present; i++) {
+                switch (type) {
+                    case 0 -> {
+                        if (booleanBits == 0) {
+                            booleanByte = buffer.get();
+                        }
+                        presentValues.add((booleanByte >>> booleanBits & 1) == 1);
+                        booleanBits = (booleanBits + 1) % 8;
+                    }
+                    case 1 -> presentValues.add(buffer.getInt());
+                    case 2 -> presentValues.add(buffer.getLong());
+                    case 4 -> presentValues.add(buffer.getFloat());
+                    case 5 -> presentValues.add(buffer.getDouble());
+                    case 6 -> presentValues.add(string(readByteArray(buffer)));
+                    default -> fail("未知物理类型 " + type);
+                }
+            }
+        }
+
+        List<Object> values = new ArrayList<>(count);
+        int next = 0;
+        for (int level : levels) {
+            values.add(level == 1 ? presentValues.get(next++) : null);
+        }
+        return values;
+    }
+
+    /**
+     * RLE/位打包混合编码解码
+     */
+    static int[] decodeRle(ByteBuffer buffer, int bitWidth, int count) {
+        int[] values = new int[count];
+        int n = 0;
+        while (n < count) {
+            long header = varint(buffer);
+            if ((header & 1) == 0) {
+                int run = (int) (header >>> 1);
+                assertTrue(n + run <= count, "RLE 段超出值数");
+                int value = 0;
+                for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+                    value |= (buffer.get() & 0xFF) << (b * 8);
+                }
+                Arrays.fill(values, n, n + run, value);
+                n += run;
+            } else {
+                int packed = (int) (header >>> 1) * 8;
+                long bits = 0;
+                int bitCount = 0;
+                for (int i = 0; i < packed; i++) {
+                    while (bitCount < bitWidth) {
+                        bits |= (long) (buffer.get() & 0xFF) << bitCount;
+                        bitCount += 8;
+                    }
+                    int value = (int) (bits & ((1L << bitWidth) - 1));
+                    bits >>>= bitWidth;
+                    bitCount -= bitWidth;
+                    if (n < count) {
+                        values[n++] = value;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static byte[] decompress(byte[] data, int codec) {
+        if (codec == ParquetCodec.UNCOMPRESSED.value) {
+            return data;
+        }
+        assertEquals(ParquetCodec.GZIP.value, codec);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static long varint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<Integer, Object>> list(Map<Integer, Object> struct, int field) {
+        return (List<Map<Integer, Object>>) struct.get(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<Integer, Object> struct(Map<Integer, Object> struct, int field) {
+        return (Map<Integer, Object>) struct.get(field);
+    }
+
+    /**
+     * Thrift Compact 协议读取，结构读成字段编号到值的映射：
+     * i32 为 Integer，i64 为 Long，binary 为 byte[]，list 为 List，struct 为 Map
+     */
+    private static final class Compact {
+
+        private final byte[] data;
+        private int pos;
+
+        Compact(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        Map<Integer, Object> struct() {
+            Map<Integer, Object> fields = new LinkedHashMap<>();
+            int id = 0;
+            while (true) {
+                int header = data[pos++] & 0xFF;
+                if (header == 0) {
+                    return fields;
+                }
+                int delta = header >>> 4;
+                id = delta != 0 ? id + delta : (int) zigzag();
+                assertNull(fields.put(id, value(header & 0x0F)), "重复的字段 " + id);
+            }
+        }
+
+        private Object value(int type) {
+            return switch (type) {
+                case 1 -> Boolean.TRUE;
+                case 2 -> Boolean.FALSE;
+                case 3 -> data[pos++];
+                case 4, 5 -> (int) zigzag();
+                case 6 -> zigzag();
+                case 8 -> {
+                    int length = (int) varint();
+                    byte[] bytes = Arrays.copyOfRange(data, pos, pos + length);
+                    pos += length;
+                    yield bytes;
+                }
+                case 9, 10 -> list();
+                case 12 -> struct();
+                default -> throw new AssertionError("不支持的 Thrift 类型 " + type + "，位置 " + pos);
+            };
+        }
+
+        private List<Object> list() {
+            int header = data[pos++] & 0xFF;
+            int size = header >>> 4;
+            if (size == 15) {
+                size = (int) varint();
+            }
+            int elementType = header & 0x0F;
+            List<Object> elements = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                elements.add(elementType == 1 || elementType == 2 ? data[pos++] == 1 : value(elementType));
+            }
+            return elements;
+        }
+
+        private long zigzag() {
+            long v = varint();
+            return v >>> 1 ^ -(v & 1);
+        }
+
+        private long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = data[pos++] & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
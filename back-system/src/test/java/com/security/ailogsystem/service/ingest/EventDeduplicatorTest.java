@@ -0,0 +1,157 @@
+package com.security.ailogsystem.service.ingest;
+
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 采集去重测试
+ */
+@DisplayName("采集入口去重测试")
+class EventDeduplicatorTest {
+
+    private static final long PARTITION_MILLIS = 60_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private EventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new EventDeduplicator(true, 4, 3, PARTITION_MILLIS, 1000, 0.0001, clock::get);
+    }
+
+    private UnifiedSecurityEvent windowsEvent(long recordId) {
+        UnifiedSecurityEvent event = UnifiedSecurityEvent.builder()
+                .timestamp(LocalDateTime.of(2026, 5, 1, 10, 0, 0))
+                .sourceSystem("WINDOWS")
+                .eventType("LOGIN_FAILURE")
+                .category("SECURITY")
+                .severity("HIGH")
+                .hostName("WIN-01")
+                .eventCode(4625)
+                .rawMessage("An account failed to log on.")
+                .build();
+        event.setEventData(Map.of("recordId", recordId));
+        return event;
+    }
+
+    @Test
+    @DisplayName("相同输入的指纹稳定，任一字段变化指纹不同")
+    void fingerprintShouldBeStable() {
+        LocalDateTime ts = LocalDateTime.of(2026, 5, 1, 10, 0, 0);
+        EventFingerprint a = EventFingerprint.of("WINDOWS", "42", ts, 4625, "WIN-01", "msg");
+        EventFingerprint b = EventFingerprint.of("WINDOWS", "42", ts, 4625, "WIN-01", "msg");
+        EventFingerprint c = EventFingerprint.of("WINDOWS", "43", ts, 4625, "WIN-01", "msg");
+
+        assertEquals(a, b);
+        assertEquals(a.toHex(), b.toHex());
+        assertNotEquals(a, c);
+        assertEquals(32, a.toHex().length());
+    }
+
+    @Test
+    @DisplayName("有记录号时仅按记录号区分，消息内容不参与")
+    void recordIdShouldTakePrecedenceOverContent() {
+        LocalDateTime ts = LocalDateTime.of(2026, 5, 1, 10, 0, 0);
+        assertEquals(
+                EventFingerprint.of("WINDOWS", "42", ts, 4625, "WIN-01", "first read"),
+                EventFingerprint.of("WINDOWS", "42", ts, 4625, "WIN-01", "second read"));
+        assertNotEquals(
+                EventFingerprint.of("WINDOWS", null, ts, 4625, "WIN-01", "first read"),
+                EventFingerprint.of("WINDOWS", null, ts, 4625, "WIN-01", "second read"));
+    }
+
+    @Test
+    @DisplayName("重复采集的事件第二次被识别为重复并按来源计数")
+    void shouldDropRepeatedEvents() {
+        assertFalse(deduplicator.isDuplicate(windowsEvent(1)));
+        assertFalse(deduplicator.isDuplicate(windowsEvent(2)));
+        assertTrue(deduplicator.isDuplicate(windowsEvent(1)));
+        assertTrue(deduplicator.isDuplicate(windowsEvent(2)));
+
+        Map<String, Object> stats = deduplicator.getStats();
+        assertEquals(4L, stats.get("checked"));
+        assertEquals(2L, stats.get("droppedTotal"));
+        assertEquals(Map.of("WINDOWS", 2L), stats.get("droppedBySource"));
+    }
+
+    @Test
+    @DisplayName("LRU 淘汰后仍由布隆过滤器识别重复")
+    void bloomFilterShouldCoverEvictedEntries() {
+        for (long id = 0; id < 10; id++) {
+            assertFalse(deduplicator.isDuplicate(windowsEvent(id)));
+        }
+        assertTrue(deduplicator.isDuplicate(windowsEvent(0)));
+        assertEquals(1L, deduplicator.getStats().get("bloomHits"));
+    }
+
+    @Test
+    @DisplayName("所有布隆分区过期后事件不再视为重复")
+    void expiredPartitionsShouldForgetFingerprints() {
+        EventDeduplicator noLru = new EventDeduplicator(true, 0, 3, PARTITION_MILLIS, 1000, 0.0001, clock::get);
+        assertFalse(noLru.isDuplicate(windowsEvent(7)));
+
+        clock.addAndGet(PARTITION_MILLIS);
+        assertTrue(noLru.isDuplicate(windowsEvent(7)), "仍在保留窗口内");
+
+        clock.addAndGet(PARTITION_MILLIS * 3);
+        assertFalse(noLru.isDuplicate(windowsEvent(7)), "超出保留窗口");
+    }
+
+    @Test
+    @DisplayName("写入失败释放占用的指纹，重试时不视为重复；确认后写入布隆过滤器")
+    void batchShouldReleaseOnRollback() {
+        EventDeduplicator.Batch failed = deduplicator.batch();
+        assertFalse(failed.isDuplicate(windowsEvent(1)));
+        assertTrue(failed.isDuplicate(windowsEvent(1)), "同批次内仍然去重");
+        failed.rollback();
+
+        EventDeduplicator.Batch retry = deduplicator.batch();
+        assertFalse(retry.isDuplicate(windowsEvent(1)));
+        retry.commit();
+        for (long id = 10; id < 20; id++) {
+            assertFalse(deduplicator.isDuplicate(windowsEvent(id)));
+        }
+        assertTrue(deduplicator.isDuplicate(windowsEvent(1)), "LRU 淘汰后由布隆过滤器识别");
+    }
+
+    @Test
+    @DisplayName("事务内判重随事务回滚释放，提交后记录")
+    void transactionalCheckShouldFollowOutcome() {
+        assertFalse(inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK,
+                () -> deduplicator.isDuplicate(windowsEvent(3))));
+        assertFalse(inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                () -> deduplicator.isDuplicate(windowsEvent(3))), "回滚后重试不是重复");
+        assertTrue(deduplicator.isDuplicate(windowsEvent(3)));
+        assertFalse(TransactionSynchronizationManager.hasResource(deduplicator));
+    }
+
+    private static boolean inTransaction(int status, BooleanSupplier body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            boolean result = body.getAsBoolean();
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("禁用时不做任何去重")
+    void disabledShouldPassEverything() {
+        EventDeduplicator disabled = new EventDeduplicator(false, 4, 3, PARTITION_MILLIS, 1000, 0.0001, clock::get);
+        assertFalse(disabled.isDuplicate(windowsEvent(1)));
+        assertFalse(disabled.isDuplicate(windowsEvent(1)));
+    }
+}
@@ -0,0 +1,210 @@
+package com.security.ailogsystem.service.ingest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 采集写前日志测试
+ */
+@DisplayName("采集写前日志测试")
+class IngestJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private IngestJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private IngestJournal open(long segmentBytes) {
+        IngestJournal opened = new IngestJournal(true, dir.toString(), segmentBytes, false);
+        opened.open();
+        return opened;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> replayAll(IngestJournal journal) {
+        List<String> replayed = new ArrayList<>();
+        journal.replay(entry -> replayed.add(new String(entry.payload(), StandardCharsets.UTF_8)), Integer.MAX_VALUE);
+        return replayed;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".wal")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("暂存记录按追加顺序重放")
+    void shouldReplayInAppendOrder() throws IOException {
+        journal = open(1 << 20);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("a"), false);
+        journal.append(IngestJournal.RecordType.SECURITY_LOGS, bytes("b"), false);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("c"), false);
+        assertEquals(3, journal.getPendingRecords());
+        assertTrue(journal.hasBacklog());
+
+        assertEquals(List.of("a", "b", "c"), replayAll(journal));
+        assertEquals(0, journal.getPendingRecords());
+        assertEquals(0, journal.getLagMillis());
+        assertTrue(replayAll(journal).isEmpty(), "已重放的记录不应再次重放");
+    }
+
+    @Test
+    @DisplayName("同步写库成功的记录不重放，失败的记录交给重放器")
+    void shouldSkipCommittedRecords() throws IOException {
+        journal = open(1 << 20);
+        long ok = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("ok"), true);
+        long failed = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("failed"), true);
+        assertFalse(journal.hasBacklog());
+
+        journal.markCommitted(ok);
+        journal.markFailed(failed);
+        assertEquals(1, journal.getPendingRecords());
+
+        assertEquals(List.of("failed"), replayAll(journal));
+        assertFalse(journal.hasBacklog());
+    }
+
+    @Test
+    @DisplayName("写库尚未完成的记录阻塞重放，保证顺序")
+    void inflightRecordShouldBlockReplay() throws IOException {
+        journal = open(1 << 20);
+        long inflight = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("inflight"), true);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("queued"), false);
+
+        assertTrue(replayAll(journal).isEmpty());
+
+        journal.markCommitted(inflight);
+        assertEquals(List.of("queued"), replayAll(journal));
+    }
+
+    @Test
+    @DisplayName("重放与同步写库并发时不重放已提交的记录，提交登记随重放清理")
+    void concurrentCommitShouldNotBeReplayed() throws Exception {
+        journal = open(1 << 20);
+        int records = 2000;
+        List<Long> replayed = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread replayer = new Thread(() -> {
+            while (writing.get()) {
+                journal.replay(entry -> replayed.add(entry.seq()), Integer.MAX_VALUE);
+            }
+        });
+        replayer.start();
+        try {
+            for (int i = 0; i < records; i++) {
+                long seq = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("e" + i), true);
+                journal.markCommitted(seq);
+            }
+        } finally {
+            writing.set(false);
+            replayer.join();
+        }
+        journal.replay(entry -> replayed.add(entry.seq()), Integer.MAX_VALUE);
+
+        assertTrue(replayed.isEmpty(), "已提交的记录被重放: " + replayed);
+        assertEquals(0L, journal.getStats().get("committedRecords"));
+        assertEquals(0, journal.getPendingRecords());
+    }
+
+    @Test
+    @DisplayName("处理器失败时停在当前记录，下次从该记录继续")
+    void failedHandlerShouldPauseReplay() throws IOException {
+        journal = open(1 << 20);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("a"), false);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("b"), false);
+
+        int replayed = journal.replay(entry -> {
+            throw new IllegalStateException("数据库不可用");
+        }, 10);
+        assertEquals(0, replayed);
+        assertEquals(2, journal.getPendingRecords());
+        assertEquals("数据库不可用", journal.getStats().get("lastReplayError"));
+
+        assertEquals(List.of("a", "b"), replayAll(journal));
+        assertNull(journal.getStats().get("lastReplayError"));
+    }
+
+    @Test
+    @DisplayName("重启后恢复未提交记录并延续序号")
+    void shouldRecoverPendingRecordsAfterRestart() throws IOException {
+        journal = open(1 << 20);
+        long committed = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("committed"), true);
+        journal.markCommitted(committed);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("pending-1"), false);
+        long crashed = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("pending-2"), true);
+        journal.close();
+
+        journal = open(1 << 20);
+        assertEquals(2, journal.getPendingRecords());
+        long next = journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("after-restart"), false);
+        assertTrue(next > crashed);
+
+        assertEquals(List.of("pending-1", "pending-2", "after-restart"), replayAll(journal));
+    }
+
+    @Test
+    @DisplayName("启动时截断末尾不完整的记录")
+    void shouldTruncateTornTail() throws IOException {
+        journal = open(1 << 20);
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("complete"), false);
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        journal = open(1 << 20);
+        assertEquals(validSize, Files.size(segment));
+        assertEquals(1, journal.getPendingRecords());
+        journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("next"), false);
+
+        assertEquals(List.of("complete", "next"), replayAll(journal));
+    }
+
+    @Test
+    @DisplayName("分段写满后切换，重放完成的旧分段被删除")
+    void shouldRollAndDeleteConsumedSegments() throws IOException {
+        journal = open(64);
+        for (int i = 0; i < 5; i++) {
+            journal.append(IngestJournal.RecordType.UNIFIED_EVENTS, bytes("record-" + i), false);
+        }
+        assertEquals(5, segmentCount());
+
+        assertEquals(List.of("record-0", "record-1", "record-2", "record-3", "record-4"), replayAll(journal));
+        assertEquals(1, segmentCount(), "只保留当前写入分段");
+
+        journal.close();
+        journal = open(64);
+        assertEquals(0, journal.getPendingRecords());
+        assertTrue(replayAll(journal).isEmpty());
+    }
+}
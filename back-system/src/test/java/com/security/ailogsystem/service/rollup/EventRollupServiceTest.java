@@ -0,0 +1,307 @@
+package com.security.ailogsystem.service.rollup;
+
+import com.security.ailogsystem.config.CacheSpecProperties;
+import com.security.ailogsystem.config.TransactionConfig;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.repository.UnifiedEventRepository;
+import com.security.ailogsystem.service.cache.RangeResultCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事件统计预聚合测试：增量累加、删除扣减、迟到事件、校准和回填之后，
+ * 三张预聚合表和统计/趋势查询的结果均与明细表直接 COUNT 一致。
+ * 增量在事件事务提交后执行，测试方法本身不开启事务
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:rollup;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({EventRollupService.class, RangeResultCache.class, CacheSpecProperties.class, TransactionConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("事件统计预聚合测试")
+class EventRollupServiceTest {
+
+    private static final String[] TABLES = {"event_rollup_minute", "event_rollup_hour", "event_rollup_day"};
+
+    @Autowired
+    private EventRollupService rollupService;
+
+    @Autowired
+    private UnifiedEventRepository eventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RangeResultCache rangeResultCache;
+
+    @Autowired
+    @Qualifier("batchTransactionTemplate")
+    private TransactionTemplate transactionTemplate;
+
+    private LocalDateTime now;
+
+    /**
+     * H2 没有 MySQL 的 DATE_FORMAT，以 Java 函数代替（预聚合分桶只用到年月日时分秒格式）
+     */
+    public static final class H2Functions {
+
+        public static String dateFormat(Timestamp value, String mysqlFormat) {
+            if (value == null) {
+                return null;
+            }
+            String pattern = mysqlFormat.replace("%Y", "yyyy").replace("%m", "MM").replace("%d", "dd")
+                    .replace("%H", "HH").replace("%i", "mm").replace("%s", "ss");
+            return new SimpleDateFormat(pattern).format(value);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS DATE_FORMAT FOR \""
+                + H2Functions.class.getName() + ".dateFormat\"");
+        now = LocalDateTime.now().withSecond(30).withNano(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            eventRepository.deleteAllInBatch();
+            for (String table : TABLES) {
+                jdbcTemplate.update("DELETE FROM " + table);
+            }
+        });
+        rangeResultCache.invalidateAll(RangeResultCache.EVENTS);
+    }
+
+    @Test
+    @DisplayName("启动时预聚合表为空则回填全部历史明细，分钟表保留期外的事件只生成小时和天")
+    void shouldBackfillHistory() {
+        insertWithoutRollup(List.of(
+                event(now.minusDays(20), "LOGIN_FAILURE", "NEW", true),
+                event(now.minusDays(20).plusMinutes(5), "LOGIN_FAILURE", "NEW", false),
+                event(now.minusDays(2), "PORT_SCAN", "RESOLVED", false),
+                event(now.minusMinutes(3), "LOGIN_SUCCESS", null, false)));
+
+        rollupService.initializeOnStartup();
+
+        assertTrue(rollupService.isReady());
+        assertRollupsMatchEvents();
+        assertEquals(0L, sum("event_rollup_minute", "bucket_start < ?", now.minusDays(10)));
+    }
+
+    @Test
+    @DisplayName("提交后增量累加，回滚的入库不计入")
+    void shouldIncrementAfterCommitOnly() {
+        rollupService.catchUp();
+
+        insertWithRollup(List.of(
+                event(now.minusMinutes(1), "LOGIN_FAILURE", "NEW", true),
+                event(now.minusMinutes(1), "LOGIN_FAILURE", "NEW", true),
+                event(now.minusHours(5), "PORT_SCAN", "NEW", false)));
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            List<UnifiedSecurityEvent> saved = eventRepository.saveAll(
+                    List.of(event(now.minusMinutes(2), "LOGIN_FAILURE", "NEW", false)));
+            rollupService.record(saved);
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(3L, sum("event_rollup_day", "1 = 1"));
+        assertRollupsMatchEvents();
+        assertQueriesMatchEvents(now.minusDays(1), now);
+    }
+
+    @Test
+    @DisplayName("状态变更和删除同步增减计数")
+    void shouldMoveAndRemoveCounts() {
+        rollupService.catchUp();
+        List<UnifiedSecurityEvent> events = insertWithRollup(List.of(
+                event(now.minusHours(2), "LOGIN_FAILURE", "NEW", true),
+                event(now.minusHours(2), "LOGIN_FAILURE", "NEW", false)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            UnifiedSecurityEvent event = eventRepository.findById(events.get(0).getId()).orElseThrow();
+            event.setStatus("RESOLVED");
+            rollupService.statusChanged(eventRepository.save(event), "NEW");
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            UnifiedSecurityEvent event = eventRepository.findById(events.get(1).getId()).orElseThrow();
+            eventRepository.delete(event);
+            rollupService.removed(event);
+        });
+
+        assertRollupsMatchEvents();
+        assertEquals(Map.of("RESOLVED", 1L), rollupService.summarize(now.minusDays(1), now).getStatuses());
+    }
+
+    @Test
+    @DisplayName("未经增量路径写入的迟到事件由校准窗口重算补齐")
+    void shouldCatchUpLateEventsInsideWindow() {
+        rollupService.catchUp();
+        insertWithRollup(List.of(event(now.minusMinutes(1), "LOGIN_FAILURE", "NEW", false)));
+        insertWithoutRollup(List.of(event(now.minusMinutes(4), "PORT_SCAN", "NEW", true)));
+        assertEquals(1L, sum("event_rollup_day", "1 = 1"));
+
+        rollupService.catchUp();
+
+        assertRollupsMatchEvents();
+        assertQueriesMatchEvents(now.minusHours(1), now);
+    }
+
+    @Test
+    @DisplayName("增量失败的分钟记为待重算，校准时按明细重算")
+    void shouldRebuildDirtyMinutes() {
+        rollupService.catchUp();
+        long failures = (Long) rollupService.getStatus().get("incrementFailures");
+        jdbcTemplate.execute("ALTER TABLE event_rollup_hour RENAME TO event_rollup_hour_offline");
+        try {
+            // 早于校准窗口的迟到事件，只能依靠待重算分钟补齐
+            insertWithRollup(List.of(event(now.minusHours(3), "LOGIN_FAILURE", "NEW", true)));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE event_rollup_hour_offline RENAME TO event_rollup_hour");
+        }
+        assertEquals(failures + 1, rollupService.getStatus().get("incrementFailures"));
+        assertEquals(1, rollupService.getStatus().get("dirtyMinutes"));
+        assertEquals(0L, sum("event_rollup_day", "1 = 1"));
+
+        rollupService.catchUp();
+
+        assertEquals(0, rollupService.getStatus().get("dirtyMinutes"));
+        assertRollupsMatchEvents();
+        assertQueriesMatchEvents(now.minusDays(1), now);
+    }
+
+    @Test
+    @DisplayName("按天重算覆盖被直接修改的明细")
+    void shouldRebuildRecentDays() {
+        rollupService.catchUp();
+        List<UnifiedSecurityEvent> events = insertWithRollup(List.of(
+                event(now.minusDays(1), "LOGIN_FAILURE", "NEW", false),
+                event(now.minusHours(1), "PORT_SCAN", "NEW", false)));
+        jdbcTemplate.update("DELETE FROM unified_security_events WHERE id = ?", events.get(0).getId());
+
+        rollupService.rebuildRecent(3);
+
+        assertRollupsMatchEvents();
+        assertQueriesMatchEvents(now.minusDays(3), now);
+    }
+
+    private List<UnifiedSecurityEvent> insertWithRollup(List<UnifiedSecurityEvent> events) {
+        return transactionTemplate.execute(status -> {
+            List<UnifiedSecurityEvent> saved = eventRepository.saveAll(events);
+            rollupService.record(saved);
+            return saved;
+        });
+    }
+
+    private void insertWithoutRollup(List<UnifiedSecurityEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> eventRepository.saveAll(events));
+    }
+
+    /**
+     * 天表和小时表的总数等于明细总数，分钟表等于保留期内的明细数，各维度分组也一致
+     */
+    private void assertRollupsMatchEvents() {
+        long total = count("1 = 1");
+        assertEquals(total, sum("event_rollup_day", "1 = 1"));
+        assertEquals(total, sum("event_rollup_hour", "1 = 1"));
+        LocalDateTime minuteFloor = now.toLocalDate().atStartOfDay().minusDays(7);
+        assertEquals(count("timestamp >= ?", minuteFloor), sum("event_rollup_minute", "1 = 1"));
+
+        Map<String, Long> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT CONCAT(event_type, '/', COALESCE(status, ''), '/', is_anomaly), COUNT(*)"
+                        + " FROM unified_security_events GROUP BY 1",
+                rs -> {
+                    expected.put(rs.getString(1), rs.getLong(2));
+                });
+        for (String table : TABLES) {
+            Map<String, Long> actual = new HashMap<>();
+            jdbcTemplate.query("SELECT CONCAT(event_type, '/', status, '/', is_anomaly), SUM(event_count) FROM "
+                            + table + (table.endsWith("minute") ? " WHERE bucket_start >= ?" : " WHERE 1 = ?")
+                            + " GROUP BY 1 HAVING SUM(event_count) <> 0",
+                    rs -> {
+                        actual.put(rs.getString(1), rs.getLong(2));
+                    },
+                    table.endsWith("minute") ? minuteFloor : 1);
+            if (table.endsWith("minute")) {
+                Map<String, Long> recent = new HashMap<>();
+                jdbcTemplate.query("SELECT CONCAT(event_type, '/', COALESCE(status, ''), '/', is_anomaly), COUNT(*)"
+                                + " FROM unified_security_events WHERE timestamp >= ? GROUP BY 1",
+                        rs -> {
+                            recent.put(rs.getString(1), rs.getLong(2));
+                        },
+                        minuteFloor);
+                assertEquals(recent, actual, table);
+            } else {
+                assertEquals(expected, actual, table);
+            }
+        }
+    }
+
+    /**
+     * 统计和各粒度趋势与明细表直接查询一致
+     */
+    private void assertQueriesMatchEvents(LocalDateTime start, LocalDateTime end) {
+        EventRollupSummary summary = rollupService.summarize(start, end);
+        assertEquals(count("timestamp BETWEEN ? AND ?", start, end), summary.getTotalEvents());
+        assertEquals(count("is_anomaly = TRUE AND timestamp BETWEEN ? AND ?", start, end), summary.getAnomalyEvents());
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            List<EventRollupService.Point> expected = new ArrayList<>();
+            jdbcTemplate.query("SELECT " + granularity.bucketExpression("timestamp")
+                            + ", COUNT(*), SUM(CASE WHEN is_anomaly = TRUE THEN 1 ELSE 0 END)"
+                            + " FROM unified_security_events WHERE timestamp BETWEEN ? AND ? GROUP BY 1 ORDER BY 1",
+                    rs -> {
+                        expected.add(new EventRollupService.Point(granularity.parse(rs.getString(1)),
+                                rs.getLong(2), rs.getLong(3)));
+                    },
+                    start, end);
+            assertEquals(expected, rollupService.series(start, end, granularity), granularity.name());
+        }
+    }
+
+    private long count(String where, Object... args) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM unified_security_events WHERE " + where,
+                Long.class, args);
+    }
+
+    private long sum(String table, String where, Object... args) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(event_count), 0) FROM " + table + " WHERE " + where,
+                Long.class, args);
+    }
+
+    private static UnifiedSecurityEvent event(LocalDateTime timestamp, String eventType, String status, boolean anomaly) {
+        UnifiedSecurityEvent event = UnifiedSecurityEvent.builder()
+                .timestamp(timestamp)
+                .sourceSystem("WINDOWS")
+                .eventType(eventType)
+                .category("AUTHENTICATION")
+                .severity("HIGH")
+                .isAnomaly(anomaly)
+                .build();
+        event.setStatus(status);
+        return event;
+    }
+}
@@ -0,0 +1,267 @@
+package com.security.ailogsystem.service.rollup;
+
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 仪表板实时计数器测试：用内存中的事件列表充当统计预聚合，按事务同步回调的顺序模拟提交
+ */
+@DisplayName("仪表板实时计数器测试")
+class LiveEventCountersTest {
+
+    private InMemoryRollups rollups;
+    private LiveEventCounters counters;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        rollups = new InMemoryRollups();
+        counters = new LiveEventCounters(rollups);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("计数为基数加增量，校准按预聚合改写基数并记录偏差")
+    void shouldCombineBaseAndDelta() {
+        rollups.events.add(event("HIGH", "MEDIUM", true));
+        rollups.events.add(event("LOW", null, false));
+        counters.seedOnStartup();
+        assertSnapshot(2, 1, Map.of("HIGH", 1L, "LOW", 1L), Map.of("MEDIUM", 1L));
+
+        // 未经预聚合的增量：计数先包含，校准后与预聚合一致
+        counters.recorded(List.of(event("HIGH", "HIGH", true)));
+        assertSnapshot(3, 2, Map.of("HIGH", 2L, "LOW", 1L), Map.of("MEDIUM", 1L, "HIGH", 1L));
+        counters.reconcile();
+        assertSnapshot(2, 1, Map.of("HIGH", 1L, "LOW", 1L), Map.of("MEDIUM", 1L));
+        assertTrue((Long) counters.getStatus().get("lastDrift") > 0);
+
+        // 经预聚合的增量：校准前后不变，没有偏差
+        UnifiedSecurityEvent event = event("LOW", "LOW", false);
+        rollups.events.add(event);
+        counters.recorded(List.of(event));
+        counters.reconcile();
+        assertSnapshot(3, 1, Map.of("HIGH", 1L, "LOW", 2L), Map.of("MEDIUM", 1L, "LOW", 1L));
+        assertEquals(0L, counters.getStatus().get("lastDrift"));
+
+        rollups.events.remove(event);
+        counters.removed(event);
+        counters.reconcile();
+        assertSnapshot(2, 1, Map.of("HIGH", 1L, "LOW", 1L), Map.of("MEDIUM", 1L));
+        assertEquals(0L, counters.getStatus().get("lastDrift"));
+    }
+
+    @Test
+    @DisplayName("事务提交后才计数，回滚不计数且不阻塞校准")
+    void shouldCountOnlyCommittedTransactions() throws Exception {
+        counters.seedOnStartup();
+
+        commit(event("HIGH", "HIGH", true), false, null);
+        assertEquals(1, counters.snapshot().totalEvents());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.recorded(List.of(event("HIGH", "HIGH", true)));
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            // 提交失败
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, counters.snapshot().totalEvents());
+
+        Future<?> reconcile = executor.submit(counters::reconcile);
+        reconcile.get(5, TimeUnit.SECONDS);
+        assertEquals(1, counters.snapshot().totalEvents());
+        assertEquals(0L, counters.getStatus().get("lastDrift"));
+    }
+
+    @Test
+    @DisplayName("预聚合已写入而计数器尚未增加时，校准等待增量完成，不会重复或丢失计数")
+    void shouldWaitForInFlightIncrement() throws Exception {
+        rollups.events.add(event("LOW", "LOW", false));
+        counters.seedOnStartup();
+
+        CountDownLatch rollupWritten = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> ingest = executor.submit(() -> commit(event("HIGH", "HIGH", true), false, () -> {
+            rollupWritten.countDown();
+            await(release);
+        }));
+        assertTrue(rollupWritten.await(5, TimeUnit.SECONDS));
+
+        Future<?> reconcile = executor.submit(counters::reconcile);
+        Thread.sleep(200);
+        assertFalse(reconcile.isDone(), "校准应等待进行中的增量");
+
+        release.countDown();
+        ingest.get(5, TimeUnit.SECONDS);
+        reconcile.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0L, counters.getStatus().get("lastDrift"));
+        assertSnapshot(2, 1, Map.of("HIGH", 1L, "LOW", 1L), Map.of("HIGH", 1L, "LOW", 1L));
+    }
+
+    @Test
+    @DisplayName("并发入库、删除与反复校准：每次校准都没有偏差，最终计数与预聚合一致")
+    void shouldStayExactUnderConcurrentReconcile() throws Exception {
+        counters.seedOnStartup();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong maxDrift = new AtomicLong();
+        Future<?> reconciler = executor.submit(() -> {
+            while (running.get()) {
+                counters.reconcile();
+                maxDrift.accumulateAndGet((Long) counters.getStatus().get("lastDrift"), Math::max);
+            }
+        });
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int seed = thread;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    UnifiedSecurityEvent event = event(i % 2 == 0 ? "HIGH" : "LOW", "MEDIUM", (i + seed) % 3 == 0);
+                    commit(event, false, null);
+                    if (i % 5 == 0) {
+                        commit(event, true, null);
+                    }
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        reconciler.get(30, TimeUnit.SECONDS);
+
+        assertEquals(0L, maxDrift.get());
+        long expected = 4 * (300 - 60);
+        assertEquals(expected, rollups.events.size());
+        assertEquals(expected, counters.snapshot().totalEvents());
+        counters.reconcile();
+        assertEquals(0L, counters.getStatus().get("lastDrift"));
+        assertEquals(expected, counters.snapshot().totalEvents());
+    }
+
+    /**
+     * 模拟一次入库（或删除）事务的提交：计数器的回调先注册，预聚合的回调后注册，执行顺序由回调的 order 决定
+     */
+    private void commit(UnifiedSecurityEvent event, boolean delete, Runnable afterRollupWrite) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            if (delete) {
+                counters.removed(event);
+            } else {
+                counters.recorded(List.of(event));
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return EventRollupService.INCREMENT_ORDER;
+                }
+
+                @Override
+                public void afterCommit() {
+                    if (delete) {
+                        rollups.events.remove(event);
+                    } else {
+                        rollups.events.add(event);
+                    }
+                    if (afterRollupWrite != null) {
+                        afterRollupWrite.run();
+                    }
+                }
+            });
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void assertSnapshot(long total, long anomalies, Map<String, Long> severities,
+                                Map<String, Long> threatLevels) {
+        LiveEventCounters.Snapshot snapshot = counters.snapshot();
+        assertEquals(total, snapshot.totalEvents());
+        assertEquals(total, snapshot.todayEvents());
+        assertEquals(anomalies, snapshot.anomalyEvents());
+        assertEquals(severities, snapshot.severities());
+        assertEquals(threatLevels, snapshot.threatLevels());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static UnifiedSecurityEvent event(String severity, String threatLevel, boolean anomaly) {
+        return UnifiedSecurityEvent.builder()
+                .timestamp(LocalDateTime.now())
+                .sourceSystem("WINDOWS")
+                .eventType("LOGIN_FAILURE")
+                .category("AUTHENTICATION")
+                .severity(severity)
+                .threatLevel(threatLevel)
+                .isAnomaly(anomaly)
+                .build();
+    }
+
+    /**
+     * 以事件列表充当预聚合表
+     */
+    private static final class InMemoryRollups extends EventRollupService {
+
+        private final List<UnifiedSecurityEvent> events = new CopyOnWriteArrayList<>();
+
+        InMemoryRollups() {
+            super(null, null, null);
+        }
+
+        @Override
+        public EventRollupSummary summarizeAll() {
+            EventRollupSummary summary = new EventRollupSummary();
+            for (UnifiedSecurityEvent event : events) {
+                summary.add(event.getSourceSystem(), event.getEventType(), event.getCategory(), event.getSeverity(),
+                        event.getThreatLevel(), event.getStatus(), Boolean.TRUE.equals(event.getIsAnomaly()), 1);
+            }
+            return summary;
+        }
+
+        @Override
+        public List<Point> series(LocalDateTime start, LocalDateTime end, RollupGranularity granularity) {
+            LocalDate today = LocalDate.now();
+            long count = events.stream().filter(event -> event.getTimestamp().toLocalDate().equals(today)).count();
+            return count == 0 ? List.of() : List.of(new Point(today.atStartOfDay(), count, 0));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.security.ailogsystem.service.rollup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统计预聚合查询拆分测试
+ */
+@DisplayName("统计预聚合查询拆分测试")
+class RollupPlannerTest {
+
+    private static final LocalDateTime MINUTE_FLOOR = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    @DisplayName("30 天范围由整天片段和首尾少量细粒度片段组成")
+    void shouldUseDaysForLongRange() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 15, 30);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 31, 8, 45, 10);
+
+        List<RollupPlanner.Segment> segments = RollupPlanner.plan(start, end, RollupGranularity.DAY, MINUTE_FLOOR);
+
+        assertContiguous(segments, start, end);
+        RollupPlanner.Segment days = segments.stream()
+                .filter(s -> s.granularity() == RollupGranularity.DAY).findFirst().orElseThrow();
+        assertEquals(LocalDateTime.of(2024, 3, 2, 0, 0), days.from());
+        assertEquals(LocalDateTime.of(2024, 3, 31, 0, 0), days.to());
+        assertTrue(segments.size() <= 7, "片段数应与范围长度无关: " + segments);
+        assertTrue(segments.get(segments.size() - 1).isRaw());
+        assertTrue(segments.get(segments.size() - 1).inclusiveEnd());
+    }
+
+    @Test
+    @DisplayName("按小时出趋势时不使用天粒度")
+    void shouldRespectCoarsestGranularity() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 3, 0, 0);
+
+        List<RollupPlanner.Segment> segments = RollupPlanner.plan(start, end, RollupGranularity.HOUR, MINUTE_FLOOR);
+
+        assertContiguous(segments, start, end);
+        assertTrue(segments.stream().noneMatch(s -> s.granularity() == RollupGranularity.DAY));
+        assertEquals(2, segments.size());
+        assertEquals(RollupGranularity.HOUR, segments.get(0).granularity());
+    }
+
+    @Test
+    @DisplayName("早于分钟表保留期的分钟片段改查明细表")
+    void shouldFallBackToRawBeforeMinuteFloor() {
+        LocalDateTime start = LocalDateTime.of(2023, 12, 31, 23, 30);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 1, 0, 30);
+
+        List<RollupPlanner.Segment> segments = RollupPlanner.plan(start, end, RollupGranularity.DAY, MINUTE_FLOOR);
+
+        assertContiguous(segments, start, end);
+        assertTrue(segments.get(0).isRaw());
+        assertEquals(MINUTE_FLOOR, segments.get(0).to());
+        assertEquals(RollupGranularity.MINUTE, segments.get(1).granularity());
+    }
+
+    @Test
+    @DisplayName("不足一分钟的范围直接查询明细表")
+    void shouldUseRawForShortRange() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 15, 10);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 10, 16, 5);
+
+        List<RollupPlanner.Segment> segments = RollupPlanner.plan(start, end, RollupGranularity.DAY, MINUTE_FLOOR);
+
+        assertEquals(1, segments.size());
+        assertTrue(segments.get(0).isRaw());
+        assertTrue(RollupPlanner.plan(end, start, RollupGranularity.DAY, MINUTE_FLOOR).isEmpty());
+    }
+
+    private static void assertContiguous(List<RollupPlanner.Segment> segments, LocalDateTime start, LocalDateTime end) {
+        assertEquals(start, segments.get(0).from());
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i - 1).to(), segments.get(i).from(), "片段不连续: " + segments);
+            assertFalse(segments.get(i - 1).inclusiveEnd());
+        }
+        assertEquals(end, segments.get(segments.size() - 1).to());
+    }
+}
@@ -0,0 +1,161 @@
+package com.security.ailogsystem.service.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按天分段全文索引测试
+ */
+@DisplayName("按天分段全文索引测试")
+class SegmentedTextIndexTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DAY2 = LocalDate.of(2024, 3, 2);
+
+    @TempDir
+    Path directory;
+
+    private SegmentedTextIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new SegmentedTextIndex("test", directory);
+        index.open();
+        index.index(List.of(
+                new SegmentedTextIndex.Doc(1, DAY1, "An account failed to log on. Account Name: administrator"),
+                new SegmentedTextIndex.Doc(2, DAY1, "Source Network Address: 192.168.1.15"),
+                new SegmentedTextIndex.Doc(3, DAY2, "用户登录失败 Account Name: guest")));
+        index.commit(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("关键词按不区分大小写的子串匹配，词序、空格和标点须一致")
+    void shouldMatchSubstrings() throws Exception {
+        assertEquals(Set.of(1L), index.search("admin", null, null, 100));
+        assertEquals(Set.of(1L), index.search("ccount fail", null, null, 100));
+        assertEquals(Set.of(1L), index.search("Name: admin", null, null, 100));
+        assertEquals(Set.of(2L), index.search("168.1.15", null, null, 100));
+        assertEquals(Set.of(1L, 3L), index.search("ACCOUNT name", null, null, 100));
+        assertEquals(Set.of(3L), index.search("登录失败", null, null, 100));
+        assertTrue(index.search("failed account", null, null, 100).isEmpty());
+        assertTrue(index.search("account  name", null, null, 100).isEmpty());
+        assertTrue(index.search("name admin", null, null, 100).isEmpty());
+        assertTrue(index.search("nothing-here", null, null, 100).isEmpty());
+        assertNull(index.search("", null, null, 100));
+    }
+
+    @Test
+    @DisplayName("不足三个字符的关键词按词前缀匹配，包括文本末尾")
+    void shouldMatchShortKeywords() throws Exception {
+        assertEquals(Set.of(3L), index.search("Gu", null, null, 100));
+        assertEquals(Set.of(2L), index.search("15", null, null, 100));
+        assertEquals(Set.of(1L, 2L, 3L), index.search(":", null, null, 100));
+        assertTrue(index.search("::", null, null, 100).isEmpty());
+    }
+
+    @Test
+    @DisplayName("按日期范围只检索相关分段")
+    void shouldPruneSegmentsByDay() throws Exception {
+        assertEquals(Set.of(1L), index.search("account", DAY1, DAY1, 100));
+        assertEquals(Set.of(3L), index.search("account", DAY2, null, 100));
+        assertTrue(index.search("account", DAY2, DAY1, 100).isEmpty());
+    }
+
+    @Test
+    @DisplayName("命中数超过上限时抛出异常以便回退")
+    void shouldAbortOnTooManyHits() {
+        assertThrows(SegmentedTextIndex.TooManyHitsException.class, () -> index.search("account", null, null, 1));
+    }
+
+    @Test
+    @DisplayName("重复索引同一 id 覆盖旧文档，重新打开后保留索引位置")
+    void shouldUpdateAndReopen() throws Exception {
+        index.index(List.of(new SegmentedTextIndex.Doc(2, DAY1, "assigned to analyst")));
+        index.commit(3);
+        assertTrue(index.search("192.168", null, null, 100).isEmpty());
+        assertEquals(Set.of(2L), index.search("analyst", null, null, 100));
+
+        index.close();
+        index = new SegmentedTextIndex("test", directory);
+        index.open();
+        assertEquals(3, index.getCursor());
+        assertEquals(2, index.getSegmentCount());
+        assertEquals(Set.of(2L), index.search("analyst", null, null, 100));
+    }
+
+    @Test
+    @DisplayName("索引格式不一致时清空旧索引并从头重建")
+    void shouldResetOnFormatChange() throws Exception {
+        index.close();
+        Files.writeString(directory.resolve("format"), "standard");
+        index = new SegmentedTextIndex("test", directory);
+        index.open();
+
+        assertEquals(0, index.getCursor());
+        assertEquals(0, index.getSegmentCount());
+        assertFalse(Files.exists(directory.resolve(DAY1.toString())));
+        assertEquals(SegmentedTextIndex.FORMAT, Files.readString(directory.resolve("format")));
+    }
+
+    @Test
+    @DisplayName("越过的 id 记为待补，补读写入后移除，重新打开后保留，超时后放弃")
+    void shouldTrackGapsBelowCursor() throws Exception {
+        index.index(List.of(new SegmentedTextIndex.Doc(6, DAY2, "late commit neighbour"),
+                new SegmentedTextIndex.Doc(8, DAY2, "after the gap")));
+        index.commit(8);
+        assertEquals(Set.of(4L, 5L, 7L), index.getGaps());
+
+        // 提交较晚的 id=5 补读写入后可检索，位置不变
+        index.index(List.of(new SegmentedTextIndex.Doc(5, DAY2, "committed late")));
+        index.commit(index.getCursor());
+        assertEquals(8, index.getCursor());
+        assertEquals(Set.of(4L, 7L), index.getGaps());
+        assertEquals(Set.of(5L), index.search("committed", DAY2, DAY2, 100));
+
+        index.close();
+        index = new SegmentedTextIndex("test", directory);
+        index.open();
+        assertEquals(Set.of(4L, 7L), index.getGaps());
+
+        assertEquals(2, index.expireGaps(System.currentTimeMillis() + 1));
+        assertTrue(index.getGaps().isEmpty());
+    }
+
+    @Test
+    @DisplayName("超过跟踪长度的 id 空洞视为跳跃，不记为待补")
+    void shouldSkipLargeIdJumps() throws Exception {
+        index.close();
+        index = new SegmentedTextIndex("test", directory, 2);
+        index.open();
+        index.index(List.of(new SegmentedTextIndex.Doc(10, DAY2, "jump"),
+                new SegmentedTextIndex.Doc(12, DAY2, "small gap")));
+        index.commit(12);
+        assertEquals(Set.of(11L), index.getGaps());
+    }
+
+    @Test
+    @DisplayName("保留期清理整段删除早于指定日期的分段")
+    void shouldDropWholeSegments() throws Exception {
+        assertEquals(1, index.dropBefore(DAY2));
+
+        assertFalse(Files.exists(directory.resolve(DAY1.toString())));
+        assertTrue(index.search("admin", null, null, 100).isEmpty());
+        assertEquals(Set.of(3L), index.search("guest", null, null, 100));
+    }
+}
@@ -0,0 +1,172 @@
+package com.security.ailogsystem.service.timeline;
+
+import com.security.ailogsystem.dto.CursorSliceDTO;
+import com.security.ailogsystem.dto.UnifiedSecurityEventDTO;
+import com.security.ailogsystem.model.UnifiedSecurityEvent;
+import com.security.ailogsystem.repository.SparseFieldQuery;
+import com.security.ailogsystem.repository.UnifiedEventRepository;
+import com.security.ailogsystem.service.downsample.TimeBucket;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 实体调查时间线测试，并对实际执行的 SQL 做执行计划回归检查，确认走维度复合索引
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.security.ailogsystem.service.timeline.EventTimelineServiceTest$CapturingInspector")
+@ActiveProfiles("test")
+@Import({EventTimelineService.class, SparseFieldQuery.class})
+@DisplayName("实体调查时间线测试")
+class EventTimelineServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 5, 1, 0, 0);
+    private static final LocalDateTime END = BASE.plusDays(2);
+
+    @Autowired
+    private EventTimelineService timelineService;
+
+    @Autowired
+    private UnifiedEventRepository eventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // alice 在两天内每 30 分钟一条事件，每 4 条一条异常；其他实体作为干扰数据
+        for (int i = 0; i < 96; i++) {
+            eventRepository.save(event(BASE.plusMinutes(30L * i), "alice", "10.0.0.1", "192.168.1.10", i % 4 == 0));
+        }
+        for (int i = 0; i < 200; i++) {
+            eventRepository.save(event(BASE.plusMinutes(7L * i), "user-" + (i % 20), "10.0.1." + (i % 50),
+                    "192.168.2." + (i % 30), false));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("游标翻页返回时间倒序的完整时间线，首页附带分桶计数")
+    @SuppressWarnings("unchecked")
+    void shouldPageTimelineByCursor() {
+        Map<String, Object> first = timelineService.timeline(TimelineDimension.USER, "alice", BASE, END,
+                TimeBucket.HOUR, null, 40);
+
+        assertEquals(96L, first.get("totalEvents"));
+        assertEquals(24L, first.get("anomalyEvents"));
+        List<Map<String, Object>> buckets = (List<Map<String, Object>>) first.get("buckets");
+        assertEquals(48, buckets.size());
+        assertEquals("2026-05-01 00:00:00", buckets.get(0).get("time"));
+        assertEquals(2L, buckets.get(0).get("eventCount"));
+        assertEquals(1L, buckets.get(0).get("anomalyCount"));
+
+        List<UnifiedSecurityEventDTO> all = new ArrayList<>();
+        CursorSliceDTO<UnifiedSecurityEventDTO> page = (CursorSliceDTO<UnifiedSecurityEventDTO>) first.get("events");
+        all.addAll(page.getContent());
+        while (page.isHasNext()) {
+            Map<String, Object> next = timelineService.timeline(TimelineDimension.USER, "alice", BASE, END,
+                    TimeBucket.HOUR, page.getNextCursor(), 40);
+            assertFalse(next.containsKey("buckets"));
+            page = (CursorSliceDTO<UnifiedSecurityEventDTO>) next.get("events");
+            all.addAll(page.getContent());
+        }
+
+        assertEquals(96, all.size());
+        assertEquals(BASE.plusMinutes(30L * 95), all.get(0).getTimestamp());
+        assertEquals(BASE, all.get(95).getTimestamp());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getTimestamp().isAfter(all.get(i).getTimestamp()));
+        }
+
+        Map<String, Object> daily = timelineService.timeline(TimelineDimension.USER, "alice", BASE, END,
+                TimeBucket.DAY, null, 10);
+        assertEquals(2, ((List<?>) daily.get("buckets")).size());
+        assertThrows(IllegalArgumentException.class, () -> timelineService.timeline(TimelineDimension.USER, "alice",
+                BASE, BASE.plusDays(30), TimeBucket.MINUTE, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> TimelineDimension.of("process"));
+    }
+
+    @Test
+    @DisplayName("执行计划：时间线翻页、分桶计数和按用户计数都使用维度复合索引")
+    void shouldUseDimensionTimestampIndexes() {
+        assertPlansUse("IDX_USE_USER_TIMESTAMP", "alice", () -> {
+            timelineService.timeline(TimelineDimension.USER, "alice", BASE, END, TimeBucket.HOUR, null, 20);
+            eventRepository.countByUserIdAndTimestampBetween("alice", BASE, END);
+        });
+        assertPlansUse("IDX_USE_SOURCE_IP_TIMESTAMP", "10.0.0.1", () ->
+                timelineService.timeline(TimelineDimension.SOURCE_IP, "10.0.0.1", BASE, END, TimeBucket.HOUR, null, 20));
+        assertPlansUse("IDX_USE_HOST_TIMESTAMP", "192.168.1.10", () ->
+                timelineService.timeline(TimelineDimension.HOST, "192.168.1.10", BASE, END, TimeBucket.DAY, null, 20));
+    }
+
+    /**
+     * 执行 action，对其中按维度和时间范围过滤的语句（参数依次为实体、开始、结束时间和可能的行数上限）做 EXPLAIN
+     */
+    private void assertPlansUse(String index, String value, Runnable action) {
+        CapturingInspector.STATEMENTS.clear();
+        action.run();
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().contains(" between ") && !sql.toLowerCase().contains(" in ("))
+                .toList();
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            Object[] args = Arrays.copyOf(new Object[]{value, BASE, END, 21}, count(sql, '?'));
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+            assertTrue(plan.toUpperCase().contains(index), "未使用 " + index + ":\n" + plan);
+        }
+    }
+
+    private static int count(String sql, char c) {
+        return (int) sql.chars().filter(ch -> ch == c).count();
+    }
+
+    private static UnifiedSecurityEvent event(LocalDateTime timestamp, String userId, String sourceIp, String hostIp,
+                                              boolean anomaly) {
+        return UnifiedSecurityEvent.builder()
+                .timestamp(timestamp)
+                .sourceSystem("WINDOWS")
+                .eventType(anomaly ? "LOGIN_FAILURE" : "LOGIN_SUCCESS")
+                .category("AUTHENTICATION")
+                .severity(anomaly ? "HIGH" : "LOW")
+                .userId(userId)
+                .sourceIp(sourceIp)
+                .hostIp(hostIp)
+                .isAnomaly(anomaly)
+                .build();
+    }
+
+    /**
+     * 记录 Hibernate 实际执行的 SQL
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.security.ailogsystem.util;
+
+import com.security.ailogsystem.model.LogEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 键集（游标）分页测试
+ */
+@DisplayName("键集（游标）分页测试")
+class KeysetCursorTest {
+
+    private static List<LogEntry> rows(int count) {
+        List<LogEntry> rows = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        for (int i = 0; i < count; i++) {
+            rows.add(LogEntry.builder().id(100L - i).timestamp(base.minusSeconds(i / 2)).build());
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("多取的一条只用于判断是否有下一页")
+    void shouldTrimExtraRow() {
+        Slice<LogEntry> slice = KeysetCursor.slice(rows(KeysetCursor.fetchSize(5)), 5, "timestamp", Sort.Direction.DESC);
+
+        assertEquals(5, slice.getNumberOfElements());
+        assertTrue(slice.hasNext());
+        assertNotNull(KeysetCursor.next(slice, "timestamp", Sort.Direction.DESC));
+
+        Slice<LogEntry> last = KeysetCursor.slice(rows(3), 5, "timestamp", Sort.Direction.DESC);
+        assertFalse(last.hasNext());
+        assertNull(KeysetCursor.next(last, "timestamp", Sort.Direction.DESC));
+    }
+
+    @Test
+    @DisplayName("游标可被同一排序条件解析，排序条件不一致时拒绝")
+    void shouldDecodeOnlyWithSameSort() {
+        Slice<LogEntry> slice = KeysetCursor.slice(rows(6), 5, "timestamp", Sort.Direction.DESC);
+        String token = KeysetCursor.next(slice, "timestamp", Sort.Direction.DESC);
+
+        assertNotNull(KeysetCursor.decode(token, "timestamp", Sort.Direction.DESC));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursor.decode(token, "timestamp", Sort.Direction.ASC));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursor.decode(token, "createdAt", Sort.Direction.DESC));
+    }
+
+    @Test
+    @DisplayName("空游标表示第一页，无法解析的游标抛出参数异常")
+    void shouldHandleEmptyAndInvalidTokens() {
+        assertNull(KeysetCursor.decode(null, "timestamp", Sort.Direction.DESC));
+        assertNull(KeysetCursor.decode("", "timestamp", Sort.Direction.DESC));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursor.decode("not a cursor!", "timestamp", Sort.Direction.DESC));
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursor.decode("dGltZXN0YW1w", "timestamp", Sort.Direction.DESC));
+    }
+
+    @Test
+    @DisplayName("按 id 排序时不重复追加 id 次序")
+    void shouldAppendIdTiebreak() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "id")),
+                KeysetCursor.sort("timestamp", Sort.Direction.DESC));
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), KeysetCursor.sort("id", Sort.Direction.ASC));
+    }
+}
@@ -0,0 +1,93 @@
+package com.security.ailogsystem.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大文本字段压缩测试
+ */
+@DisplayName("大文本字段压缩测试")
+class PayloadCompressionTest {
+
+    private static final byte[] DICTIONARY = ("An account failed to log on.\nAccount Name:\nLogon Type:\n"
+            + "Source Network Address:\n\"eventCode\":\n").getBytes(StandardCharsets.UTF_8);
+
+    private final PayloadCompression original = PayloadCompression.current();
+
+    @AfterEach
+    void restore() {
+        PayloadCompression.install(original);
+    }
+
+    private static String windowsEvent(int i) {
+        return ("An account failed to log on.\r\n\r\nSubject:\r\n\tSecurity ID:\t\tS-1-0-0\r\n\tAccount Name:\t\tuser" + i
+                + "\r\n\tLogon Type:\t\t3\r\n\tSource Network Address:\t192.168.1." + i + "\r\n").repeat(8);
+    }
+
+    @Test
+    @DisplayName("超过阈值的文本压缩后可还原且体积变小")
+    void shouldRoundTripCompressedText() {
+        PayloadCompression compression = new PayloadCompression(true, 64, 6, null, Map.of());
+        String plain = windowsEvent(1);
+
+        String stored = compression.compressText(plain);
+        assertTrue(PayloadCompression.isCompressedText(stored));
+        assertTrue(stored.length() * 3 < plain.length(), "重复性文本至少压缩到三分之一");
+        assertEquals(plain, compression.decompressText(stored));
+    }
+
+    @Test
+    @DisplayName("短文本和历史明文原样存取")
+    void shouldKeepShortAndLegacyValues() {
+        PayloadCompression compression = new PayloadCompression(true, 64, 6, null, Map.of());
+        assertEquals("short", compression.compressText("short"));
+        assertNull(compression.compressText(null));
+        assertEquals("legacy plain row", compression.decompressText("legacy plain row"));
+        assertNull(compression.decompressText(null));
+    }
+
+    @Test
+    @DisplayName("使用字典压缩的值需要对应字典才能解压")
+    void shouldResolveDictionaryById() {
+        PayloadCompression withDictionary = new PayloadCompression(true, 64, 6, DICTIONARY, Map.of());
+        String stored = withDictionary.compressText(windowsEvent(2));
+        assertTrue(withDictionary.usesCurrentDictionary(stored));
+
+        PayloadCompression withoutDictionary = new PayloadCompression(true, 64, 6, null, Map.of());
+        assertThrows(IllegalArgumentException.class, () -> withoutDictionary.decompressText(stored));
+        assertFalse(withoutDictionary.usesCurrentDictionary(stored));
+
+        PayloadCompression rotated = new PayloadCompression(true, 64, 6, null,
+                Map.of(PayloadCompression.dictionaryId(DICTIONARY), DICTIONARY));
+        assertEquals(windowsEvent(2), rotated.decompressText(stored));
+    }
+
+    @Test
+    @DisplayName("禁用压缩后仍能读取已压缩的值")
+    void disabledShouldStillDecompress() {
+        String stored = new PayloadCompression(true, 64, 6, null, Map.of()).compressText(windowsEvent(3));
+        PayloadCompression disabled = new PayloadCompression(false, 64, 6, null, Map.of());
+        assertEquals(windowsEvent(3), disabled.decompressText(stored));
+        assertEquals(windowsEvent(3), disabled.compressText(windowsEvent(3)));
+    }
+
+    @Test
+    @DisplayName("JSON 列压缩值保持合法 JSON 并兼容 MySQL 规范化空白")
+    void jsonConverterShouldWrapCompressedValue() {
+        PayloadCompression.install(new PayloadCompression(true, 64, 6, null, Map.of()));
+        CompressedJsonConverter converter = new CompressedJsonConverter();
+        String json = "{\"processes\":[" + "{\"name\":\"svchost.exe\",\"pid\":1234,\"cpu_percent\":0.1},".repeat(20) + "{}]}";
+
+        String stored = converter.convertToDatabaseColumn(json);
+        assertTrue(stored.startsWith("{\"$z\":\"C1:"));
+        assertEquals(json, converter.convertToEntityAttribute(stored));
+        assertEquals(json, converter.convertToEntityAttribute(stored.replace("\":\"", "\": \"")));
+        assertEquals("{\"test\": \"data\"}", converter.convertToEntityAttribute("{\"test\": \"data\"}"));
+    }
+}
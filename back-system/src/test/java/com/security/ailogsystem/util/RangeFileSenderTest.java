@@ -0,0 +1,93 @@
+package com.security.ailogsystem.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Range 文件下载测试")
+class RangeFileSenderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(dir.resolve("export.csv"), "0123456789");
+    }
+
+    @Test
+    @DisplayName("无 Range 时返回完整文件，单个区间返回 206 和对应字节")
+    void shouldServeFullFileAndSingleRange() throws IOException {
+        MockHttpServletResponse full = send(null);
+        assertEquals(200, full.getStatus());
+        assertEquals("bytes", full.getHeader("Accept-Ranges"));
+        assertEquals("0123456789", full.getContentAsString());
+
+        MockHttpServletResponse range = send("bytes=2-5");
+        assertEquals(206, range.getStatus());
+        assertEquals("bytes 2-5/10", range.getHeader("Content-Range"));
+        assertEquals(4, range.getContentLengthLong());
+        assertEquals("2345", range.getContentAsString());
+
+        MockHttpServletResponse suffix = send("bytes=-3");
+        assertEquals("bytes 7-9/10", suffix.getHeader("Content-Range"));
+        assertEquals("789", suffix.getContentAsString());
+
+        MockHttpServletResponse resume = send("bytes=8-");
+        assertEquals("89", resume.getContentAsString());
+
+        MockHttpServletResponse multiple = send("bytes=0-1,4-5");
+        assertEquals(200, multiple.getStatus());
+        assertEquals("0123456789", multiple.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("无法满足的区间返回 416")
+    void shouldRejectUnsatisfiableRange() throws IOException {
+        MockHttpServletResponse beyond = send("bytes=10-");
+        assertEquals(416, beyond.getStatus());
+        assertEquals("bytes */10", beyond.getHeader("Content-Range"));
+        assertEquals("", beyond.getContentAsString());
+
+        assertEquals(416, send("items=0-1").getStatus());
+    }
+
+    @Test
+    @DisplayName("容器支持 sendfile 时只设置文件和区间，由容器发送")
+    void shouldDelegateToSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/export/jobs/1/download");
+        request.setAttribute(RangeFileSender.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=3-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        RangeFileSender.send(request, response, file);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(7, response.getContentLengthLong());
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(RangeFileSender.SENDFILE_FILENAME));
+        assertEquals(3L, request.getAttribute(RangeFileSender.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(RangeFileSender.SENDFILE_END));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletResponse send(String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/export/jobs/1/download");
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RangeFileSender.send(request, response, file);
+        return response;
+    }
+}
@@ -0,0 +1,117 @@
+package com.security.ailogsystem.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二进制负载编码协商测试
+ */
+@DisplayName("二进制负载编码协商测试")
+class BinaryEncodingNegotiatorTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CborMessageConverter().getObjectMapper();
+    private WebSocketPublishProperties properties;
+    private BinaryEncodingNegotiator negotiator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WebSocketPublishProperties();
+        negotiator = new BinaryEncodingNegotiator(properties);
+    }
+
+    @Test
+    @DisplayName("原生端点的会话协商后收到 CBOR 二进制帧，同一负载只转写一次")
+    void shouldEncodeNegotiatedSessions() throws Exception {
+        connect("s1", true, "cbor");
+        connect("s2", true, "CBOR");
+        assertEquals(2, negotiator.getSessionCount());
+
+        byte[] payload = json.writeValueAsBytes(Map.of("type", "ALERT", "data", Map.of("id", 7)));
+        Message<?> first = negotiator.preSend(message("s1", payload), null);
+        Message<?> second = negotiator.preSend(message("s2", payload), null);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(first);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        assertEquals(BinaryEncodingNegotiator.CBOR, accessor.getFirstNativeHeader(BinaryEncodingNegotiator.ENCODING_HEADER));
+        assertEquals("s1", accessor.getSessionId());
+        assertEquals(Map.of("type", "ALERT", "data", Map.of("id", 7)),
+                cbor.readValue((byte[]) first.getPayload(), Map.class));
+        assertSame(first.getPayload(), second.getPayload());
+    }
+
+    @Test
+    @DisplayName("SockJS 会话、未协商的会话和非 JSON 负载仍按原样发送")
+    void shouldFallBackToJson() throws Exception {
+        connect("sockjs", false, "cbor");
+        connect("plain", true, null);
+        connect("s1", true, "cbor");
+
+        byte[] payload = json.writeValueAsBytes(Map.of("n", 1));
+        for (String sessionId : new String[]{"sockjs", "plain", "unknown"}) {
+            Message<?> message = message(sessionId, payload);
+            assertSame(message, negotiator.preSend(message, null));
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setContentType(MimeTypeUtils.TEXT_PLAIN);
+        Message<?> text = MessageBuilder.createMessage("hello".getBytes(), accessor.getMessageHeaders());
+        assertSame(text, negotiator.preSend(text, null));
+    }
+
+    @Test
+    @DisplayName("关闭二进制编码时不协商，断开连接后移除会话")
+    void shouldHonourSwitchAndDisconnect() {
+        properties.setBinaryEncoding(false);
+        connect("s1", true, "cbor");
+        assertEquals(0, negotiator.getSessionCount());
+
+        properties.setBinaryEncoding(true);
+        connect("s1", true, "cbor");
+        assertEquals(1, negotiator.getSessionCount());
+
+        Message<byte[]> close = MessageBuilder.withPayload(new byte[0]).build();
+        negotiator.onDisconnect(new SessionDisconnectEvent(this, close, "s1", CloseStatus.NORMAL));
+        assertEquals(0, negotiator.getSessionCount());
+    }
+
+    private void connect(String sessionId, boolean nativeEndpoint, String encoding) {
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeEndpoint) {
+            assertTrue(negotiator.beforeHandshake(null, null, null, attributes));
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(attributes);
+        if (encoding != null) {
+            accessor.setNativeHeader(BinaryEncodingNegotiator.ENCODING_HEADER, encoding);
+        }
+        Message<byte[]> connect = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        assertSame(connect, negotiator.preSend(connect, null));
+    }
+
+    private static Message<byte[]> message(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/events");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
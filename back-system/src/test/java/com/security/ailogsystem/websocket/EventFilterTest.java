@@ -0,0 +1,52 @@
+package com.security.ailogsystem.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订阅过滤条件测试
+ */
+@DisplayName("订阅过滤条件测试")
+class EventFilterTest {
+
+    private static final EventAttributes HIGH_WEB01 = new EventAttributes("LOG", "HIGH", "windows", "WEB-01", "4625");
+
+    @Test
+    @DisplayName("多个条件之间为且，同一条件的多个取值为或，不区分大小写")
+    void shouldCombineClauses() {
+        EventFilter filter = EventFilter.parse("severity>=high; sourceSystem=WINDOWS; host=web-01,web-02");
+
+        assertTrue(filter.test(HIGH_WEB01));
+        assertTrue(filter.test(new EventAttributes("ALERT", "CRITICAL", "WINDOWS", "web-02", "BRUTE_FORCE")));
+        assertFalse(filter.test(new EventAttributes("LOG", "MEDIUM", "WINDOWS", "web-01", "4625")));
+        assertFalse(filter.test(new EventAttributes("LOG", "HIGH", "LINUX", "web-01", "4625")));
+        assertFalse(filter.test(new EventAttributes("LOG", "HIGH", "WINDOWS", null, "4625")));
+    }
+
+    @Test
+    @DisplayName("按选择性最高的字段建立索引，severity>= 展开为各个级别")
+    void shouldPickMostSelectiveField() {
+        EventFilter filter = EventFilter.parse("type=ALERT;severity>=HIGH;eventType=4625,4624");
+
+        assertEquals(EventFilter.Field.EVENT_TYPE, filter.indexField());
+        assertEquals(Set.of("4625", "4624"), filter.values(EventFilter.Field.EVENT_TYPE));
+        assertEquals(Set.of("HIGH", "CRITICAL"), filter.values(EventFilter.Field.SEVERITY));
+        assertNull(EventFilter.parse(" ").indexField());
+        assertTrue(EventFilter.parse("").test(EventAttributes.of("STATS")));
+    }
+
+    @Test
+    @DisplayName("无效的字段、级别和运算符被拒绝")
+    void shouldRejectInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("user=admin"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("severity>=URGENT"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("host>=web-01"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("host=web-01;host=web-02"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("severity"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("eventType=,"));
+    }
+}
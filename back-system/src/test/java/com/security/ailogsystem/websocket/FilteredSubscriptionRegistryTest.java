@@ -0,0 +1,99 @@
+package com.security.ailogsystem.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 过滤订阅注册表测试
+ */
+@DisplayName("过滤订阅注册表测试")
+class FilteredSubscriptionRegistryTest {
+
+    private static final String TOPIC = "/topic/events";
+
+    private final FilteredSubscriptionRegistry registry = new FilteredSubscriptionRegistry();
+
+    @Test
+    @DisplayName("带 filter 头的订阅被登记且不交给消息代理，普通订阅原样放行")
+    void shouldInterceptFilteredSubscribe() {
+        assertNull(registry.preSend(subscribe("s1", "sub-0", TOPIC, "severity>=HIGH"), null));
+        Message<?> plain = subscribe("s1", "sub-1", TOPIC, null);
+        assertSame(plain, registry.preSend(plain, null));
+        Message<?> queue = subscribe("s1", "sub-2", "/queue/events", "severity>=HIGH");
+        assertSame(queue, registry.preSend(queue, null));
+
+        assertTrue(registry.hasSubscriptions(TOPIC));
+        assertEquals(1, registry.size());
+
+        assertThrows(MessageDeliveryException.class,
+                () -> registry.preSend(subscribe("s1", "sub-3", TOPIC, "severity>=URGENT"), null));
+    }
+
+    @Test
+    @DisplayName("只返回条件匹配的订阅")
+    void shouldMatchByIndex() {
+        register("s1", "host=web-01;severity>=HIGH");
+        register("s2", "eventType=4625");
+        register("s3", "severity=CRITICAL");
+        register("s4", "");
+
+        assertEquals(List.of("s4", "s1", "s2"),
+                sessions(new EventAttributes("LOG", "HIGH", "WINDOWS", "web-01", "4625")));
+        assertEquals(List.of("s4", "s3"),
+                sessions(new EventAttributes("ALERT", "CRITICAL", null, "web-02", "BRUTE_FORCE")));
+        assertEquals(List.of("s4"), sessions(EventAttributes.of("STATS")));
+    }
+
+    @Test
+    @DisplayName("退订和断开连接后不再路由")
+    void shouldUnregister() {
+        register("s1", "severity>=LOW");
+        register("s2", "severity>=LOW");
+
+        registry.preSend(unsubscribe("s1", "sub-s1"), null);
+        assertEquals(List.of("s2"), sessions(new EventAttributes("LOG", "LOW", null, null, null)));
+
+        registry.unregisterSession("s2");
+        assertFalse(registry.hasSubscriptions(TOPIC));
+        assertEquals(0, registry.size());
+    }
+
+    private void register(String sessionId, String filter) {
+        registry.register(new FilteredSubscriptionRegistry.Subscription(sessionId, "sub-" + sessionId, TOPIC,
+                EventFilter.parse(filter)));
+    }
+
+    private List<String> sessions(EventAttributes attributes) {
+        return registry.match(TOPIC, attributes).stream()
+                .map(FilteredSubscriptionRegistry.Subscription::sessionId)
+                .toList();
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination,
+                                             String filter) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        if (filter != null) {
+            accessor.setNativeHeader(FilteredSubscriptionRegistry.FILTER_HEADER, filter);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
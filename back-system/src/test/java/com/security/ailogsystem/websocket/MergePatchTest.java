@@ -0,0 +1,71 @@
+package com.security.ailogsystem.websocket;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Merge Patch 差量测试
+ */
+@DisplayName("仪表板状态差量测试")
+class MergePatchTest {
+
+    @Test
+    @DisplayName("只包含变化的字段，嵌套对象递归比较")
+    void shouldContainChangedFieldsOnly() {
+        Map<String, Object> previous = Map.of(
+                "totalEvents", 100L,
+                "anomalyCount", 3L,
+                "severityCounts", Map.of("HIGH", 10L, "LOW", 90L));
+        Map<String, Object> next = Map.of(
+                "totalEvents", 101L,
+                "anomalyCount", 3L,
+                "severityCounts", Map.of("HIGH", 11L, "LOW", 90L));
+
+        assertEquals(Map.of("totalEvents", 101L, "severityCounts", Map.of("HIGH", 11L)),
+                MergePatch.diff(previous, next));
+        assertTrue(MergePatch.diff(next, next).isEmpty());
+    }
+
+    @Test
+    @DisplayName("被删除的字段取值为 null，新增字段完整给出")
+    void shouldMarkRemovedFieldsWithNull() {
+        Map<String, Object> previous = Map.of("dailyCounts", Map.of("2026-10-10", 5L, "2026-10-17", 8L));
+        Map<String, Object> next = Map.of("dailyCounts", Map.of("2026-10-17", 8L, "2026-10-18", 1L),
+                "totalAlerts", 2L);
+
+        Map<String, Object> expectedDaily = new HashMap<>();
+        expectedDaily.put("2026-10-10", null);
+        expectedDaily.put("2026-10-18", 1L);
+        assertEquals(Map.of("dailyCounts", expectedDaily, "totalAlerts", 2L), MergePatch.diff(previous, next));
+    }
+
+    @Test
+    @DisplayName("按补丁合并后得到新状态")
+    void shouldRoundTrip() {
+        Map<String, Object> previous = Map.of("a", 1L, "b", Map.of("x", 1L, "y", 2L), "c", "gone");
+        Map<String, Object> next = Map.of("a", 1L, "b", Map.of("x", 3L), "d", Map.of("z", 4L));
+
+        assertEquals(next, apply(previous, MergePatch.diff(previous, next)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> apply(Map<String, Object> target, Map<String, Object> patch) {
+        Map<String, Object> result = new LinkedHashMap<>(target);
+        patch.forEach((key, value) -> {
+            if (value == null) {
+                result.remove(key);
+            } else if (value instanceof Map<?, ?> nested && result.get(key) instanceof Map<?, ?> current) {
+                result.put(key, apply((Map<String, Object>) current, (Map<String, Object>) nested));
+            } else {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package com.security.ailogsystem.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.security.ailogsystem.entity.SecurityLog;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送负载编码测试，并对 LOG / ALERT / STATS 及 BATCH 帧比较 JSON 与 CBOR 的序列化大小和编码耗时；
+ * 计时部分标记为 benchmark，默认不运行，用 mvn test -Pbenchmark 单独运行
+ */
+@Slf4j
+@DisplayName("推送负载编码测试")
+class PayloadEncodingBenchmarkTest {
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final CborMessageConverter converter = new CborMessageConverter();
+    private final ObjectMapper cbor = converter.getObjectMapper();
+
+    @Test
+    @DisplayName("JSON 转写的 CBOR 与直接编码的 CBOR 解码后与 JSON 内容一致")
+    void shouldRoundTrip() throws IOException {
+        for (Map<String, Object> envelope : List.of(logEvent(1), alertEvent(1), statsEvent(), batch(20))) {
+            byte[] encoded = json.writeValueAsBytes(envelope);
+            Map<?, ?> expected = json.readValue(encoded, Map.class);
+
+            assertEquals(expected, cbor.readValue(converter.transcode(encoded), Map.class));
+            assertEquals(expected, cbor.readValue(cbor.writeValueAsBytes(envelope), Map.class));
+        }
+    }
+
+    @Test
+    @DisplayName("LOG / ALERT / STATS / BATCH：CBOR 负载小于 JSON")
+    void shouldEncodeSmallerThanJson() throws IOException {
+        for (Map.Entry<String, Map<String, Object>> entry : payloads().entrySet()) {
+            Map<String, Object> envelope = entry.getValue();
+            byte[] jsonBytes = json.writeValueAsBytes(envelope);
+            byte[] cborBytes = cbor.writeValueAsBytes(envelope);
+            byte[] transcoded = converter.transcode(jsonBytes);
+
+            assertTrue(cborBytes.length < jsonBytes.length,
+                    entry.getKey() + " CBOR " + cborBytes.length + " 字节，JSON " + jsonBytes.length + " 字节");
+            assertTrue(transcoded.length < jsonBytes.length,
+                    entry.getKey() + " 转写 CBOR " + transcoded.length + " 字节，JSON " + jsonBytes.length + " 字节");
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("LOG / ALERT / STATS / BATCH：JSON、CBOR 与 JSON 转写 CBOR 的大小和编码耗时")
+    void benchmarkPayloadEncoding() throws IOException {
+        for (Map.Entry<String, Map<String, Object>> entry : payloads().entrySet()) {
+            Map<String, Object> envelope = entry.getValue();
+            byte[] jsonBytes = json.writeValueAsBytes(envelope);
+            byte[] cborBytes = cbor.writeValueAsBytes(envelope);
+            byte[] transcoded = converter.transcode(jsonBytes);
+
+            double jsonNanos = measure(() -> json.writeValueAsBytes(envelope));
+            double cborNanos = measure(() -> cbor.writeValueAsBytes(envelope));
+            double transcodeNanos = measure(() -> converter.transcode(jsonBytes));
+
+            log.info("{} JSON: {} B, {} ns; CBOR: {} B ({}%), {} ns; JSON 转写 CBOR: {} B, {} ns",
+                    entry.getKey(), jsonBytes.length, Math.round(jsonNanos), cborBytes.length,
+                    Math.round(100.0 * cborBytes.length / jsonBytes.length), Math.round(cborNanos),
+                    transcoded.length, Math.round(transcodeNanos));
+        }
+    }
+
+    private static Map<String, Map<String, Object>> payloads() {
+        Map<String, Map<String, Object>> payloads = new TreeMap<>();
+        payloads.put("LOG", logEvent(1));
+        payloads.put("ALERT", alertEvent(1));
+        payloads.put("STATS", statsEvent());
+        payloads.put("BATCH(50 LOG)", batch(50));
+        return payloads;
+    }
+
+    /**
+     * 预热后多轮执行，返回单次编码的平均耗时（纳秒）
+     */
+    private double measure(Encoder encoder) throws IOException {
+        int iterations = 2000;
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(encoder.encode());
+        }
+        int rounds = 20;
+        long elapsed = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < iterations; j++) {
+                encoder.encode();
+            }
+            elapsed += System.nanoTime() - start;
+        }
+        return (double) elapsed / rounds / iterations;
+    }
+
+    private interface Encoder {
+        byte[] encode() throws IOException;
+    }
+
+    /**
+     * 与 WebSocketServiceImpl.sendLog 相同的负载
+     */
+    private static Map<String, Object> logEvent(long id) {
+        SecurityLog log = new SecurityLog();
+        log.setId(id);
+        log.setEventId(4625);
+        log.setEventTime(LocalDateTime.of(2026, 10, 18, 9, 30, 15));
+        log.setComputerName("WEB-SERVER-01");
+        log.setSourceName("Microsoft-Windows-Security-Auditing");
+        log.setUserSid("S-1-5-21-3623811015-3361044348-30300820-1013");
+        log.setUserName("administrator");
+        log.setIpAddress("192.168.10." + (id % 250));
+        log.setLogonType(3);
+        log.setResultCode(0xC000006D);
+        log.setSource("Security");
+        log.setRawMessage("An account failed to log on. Failure Reason: Unknown user name or bad password.");
+        log.setThreatLevel("HIGH");
+        log.setCreatedTime(LocalDateTime.of(2026, 10, 18, 9, 30, 16));
+        Map<String, Object> data = new HashMap<>();
+        data.put("log", log);
+        return envelope("LOG", data);
+    }
+
+    /**
+     * 与 WebSocketServiceImpl.sendAlert 相同的负载
+     */
+    private static Map<String, Object> alertEvent(long id) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", id);
+        data.put("alertLevel", "CRITICAL");
+        data.put("alertType", "BRUTE_FORCE");
+        data.put("description", "同一来源 5 分钟内登录失败 37 次");
+        data.put("createdTime", LocalDateTime.of(2026, 10, 18, 9, 31, 0));
+        data.put("eventId", 4625);
+        data.put("source", "Microsoft-Windows-Security-Auditing");
+        data.put("computerName", "WEB-SERVER-01");
+        return envelope("ALERT", data);
+    }
+
+    /**
+     * 与仪表板聚合状态相同结构的统计负载
+     */
+    private static Map<String, Object> statsEvent() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("totalEvents", 1_284_311L);
+        data.put("todayEvents", 18_422L);
+        data.put("anomalyCount", 312L);
+        data.put("severityCounts", new TreeMap<>(Map.of("LOW", 15_000L, "MEDIUM", 2_800L, "HIGH", 560L, "CRITICAL", 62L)));
+        data.put("threatLevelCounts", new TreeMap<>(Map.of("LOW", 16_100L, "MEDIUM", 1_900L, "HIGH", 400L, "CRITICAL", 22L)));
+        Map<String, Object> daily = new TreeMap<>();
+        for (int day = 1; day <= 7; day++) {
+            daily.put("2026-10-1" + day, 15_000L + day * 431L);
+        }
+        data.put("dailyCounts", daily);
+        data.put("totalAlerts", 942L);
+        data.put("unhandledAlerts", 37L);
+        return envelope("STATS", data);
+    }
+
+    private static Map<String, Object> batch(int size) {
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            events.add(logEvent(i));
+        }
+        return envelope(TopicPublisher.BATCH, Map.of("events", events));
+    }
+
+    private static Map<String, Object> envelope(String type, Map<String, Object> data) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("id", UUID.randomUUID().toString());
+        message.put("type", type);
+        message.put("data", data);
+        message.put("ts", System.currentTimeMillis());
+        return message;
+    }
+}
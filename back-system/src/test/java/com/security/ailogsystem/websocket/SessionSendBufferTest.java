@@ -0,0 +1,91 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话发送缓冲测试
+ */
+@DisplayName("WebSocket 会话发送缓冲测试")
+class SessionSendBufferTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Object> received = new ArrayList<>();
+    private SessionSendBuffer buffer;
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        WebSocketPublishProperties properties = new WebSocketPublishProperties();
+        properties.setSessionBufferSize(2);
+        buffer = new SessionSendBuffer(properties);
+        channel = new ExecutorSubscribableChannel(tasks::add);
+        channel.subscribe(message -> received.add(message.getPayload()));
+        channel.addInterceptor(buffer);
+    }
+
+    @Test
+    @DisplayName("同一会话只有一条消息在发送，缓冲满时丢弃最旧的消息")
+    void shouldQueuePerSessionAndDropOldest() {
+        for (int i = 1; i <= 5; i++) {
+            channel.send(message("s1", SimpMessageType.MESSAGE, i));
+        }
+
+        assertEquals(1, tasks.size());
+        assertEquals(2, buffer.getDropped());
+        assertEquals(2, buffer.getPending());
+
+        runAll();
+
+        assertEquals(List.of(1, 4, 5), received);
+        assertEquals(0, buffer.getPending());
+    }
+
+    @Test
+    @DisplayName("慢会话不影响其他会话")
+    void shouldNotBlockOtherSessions() {
+        channel.send(message("slow", SimpMessageType.MESSAGE, 1));
+        channel.send(message("slow", SimpMessageType.MESSAGE, 2));
+        channel.send(message("fast", SimpMessageType.MESSAGE, 3));
+
+        assertEquals(2, tasks.size());
+        assertEquals(1, buffer.getPending());
+        runAll();
+        assertEquals(List.of(1, 3, 2), received);
+    }
+
+    @Test
+    @DisplayName("心跳等控制帧不经过缓冲")
+    void shouldPassThroughControlFrames() {
+        channel.send(message("s1", SimpMessageType.MESSAGE, 1));
+        channel.send(message("s1", SimpMessageType.HEARTBEAT, 2));
+        channel.send(message("s1", SimpMessageType.DISCONNECT_ACK, 3));
+
+        assertEquals(3, tasks.size());
+        assertEquals(0, buffer.getPending());
+    }
+
+    private void runAll() {
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).run();
+        }
+    }
+
+    private static Message<Object> message(String sessionId, SimpMessageType type, Object payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
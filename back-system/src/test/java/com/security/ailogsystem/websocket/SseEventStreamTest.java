@@ -0,0 +1,132 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.SseStreamProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SSE 实时事件流测试
+ */
+@DisplayName("SSE 实时事件流测试")
+class SseEventStreamTest {
+
+    private SseStreamProperties properties;
+    private SseEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SseStreamProperties();
+        properties.setReplaySize(3);
+        stream = new SseEventStream(properties, "b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.destroy();
+    }
+
+    @Test
+    @DisplayName("按游标补发缓冲中的事件，ID 单调递增")
+    void shouldReplayAfterCursor() {
+        append(5);
+        SseEventStream.Client client = stream.new Client(new SseEmitter(), null);
+        client.cursor = 3;
+
+        assertEquals(List.of(4L, 5L), ids(stream.after(client)));
+        assertFalse(client.reset);
+        assertEquals(5, stream.lastId());
+    }
+
+    @Test
+    @DisplayName("所需事件已被覆盖或服务已重启时标记 reset，从最早的事件开始")
+    void shouldResetWhenCursorIsOutOfRange() {
+        append(5);
+        SseEventStream.Client evicted = stream.new Client(new SseEmitter(), null);
+        evicted.cursor = 1;
+        assertEquals(List.of(3L, 4L, 5L), ids(stream.after(evicted)));
+        assertTrue(evicted.reset);
+
+        SseEventStream.Client restarted = stream.new Client(new SseEmitter(), null);
+        restarted.cursor = 42;
+        assertEquals(List.of(3L, 4L, 5L), ids(stream.after(restarted)));
+        assertTrue(restarted.reset);
+    }
+
+    @Test
+    @DisplayName("事件 ID 带启动纪元，同一启动的 ID 按序号续传")
+    void shouldResumeWithinSameEpoch() {
+        append(5);
+        SseEventStream.Client client = stream.new Client(new SseEmitter(), null);
+        client.cursor = stream.resumeFrom(stream.eventId(3));
+
+        assertEquals("b-3", stream.eventId(3));
+        assertEquals(List.of(4L, 5L), ids(stream.after(client)));
+        assertFalse(client.reset);
+        assertEquals(5, stream.resumeFrom(null));
+    }
+
+    @Test
+    @DisplayName("服务重启后序号不超过当前序号的旧 ID 也标记 reset")
+    void shouldResetOnIdFromPreviousBoot() {
+        SseEventStream previous = new SseEventStream(properties, "a");
+        String lastEventId = previous.eventId(4);
+        previous.destroy();
+        append(5);
+
+        for (String id : List.of(lastEventId, "4", "b-x", "-4")) {
+            SseEventStream.Client client = stream.new Client(new SseEmitter(), null);
+            client.cursor = stream.resumeFrom(id);
+            assertEquals(List.of(3L, 4L, 5L), ids(stream.after(client)), id);
+            assertTrue(client.reset, id);
+        }
+    }
+
+    @Test
+    @DisplayName("普通连接只收广播事件，过滤连接只收匹配的逐条事件")
+    void shouldSelectEventsByFilter() {
+        List<TopicPublisher.Pending> events = List.of(
+                new TopicPublisher.Pending(Map.of("type", "LOG"), EventAttributes.of("LOG"), true, false),
+                new TopicPublisher.Pending(Map.of("type", "LOG"),
+                        new EventAttributes("LOG", "HIGH", "WINDOWS", "web-01", "4625"), false, true),
+                new TopicPublisher.Pending(Map.of("type", "LOG"),
+                        new EventAttributes("LOG", "LOW", "WINDOWS", "web-01", "4624"), false, true));
+        stream.append(SseEventStream.DESTINATION, events);
+        stream.append("/topic/other", events);
+
+        SseEventStream.Client plain = stream.new Client(new SseEmitter(), null);
+        SseEventStream.Client filtered = stream.new Client(new SseEmitter(), EventFilter.parse("severity>=HIGH"));
+        List<SseEventStream.LiveEvent> all = stream.after(plain);
+
+        assertEquals(3, all.size());
+        assertEquals(List.of(1L), ids(all.stream().filter(plain::accepts).toList()));
+        assertEquals(List.of(2L), ids(all.stream().filter(filtered::accepts).toList()));
+        assertFalse(stream.matchesFilteredClient(SseEventStream.DESTINATION, events.get(1).attributes()));
+
+        stream.subscribe(EventFilter.parse("severity>=HIGH"), null);
+        assertTrue(stream.matchesFilteredClient(SseEventStream.DESTINATION, events.get(1).attributes()));
+        assertFalse(stream.matchesFilteredClient(SseEventStream.DESTINATION, events.get(2).attributes()));
+        assertFalse(stream.matchesFilteredClient("/topic/other", events.get(1).attributes()));
+    }
+
+    private void append(int count) {
+        List<TopicPublisher.Pending> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new TopicPublisher.Pending(Map.of("type", "ALERT", "n", i), EventAttributes.of("ALERT"),
+                    true, true));
+        }
+        stream.append(SseEventStream.DESTINATION, events);
+    }
+
+    private static List<Long> ids(List<SseEventStream.LiveEvent> events) {
+        return events.stream().map(SseEventStream.LiveEvent::id).toList();
+    }
+}
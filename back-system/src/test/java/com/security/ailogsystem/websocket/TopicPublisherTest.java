@@ -0,0 +1,216 @@
+package com.security.ailogsystem.websocket;
+
+import com.security.ailogsystem.config.SseStreamProperties;
+import com.security.ailogsystem.config.WebSocketPublishProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 广播发布层测试
+ */
+@DisplayName("WebSocket 广播发布层测试")
+class TopicPublisherTest {
+
+    private static final String TOPIC = "/topic/events";
+
+    private final List<Message<?>> sent = new ArrayList<>();
+    private final List<Message<?>> routed = new ArrayList<>();
+    private WebSocketPublishProperties properties;
+    private FilteredSubscriptionRegistry subscriptions;
+    private SseEventStream sseEventStream;
+    private TopicPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WebSocketPublishProperties();
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> sent.add(message));
+        template.setMessageConverter(new SimpleMessageConverter());
+        subscriptions = new FilteredSubscriptionRegistry();
+        sseEventStream = new SseEventStream(new SseStreamProperties());
+        publisher = new TopicPublisher(template, (message, timeout) -> routed.add(message), subscriptions,
+                sseEventStream, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.destroy();
+        sseEventStream.destroy();
+    }
+
+    @Test
+    @DisplayName("窗口内的多个事件合并为一个 BATCH 帧，单个事件原样发送")
+    void shouldCoalesceEventsPerWindow() {
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(TOPIC, "ALERT", Map.of("n", i));
+        }
+        publisher.flush(0);
+
+        assertEquals(1, sent.size());
+        Map<String, Object> frame = payload(0);
+        assertEquals(TopicPublisher.BATCH, frame.get("type"));
+        assertEquals(List.of(0, 1, 2), events(frame).stream().map(e -> data(e).get("n")).toList());
+
+        publisher.publish(TOPIC, "NOTIFICATION", Map.of("message", "hello"));
+        publisher.flush(100);
+        publisher.flush(200);
+
+        assertEquals(2, sent.size());
+        assertEquals("NOTIFICATION", payload(1).get("type"));
+    }
+
+    @Test
+    @DisplayName("统计快照只保留最新值，发送时才计算，每个间隔最多一次")
+    void shouldConflateSnapshots() {
+        AtomicInteger queries = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            publisher.publishLatest(TOPIC, "STATS", () -> Map.of("query", queries.incrementAndGet()));
+        }
+        publisher.publish(TOPIC, "STATS", Map.of("total", 1));
+        publisher.flush(0);
+
+        assertEquals(1, sent.size());
+        assertEquals(Map.of("total", 1), data(payload(0)));
+        assertEquals(0, queries.get());
+
+        publisher.publishLatest(TOPIC, "STATS", () -> Map.of("query", queries.incrementAndGet()));
+        publisher.flush(500);
+        assertEquals(1, sent.size());
+
+        publisher.flush(1000);
+        assertEquals(2, sent.size());
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    @DisplayName("超过速率的事件顺延到后续窗口，积压超过上限时丢弃最旧的事件")
+    void shouldRateLimitAndDropOldest() {
+        properties.setMaxEventsPerSecond(100);
+        properties.setMaxPending(15);
+        for (int i = 0; i < 20; i++) {
+            publisher.publish(TOPIC, "ALERT", Map.of("n", i));
+        }
+        assertEquals(5, publisher.getDropped());
+
+        publisher.flush(0);
+        publisher.flush(100);
+        publisher.flush(200);
+
+        assertEquals(2, sent.size());
+        assertEquals(List.of(5, 6, 7, 8, 9, 10, 11, 12, 13, 14),
+                events(payload(0)).stream().map(e -> data(e).get("n")).toList());
+        assertEquals(List.of(15, 16, 17, 18, 19),
+                events(payload(1)).stream().map(e -> data(e).get("n")).toList());
+    }
+
+    @Test
+    @DisplayName("过滤订阅只收到匹配的事件，汇总事件只发给普通订阅")
+    void shouldRouteToFilteredSubscriptions() {
+        subscriptions.register(new FilteredSubscriptionRegistry.Subscription("s1", "sub-0", TOPIC,
+                EventFilter.parse("severity>=HIGH")));
+
+        publisher.publish(TOPIC, "LOG", Map.of("n", 1), new EventAttributes("LOG", "HIGH", "WINDOWS", "web-01", "4625"));
+        publisher.publish(TOPIC, "LOG", Map.of("n", 2), new EventAttributes("LOG", "LOW", "WINDOWS", "web-01", "4624"));
+        publisher.publishBroadcast(TOPIC, "LOG", Map.of("count", 2));
+        publisher.publishFiltered(TOPIC, "LOG", Map.of("n", 3), new EventAttributes("LOG", "CRITICAL", null, null, null));
+        publisher.publishFiltered("/topic/other", "LOG", Map.of("n", 4), EventAttributes.of("LOG"));
+        publisher.flush(0);
+
+        assertEquals(1, sent.size());
+        assertEquals(List.of(Map.of("n", 1), Map.of("n", 2), Map.of("count", 2)),
+                events(payload(0)).stream().map(TopicPublisherTest::data).toList());
+
+        assertEquals(1, routed.size());
+        Message<?> message = routed.get(0);
+        assertEquals("s1", SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        assertEquals("sub-0", SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+        assertEquals(TOPIC, SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> frame = (Map<String, Object>) message.getPayload();
+        assertEquals(List.of(Map.of("n", 1), Map.of("n", 3)),
+                events(frame).stream().map(TopicPublisherTest::data).toList());
+        // 没有 SSE 过滤连接时逐条事件不进入 SSE 缓冲
+        assertEquals(3, sseEventStream.lastId());
+    }
+
+    @Test
+    @DisplayName("逐条事件发布时匹配，未匹配的不入队；匹配的单独排队限速，不挤占广播事件")
+    void shouldQueueFilteredEventsSeparately() {
+        properties.setMaxPending(5);
+        properties.setFilteredMaxPending(3);
+        properties.setFilteredMaxEventsPerSecond(10);
+        subscriptions.register(new FilteredSubscriptionRegistry.Subscription("s1", "sub-0", TOPIC,
+                EventFilter.parse("severity>=HIGH")));
+
+        for (int i = 0; i < 100; i++) {
+            publisher.publishFiltered(TOPIC, "LOG", Map.of("n", i), new EventAttributes("LOG", "LOW", null, null, null));
+        }
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(TOPIC, "ALERT", Map.of("n", i));
+            publisher.publishFiltered(TOPIC, "LOG", Map.of("n", i), new EventAttributes("LOG", "HIGH", null, null, null));
+        }
+        assertEquals(0, publisher.getDropped());
+        assertEquals(2, publisher.getFilteredDropped());
+
+        publisher.flush(0);
+        assertEquals(1, sent.size());
+        assertEquals(List.of(0, 1, 2, 3, 4), events(payload(0)).stream().map(e -> data(e).get("n")).toList());
+        // 过滤事件每秒 10 个，每个窗口 1 个
+        assertEquals(1, routed.size());
+        assertEquals(Map.of("n", 2), routedData(0));
+
+        publisher.flush(100);
+        publisher.flush(200);
+        publisher.flush(300);
+        assertEquals(1, sent.size());
+        assertEquals(3, routed.size());
+        assertEquals(Map.of("n", 3), routedData(1));
+        assertEquals(Map.of("n", 4), routedData(2));
+    }
+
+    @Test
+    @DisplayName("只有 SSE 过滤连接匹配的逐条事件才追加到 SSE 缓冲")
+    void shouldAppendOnlyEventsMatchingSseFilters() {
+        sseEventStream.subscribe(EventFilter.parse("host=web-01"), null);
+
+        publisher.publishFiltered(TOPIC, "LOG", Map.of("n", 1), new EventAttributes("LOG", "LOW", null, "web-01", null));
+        publisher.publishFiltered(TOPIC, "LOG", Map.of("n", 2), new EventAttributes("LOG", "LOW", null, "web-02", null));
+        publisher.flush(0);
+
+        assertEquals(1, sseEventStream.lastId());
+        assertTrue(sent.isEmpty());
+        assertTrue(routed.isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> routedData(int index) {
+        return data((Map<String, Object>) routed.get(index).getPayload());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> payload(int index) {
+        return (Map<String, Object>) sent.get(index).getPayload();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> events(Map<String, Object> frame) {
+        return (List<Map<String, Object>>) data(frame).get("events");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> event) {
+        return (Map<String, Object>) event.get("data");
+    }
+}